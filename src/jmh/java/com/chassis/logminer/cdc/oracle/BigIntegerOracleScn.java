@@ -0,0 +1,84 @@
+package com.chassis.logminer.cdc.oracle;
+
+import java.math.BigInteger;
+import java.util.Objects;
+
+/**
+ * The previous BigInteger-backed {@link OracleScn}, kept as the baseline for {@link OracleScnBenchmark}.
+ */
+final class BigIntegerOracleScn implements Comparable<BigIntegerOracleScn> {
+
+    static final BigIntegerOracleScn NULL = new BigIntegerOracleScn(null);
+
+    private final BigInteger scn;
+
+    BigIntegerOracleScn(BigInteger scn) {
+        this.scn = scn;
+    }
+
+    boolean isNull() {
+        return this.scn == null;
+    }
+
+    static BigIntegerOracleScn valueOf(long value) {
+        return new BigIntegerOracleScn(BigInteger.valueOf(value));
+    }
+
+    static BigIntegerOracleScn valueOf(String value) {
+        return new BigIntegerOracleScn(new BigInteger(value));
+    }
+
+    long longValue() {
+        return isNull() ? 0 : scn.longValue();
+    }
+
+    BigIntegerOracleScn add(BigIntegerOracleScn value) {
+        if (isNull() && value.isNull()) {
+            return NULL;
+        } else if (value.isNull()) {
+            return new BigIntegerOracleScn(scn);
+        } else if (isNull()) {
+            return new BigIntegerOracleScn(value.scn);
+        }
+        return new BigIntegerOracleScn(scn.add(value.scn));
+    }
+
+    BigIntegerOracleScn subtract(BigIntegerOracleScn value) {
+        if (isNull() && value.isNull()) {
+            return NULL;
+        } else if (value.isNull()) {
+            return new BigIntegerOracleScn(scn);
+        } else if (isNull()) {
+            return new BigIntegerOracleScn(value.scn.negate());
+        }
+        return new BigIntegerOracleScn(scn.subtract(value.scn));
+    }
+
+    @Override
+    public int compareTo(BigIntegerOracleScn o) {
+        if (isNull() && o.isNull()) {
+            return 0;
+        } else if (isNull()) {
+            return -1;
+        } else if (o.isNull()) {
+            return 1;
+        }
+        return scn.compareTo(o.scn);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return Objects.equals(scn, ((BigIntegerOracleScn) o).scn);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(scn);
+    }
+}
@@ -0,0 +1,108 @@
+package com.chassis.logminer.cdc.oracle;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parsing of realistic LogMiner {@code SQL_REDO} statements for a 12 column table, with supplemental logging
+ * of all columns so updates and deletes carry the full before image.
+ * <p>
+ * {@code regexInsert} is a typical regex based split of the same insert, as a baseline. Run with
+ * {@code ./gradlew jmh}, compare the allocation rate with {@code -prof gc}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OracleRedoParserBenchmark {
+
+    private static final String INSERT =
+            "insert into \"C##CRUDUSER\".\"ORDERS\"(\"ORDER_ID\",\"CUSTOMER_ID\",\"STATUS\",\"AMOUNT\",\"CURRENCY\"," +
+            "\"CREATED_AT\",\"UPDATED_AT\",\"SHIPPING_ADDRESS\",\"BILLING_ADDRESS\",\"NOTES\",\"VERSION\",\"CHECKSUM\")" +
+            " values ('1048576','20931','NEW','1249.95','EUR'," +
+            "TO_DATE('2023-03-14 09:26:53', 'YYYY-MM-DD HH24:MI:SS'),NULL," +
+            "'Rue de l''Universite 12, 75007 Paris','Rue de l''Universite 12, 75007 Paris'," +
+            "'Leave at the front desk, call before delivery','1',HEXTORAW('9f86d081884c7d659a2feaa0c55ad015'));";
+
+    private static final String UPDATE =
+            "update \"C##CRUDUSER\".\"ORDERS\" set \"STATUS\" = 'SHIPPED', " +
+            "\"UPDATED_AT\" = TO_DATE('2023-03-15 16:02:11', 'YYYY-MM-DD HH24:MI:SS'), \"VERSION\" = '2' " +
+            "where \"ORDER_ID\" = '1048576' and \"CUSTOMER_ID\" = '20931' and \"STATUS\" = 'NEW' and " +
+            "\"AMOUNT\" = '1249.95' and \"CURRENCY\" = 'EUR' and " +
+            "\"CREATED_AT\" = TO_DATE('2023-03-14 09:26:53', 'YYYY-MM-DD HH24:MI:SS') and \"UPDATED_AT\" IS NULL and " +
+            "\"SHIPPING_ADDRESS\" = 'Rue de l''Universite 12, 75007 Paris' and " +
+            "\"BILLING_ADDRESS\" = 'Rue de l''Universite 12, 75007 Paris' and " +
+            "\"NOTES\" = 'Leave at the front desk, call before delivery' and \"VERSION\" = '1' and " +
+            "\"CHECKSUM\" = HEXTORAW('9f86d081884c7d659a2feaa0c55ad015') and ROWID = 'AAAR3sAAEAAAACXAAA';";
+
+    private static final String DELETE =
+            "delete from \"C##CRUDUSER\".\"ORDERS\" where \"ORDER_ID\" = '1048576' and \"CUSTOMER_ID\" = '20931' and " +
+            "\"STATUS\" = 'SHIPPED' and \"AMOUNT\" = '1249.95' and \"CURRENCY\" = 'EUR' and " +
+            "\"CREATED_AT\" = TO_DATE('2023-03-14 09:26:53', 'YYYY-MM-DD HH24:MI:SS') and " +
+            "\"UPDATED_AT\" = TO_DATE('2023-03-15 16:02:11', 'YYYY-MM-DD HH24:MI:SS') and " +
+            "\"SHIPPING_ADDRESS\" = 'Rue de l''Universite 12, 75007 Paris' and " +
+            "\"BILLING_ADDRESS\" = 'Rue de l''Universite 12, 75007 Paris' and " +
+            "\"NOTES\" = 'Leave at the front desk, call before delivery' and \"VERSION\" = '2' and " +
+            "\"CHECKSUM\" = HEXTORAW('9f86d081884c7d659a2feaa0c55ad015') and ROWID = 'AAAR3sAAEAAAACXAAA';";
+
+    private static final Pattern INSERT_PATTERN = Pattern.compile(
+            "insert into \"([^\"]+)\"\\.\"([^\"]+)\"\\((.*)\\) values \\((.*)\\);");
+    private static final Pattern VALUE_PATTERN = Pattern.compile(
+            "'((?:[^']|'')*)'|NULL|[A-Z_]+\\((?:[^()']|'(?:[^']|'')*')*\\)");
+
+    private final OracleRedoParser parser = new OracleRedoParser();
+
+    @Benchmark
+    public void parseInsert(Blackhole blackhole) {
+        final OracleRedoStatement statement = parser.parse(INSERT);
+        blackhole.consume(statement.getAfter().getColumnCount());
+    }
+
+    @Benchmark
+    public void parseUpdate(Blackhole blackhole) {
+        final OracleRedoStatement statement = parser.parse(UPDATE);
+        blackhole.consume(statement.getBefore().getColumnCount());
+    }
+
+    @Benchmark
+    public void parseDelete(Blackhole blackhole) {
+        final OracleRedoStatement statement = parser.parse(DELETE);
+        blackhole.consume(statement.getBefore().getColumnCount());
+    }
+
+    @Benchmark
+    public void parseInsertWithValues(Blackhole blackhole) {
+        final OracleRowImage after = parser.parse(INSERT).getAfter();
+        for (int i = 0; i < after.getColumnCount(); i++) {
+            blackhole.consume(after.getValue(i));
+        }
+    }
+
+    @Benchmark
+    public void regexInsert(Blackhole blackhole) {
+        final Matcher matcher = INSERT_PATTERN.matcher(INSERT);
+        if (matcher.matches()) {
+            final String[] columns = matcher.group(3).split(",");
+            final Matcher values = VALUE_PATTERN.matcher(matcher.group(4));
+            int i = 0;
+            while (values.find() && i < columns.length) {
+                blackhole.consume(columns[i++]);
+                blackhole.consume(values.group(1) != null ? values.group(1).replace("''", "'") : values.group());
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.chassis.logminer.cdc.oracle;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-row SCN position tracking as done by the mining loop: read the row SCN, compare it with the last
+ * position and keep the highest one plus the distance travelled.
+ * <p>
+ * Run with {@code ./gradlew jmh}, compare the allocation rate with {@code -prof gc}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OracleScnBenchmark {
+
+    private static final int ROWS = 1024;
+
+    private final String[] scnStrings = new String[ROWS];
+    private final long[] scnLongs = new long[ROWS];
+
+    @Setup
+    public void setUp() {
+        long scn = 12345678901L;
+        for (int i = 0; i < ROWS; i++) {
+            // Mostly increasing SCNs, several rows sharing an SCN like a multi-row transaction
+            scn += (i % 4 == 0) ? 1 + (i % 7) : 0;
+            scnLongs[i] = scn;
+            scnStrings[i] = Long.toString(scn);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void bigIntegerFromString(Blackhole bh) {
+        BigIntegerOracleScn first = BigIntegerOracleScn.valueOf(scnStrings[0]);
+        BigIntegerOracleScn last = first;
+        for (int i = 0; i < ROWS; i++) {
+            BigIntegerOracleScn scn = BigIntegerOracleScn.valueOf(scnStrings[i]);
+            if (scn.compareTo(last) > 0) {
+                last = scn;
+            }
+        }
+        bh.consume(last.subtract(first).longValue());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void bigIntegerFromLong(Blackhole bh) {
+        BigIntegerOracleScn first = BigIntegerOracleScn.valueOf(scnLongs[0]);
+        BigIntegerOracleScn last = first;
+        for (int i = 0; i < ROWS; i++) {
+            BigIntegerOracleScn scn = BigIntegerOracleScn.valueOf(scnLongs[i]);
+            if (scn.compareTo(last) > 0) {
+                last = scn;
+            }
+        }
+        bh.consume(last.subtract(first).longValue());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void longFromString(Blackhole bh) {
+        final long first = OracleScn.parse(scnStrings[0]);
+        long last = first;
+        for (int i = 0; i < ROWS; i++) {
+            final long scn = OracleScn.parse(scnStrings[i]);
+            if (OracleScn.compare(scn, last) > 0) {
+                last = scn;
+            }
+        }
+        bh.consume(OracleScn.valueOf(last).subtract(OracleScn.valueOf(first)).longValue());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void longFromLong(Blackhole bh) {
+        final long first = scnLongs[0];
+        long last = first;
+        for (int i = 0; i < ROWS; i++) {
+            final long scn = scnLongs[i];
+            if (OracleScn.compare(scn, last) > 0) {
+                last = scn;
+            }
+        }
+        bh.consume(OracleScn.valueOf(last).subtract(OracleScn.valueOf(first)).longValue());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void wrappedFromLong(Blackhole bh) {
+        OracleScn first = OracleScn.valueOf(scnLongs[0]);
+        OracleScn last = first;
+        for (int i = 0; i < ROWS; i++) {
+            OracleScn scn = OracleScn.valueOf(scnLongs[i]);
+            if (scn.compareTo(last) > 0) {
+                last = scn;
+            }
+        }
+        bh.consume(last.subtract(first).longValue());
+    }
+}
@@ -0,0 +1,294 @@
+package com.chassis.logminer.cdc.checkpoint;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+
+/**
+ * Last position committed downstream, kept in a small memory-mapped file so a restart resumes where the
+ * previous run stopped.
+ * <p>
+ * Oracle stores the SCN mining restarts from, the commit SCN of the last transaction sent and the RS_ID/SSN of
+ * the last statement read. PostgreSQL stores the end LSN of the last transaction sent in {@code position} and
+ * leaves the other fields empty.
+ * <p>
+ * {@link #update} only prepares the slot in memory, a few stores and a CRC. Writing it to disk is done in
+ * groups: by the flusher thread every {@code flushIntervalMs} when the checkpoint moved, or by whoever calls
+ * {@link #sync()}, for instance before telling the server the position is flushed. A crash loses at most the
+ * updates since the last sync, which are replayed after the restart.
+ * <p>
+ * A sync takes the latest update, flushes the sync dependency, such as the journal the checkpointed events
+ * were appended to, and only then copies the slot into the mapping and forces it. The mapping never holds a
+ * checkpoint the OS could write back ahead of the dependency, and an update made during the flush waits for
+ * the next sync.
+ * <p>
+ * The file has two slots written alternately, each with a sequence number and a CRC, so a slot torn by a crash
+ * falls back to the other one. Updates come from a single thread, syncs from any.
+ */
+public class CheckpointStore implements Runnable, AutoCloseable {
+
+    public static final long DEFAULT_FLUSH_INTERVAL_MS = 100;
+
+    private static final int SLOT_SIZE = 64;
+    private static final int SLOTS = 2;
+    private static final int CRC_OFFSET = SLOT_SIZE - Integer.BYTES;
+    private static final int MAX_RS_ID_LENGTH = CRC_OFFSET - 4 * Long.BYTES - Byte.BYTES;
+    private static final long JOIN_TIMEOUT_MS = 5000;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final long flushIntervalNanos;
+
+    // Slot of the latest update, guarded by itself, copied to syncSlot by a sync and from there to the mapping
+    private final byte[] slot = new byte[SLOT_SIZE];
+    private final ByteBuffer slotBuffer = ByteBuffer.wrap(slot);
+    private final byte[] syncSlot = new byte[SLOT_SIZE];
+    private final CRC32 crc = new CRC32();
+    // Offset of the slot holding the last checkpoint written, the next one goes to the other slot
+    private int writtenOffset;
+
+    private long sequence;
+    private long position;
+    private long commitPosition;
+    private String rsId;
+    private long ssn;
+
+    private volatile long updatedSequence;
+    private volatile long syncedSequence;
+    private volatile long syncs;
+    private volatile boolean running = true;
+    private Thread thread;
+    private volatile Flushable syncDependency;
+
+    public CheckpointStore(Path file) throws IOException {
+        this(file, DEFAULT_FLUSH_INTERVAL_MS);
+    }
+
+    public CheckpointStore(Path file, long flushIntervalMs) throws IOException {
+        if (flushIntervalMs < 1) {
+            throw new IllegalArgumentException("Invalid checkpoint flush interval: " + flushIntervalMs);
+        }
+        this.file = file;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        this.channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, SLOT_SIZE * SLOTS);
+
+        for (int i = 0; i < SLOTS; i++) {
+            load(i * SLOT_SIZE);
+        }
+        updatedSequence = sequence;
+        syncedSequence = sequence;
+    }
+
+    private void load(int offset) {
+        for (int i = 0; i < SLOT_SIZE; i++) {
+            slot[i] = buffer.get(offset + i);
+        }
+        crc.reset();
+        crc.update(slot, 0, CRC_OFFSET);
+        final long slotSequence = slotBuffer.getLong(0);
+        if (slotSequence <= sequence || (int) crc.getValue() != slotBuffer.getInt(CRC_OFFSET)) {
+            return;
+        }
+        writtenOffset = offset;
+        sequence = slotSequence;
+        position = slotBuffer.getLong(8);
+        commitPosition = slotBuffer.getLong(16);
+        ssn = slotBuffer.getLong(24);
+        final int rsIdLength = slot[32];
+        rsId = rsIdLength < 0 ? null : new String(slot, 33, rsIdLength, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Starts the thread writing updates to disk every flush interval. Not needed when the owner calls
+     * {@link #sync()} itself.
+     */
+    public void start() {
+        thread = new Thread(this, "checkpoint-flusher-" + file.getFileName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Sets what has to be on disk before the checkpoint is, flushed by every sync ahead of the checkpoint file.
+     * Set before the first update.
+     */
+    public void setSyncDependency(Flushable syncDependency) {
+        this.syncDependency = syncDependency;
+    }
+
+    /**
+     * Whether a checkpoint was ever recorded in the file.
+     */
+    public boolean isEmpty() {
+        return sequence == 0;
+    }
+
+    public void update(long position) {
+        update(position, 0, null, 0);
+    }
+
+    /**
+     * Records a new checkpoint in memory, it is written to disk by the next sync.
+     */
+    public void update(long position, long commitPosition, String rsId, long ssn) {
+        final String trimmedRsId = rsId == null ? null : rsId.trim();
+        if (trimmedRsId != null && trimmedRsId.length() > MAX_RS_ID_LENGTH) {
+            throw new IllegalArgumentException("RS_ID too long for a checkpoint: " + rsId);
+        }
+
+        final long nextSequence = sequence + 1;
+        synchronized (slot) {
+            fillSlot(nextSequence, position, commitPosition, trimmedRsId, ssn);
+            updatedSequence = nextSequence;
+        }
+        this.sequence = nextSequence;
+        this.position = position;
+        this.commitPosition = commitPosition;
+        this.rsId = trimmedRsId;
+        this.ssn = ssn;
+    }
+
+    private void fillSlot(long nextSequence, long position, long commitPosition, String trimmedRsId, long ssn) {
+        slotBuffer.putLong(0, nextSequence);
+        slotBuffer.putLong(8, position);
+        slotBuffer.putLong(16, commitPosition);
+        slotBuffer.putLong(24, ssn);
+        if (trimmedRsId == null) {
+            slot[32] = -1;
+        } else {
+            slot[32] = (byte) trimmedRsId.length();
+            for (int i = 0; i < trimmedRsId.length(); i++) {
+                slot[33 + i] = (byte) trimmedRsId.charAt(i);
+            }
+        }
+        crc.reset();
+        crc.update(slot, 0, CRC_OFFSET);
+        slotBuffer.putInt(CRC_OFFSET, (int) crc.getValue());
+    }
+
+    /**
+     * Writes the sync dependency and then the latest update to disk, if it is not already there.
+     *
+     * @throws UncheckedIOException if the dependency could not be flushed, the checkpoint is then not written
+     */
+    public synchronized void sync() {
+        final long updated;
+        synchronized (slot) {
+            updated = updatedSequence;
+            if (updated == syncedSequence) {
+                return;
+            }
+            System.arraycopy(slot, 0, syncSlot, 0, SLOT_SIZE);
+        }
+        final Flushable dependency = syncDependency;
+        if (dependency != null) {
+            try {
+                dependency.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to sync ahead of checkpoint " + file, e);
+            }
+        }
+        final int offset = writtenOffset == 0 ? SLOT_SIZE : 0;
+        for (int i = 0; i < SLOT_SIZE; i++) {
+            buffer.put(offset + i, syncSlot[i]);
+        }
+        buffer.force();
+        writtenOffset = offset;
+        syncedSequence = updated;
+        syncs++;
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            LockSupport.parkNanos(this, flushIntervalNanos);
+            try {
+                sync();
+            } catch (UncheckedIOException e) {
+                // Retried at the next interval, the checkpoint on disk stays behind meanwhile
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Oracle: SCN to restart mining from. PostgreSQL: LSN to restart streaming from.
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Oracle: commit SCN of the last transaction sent completely, transactions committed before it are skipped.
+     */
+    public long getCommitPosition() {
+        return commitPosition;
+    }
+
+    /**
+     * Oracle: RS_ID of the last complete statement read, null if none.
+     */
+    public String getRsId() {
+        return rsId;
+    }
+
+    /**
+     * Oracle: SSN of the last complete statement read.
+     */
+    public long getSsn() {
+        return ssn;
+    }
+
+    public long getUpdates() {
+        return updatedSequence;
+    }
+
+    public long getSyncs() {
+        return syncs;
+    }
+
+    /**
+     * Stops the flusher thread, writes the latest update to disk and closes the file.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(JOIN_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        sync();
+        channel.close();
+    }
+
+    @Override
+    public String toString() {
+        return "CheckpointStore{" +
+                "file=" + file +
+                ", position=" + Long.toUnsignedString(position) +
+                ", commitPosition=" + Long.toUnsignedString(commitPosition) +
+                ", rsId='" + rsId + '\'' +
+                ", ssn=" + ssn +
+                ", updates=" + updatedSequence +
+                ", syncs=" + syncs +
+                '}';
+    }
+}
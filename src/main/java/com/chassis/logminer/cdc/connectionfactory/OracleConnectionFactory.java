@@ -6,6 +6,7 @@ import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Properties;
 
 public class OracleConnectionFactory implements IConnectionFactory {
 
@@ -26,7 +27,12 @@ public class OracleConnectionFactory implements IConnectionFactory {
 
     public Connection getConnection() throws SQLException {
         String dbURL = "jdbc:oracle:thin:@localhost:1521:sid";
-        return DriverManager.getConnection(dbURL, "C##ORACDC", "Test123456");
+        Properties properties = new Properties();
+        properties.setProperty("user", "C##ORACDC");
+        properties.setProperty("password", "Test123456");
+        // Keeps the cursors of the statements run every mining cycle open between cycles
+        properties.setProperty("oracle.jdbc.implicitStatementCacheSize", "20");
+        return DriverManager.getConnection(dbURL, properties);
     }
 
     public static void main(String[] args) throws SQLException {
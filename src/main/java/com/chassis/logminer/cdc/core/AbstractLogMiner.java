@@ -1,4 +1,75 @@
 package com.chassis.logminer.cdc.core;
 
-public class AbstractLogMiner implements ILogMiner {
+import com.chassis.logminer.cdc.event.ChangeEventListener;
+import com.chassis.logminer.cdc.event.ChangeEventPrinter;
+import com.chassis.logminer.cdc.journal.ChangeJournal;
+import com.chassis.logminer.cdc.journal.ChangeJournalSink;
+import com.chassis.logminer.cdc.pipeline.ChangeEventPipeline;
+import com.chassis.logminer.cdc.pipeline.ChangeEventSink;
+import com.chassis.logminer.cdc.pipeline.ChangeEventTransformer;
+import com.chassis.logminer.cdc.pipeline.WaitStrategy;
+import net.openhft.chronicle.queue.RollCycle;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+public abstract class AbstractLogMiner implements ILogMiner {
+
+    protected ChangeEventListener listener = new ChangeEventPrinter();
+
+    private final List<ChangeEventTransformer> transformers = new ArrayList<>();
+    private Supplier<WaitStrategy> waitStrategy = WaitStrategy::adaptive;
+    private int pipelineCapacity = ChangeEventPipeline.DEFAULT_CAPACITY;
+    private RollCycle journalRollCycle = ChangeJournal.DAILY;
+    private volatile ChangeJournal journal;
+
+    @Override
+    public void setChangeEventListener(ChangeEventListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void addChangeEventTransformer(ChangeEventTransformer transformer) {
+        transformers.add(transformer);
+    }
+
+    @Override
+    public void setWaitStrategy(Supplier<WaitStrategy> waitStrategy) {
+        this.waitStrategy = waitStrategy;
+    }
+
+    @Override
+    public void setPipelineCapacity(int capacity) {
+        this.pipelineCapacity = capacity;
+    }
+
+    @Override
+    public void setJournalRollCycle(RollCycle rollCycle) {
+        this.journalRollCycle = rollCycle;
+    }
+
+    protected ChangeJournal openJournal(Path directory) throws IOException {
+        journal = new ChangeJournal(directory, journalRollCycle);
+        return journal;
+    }
+
+    @Override
+    public ChangeJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Creates the pipeline of one capture session, from the decoder through the transformers to the journal,
+     * then the listener.
+     */
+    protected ChangeEventPipeline createPipeline(ChangeJournal journal) {
+        return createPipeline(new ChangeJournalSink(journal, listener));
+    }
+
+    protected ChangeEventPipeline createPipeline(ChangeEventSink sink) {
+        return new ChangeEventPipeline(pipelineCapacity, waitStrategy, transformers, sink);
+    }
 }
@@ -1,9 +1,11 @@
 package com.chassis.logminer.cdc.core;
 
 import com.chassis.logminer.cdc.connectionfactory.CDCConnectionFactory;
+import com.chassis.logminer.cdc.oracle.OracleLogCatalog;
+import com.chassis.logminer.cdc.oracle.OracleLogFile;
+import com.chassis.logminer.cdc.oracle.OracleScn;
 import oracle.jdbc.driver.OracleConnection;
 
-import java.math.BigInteger;
 import java.sql.*;
 import java.time.OffsetDateTime;
 import java.time.temporal.ChronoUnit;
@@ -16,6 +18,11 @@ public class CDCLogMiner extends AbstractLogMiner{
 
 
 
+    private static final Scn SCN_WINDOW = Scn.valueOf(10000000L);
+    private static final long POLL_INTERVAL_MS = 1000;
+
+    private volatile boolean running = true;
+
     public void startCDC() throws SQLException {
 
 
@@ -27,57 +34,76 @@ public class CDCLogMiner extends AbstractLogMiner{
 
             int redoThread   = logMinerIntilizer.getCurrentRedoThread();
             long firstChange = logMinerIntilizer.getFirstScn(redoThread);
-            List<LogFile> archivedLogs = logMinerIntilizer.getArchivedLogs(firstChange);
-
-
+            OracleLogCatalog logCatalog = new OracleLogCatalog(connection);
 
-            CallableStatement csAddArchivedLogs = connection.prepareCall(LogminerStatments.ADD_ARCHIVED_LOG);
-            List<String> logFilesNames = archivedLogs.stream().map(LogFile::getFileName).collect(Collectors.toList());
-
-
-                for(String file : logFilesNames) {
-                    csAddArchivedLogs.setInt(1, 1);
-                    csAddArchivedLogs.setString(2, file);
-                    csAddArchivedLogs.addBatch();
+            CdcTask cdcTask = new CdcTask();
+            Scn startScn = Scn.valueOf(firstChange);
+
+            // keep mining, each cycle starts right after the previous ENDSCN
+            while (running) {
+                Scn currentScn = logMinerIntilizer.getCurrentScn();
+                if (currentScn.compareTo(startScn) < 0) {
+                    Thread.sleep(POLL_INTERVAL_MS);
+                    continue;
                 }
 
+                Scn topScnToMine = startScn.add(SCN_WINDOW);
+                if (topScnToMine.compareTo(currentScn) > 0) {
+                    topScnToMine = currentScn;
+                }
 
+                // Incremental refresh, only the logs archived since the previous cycle are read
+                logCatalog.refresh(startScn.longValue());
+                List<String> logFilesNames = logCatalog.getLogFiles(
+                                OracleScn.valueOf(startScn.longValue()), OracleScn.valueOf(topScnToMine.longValue()))
+                        .stream().map(OracleLogFile::getFileName).collect(Collectors.toList());
+
+                try (CallableStatement csAddArchivedLogs = connection.prepareCall(LogminerStatments.ADD_ARCHIVED_LOG)) {
+                    for (int i = 0; i < logFilesNames.size(); i++) {
+                        csAddArchivedLogs.setInt(1, i == 0 ? 0 : 1);
+                        csAddArchivedLogs.setString(2, logFilesNames.get(i));
+                        csAddArchivedLogs.addBatch();
+                    }
+                    csAddArchivedLogs.executeBatch();
+                    csAddArchivedLogs.clearBatch();
+                }
 
+                try (CallableStatement callableStatement2 = connection.prepareCall(LogminerStatments.START_LOGMINER)) {
+                    callableStatement2.setLong(1, startScn.longValue());
+                    callableStatement2.setLong(2, topScnToMine.longValue());
+                    callableStatement2.execute();
+                    callableStatement2.clearParameters();
+                }
 
-           csAddArchivedLogs.executeBatch();
-           csAddArchivedLogs.clearBatch();
-
-
-
-            CallableStatement callableStatement2 = connection.prepareCall(LogminerStatments.START_LOGMINER);
-
-
-            Scn startScn = archivedLogs.get(0).getFirstScn();
-
-            Scn topScnToMine = startScn.add(new Scn(new BigInteger(String.valueOf(10000000))));
-
-            callableStatement2.setLong(1, startScn.longValue());
-
-
-            callableStatement2.setLong(2, topScnToMine.longValue());
-            callableStatement2.execute();
-            callableStatement2.clearParameters();
-
-            CdcTask cdcTask = new CdcTask();
-            cdcTask.startMine(connection);
+                try {
+                    cdcTask.startMine(connection);
+                } finally {
+                    try (CallableStatement callableStatement = connection.prepareCall(LogminerStatments.STOP_LOGMINER)) {
+                        callableStatement.execute();
+                    }
+                }
 
-            CallableStatement callableStatement = connection.prepareCall(LogminerStatments.STOP_LOGMINER);
-            callableStatement.execute();
+                startScn = topScnToMine.add(Scn.ONE);
+                logCatalog.evictBefore(OracleScn.valueOf(startScn.longValue()));
 
-            Thread.sleep(10000);
+                if (topScnToMine.equals(currentScn)) {
+                    Thread.sleep(POLL_INTERVAL_MS);
+                }
+            }
 
         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             e.printStackTrace();
         } finally {
 
         }
     }
 
+    @Override
+    public void stopCDC() {
+        running = false;
+    }
+
     private static Scn getMinimumScn(List<LogFile> logs) {
         return logs.stream().map(LogFile::getFirstScn).min(Scn::compareTo).orElse(Scn.NULL);
     }
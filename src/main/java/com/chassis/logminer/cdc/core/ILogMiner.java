@@ -1,8 +1,58 @@
 package com.chassis.logminer.cdc.core;
 
+import com.chassis.logminer.cdc.event.ChangeEventListener;
+import com.chassis.logminer.cdc.journal.ChangeJournal;
+import com.chassis.logminer.cdc.pipeline.ChangeEventTransformer;
+import com.chassis.logminer.cdc.pipeline.WaitStrategy;
+import net.openhft.chronicle.queue.RollCycle;
+
+import java.sql.SQLException;
+import java.util.function.Supplier;
+
+/**
+ * Change data capture engine. {@link #startCDC()} captures until {@link #stopCDC()} is called from another
+ * thread and appends every change to its {@link com.chassis.logminer.cdc.journal.ChangeJournal} as a
+ * {@link com.chassis.logminer.cdc.event.ChangeEvent}, then hands it to the listener.
+ * <p>
+ * Events go through a {@link com.chassis.logminer.cdc.pipeline.ChangeEventPipeline}: the journal and each
+ * transformer run on their own thread, and positions are only checkpointed once the journal accepted them.
+ */
 public interface ILogMiner {
 
+    void startCDC() throws SQLException;
+
+    void stopCDC();
+
+    /**
+     * Sets where the change events go, must be called before {@link #startCDC()}.
+     */
+    void setChangeEventListener(ChangeEventListener listener);
+
+    /**
+     * Adds a stage between decoding and the listener, in the order added. Must be called before
+     * {@link #startCDC()}.
+     */
+    void addChangeEventTransformer(ChangeEventTransformer transformer);
+
+    /**
+     * Sets how the pipeline threads wait for events, {@link WaitStrategy#adaptive()} by default.
+     */
+    void setWaitStrategy(Supplier<WaitStrategy> waitStrategy);
 
+    /**
+     * Sets the number of events in flight between decoding and the listener.
+     */
+    void setPipelineCapacity(int capacity);
 
+    /**
+     * Sets when the journal starts a new file, {@link com.chassis.logminer.cdc.journal.ChangeJournal#DAILY} by
+     * default.
+     */
+    void setJournalRollCycle(RollCycle rollCycle);
 
+    /**
+     * Returns the journal of the running capture, where consumers open their cursors; null before
+     * {@link #startCDC()} opened it. Closed, with its cursors, when the capture ends.
+     */
+    ChangeJournal getJournal();
 }
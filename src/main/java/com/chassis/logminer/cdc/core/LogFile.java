@@ -5,10 +5,6 @@
  */
 package com.chassis.logminer.cdc.core;
 
-import java.math.BigInteger;
-import java.util.Objects;
-
-
 public class LogFile {
 
     public enum Type {
@@ -19,7 +15,7 @@ public class LogFile {
     private final String fileName;
     private final Scn firstScn;
     private final Scn nextScn;
-    private final BigInteger sequence;
+    private final long sequence;
     private final boolean current;
     private final Type type;
     private final int thread;
@@ -33,7 +29,7 @@ public class LogFile {
      * @param sequence the unique log sequence number
      * @param type the log type
      */
-    public LogFile(String fileName, Scn firstScn, Scn nextScn, BigInteger sequence, Type type, int thread) {
+    public LogFile(String fileName, Scn firstScn, Scn nextScn, long sequence, Type type, int thread) {
         this(fileName, firstScn, nextScn, sequence, type, false, thread);
     }
 
@@ -47,7 +43,7 @@ public class LogFile {
      * @param type the type of archive log
      * @param current whether the log file is the current one
      */
-    public LogFile(String fileName, Scn firstScn, Scn nextScn, BigInteger sequence, Type type, boolean current, int thread) {
+    public LogFile(String fileName, Scn firstScn, Scn nextScn, long sequence, Type type, boolean current, int thread) {
         this.fileName = fileName;
         this.firstScn = firstScn;
         this.nextScn = nextScn;
@@ -69,7 +65,7 @@ public class LogFile {
         return nextScn;
     }
 
-    public BigInteger getSequence() {
+    public long getSequence() {
         return sequence;
     }
 
@@ -94,7 +90,7 @@ public class LogFile {
 
     @Override
     public int hashCode() {
-        return Objects.hash(thread, sequence);
+        return 31 * thread + Long.hashCode(sequence);
     }
 
     @Override
@@ -106,7 +102,7 @@ public class LogFile {
             return false;
         }
         final LogFile other = (LogFile) obj;
-        return thread == other.thread && Objects.equals(sequence, other.sequence);
+        return thread == other.thread && sequence == other.sequence;
     }
 
     @Override
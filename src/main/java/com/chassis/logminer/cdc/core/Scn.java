@@ -5,34 +5,44 @@
  */
 package com.chassis.logminer.cdc.core;
 
-import java.math.BigInteger;
-import java.util.Objects;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 
 /**
- * Oracle System Change Number implementation
+ * Oracle System Change Number implementation, backed by an unsigned 64-bit {@code long}.
  *
  * @author Chris Cranford
  */
-public class Scn implements Comparable<Scn> {
+public final class Scn implements Comparable<Scn> {
+
+    /**
+     * Raw value of {@link #MAX}, the largest unsigned 64-bit value.
+     */
+    public static final long MAX_VALUE = 0xFFFFFFFFFFFFFFFFL;
+
+    /**
+     * Raw value of {@link #NULL}, sorts before every other value.
+     */
+    public static final long NULL_VALUE = 0xFFFFFFFFFFFFFFFEL;
 
     /**
      * Represents an Scn that implies the maximum possible value of an SCN, useful as a placeholder.
      */
-    public static final Scn MAX = new Scn(BigInteger.valueOf(-2));
+    public static final Scn MAX = new Scn(MAX_VALUE);
 
     /**
      * Represents an Scn without a value.
      */
-    public static final Scn NULL = new Scn(null);
+    public static final Scn NULL = new Scn(NULL_VALUE);
 
     /**
      * Represents an Scn with value 1, useful for playing with inclusive/exclusive query boundaries.
      */
-    public static final Scn ONE = new Scn(BigInteger.valueOf(1));
+    public static final Scn ONE = new Scn(1);
 
-    private final BigInteger scn;
+    private final long scn;
 
-    public Scn(BigInteger scn) {
+    private Scn(long scn) {
         this.scn = scn;
     }
 
@@ -40,7 +50,7 @@ public class Scn implements Comparable<Scn> {
      * Returns whether this {@link Scn} is null and contains no value.
      */
     public boolean isNull() {
-        return this.scn == null;
+        return this.scn == NULL_VALUE;
     }
 
     /**
@@ -50,53 +60,106 @@ public class Scn implements Comparable<Scn> {
      * @return instance of Scn
      */
     public static Scn valueOf(int value) {
-        return new Scn(BigInteger.valueOf(value));
+        return valueOf((long) value);
     }
 
     /**
-     * Construct a {@link Scn} from a long value.
+     * Construct a {@link Scn} from a long value, interpreted as unsigned.
      *
      * @param value long value
      * @return instance of Scn
      */
     public static Scn valueOf(long value) {
-        return new Scn(BigInteger.valueOf(value));
+        if (value == MAX_VALUE) {
+            return MAX;
+        }
+        else if (value == NULL_VALUE) {
+            return NULL;
+        }
+        else if (value == 1) {
+            return ONE;
+        }
+        return new Scn(value);
     }
 
     /**
      * Construct a {@link Scn} from a string value.
      *
-     * @param value string value, should not be null
+     * @param value unsigned decimal string value, should not be null
      * @return instance of Scn
      */
     public static Scn valueOf(String value) {
-        return new Scn(new BigInteger(value));
+        return valueOf(parse(value));
+    }
+
+    /**
+     * Construct a {@link Scn} from a numeric column, SQL {@code NULL} maps to {@link #NULL}.
+     *
+     * @param rs result set positioned on a row
+     * @param columnIndex the SCN column
+     * @return instance of Scn
+     */
+    public static Scn valueOf(ResultSet rs, int columnIndex) throws SQLException {
+        final long value = rs.getLong(columnIndex);
+        return rs.wasNull() ? NULL : valueOf(value);
+    }
+
+    /**
+     * Parses an unsigned decimal SCN into its raw value.
+     *
+     * @param value unsigned decimal string value, should not be null
+     * @return the raw SCN value
+     */
+    public static long parse(String value) {
+        return Long.parseUnsignedLong(value);
+    }
+
+    /**
+     * Compares two raw SCN values as unsigned numbers, {@link #NULL_VALUE} sorts first.
+     *
+     * @return -1, 0, or 1 as {@code scn1} is less than, equal to, or greater than {@code scn2}
+     */
+    public static int compare(long scn1, long scn2) {
+        if (scn1 == scn2) {
+            return 0;
+        }
+        else if (scn1 == NULL_VALUE) {
+            return -1;
+        }
+        else if (scn2 == NULL_VALUE) {
+            return 1;
+        }
+        return Long.compareUnsigned(scn1, scn2) < 0 ? -1 : 1;
     }
 
     /**
      * Get the Scn represented as a {@code long} data type.
      */
     public long longValue() {
-        return isNull() ? 0 : scn.longValue();
+        return isNull() ? 0 : scn;
     }
 
     /**
-     * Returns a {@code SCn} whose value is {@code (this + value)}.
+     * Returns a {@code SCn} whose value is {@code (this + value)}, saturating at {@link #MAX}.
      *
      * @param value the value to be added to this {@code Scn}.
      * @return {@code this + value}
      */
     public Scn add(Scn value) {
-        if (isNull() && value.isNull()) {
-            return Scn.NULL;
+        if (isNull()) {
+            return value;
         }
         else if (value.isNull()) {
-            return new Scn(scn);
+            return this;
         }
-        else if (isNull()) {
-            return new Scn(value.scn);
+        else if (scn == MAX_VALUE || value.scn == MAX_VALUE) {
+            return MAX;
         }
-        return new Scn(scn.add(value.scn));
+        final long result = scn + value.scn;
+        if (Long.compareUnsigned(result, NULL_VALUE) >= 0 || Long.compareUnsigned(result, scn) < 0) {
+            return MAX;
+        }
+        return valueOf(result);
     }
 
     /**
@@ -104,18 +167,17 @@ public class Scn implements Comparable<Scn> {
      *
      * @param value the value to be subtracted from this {@code Scn}.
      * @return {@code this - value}
+     * @throws ArithmeticException if the result would be negative
      */
     public Scn subtract(Scn value) {
-        if (isNull() && value.isNull()) {
-            return Scn.NULL;
-        }
-        else if (value.isNull()) {
-            return new Scn(scn);
+        if (value.isNull() || scn == MAX_VALUE) {
+            return this;
         }
-        else if (isNull()) {
-            return new Scn(value.scn.negate());
+        final long minuend = longValue();
+        if (Long.compareUnsigned(minuend, value.scn) < 0) {
+            throw new ArithmeticException("SCN underflow: " + this + " - " + value);
         }
-        return new Scn(scn.subtract(value.scn));
+        return valueOf(minuend - value.scn);
     }
 
     /**
@@ -126,16 +188,7 @@ public class Scn implements Comparable<Scn> {
      */
     @Override
     public int compareTo(Scn o) {
-        if (isNull() && o.isNull()) {
-            return 0;
-        }
-        else if (isNull() && !o.isNull()) {
-            return -1;
-        }
-        else if (!isNull() && o.isNull()) {
-            return 1;
-        }
-        return scn.compareTo(o.scn);
+        return compare(scn, o.scn);
     }
 
     @Override
@@ -147,16 +200,19 @@ public class Scn implements Comparable<Scn> {
             return false;
         }
         Scn scn1 = (Scn) o;
-        return Objects.equals(scn, scn1.scn);
+        return scn == scn1.scn;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(scn);
+        return Long.hashCode(scn);
     }
 
     @Override
     public String toString() {
-        return isNull() ? "null" : scn.toString();
+        if (isNull()) {
+            return "null";
+        }
+        return scn == MAX_VALUE ? "MAX" : Long.toUnsignedString(scn);
     }
 }
@@ -0,0 +1,238 @@
+package com.chassis.logminer.cdc.event;
+
+/**
+ * Row change or transaction commit captured from Oracle or PostgreSQL, the one representation handed to
+ * everything downstream of decoding.
+ * <p>
+ * Events are mutable flyweights: each engine fills a single instance for every row and passes it to its
+ * {@link ChangeEventListener}, queues copy it into preallocated slots with {@link #copyFrom(ChangeEvent)}.
+ * Positions, ids and times are primitives, values are UTF-8 bytes in reusable {@link ChangeEventRow}s, so
+ * nothing is allocated per row once the buffers have grown to the widest row.
+ * <p>
+ * Positions are SCNs for Oracle and LSNs for PostgreSQL, both unsigned. A transaction's rows come in order,
+ * followed by a {@link #COMMIT} event carrying its commit position; a consumer that stores the commit position
+ * of the last {@link #COMMIT} it handled can resume from it.
+ */
+public class ChangeEvent {
+
+    public static final byte SOURCE_ORACLE = 'O';
+    public static final byte SOURCE_POSTGRES = 'P';
+
+    public static final byte INSERT = 'I';
+    public static final byte UPDATE = 'U';
+    public static final byte DELETE = 'D';
+
+    /**
+     * End of a transaction, has no table and no columns.
+     */
+    public static final byte COMMIT = 'C';
+
+    /**
+     * Row change the engine could not decode, such as an Oracle SQL_REDO with LOB operations or
+     * {@code Unsupported Type}. It keeps its place in the transaction instead of being dropped; the after image
+     * holds the change as logged by the source in a single {@link ChangeEventRow#EXPRESSION} column.
+     */
+    public static final byte UNPARSED = 'X';
+
+    private final ChangeEventRow before = new ChangeEventRow();
+    private final ChangeEventRow after = new ChangeEventRow();
+
+    private byte source;
+    private byte operation;
+    private long position;
+    private long commitPosition;
+    private int sequence;
+    private String recordId;
+    private long subPosition;
+    private long transactionId;
+    private long commitTimeMicros;
+    private long tableId;
+    private String database;
+    private String schema;
+    private String table;
+
+    /**
+     * Starts a new event, clearing the table and both images.
+     */
+    public ChangeEvent reset(byte source, byte operation) {
+        this.source = source;
+        this.operation = operation;
+        this.recordId = null;
+        this.subPosition = 0;
+        this.tableId = 0;
+        this.database = null;
+        this.schema = null;
+        this.table = null;
+        before.clear();
+        after.clear();
+        return this;
+    }
+
+    /**
+     * @param position       SCN or LSN of the change, of the commit record for {@link #COMMIT}
+     * @param commitPosition SCN or LSN of the commit of the transaction; for a PostgreSQL {@link #COMMIT} the
+     *                       end LSN of the commit record, where streaming resumes after the transaction
+     * @param sequence       index of the row inside its transaction, the number of rows for {@link #COMMIT}
+     */
+    public ChangeEvent setPosition(long position, long commitPosition, int sequence) {
+        this.position = position;
+        this.commitPosition = commitPosition;
+        this.sequence = sequence;
+        return this;
+    }
+
+    /**
+     * Sets where the change sits inside its SCN, for sources that have several changes per position.
+     *
+     * @param recordId    Oracle {@code RS_ID}, null for PostgreSQL
+     * @param subPosition Oracle {@code SSN}
+     */
+    public ChangeEvent setRecord(String recordId, long subPosition) {
+        this.recordId = recordId;
+        this.subPosition = subPosition;
+        return this;
+    }
+
+    /**
+     * @param transactionId    Oracle XID packed as by {@code OracleXid}, PostgreSQL xid
+     * @param commitTimeMicros commit time in microseconds since the epoch
+     */
+    public ChangeEvent setTransaction(long transactionId, long commitTimeMicros) {
+        this.transactionId = transactionId;
+        this.commitTimeMicros = commitTimeMicros;
+        return this;
+    }
+
+    /**
+     * @param tableId  Oracle {@code DATA_OBJ#}, PostgreSQL relation OID
+     * @param database Oracle PDB name, null when not known or for PostgreSQL
+     */
+    public ChangeEvent setTable(long tableId, String database, String schema, String table) {
+        this.tableId = tableId;
+        this.database = database;
+        this.schema = schema;
+        this.table = table;
+        return this;
+    }
+
+    /**
+     * Replaces the contents of this event with a copy of {@code other}.
+     */
+    public void copyFrom(ChangeEvent other) {
+        source = other.source;
+        operation = other.operation;
+        position = other.position;
+        commitPosition = other.commitPosition;
+        sequence = other.sequence;
+        recordId = other.recordId;
+        subPosition = other.subPosition;
+        transactionId = other.transactionId;
+        commitTimeMicros = other.commitTimeMicros;
+        tableId = other.tableId;
+        database = other.database;
+        schema = other.schema;
+        table = other.table;
+        before.copyFrom(other.before);
+        after.copyFrom(other.after);
+    }
+
+    /**
+     * Returns {@link #SOURCE_ORACLE} or {@link #SOURCE_POSTGRES}.
+     */
+    public byte getSource() {
+        return source;
+    }
+
+    /**
+     * Returns {@link #INSERT}, {@link #UPDATE}, {@link #DELETE} or {@link #COMMIT}.
+     */
+    public byte getOperation() {
+        return operation;
+    }
+
+    public boolean isCommit() {
+        return operation == COMMIT;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public long getCommitPosition() {
+        return commitPosition;
+    }
+
+    public int getSequence() {
+        return sequence;
+    }
+
+    public String getRecordId() {
+        return recordId;
+    }
+
+    public long getSubPosition() {
+        return subPosition;
+    }
+
+    public long getTransactionId() {
+        return transactionId;
+    }
+
+    public long getCommitTimeMicros() {
+        return commitTimeMicros;
+    }
+
+    public long getTableId() {
+        return tableId;
+    }
+
+    public String getDatabase() {
+        return database;
+    }
+
+    public String getSchema() {
+        return schema;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    /**
+     * Returns the before image, empty for inserts. Oracle updates only log the changed and supplementally logged
+     * columns, PostgreSQL only the replica identity unless it is {@code FULL}.
+     */
+    public ChangeEventRow getBefore() {
+        return before;
+    }
+
+    /**
+     * Returns the after image, empty for deletes. Oracle updates only hold the changed columns.
+     */
+    public ChangeEventRow getAfter() {
+        return after;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder(128);
+        sb.append("ChangeEvent{source=").append((char) source)
+                .append(", operation=").append((char) operation)
+                .append(", position=").append(Long.toUnsignedString(position))
+                .append(", commitPosition=").append(Long.toUnsignedString(commitPosition))
+                .append(", sequence=").append(sequence)
+                .append(", transactionId=").append(Long.toHexString(transactionId))
+                .append(", commitTimeMicros=").append(commitTimeMicros);
+        if (operation != COMMIT) {
+            sb.append(", table=");
+            if (database != null) {
+                sb.append(database).append('.');
+            }
+            sb.append(schema).append('.').append(table)
+                    .append(", tableId=").append(tableId)
+                    .append(", before=").append(before)
+                    .append(", after=").append(after);
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,12 @@
+package com.chassis.logminer.cdc.event;
+
+/**
+ * Receives the change events of an engine, rows in commit order each followed by the {@link ChangeEvent#COMMIT}
+ * of their transaction.
+ * <p>
+ * The event is reused for the next row, listeners must copy what they need before returning.
+ */
+public interface ChangeEventListener {
+
+    void onChange(ChangeEvent event);
+}
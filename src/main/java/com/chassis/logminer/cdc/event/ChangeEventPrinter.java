@@ -0,0 +1,12 @@
+package com.chassis.logminer.cdc.event;
+
+/**
+ * Writes every event to standard output, the default listener of the engines.
+ */
+public class ChangeEventPrinter implements ChangeEventListener {
+
+    @Override
+    public void onChange(ChangeEvent event) {
+        System.out.println(event);
+    }
+}
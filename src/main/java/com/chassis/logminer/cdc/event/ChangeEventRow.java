@@ -0,0 +1,289 @@
+package com.chassis.logminer.cdc.event;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Before or after image of a {@link ChangeEvent}: column names and values in source order.
+ * <p>
+ * Values are kept as UTF-8 text in one byte array and addressed by offset and length, the form pgoutput sends
+ * them in and the one sinks write out. Arrays only grow, a reused row stops allocating once it has seen its
+ * widest row. Names are references to Strings owned by the table metadata, they are not copied.
+ */
+public class ChangeEventRow {
+
+    /**
+     * SQL {@code NULL}.
+     */
+    public static final byte NULL = 'n';
+
+    /**
+     * Text value.
+     */
+    public static final byte TEXT = 't';
+
+    /**
+     * Value not sent by the source, such as an unchanged TOASTed PostgreSQL column.
+     */
+    public static final byte UNCHANGED = 'u';
+
+    /**
+     * SQL expression kept as written by Oracle, such as {@code TO_DATE('...', '...')} or {@code HEXTORAW('...')}.
+     */
+    public static final byte EXPRESSION = 'e';
+
+    private static final int INITIAL_COLUMNS = 16;
+    private static final int INITIAL_DATA = 256;
+
+    private int columnCount;
+    private String[] names = new String[INITIAL_COLUMNS];
+    private byte[] kinds = new byte[INITIAL_COLUMNS];
+    private int[] offsets = new int[INITIAL_COLUMNS];
+    private int[] lengths = new int[INITIAL_COLUMNS];
+    private byte[] data = new byte[INITIAL_DATA];
+    private int dataLength;
+
+    public void clear() {
+        Arrays.fill(names, 0, columnCount, null);
+        columnCount = 0;
+        dataLength = 0;
+    }
+
+    public void addNull(String name) {
+        add(name, NULL);
+    }
+
+    public void addUnchanged(String name) {
+        add(name, UNCHANGED);
+    }
+
+    /**
+     * Adds a column with an empty value, the value is filled by the {@code append} methods.
+     */
+    public void add(String name, byte kind) {
+        if (columnCount == names.length) {
+            final int capacity = columnCount * 2;
+            names = Arrays.copyOf(names, capacity);
+            kinds = Arrays.copyOf(kinds, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+        names[columnCount] = name;
+        kinds[columnCount] = kind;
+        offsets[columnCount] = dataLength;
+        lengths[columnCount] = 0;
+        columnCount++;
+    }
+
+    /**
+     * Adds a column whose value is {@code length} UTF-8 bytes of {@code src}.
+     */
+    public void add(String name, byte kind, byte[] src, int offset, int length) {
+        add(name, kind);
+        ensureData(length);
+        System.arraycopy(src, offset, data, dataLength, length);
+        grow(length);
+    }
+
+    /**
+     * Adds a column whose value is {@code length} UTF-8 bytes at absolute position {@code offset} of
+     * {@code src}, the buffer position is not changed.
+     */
+    public void add(String name, byte kind, ByteBuffer src, int offset, int length) {
+        add(name, kind);
+        ensureData(length);
+        if (src.hasArray()) {
+            System.arraycopy(src.array(), src.arrayOffset() + offset, data, dataLength, length);
+        } else {
+            for (int i = 0; i < length; i++) {
+                data[dataLength + i] = src.get(offset + i);
+            }
+        }
+        grow(length);
+    }
+
+    public void add(String name, byte kind, CharSequence value) {
+        add(name, kind);
+        final int length = value.length();
+        ensureData(length * 3);
+        int p = dataLength;
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                p = encode(Character.toCodePoint(c, value.charAt(++i)), p);
+            } else {
+                p = encode(c, p);
+            }
+        }
+        grow(p - dataLength);
+    }
+
+    /**
+     * Appends characters to the value of the last column added, encoded as UTF-8.
+     */
+    public void append(char[] chars, int offset, int length) {
+        // At most 3 bytes per char, a surrogate pair takes 4 bytes for 2 chars
+        ensureData(length * 3);
+        int p = dataLength;
+        final int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            final char c = chars[i];
+            if (c < 0x80) {
+                data[p++] = (byte) c;
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(chars[i + 1])) {
+                p = encode(Character.toCodePoint(c, chars[++i]), p);
+            } else {
+                p = encode(c, p);
+            }
+        }
+        grow(p - dataLength);
+    }
+
+    private int encode(int codePoint, int p) {
+        if (codePoint < 0x80) {
+            data[p++] = (byte) codePoint;
+        } else if (codePoint < 0x800) {
+            data[p++] = (byte) (0xC0 | (codePoint >> 6));
+            data[p++] = (byte) (0x80 | (codePoint & 0x3F));
+        } else if (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE) {
+            // Unpaired surrogate, replaced like String.getBytes does
+            data[p++] = '?';
+        } else if (codePoint < 0x10000) {
+            data[p++] = (byte) (0xE0 | (codePoint >> 12));
+            data[p++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            data[p++] = (byte) (0x80 | (codePoint & 0x3F));
+        } else {
+            data[p++] = (byte) (0xF0 | (codePoint >> 18));
+            data[p++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+            data[p++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            data[p++] = (byte) (0x80 | (codePoint & 0x3F));
+        }
+        return p;
+    }
+
+    private void ensureData(int length) {
+        if (dataLength + length > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, dataLength + length));
+        }
+    }
+
+    private void grow(int length) {
+        dataLength += length;
+        lengths[columnCount - 1] += length;
+    }
+
+    /**
+     * Replaces the contents of this row with a copy of {@code other}.
+     */
+    public void copyFrom(ChangeEventRow other) {
+        clear();
+        if (names.length < other.columnCount) {
+            names = new String[other.names.length];
+            kinds = new byte[other.names.length];
+            offsets = new int[other.names.length];
+            lengths = new int[other.names.length];
+        }
+        if (data.length < other.dataLength) {
+            data = new byte[other.data.length];
+        }
+        System.arraycopy(other.names, 0, names, 0, other.columnCount);
+        System.arraycopy(other.kinds, 0, kinds, 0, other.columnCount);
+        System.arraycopy(other.offsets, 0, offsets, 0, other.columnCount);
+        System.arraycopy(other.lengths, 0, lengths, 0, other.columnCount);
+        System.arraycopy(other.data, 0, data, 0, other.dataLength);
+        columnCount = other.columnCount;
+        dataLength = other.dataLength;
+    }
+
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    public boolean isEmpty() {
+        return columnCount == 0;
+    }
+
+    public String getColumnName(int column) {
+        return names[column];
+    }
+
+    /**
+     * Returns the index of the column, -1 if the row has no such column.
+     */
+    public int indexOf(String name) {
+        for (int i = 0; i < columnCount; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns {@link #NULL}, {@link #TEXT}, {@link #UNCHANGED} or {@link #EXPRESSION}.
+     */
+    public byte getKind(int column) {
+        return kinds[column];
+    }
+
+    public boolean isNull(int column) {
+        return kinds[column] == NULL;
+    }
+
+    public boolean isUnchanged(int column) {
+        return kinds[column] == UNCHANGED;
+    }
+
+    /**
+     * Returns the array holding the values, addressed by {@link #getOffset(int)} and {@link #getLength(int)}.
+     * Replaced when the row grows.
+     */
+    public byte[] getData() {
+        return data;
+    }
+
+    public int getOffset(int column) {
+        return offsets[column];
+    }
+
+    public int getLength(int column) {
+        return lengths[column];
+    }
+
+    /**
+     * Returns the total length of the values.
+     */
+    public int getDataLength() {
+        return dataLength;
+    }
+
+    /**
+     * Decodes the value as a String, null for {@link #NULL} and {@link #UNCHANGED} values. Allocates.
+     */
+    public String getValue(int column) {
+        if (kinds[column] == NULL || kinds[column] == UNCHANGED) {
+            return null;
+        }
+        return new String(data, offsets[column], lengths[column], StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < columnCount; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(names[i]).append('=');
+            if (kinds[i] == NULL) {
+                sb.append("NULL");
+            } else if (kinds[i] == UNCHANGED) {
+                sb.append("<unchanged>");
+            } else {
+                sb.append(getValue(i));
+            }
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,315 @@
+package com.chassis.logminer.cdc.journal;
+
+import com.chassis.logminer.cdc.event.ChangeEvent;
+import net.openhft.chronicle.queue.ChronicleQueue;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.RollCycle;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import net.openhft.chronicle.wire.DocumentContext;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Durable log of the change events of one engine, a memory-mapped Chronicle Queue with one excerpt per event.
+ * <p>
+ * Events are appended by the pipeline's sink thread in delivery order, so a transaction's rows are followed by
+ * its {@code COMMIT} event. An event counts as accepted once {@link #append} returned: it is in the mapped file
+ * and survives a crash of the process, the source checkpoint may then move past it. It only survives a crash of
+ * the OS once {@link #sync} returned, so the checkpoint store syncs the journal before it writes a checkpoint
+ * to its file (see {@link com.chassis.logminer.cdc.checkpoint.CheckpointStore#setSyncDependency}).
+ * Consumers read the journal with their own {@link ChangeJournalTailer}s at memory speed, independently of the
+ * source.
+ * <p>
+ * Files roll daily by default, or hourly for busy sources, and are kept until removed from the directory.
+ * After a crash, Oracle rows found in the de-duplication window are not journaled again, nor are the commits
+ * of transactions made only of such rows. PostgreSQL transactions after the last acknowledged LSN are resent
+ * by the slot and journaled again: a row is identified by the commit position and sequence of its event.
+ * <p>
+ * A {@link ChangeJournalIndex} kept next to the queue files maps commit positions and commit times to journal
+ * indexes, so a replay can start from an SCN, an LSN or a time without reading the journal from its start.
+ * The journal is opened by one process, tailers may be used from any number of threads of that process.
+ * <p>
+ * Downstream systems fed from one capture each read through a named {@link ChangeJournalCursor}, whose offset
+ * is kept under the {@code cursors} directory of the journal.
+ */
+public class ChangeJournal implements AutoCloseable {
+
+    public static final RollCycle DAILY = RollCycles.DAILY;
+    public static final RollCycle HOURLY = RollCycles.HOURLY;
+
+    static final String INDEX_FILE = "journal-index.dat";
+    static final String CURSOR_DIRECTORY = "cursors";
+
+    private static final Pattern CURSOR_NAME = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9_.-]*");
+    private static final String QUEUE_FILE_SUFFIX = ".cq4";
+
+    private final Path directory;
+    private final SingleChronicleQueue queue;
+    private final ChangeJournalCodec codec = new ChangeJournalCodec();
+    private final ChangeJournalIndex index;
+    private final Map<String, ChangeJournalCursor> cursors = new ConcurrentHashMap<>();
+
+    private ExcerptAppender appender;
+    private long appended;
+    private volatile long lastCommitTimeMicros;
+    // Name of the newest queue file at the last sync, the older ones were complete then
+    private String syncedFile = "";
+    private volatile long syncs;
+
+    public ChangeJournal(Path directory) throws IOException {
+        this(directory, DAILY);
+    }
+
+    /**
+     * @param rollCycle {@link #DAILY}, {@link #HOURLY} or another Chronicle roll cycle
+     */
+    public ChangeJournal(Path directory, RollCycle rollCycle) throws IOException {
+        this(directory, rollCycle, ChangeJournalIndex.DEFAULT_INTERVAL);
+    }
+
+    /**
+     * @param indexInterval number of events between two index entries, at transaction boundaries
+     */
+    public ChangeJournal(Path directory, RollCycle rollCycle, int indexInterval) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        this.queue = ChronicleQueue.singleBuilder(directory).rollCycle(rollCycle).build();
+        try {
+            this.index = new ChangeJournalIndex(directory.resolve(INDEX_FILE), indexInterval);
+            catchUpIndex();
+        } catch (IOException | RuntimeException e) {
+            queue.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Indexes the events appended after the last index entry, the ones a crash kept out of the index.
+     */
+    private void catchUpIndex() throws IOException {
+        final ChangeEvent event = new ChangeEvent();
+        try (ChangeJournalTailer tailer = createTailer()) {
+            final long from = index.lastIndexed();
+            if (from >= 0 && !tailer.moveToIndex(from)) {
+                tailer.toStart();
+            }
+            while (tailer.next(event)) {
+                index.onAppend(event, tailer.getIndex());
+                lastCommitTimeMicros = event.getCommitTimeMicros();
+            }
+        }
+    }
+
+    /**
+     * Writes the event as the next excerpt. Called by a single thread.
+     *
+     * @return the journal index of the event
+     */
+    public long append(ChangeEvent event) throws IOException {
+        if (appender == null) {
+            // Appenders belong to the thread that acquired them
+            appender = queue.acquireAppender();
+        }
+        try (DocumentContext dc = appender.writingDocument()) {
+            codec.write(event, dc.wire().bytes());
+        }
+        appended++;
+        lastCommitTimeMicros = event.getCommitTimeMicros();
+        final long journalIndex = appender.lastIndexAppended();
+        index.onAppend(event, journalIndex);
+        return journalIndex;
+    }
+
+    /**
+     * Writes the events appended so far to disk. Chronicle only writes to its mapped files; forcing a file writes
+     * back the pages dirtied through the mapping. The queue files written since the last sync are forced, the
+     * current one and any that rolled in between. Safe to call from any thread.
+     */
+    public synchronized void sync() throws IOException {
+        final List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(file -> {
+                final String name = file.getFileName().toString();
+                return name.endsWith(QUEUE_FILE_SUFFIX) && name.compareTo(syncedFile) >= 0;
+            }).sorted().collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.force(false);
+            }
+        }
+        if (!files.isEmpty()) {
+            syncedFile = files.get(files.size() - 1).getFileName().toString();
+        }
+        syncs++;
+    }
+
+    public long getSyncs() {
+        return syncs;
+    }
+
+    /**
+     * Opens the cursor named {@code name}, a new cursor reads from the start of the journal.
+     *
+     * @throws IllegalStateException if the cursor is already open
+     */
+    public ChangeJournalCursor openCursor(String name) throws IOException {
+        return openCursor(name, false, 0);
+    }
+
+    /**
+     * Opens the cursor named {@code name}, a new cursor reads from the first transaction committed at or after
+     * {@code startPosition}. An existing cursor resumes from its offset.
+     *
+     * @throws IllegalStateException if the cursor is already open
+     */
+    public ChangeJournalCursor openCursor(String name, long startPosition) throws IOException {
+        return openCursor(name, true, startPosition);
+    }
+
+    private ChangeJournalCursor openCursor(String name, boolean fromPosition, long startPosition)
+            throws IOException {
+        if (!CURSOR_NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Invalid cursor name: " + name);
+        }
+        synchronized (cursors) {
+            if (cursors.containsKey(name)) {
+                throw new IllegalStateException("Cursor already open: " + name);
+            }
+            final ChangeJournalCursor cursor = new ChangeJournalCursor(this, name,
+                    directory.resolve(CURSOR_DIRECTORY).resolve(name + ".dat"), fromPosition, startPosition);
+            cursors.put(name, cursor);
+            return cursor;
+        }
+    }
+
+    boolean removeCursor(ChangeJournalCursor cursor) {
+        return cursors.remove(cursor.getName(), cursor);
+    }
+
+    /**
+     * Returns the cursors currently open, to report their lag.
+     */
+    public Collection<ChangeJournalCursor> getCursors() {
+        return new ArrayList<>(cursors.values());
+    }
+
+    /**
+     * Returns the number of events in the journal after {@code journalIndex}, all of them when negative.
+     */
+    long countEventsAfter(long journalIndex) {
+        final long last = queue.lastIndex();
+        if (last < 0 || journalIndex >= last) {
+            return 0;
+        }
+        final long first = queue.firstIndex();
+        if (journalIndex < first) {
+            return queue.countExcerpts(first, last) + 1;
+        }
+        return queue.countExcerpts(journalIndex, last);
+    }
+
+    /**
+     * Returns the commit time of the last event appended, 0 if none.
+     */
+    public long getLastCommitTimeMicros() {
+        return lastCommitTimeMicros;
+    }
+
+    /**
+     * Creates a tailer positioned at the start of the journal, for use by one thread.
+     */
+    public ChangeJournalTailer createTailer() {
+        return new ChangeJournalTailer(queue.createTailer());
+    }
+
+    /**
+     * Creates a tailer reading from the first transaction committed at or after {@code position}, an Oracle SCN
+     * or a PostgreSQL commit LSN. Events journaled again after a crash may follow with lower positions.
+     * <p>
+     * If no transaction of the journal reaches {@code position}, the tailer is left at the end of the journal.
+     */
+    public ChangeJournalTailer createTailerAtPosition(long position) {
+        final ChangeJournalTailer tailer = createTailer();
+        tailer.seekPosition(index.indexBeforePosition(position), position);
+        return tailer;
+    }
+
+    /**
+     * Creates a tailer reading from the first transaction committed at or after {@code commitTimeMicros}.
+     * <p>
+     * If no transaction of the journal reaches that time, the tailer is left at the end of the journal.
+     */
+    public ChangeJournalTailer createTailerAtTime(long commitTimeMicros) {
+        final ChangeJournalTailer tailer = createTailer();
+        tailer.seekTime(index.indexBeforeTime(commitTimeMicros), commitTimeMicros);
+        return tailer;
+    }
+
+    /**
+     * Returns the number of entries of the sparse position index.
+     */
+    public int getIndexEntries() {
+        return index.size();
+    }
+
+    /**
+     * Returns the index of the first event still in the journal files.
+     */
+    public long getFirstIndex() {
+        return queue.firstIndex();
+    }
+
+    /**
+     * Returns the index of the last event appended, by this process or an earlier one.
+     */
+    public long getLastIndex() {
+        return queue.lastIndex();
+    }
+
+    /**
+     * Returns the number of events appended by this instance.
+     */
+    public long getAppended() {
+        return appended;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (ChangeJournalCursor cursor : getCursors()) {
+            cursor.close();
+        }
+        if (appender != null) {
+            appender.close();
+        }
+        queue.close();
+        index.close();
+    }
+
+    @Override
+    public String toString() {
+        return "ChangeJournal{" +
+                "directory=" + directory +
+                ", appended=" + appended +
+                ", indexEntries=" + index.size() +
+                ", cursors=" + cursors.values() +
+                '}';
+    }
+}
@@ -0,0 +1,98 @@
+package com.chassis.logminer.cdc.journal;
+
+import com.chassis.logminer.cdc.event.ChangeEvent;
+import com.chassis.logminer.cdc.event.ChangeEventRow;
+import net.openhft.chronicle.bytes.Bytes;
+
+/**
+ * Binary form of a {@link ChangeEvent} in the journal.
+ * <p>
+ * Fixed fields come first, then the names and nullable Strings as UTF-8, then each image as a column count
+ * followed by name, kind and raw value bytes per column. Values are copied as they are, without decoding.
+ * One instance per thread, the read buffer is reused.
+ */
+final class ChangeJournalCodec {
+
+    static final byte VERSION = 1;
+
+    private byte[] value = new byte[256];
+
+    void write(ChangeEvent event, Bytes<?> bytes) {
+        bytes.writeByte(VERSION);
+        bytes.writeByte(event.getSource());
+        bytes.writeByte(event.getOperation());
+        bytes.writeLong(event.getPosition());
+        bytes.writeLong(event.getCommitPosition());
+        bytes.writeInt(event.getSequence());
+        bytes.writeLong(event.getSubPosition());
+        bytes.writeLong(event.getTransactionId());
+        bytes.writeLong(event.getCommitTimeMicros());
+        bytes.writeLong(event.getTableId());
+        bytes.writeUtf8(event.getRecordId());
+        bytes.writeUtf8(event.getDatabase());
+        bytes.writeUtf8(event.getSchema());
+        bytes.writeUtf8(event.getTable());
+        writeRow(event.getBefore(), bytes);
+        writeRow(event.getAfter(), bytes);
+    }
+
+    private static void writeRow(ChangeEventRow row, Bytes<?> bytes) {
+        final int count = row.getColumnCount();
+        bytes.writeInt(count);
+        for (int i = 0; i < count; i++) {
+            bytes.writeUtf8(row.getColumnName(i));
+            bytes.writeByte(row.getKind(i));
+            bytes.writeInt(row.getLength(i));
+            bytes.write(row.getData(), row.getOffset(i), row.getLength(i));
+        }
+    }
+
+    /**
+     * Fills {@code event} from the excerpt at the read position of {@code bytes}.
+     *
+     * @throws IllegalStateException if the excerpt was written by an unknown version
+     */
+    void read(Bytes<?> bytes, ChangeEvent event) {
+        final byte version = bytes.readByte();
+        if (version != VERSION) {
+            throw new IllegalStateException("Unknown change journal version: " + version);
+        }
+        final byte source = bytes.readByte();
+        final byte operation = bytes.readByte();
+        final long position = bytes.readLong();
+        final long commitPosition = bytes.readLong();
+        final int sequence = bytes.readInt();
+        final long subPosition = bytes.readLong();
+        final long transactionId = bytes.readLong();
+        final long commitTimeMicros = bytes.readLong();
+        final long tableId = bytes.readLong();
+        final String recordId = bytes.readUtf8();
+        final String database = bytes.readUtf8();
+        final String schema = bytes.readUtf8();
+        final String table = bytes.readUtf8();
+
+        event.reset(source, operation)
+                .setPosition(position, commitPosition, sequence)
+                .setRecord(recordId, subPosition)
+                .setTransaction(transactionId, commitTimeMicros);
+        if (operation != ChangeEvent.COMMIT) {
+            event.setTable(tableId, database, schema, table);
+        }
+        readRow(bytes, event.getBefore());
+        readRow(bytes, event.getAfter());
+    }
+
+    private void readRow(Bytes<?> bytes, ChangeEventRow row) {
+        final int count = bytes.readInt();
+        for (int i = 0; i < count; i++) {
+            final String name = bytes.readUtf8();
+            final byte kind = bytes.readByte();
+            final int length = bytes.readInt();
+            if (length > value.length) {
+                value = new byte[Math.max(length, value.length * 2)];
+            }
+            bytes.read(value, 0, length);
+            row.add(name, kind, value, 0, length);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.chassis.logminer.cdc.journal;
+
+import com.chassis.logminer.cdc.checkpoint.CheckpointStore;
+import com.chassis.logminer.cdc.event.ChangeEvent;
+import com.chassis.logminer.cdc.event.ChangeEventListener;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Named consumer of a {@link ChangeJournal} with its own persisted offset, opened with
+ * {@link ChangeJournal#openCursor}.
+ * <p>
+ * Each downstream system reads the journal through its own cursor at its own pace: a slow cursor neither holds
+ * back the others nor the capture. {@link #commit()} stores the journal index of the last event read in a
+ * {@link CheckpointStore} under the journal's {@code cursors} directory, and a cursor opened again resumes after
+ * it. Events read and not committed are read again after a crash, delivery is at least once.
+ * <p>
+ * A cursor is used by one thread, its lag can be read from any.
+ */
+public class ChangeJournalCursor implements AutoCloseable {
+
+    private final ChangeJournal journal;
+    private final String name;
+    private final ChangeJournalTailer tailer;
+    private final CheckpointStore offset;
+    private final ChangeEvent event = new ChangeEvent();
+
+    private long lastCommitPosition;
+    private volatile long lastIndex = -1;
+    private volatile long lastCommitTimeMicros;
+    private volatile long committedIndex = -1;
+    private volatile long consumed;
+
+    /**
+     * @param fromPosition whether a new cursor starts at {@code startPosition} instead of the journal start
+     */
+    ChangeJournalCursor(ChangeJournal journal, String name, Path file, boolean fromPosition, long startPosition)
+            throws IOException {
+        this.journal = journal;
+        this.name = name;
+        this.offset = new CheckpointStore(file);
+
+        if (!offset.isEmpty()) {
+            tailer = journal.createTailer();
+            committedIndex = offset.getPosition();
+            // Reads the last event committed again, the cursor then continues after it
+            if (!tailer.moveToIndex(committedIndex) || !read(event)) {
+                System.out.println("Offset of cursor " + name + " is no longer in the journal, reading from the start");
+                tailer.toStart();
+            }
+        } else if (fromPosition) {
+            tailer = journal.createTailerAtPosition(startPosition);
+        } else {
+            tailer = journal.createTailer();
+        }
+        offset.start();
+    }
+
+    /**
+     * Fills {@code event} with the next event of the journal.
+     *
+     * @return false if the cursor reached the end of the journal
+     */
+    public boolean next(ChangeEvent event) {
+        if (!read(event)) {
+            return false;
+        }
+        consumed++;
+        return true;
+    }
+
+    private boolean read(ChangeEvent event) {
+        if (!tailer.next(event)) {
+            return false;
+        }
+        lastIndex = tailer.getIndex();
+        lastCommitPosition = event.isCommit() ? event.getPosition() : event.getCommitPosition();
+        lastCommitTimeMicros = event.getCommitTimeMicros();
+        return true;
+    }
+
+    /**
+     * Records that every event read so far has been handled, a cursor opened again resumes after the last one.
+     */
+    public void commit() {
+        if (lastIndex < 0 || lastIndex == committedIndex) {
+            return;
+        }
+        offset.update(lastIndex, lastCommitPosition, null, 0);
+        committedIndex = lastIndex;
+    }
+
+    /**
+     * Passes every event up to the current end of the journal to {@code listener}, then commits.
+     *
+     * @return the number of events passed
+     */
+    public long drainTo(ChangeEventListener listener) {
+        long events = 0;
+        while (next(event)) {
+            listener.onChange(event);
+            events++;
+        }
+        commit();
+        return events;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the number of events journaled after the last one read.
+     */
+    public long getLag() {
+        return journal.countEventsAfter(lastIndex);
+    }
+
+    /**
+     * Returns how far, in commit time, the last event read is behind the last event journaled; -1 before the
+     * first event is read.
+     */
+    public long getLagMicros() {
+        if (lastIndex < 0) {
+            return -1;
+        }
+        return Math.max(0, journal.getLastCommitTimeMicros() - lastCommitTimeMicros);
+    }
+
+    /**
+     * Returns the journal index of the last event committed, -1 if none.
+     */
+    public long getCommittedIndex() {
+        return committedIndex;
+    }
+
+    /**
+     * Returns the number of events read since the cursor was opened.
+     */
+    public long getConsumed() {
+        return consumed;
+    }
+
+    /**
+     * Closes the cursor and writes its last committed offset to disk, without committing.
+     */
+    @Override
+    public void close() throws IOException {
+        if (journal.removeCursor(this)) {
+            tailer.close();
+            offset.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ChangeJournalCursor{" +
+                "name=" + name +
+                ", consumed=" + consumed +
+                ", committedIndex=" + committedIndex +
+                ", lag=" + getLag() +
+                ", lagMicros=" + getLagMicros() +
+                '}';
+    }
+}
@@ -0,0 +1,215 @@
+package com.chassis.logminer.cdc.journal;
+
+import com.chassis.logminer.cdc.event.ChangeEvent;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Sparse index of a {@link ChangeJournal}: the commit position and commit time of a transaction every
+ * {@code interval} events or so, with the journal index of its first event.
+ * <p>
+ * A replay from a position or a time finds the last entry before it by binary search and only reads the few
+ * events between that entry and the start point. Entries are only added when both the position and the time
+ * move forward, so transactions journaled again after a crash do not break the ordering the search relies on.
+ * <p>
+ * Entries are kept in primitive arrays and in a memory-mapped file of {@code [position][time][index]} records,
+ * the count in the header being written after the record. The index can be rebuilt from the journal: entries
+ * missed by a crash are added back by {@link ChangeJournal} when it is opened. Entries are added by the
+ * appending thread and searched by any thread.
+ */
+class ChangeJournalIndex implements AutoCloseable {
+
+    static final int DEFAULT_INTERVAL = 1024;
+
+    private static final int MAGIC = 0x434A4931;
+    private static final int HEADER_SIZE = 8;
+    private static final int COUNT_OFFSET = 4;
+    private static final int ENTRY_SIZE = 3 * Long.BYTES;
+    private static final int MAP_CHUNK_ENTRIES = 64 * 1024;
+
+    private final FileChannel channel;
+    private final int interval;
+    private MappedByteBuffer buffer;
+
+    // Replaced when full, published before size so readers never see a size beyond their arrays
+    private volatile Entries entries = new Entries(MAP_CHUNK_ENTRIES);
+    private volatile int size;
+
+    // Appending thread only
+    private long transactionStart = -1;
+    private int eventsSinceEntry;
+
+    ChangeJournalIndex(Path file, int interval) throws IOException {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Invalid journal index interval: " + interval);
+        }
+        this.interval = interval;
+        this.channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        final boolean created = channel.size() == 0;
+        map(Math.max(channel.size(), HEADER_SIZE + (long) MAP_CHUNK_ENTRIES * ENTRY_SIZE));
+
+        if (created) {
+            buffer.putInt(0, MAGIC);
+        } else if (buffer.getInt(0) != MAGIC) {
+            channel.close();
+            throw new IOException("Not a change journal index file: " + file);
+        } else {
+            load(buffer.getInt(COUNT_OFFSET));
+        }
+    }
+
+    private void map(long size) throws IOException {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    private void load(int count) {
+        Entries loaded = new Entries(Math.max(count, MAP_CHUNK_ENTRIES));
+        for (int i = 0; i < count; i++) {
+            final int offset = HEADER_SIZE + i * ENTRY_SIZE;
+            loaded.positions[i] = buffer.getLong(offset);
+            loaded.times[i] = buffer.getLong(offset + Long.BYTES);
+            loaded.indexes[i] = buffer.getLong(offset + 2 * Long.BYTES);
+        }
+        entries = loaded;
+        size = count;
+    }
+
+    /**
+     * Called for every event appended to the journal, in order.
+     */
+    void onAppend(ChangeEvent event, long journalIndex) throws IOException {
+        if (transactionStart < 0) {
+            transactionStart = journalIndex;
+        }
+        eventsSinceEntry++;
+        if (!event.isCommit()) {
+            return;
+        }
+        if (eventsSinceEntry >= interval || size == 0) {
+            // The position of a COMMIT event is the commit position of its transaction for both engines
+            if (add(event.getPosition(), event.getCommitTimeMicros(), transactionStart)) {
+                eventsSinceEntry = 0;
+            }
+        }
+        transactionStart = -1;
+    }
+
+    private boolean add(long position, long timeMicros, long journalIndex) throws IOException {
+        final int count = size;
+        if (count > 0) {
+            final Entries current = entries;
+            if (Long.compareUnsigned(position, current.positions[count - 1]) <= 0 ||
+                    timeMicros < current.times[count - 1]) {
+                return false;
+            }
+        }
+
+        final long end = HEADER_SIZE + (long) (count + 1) * ENTRY_SIZE;
+        if (end > buffer.capacity()) {
+            map(buffer.capacity() + (long) MAP_CHUNK_ENTRIES * ENTRY_SIZE);
+        }
+        final int offset = HEADER_SIZE + count * ENTRY_SIZE;
+        buffer.putLong(offset, position);
+        buffer.putLong(offset + Long.BYTES, timeMicros);
+        buffer.putLong(offset + 2 * Long.BYTES, journalIndex);
+        buffer.putInt(COUNT_OFFSET, count + 1);
+
+        Entries current = entries;
+        if (count == current.positions.length) {
+            current = current.grow();
+        }
+        current.positions[count] = position;
+        current.times[count] = timeMicros;
+        current.indexes[count] = journalIndex;
+        entries = current;
+        size = count + 1;
+        return true;
+    }
+
+    /**
+     * Returns the journal index of the first event of the last indexed transaction committed before
+     * {@code position}, -1 if there is none. Strictly before, several transactions may commit at the same SCN.
+     */
+    long indexBeforePosition(long position) {
+        final int count = size;
+        final Entries current = entries;
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            if (Long.compareUnsigned(current.positions[mid], position) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high < 0 ? -1 : current.indexes[high];
+    }
+
+    /**
+     * Returns the journal index of the first event of the last indexed transaction committed before
+     * {@code timeMicros}, -1 if there is none.
+     */
+    long indexBeforeTime(long timeMicros) {
+        final int count = size;
+        final Entries current = entries;
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            if (current.times[mid] < timeMicros) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high < 0 ? -1 : current.indexes[high];
+    }
+
+    /**
+     * Returns the journal index of the first event of the last indexed transaction, -1 if none.
+     */
+    long lastIndexed() {
+        final int count = size;
+        return count == 0 ? -1 : entries.indexes[count - 1];
+    }
+
+    int size() {
+        return size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    private static final class Entries {
+
+        final long[] positions;
+        final long[] times;
+        final long[] indexes;
+
+        Entries(int capacity) {
+            this(new long[capacity], new long[capacity], new long[capacity]);
+        }
+
+        private Entries(long[] positions, long[] times, long[] indexes) {
+            this.positions = positions;
+            this.times = times;
+            this.indexes = indexes;
+        }
+
+        Entries grow() {
+            final int capacity = positions.length * 2;
+            return new Entries(Arrays.copyOf(positions, capacity), Arrays.copyOf(times, capacity),
+                    Arrays.copyOf(indexes, capacity));
+        }
+    }
+}
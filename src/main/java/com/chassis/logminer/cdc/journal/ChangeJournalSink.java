@@ -0,0 +1,35 @@
+package com.chassis.logminer.cdc.journal;
+
+import com.chassis.logminer.cdc.event.ChangeEvent;
+import com.chassis.logminer.cdc.event.ChangeEventListener;
+import com.chassis.logminer.cdc.pipeline.ChangeEventSink;
+
+import java.io.IOException;
+
+/**
+ * Pipeline sink appending every event to a {@link ChangeJournal}, the primary output of an engine.
+ * <p>
+ * The pipeline only reports an event as delivered after the sink returned, so the source checkpoint never
+ * moves past an event the journal has not accepted. An optional listener sees each event once journaled.
+ */
+public class ChangeJournalSink implements ChangeEventSink {
+
+    private final ChangeJournal journal;
+    private final ChangeEventListener listener;
+
+    /**
+     * @param listener called on the sink thread after each append, null for none
+     */
+    public ChangeJournalSink(ChangeJournal journal, ChangeEventListener listener) {
+        this.journal = journal;
+        this.listener = listener;
+    }
+
+    @Override
+    public void onEvent(ChangeEvent event) throws IOException {
+        journal.append(event);
+        if (listener != null) {
+            listener.onChange(event);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.chassis.logminer.cdc.journal;
+
+import com.chassis.logminer.cdc.event.ChangeEvent;
+import com.chassis.logminer.cdc.event.ChangeEventListener;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.wire.DocumentContext;
+
+/**
+ * Reads the events of a {@link ChangeJournal} in the order they were appended. A tailer is used by one thread
+ * and does not hold back the appender or other tailers.
+ */
+public class ChangeJournalTailer implements AutoCloseable {
+
+    private final ExcerptTailer tailer;
+    private final ChangeJournalCodec codec = new ChangeJournalCodec();
+    private final ChangeEvent event = new ChangeEvent();
+    private long index = -1;
+
+    ChangeJournalTailer(ExcerptTailer tailer) {
+        this.tailer = tailer;
+    }
+
+    /**
+     * Fills {@code event} with the next event of the journal.
+     *
+     * @return false if the tailer reached the end of the journal, {@code event} is then unchanged
+     */
+    public boolean next(ChangeEvent event) {
+        try (DocumentContext dc = tailer.readingDocument()) {
+            if (!dc.isPresent()) {
+                return false;
+            }
+            index = dc.index();
+            codec.read(dc.wire().bytes(), event);
+            return true;
+        }
+    }
+
+    /**
+     * Passes every event up to the current end of the journal to {@code listener}, on the calling thread. The
+     * event is reused, the listener copies what it keeps.
+     *
+     * @return the number of events passed
+     */
+    public long drainTo(ChangeEventListener listener) {
+        long events = 0;
+        while (next(event)) {
+            listener.onChange(event);
+            events++;
+        }
+        return events;
+    }
+
+    /**
+     * Reads forward from {@code fromIndex}, or from the start when negative or no longer in the journal, and
+     * stops before the first event of a transaction committed at or after {@code position}.
+     */
+    boolean seekPosition(long fromIndex, long position) {
+        return seek(fromIndex, false, position);
+    }
+
+    /**
+     * Same as {@link #seekPosition} with the commit time of the transactions.
+     */
+    boolean seekTime(long fromIndex, long commitTimeMicros) {
+        return seek(fromIndex, true, commitTimeMicros);
+    }
+
+    private boolean seek(long fromIndex, boolean byTime, long value) {
+        if (fromIndex < 0 || !tailer.moveToIndex(fromIndex)) {
+            tailer.toStart();
+        }
+        while (true) {
+            try (DocumentContext dc = tailer.readingDocument()) {
+                if (!dc.isPresent()) {
+                    return false;
+                }
+                codec.read(dc.wire().bytes(), event);
+                // Rows carry the commit position of their transaction, a COMMIT event has it as its position
+                final boolean reached = byTime
+                        ? event.getCommitTimeMicros() >= value
+                        : Long.compareUnsigned(event.isCommit() ? event.getPosition() : event.getCommitPosition(),
+                        value) >= 0;
+                if (reached) {
+                    // Leaves the tailer on this event
+                    dc.rollbackOnClose();
+                    return true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the journal index of the last event read, -1 if none.
+     */
+    public long getIndex() {
+        return index;
+    }
+
+    /**
+     * Positions the tailer so that {@link #next} reads the event at {@code index}.
+     *
+     * @return false if the journal has no such index
+     */
+    public boolean moveToIndex(long index) {
+        return tailer.moveToIndex(index);
+    }
+
+    public ChangeJournalTailer toStart() {
+        tailer.toStart();
+        return this;
+    }
+
+    public ChangeJournalTailer toEnd() {
+        tailer.toEnd();
+        return this;
+    }
+
+    @Override
+    public void close() {
+        tailer.close();
+    }
+}
@@ -1,4 +1,6 @@
 package com.chassis.logminer.cdc.oracle;
 
-public class AbstractOracleCDC implements IOracleCDC {
+import com.chassis.logminer.cdc.core.AbstractLogMiner;
+
+public abstract class AbstractOracleCDC extends AbstractLogMiner implements IOracleCDC {
 }
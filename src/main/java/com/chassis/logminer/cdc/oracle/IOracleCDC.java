@@ -1,4 +1,6 @@
 package com.chassis.logminer.cdc.oracle;
 
-public interface IOracleCDC {
+import com.chassis.logminer.cdc.core.ILogMiner;
+
+public interface IOracleCDC extends ILogMiner {
 }
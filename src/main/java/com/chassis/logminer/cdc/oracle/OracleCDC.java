@@ -1,72 +1,169 @@
 package com.chassis.logminer.cdc.oracle;
 
+import com.chassis.logminer.cdc.checkpoint.CheckpointStore;
 import com.chassis.logminer.cdc.connectionfactory.OracleConnectionFactory;
+import com.chassis.logminer.cdc.journal.ChangeJournal;
+import com.chassis.logminer.cdc.pipeline.ChangeEventPipeline;
+import oracle.jdbc.OracleConnection;
 
-import java.math.BigInteger;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.*;
 import java.util.List;
-import java.util.stream.Collectors;
 
 public class OracleCDC extends AbstractOracleCDC {
 
+    private static final long POLL_INTERVAL_MS = 1000;
+
+    public static final Path CHECKPOINT_FILE = Paths.get("data", "oracle-cdc", "checkpoint.dat");
+    public static final Path JOURNAL_DIRECTORY = Paths.get("data", "oracle-cdc", "journal");
+
+    private final OracleScnWindow scnWindow;
+    private volatile boolean running = true;
+
+    public OracleCDC() {
+        this(new OracleScnWindow());
+    }
+
+    public OracleCDC(OracleScnWindow scnWindow) {
+        this.scnWindow = scnWindow;
+    }
+
+    @Override
     public void startCDC() throws SQLException {
         OracleConnectionFactory connectionFactory = new OracleConnectionFactory();
 
-        try (Connection connection = connectionFactory.getConnection()) {
+        try (Connection connection = connectionFactory.getConnection();
+             // Closed after the checkpoint, whose last sync writes the journal first
+             ChangeJournal journal = openJournal(JOURNAL_DIRECTORY);
+             CheckpointStore checkpoint = new CheckpointStore(CHECKPOINT_FILE);
+             OracleDedupWindow dedupWindow = new OracleDedupWindow(
+                     OracleDedupWindow.DEFAULT_FILE, OracleDedupWindow.DEFAULT_MAX_KEYS);
+             OracleSchemaHistory schemaHistory = new OracleSchemaHistory(OracleSchemaHistory.DEFAULT_FILE);
+             // Closed first, delivering what is still in flight while the journal and checkpoint files are open
+             ChangeEventPipeline pipeline = createPipeline(journal)) {
             OracleInitializer initializer = new OracleInitializer(connection);
 
-            // Get current redo thread and first SCN
+            checkpoint.setSyncDependency(journal::sync);
+            OracleCDCTask cdcTask = new OracleCDCTask(checkpoint, dedupWindow, schemaHistory, pipeline);
+            checkpoint.start();
+
+            // Resume from the checkpoint, or from the first SCN of the archived logs on the first run
             int redoThread = initializer.getCurrentRedoThread();
-            long firstChange = initializer.getFirstScn(redoThread);
-            List<OracleLogFile> archivedLogs = initializer.getArchivedLogs(firstChange);
+            long firstChange;
+            if (checkpoint.isEmpty()) {
+                firstChange = initializer.getFirstScn(redoThread);
+            } else {
+                firstChange = checkpoint.getPosition();
+                cdcTask.resumeAfter(checkpoint.getCommitPosition());
+                System.out.println("Resuming from " + checkpoint);
+            }
+            OracleLogCatalog logCatalog = new OracleLogCatalog(connection);
+            logCatalog.refresh(firstChange);
 
             System.out.println("Starting Oracle CDC from SCN: " + firstChange);
             System.out.println("Redo thread: " + redoThread);
-            System.out.println("Archived logs available: " + archivedLogs.size());
-
-            // Add archived logs to LogMiner
-            CallableStatement csAddArchivedLogs = connection.prepareCall(OracleStatements.ADD_ARCHIVED_LOG);
-            List<String> logFilesNames = archivedLogs.stream()
-                    .map(OracleLogFile::getFileName)
-                    .collect(Collectors.toList());
-
-            for (int i = 0; i < logFilesNames.size(); i++) {
-                csAddArchivedLogs.setInt(1, i == 0 ? 0 : 1);
-                csAddArchivedLogs.setString(2, logFilesNames.get(i));
-                csAddArchivedLogs.addBatch();
+            System.out.println("Logs available: " + logCatalog.size());
+            System.out.println("Journal: " + journal.getDirectory());
+
+            OracleScn startScn = OracleScn.valueOf(firstChange);
+            cdcTask.checkpoint(startScn);
+
+            // Mine [startScn, endScn] windows until stopped, sliding the window forward after each cycle
+            while (running) {
+                OracleScn currentScn = initializer.getCurrentScn();
+                if (currentScn.compareTo(startScn) < 0) {
+                    Thread.sleep(POLL_INTERVAL_MS);
+                    continue;
+                }
+
+                OracleScn endScn = startScn.add(scnWindow.getWindow());
+                if (endScn.compareTo(currentScn) > 0) {
+                    endScn = currentScn;
+                }
+
+                logCatalog.refresh(startScn.longValue());
+                addLogFiles(connection, logCatalog.getLogFiles(startScn, endScn), startScn, endScn);
+                startLogMiner(connection, startScn, endScn);
+                int rows;
+                try {
+                    rows = cdcTask.startMine(connection);
+                    recordSessionMemory(connection);
+                } finally {
+                    stopLogMiner(connection);
+                }
+
+                scnWindow.adjust(cdcTask.getLastQueryMs(), rows, endScn.subtract(startScn).longValue() + 1);
+                System.out.println("Mined SCN range: " + startScn + " - " + endScn + ", next " + scnWindow);
+                System.out.println(journal);
+                startScn = endScn.add(OracleScn.ONE);
+                logCatalog.evictBefore(startScn);
+                cdcTask.checkpoint(startScn);
+
+                // Caught up with the database, wait for new redo before the next cycle
+                if (endScn.equals(currentScn)) {
+                    Thread.sleep(POLL_INTERVAL_MS);
+                }
             }
 
-            csAddArchivedLogs.executeBatch();
-            csAddArchivedLogs.clearBatch();
-            csAddArchivedLogs.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            e.printStackTrace();
+        } catch (IOException e) {
+            throw new SQLException("Unable to open the checkpoint, schema history or journal files!", e);
+        } finally {
+            System.out.println("Oracle CDC session ended");
+        }
+    }
 
-            // Start LogMiner session
-            CallableStatement csStartLogMiner = connection.prepareCall(OracleStatements.START_LOGMINER);
+    @Override
+    public void stopCDC() {
+        running = false;
+    }
 
-            OracleScn startScn = archivedLogs.get(0).getFirstScn();
-            OracleScn topScnToMine = startScn.add(new OracleScn(new BigInteger(String.valueOf(10000000))));
+    private void addLogFiles(Connection connection, List<OracleLogFile> logFiles,
+                             OracleScn startScn, OracleScn endScn) throws SQLException {
+        if (logFiles.isEmpty()) {
+            throw new SQLException("No redo or archived log covers SCN range " + startScn + " - " + endScn);
+        }
 
+        String[] logFilesNames = logFiles.stream()
+                .map(OracleLogFile::getFileName)
+                .toArray(String[]::new);
+
+        // Register all files in a single round trip by binding the names as one collection
+        Array logFilesArray = connection.unwrap(OracleConnection.class)
+                .createOracleArray(OracleStatements.LOG_FILE_ARRAY_TYPE, logFilesNames);
+        try (CallableStatement csAddLogFiles = connection.prepareCall(OracleStatements.ADD_LOG_FILES)) {
+            csAddLogFiles.setArray(1, logFilesArray);
+            csAddLogFiles.execute();
+        } finally {
+            logFilesArray.free();
+        }
+    }
+
+    private void startLogMiner(Connection connection, OracleScn startScn, OracleScn endScn) throws SQLException {
+        try (CallableStatement csStartLogMiner = connection.prepareCall(OracleStatements.START_LOGMINER)) {
             csStartLogMiner.setLong(1, startScn.longValue());
-            csStartLogMiner.setLong(2, topScnToMine.longValue());
+            csStartLogMiner.setLong(2, endScn.longValue());
             csStartLogMiner.execute();
             csStartLogMiner.clearParameters();
-            csStartLogMiner.close();
+        }
+    }
 
-            // Start mining changes
-            OracleCDCTask cdcTask = new OracleCDCTask();
-            cdcTask.startMine(connection);
+    private void recordSessionMemory(Connection connection) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(OracleStatements.LOGMINER_SESSION_MEMORY);
+             ResultSet rs = ps.executeQuery()) {
+            if (rs.next()) {
+                scnWindow.recordSessionMemory(rs.getLong(1), rs.getLong(2));
+            }
+        }
+    }
 
-            // Stop LogMiner
-            CallableStatement csStopLogMiner = connection.prepareCall(OracleStatements.STOP_LOGMINER);
+    private void stopLogMiner(Connection connection) throws SQLException {
+        try (CallableStatement csStopLogMiner = connection.prepareCall(OracleStatements.STOP_LOGMINER)) {
             csStopLogMiner.execute();
-            csStopLogMiner.close();
-
-            Thread.sleep(10000);
-
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        } finally {
-            System.out.println("Oracle CDC session ended");
         }
     }
 
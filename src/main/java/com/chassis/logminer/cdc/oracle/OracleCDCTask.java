@@ -1,153 +1,376 @@
 package com.chassis.logminer.cdc.oracle;
 
+import com.chassis.logminer.cdc.checkpoint.CheckpointStore;
+import com.chassis.logminer.cdc.core.LogmnrContents;
+import com.chassis.logminer.cdc.event.ChangeEvent;
+import com.chassis.logminer.cdc.pipeline.BatchStage;
+import com.chassis.logminer.cdc.pipeline.ChangeEventPipeline;
+import com.chassis.logminer.cdc.pipeline.RingBuffer;
+import com.chassis.logminer.cdc.pipeline.WaitStrategy;
 import oracle.jdbc.OraclePreparedStatement;
-import oracle.jdbc.OracleResultSet;
 import org.apache.commons.lang3.StringUtils;
 
+import java.sql.Array;
 import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
-public class OracleCDCTask {
+public class OracleCDCTask implements OracleTransactionListener {
 
     public static final int MODE_WHERE_ALL_MVIEW_LOGS = 1;
     public static final int MODE_WHERE_ALL_OBJECTS = 2;
     private static final String SQL_AND = " and ";
+    private static final int ROW_RING_CAPACITY = 4096;
 
     private boolean cdb = true;
     private boolean pdbConnectionAllowed = false;
+    private long lastQueryMs;
+    private volatile long lastCommitScn = OracleScn.NULL_VALUE;
+    private long resumeCommitScn = OracleScn.NULL_VALUE;
+    private volatile long restartScn = OracleScn.NULL_VALUE;
+
+    private final CheckpointStore checkpoint;
+    private final OracleDedupWindow dedupWindow;
+    private final ChangeEventPipeline pipeline;
+    private final ChangeEvent changeEvent = new ChangeEvent();
+    private final RingBuffer<OracleContentsRow> rowRing = new RingBuffer<>(ROW_RING_CAPACITY, OracleContentsRow::new);
+    private int count;
+    private int unparsed;
+    private String lastUnparsedMessage;
+    private int transactionRows;
+    private int suppressedRows;
+    private long commitTimeMicros;
+    private OracleContainerCache containerCache;
+    private OracleObjectFilter objectFilter;
+    private OracleTableMetadataCache metadataCache;
+    private final OracleSchemaHistory schemaHistory;
+
+    private final OracleCharBufferPool charBufferPool = new OracleCharBufferPool();
+    private final OracleRedoAssembler redoAssembler = new OracleRedoAssembler(charBufferPool);
+    private final OracleTransactionBuffer transactionBuffer = new OracleTransactionBuffer(charBufferPool);
+    private final OracleRedoParser redoParser = new OracleRedoParser();
+    private final OracleContentsReader contentsReader = new OracleContentsReader();
+
+    /**
+     * @param checkpoint    where the position is stored after every transaction sent
+     * @param dedupWindow   rows sent since the checkpoint, to suppress them after a restart
+     * @param schemaHistory definitions of the mined tables by SCN, rows are described as of their own change
+     * @param pipeline      carries the rows of committed transactions and their commits to the sink, started by
+     *                      the first {@link #startMine}
+     */
+    public OracleCDCTask(CheckpointStore checkpoint, OracleDedupWindow dedupWindow, OracleSchemaHistory schemaHistory,
+                         ChangeEventPipeline pipeline) {
+        this.checkpoint = checkpoint;
+        this.dedupWindow = dedupWindow;
+        this.schemaHistory = schemaHistory;
+        this.pipeline = pipeline;
+    }
 
-    public void startMine(Connection connection) throws SQLException {
-        String mineSQL = OracleStatements.MINE_DATA_CDB;
-        String checkTableSql = OracleStatements.CHECK_TABLE_CDB;
-
-        List<String> includeList = new ArrayList<>();
-        includeList.add("USER_DETAILS");
-
-        final String tableList = parseTableSchemaList(false, MODE_WHERE_ALL_OBJECTS, includeList);
-        final String objectList = getMineObjectsIds(connection, false, tableList);
-
-        mineSQL += "where ((OPERATION_CODE in (1,2,3,5) " + objectList + ")";
-        checkTableSql += tableList;
+    public int startMine(Connection connection) throws SQLException {
+        if (containerCache == null) {
+            containerCache = new OracleContainerCache(connection);
+        }
+        if (!pipeline.isStarted()) {
+            pipeline.start(this::onDelivered);
+        }
 
-        mineSQL += " or OPERATION_CODE in (7,36))";
-        mineSQL += getConUidsList(connection);
+        if (objectFilter == null) {
+            List<String> includeList = new ArrayList<>();
+            includeList.add("C##CRUDUSER.CDC_TEST");
 
-        // Simplified query for specific table
-        mineSQL = "SELECT SCN, USERNAME, OPERATION_CODE, XID, TIMESTAMP, SQL_REDO, TABLE_NAME, " +
-                  "COMMIT_SCN, SEQUENCE#, CSF, XIDUSN, XIDSLT, XIDSQN, RS_ID, SSN, SEG_OWNER, " +
-                  "ROLLBACK, ROW_ID " +
-                  "FROM V$LOGMNR_CONTENTS " +
-                  "WHERE OPERATION_CODE in (1, 2, 3, 5) " +
-                  "AND SEG_OWNER in ('C##CRUDUSER') " +
-                  "AND SEG_NAME ='CDC_TEST'";
+            final String tableList = parseTableSchemaList(false, MODE_WHERE_ALL_OBJECTS, includeList);
+            objectFilter = new OracleObjectFilter(connection, cdb && !pdbConnectionAllowed, false, includeList);
+            metadataCache = new OracleTableMetadataCache(connection, cdb && !pdbConnectionAllowed, tableList,
+                    schemaHistory);
+            metadataCache.warm(new OracleInitializer(connection).getCurrentScn().longValue());
+        }
 
-        int count = 0;
+        count = 0;
+        unparsed = 0;
+        lastUnparsedMessage = null;
+        final int rows;
+        final long queryStart = System.nanoTime();
 
+        // COMMIT and ROLLBACK rows of every transaction are needed to close the transactions buffered client-side
         try (OraclePreparedStatement psLogMiner = (OraclePreparedStatement) connection.prepareStatement(
-                mineSQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
-
-            OracleResultSet oracleResultSet = (OracleResultSet) psLogMiner.executeQuery();
-
-            while (oracleResultSet.next()) {
-                short operation = oracleResultSet.getShort("OPERATION_CODE");
-                String xid = oracleResultSet.getString("XID");
-                Long lastScn = oracleResultSet.getLong("SCN");
-                String lastRsId = oracleResultSet.getString("RS_ID");
-                Long lastSsn = oracleResultSet.getLong("SSN");
-                String redo = oracleResultSet.getString("SQL_REDO");
-
-                System.out.println("Operation: " + operation);
-                if (!StringUtils.equalsAnyIgnoreCase(redo, "commit") &&
-                    !StringUtils.equalsAnyIgnoreCase(redo, "rollback")) {
-                    System.out.println(redo);
-                    count++;
-                }
+                objectFilter.getMineStatement(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            contentsReader.define(psLogMiner);
+            final Array objectKeys = objectFilter.bind(psLogMiner, 1);
+
+            try (ResultSet rs = psLogMiner.executeQuery()) {
+                rows = fetchAndProcess(rs);
+            } finally {
+                objectKeys.free();
             }
         }
+        contentsReader.tunePrefetch(rows);
 
-        System.out.println("Total records processed: " + count);
+        if (redoAssembler.isPending()) {
+            // All rows of a statement share its SCN, so this only happens when the rows were cut short
+            System.out.println("Discarding incomplete SQL_REDO at the end of the mining window");
+            redoAssembler.reset();
+        }
+
+        lastQueryMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - queryStart);
+        System.out.println("Total records processed: " + count +
+                ", unparsed: " + unparsed +
+                ", open transactions: " + transactionBuffer.getOpenTransactions() +
+                ", spilled: " + transactionBuffer.getSpilledTransactions() +
+                ", next row prefetch: " + contentsReader.getRowPrefetch() +
+                ", de-duplication window: " + dedupWindow.size() + " rows, " + dedupWindow.getMemoryBytes() + " bytes" +
+                ", fetch waits: " + rowRing.getProducerWaits() + ", " + pipeline);
+        if (lastUnparsedMessage != null) {
+            System.out.println("Last unparsed SQL_REDO: " + lastUnparsedMessage);
+        }
+        return rows;
     }
 
-    private String readSqlRedo(ResultSet oracleResultSet) throws SQLException {
-        final boolean multiLineSql = oracleResultSet.getBoolean("CSF");
-        if (multiLineSql) {
-            final StringBuilder sb = new StringBuilder(16000);
-            boolean moreRedoLines = multiLineSql;
-            while (moreRedoLines) {
-                sb.append(oracleResultSet.getString("SQL_REDO"));
-                moreRedoLines = oracleResultSet.getBoolean("CSF");
-                if (moreRedoLines) {
-                    oracleResultSet.next();
-                }
-            }
-            return sb.toString();
-        } else {
-            return oracleResultSet.getString("SQL_REDO");
+    /**
+     * Fetches the rows on a separate thread into the row ring while this thread decodes them, so decoding
+     * overlaps with the fetch round trips. When decoding falls behind, or the pipeline is full, the ring fills
+     * up and the fetch waits instead of asking the database for more rows.
+     *
+     * @return the number of rows fetched
+     */
+    private int fetchAndProcess(ResultSet rs) throws SQLException {
+        final BatchStage<OracleContentsRow> decoder = new BatchStage<>("oracle-decoder", rowRing,
+                rowRing.getCursor(), (row, sequence, endOfBatch) -> processRow(row), pipeline.newWaitStrategy());
+        rowRing.setGatingSequence(decoder.getSequence());
+
+        final ContentsFetcher fetcher = new ContentsFetcher(rs, decoder, pipeline.newWaitStrategy());
+        final Thread fetchThread = new Thread(fetcher, "oracle-contents-fetcher");
+        fetchThread.setDaemon(true);
+        fetchThread.start();
+
+        // Runs until the fetcher has published the last row and all rows are processed
+        decoder.run();
+        try {
+            fetchThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while fetching V$LOGMNR_CONTENTS!", e);
+        }
+
+        if (decoder.getFailure() instanceof SQLException) {
+            throw (SQLException) decoder.getFailure();
+        } else if (decoder.getFailure() instanceof RuntimeException) {
+            throw (RuntimeException) decoder.getFailure();
+        }
+        if (fetcher.failure != null) {
+            throw fetcher.failure;
         }
+        return fetcher.rows;
     }
 
-    public String getMineObjectsIds(final Connection connection,
-                                     final boolean exclude, final String where) throws SQLException {
-        final StringBuilder sb = new StringBuilder(32768);
-        if (exclude) {
-            sb.append(" and DATA_OBJ# not in (");
-        } else {
-            sb.append(" and (DATA_OBJ# in (");
-        }
-
-        final String selectObjectIds =
-                "select OBJECT_ID\n" +
-                ((cdb && !pdbConnectionAllowed) ? "from CDB_OBJECTS O\n" : "from DBA_OBJECTS O\n") +
-                "where DATA_OBJECT_ID is not null\n" +
-                "  and OBJECT_TYPE like 'TABLE%'\n" +
-                "  and TEMPORARY='N'\n" +
-                where;
-
-        System.out.println(selectObjectIds);
-
-        PreparedStatement ps = connection.prepareStatement(selectObjectIds,
-                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
-        ResultSet rs = ps.executeQuery();
-        boolean firstValue = true;
-        boolean lastValue = false;
-        int recordCount = 0;
-
-        while (rs.next()) {
-            lastValue = false;
-            if (firstValue) {
-                firstValue = false;
-            } else {
-                sb.append(",");
+    private void processRow(OracleContentsRow row) throws SQLException {
+        final int operation = row.getOperation();
+        final long xid = row.getXid();
+
+        CharSequence sqlRedo = null;
+        if (operation <= LogmnrContents.DDL) {
+            // Split statements only count once their last row is read, so the RS_ID/SSN position
+            // never points into the middle of one
+            sqlRedo = redoAssembler.append(row.getSqlRedo(), row.isCsf(), row.getScn(), row.getRsId(), row.getSsn());
+            if (sqlRedo == null) {
+                return;
             }
-            sb.append(rs.getInt(1));
-            recordCount++;
-            if (recordCount > 999) {
-                sb.append(")");
-                lastValue = true;
-                if (exclude) {
-                    sb.append(" and DATA_OBJ# not in (");
-                } else {
-                    sb.append(" or DATA_OBJ# in (");
+        }
+
+        switch (operation) {
+            case LogmnrContents.INSERT:
+            case LogmnrContents.DELETE:
+            case LogmnrContents.UPDATE:
+                if (row.isRollback()) {
+                    // Partial rollback, cancels an earlier change of the same row
+                    transactionBuffer.undo(xid, row.getRowId());
+                    OracleRedoText.release(sqlRedo, charBufferPool);
+                    break;
                 }
-                firstValue = true;
-                recordCount = 0;
-            }
+                final long conUid = row.getConUid();
+                transactionBuffer.add(xid, containerCache.getConId(conUid), containerCache.getName(conUid),
+                        row.getScn(), row.getTimestamp(), operation, row.getRsId(), row.getSsn(),
+                        row.getObjectId(), row.getRowId(), row.getSegOwner(), row.getTableName(), sqlRedo);
+                break;
+            case LogmnrContents.COMMIT:
+                if (OracleScn.compare(row.getScn(), resumeCommitScn) < 0) {
+                    // Already sent before the restart, mining restarted earlier to rebuild open transactions
+                    transactionBuffer.rollback(xid);
+                    break;
+                }
+                commitTimeMicros = TimeUnit.MILLISECONDS.toMicros(row.getTimestamp());
+                transactionBuffer.commit(xid, row.getScn(), this);
+                break;
+            case LogmnrContents.ROLLBACK:
+                transactionBuffer.rollback(xid);
+                break;
+            case LogmnrContents.DDL:
+                // DDL is auto-committed, no need to wait for the COMMIT row. Tables may have been dropped and
+                // created again under a new object number. PDB changes are not seen here, the container cache
+                // refreshes itself on unknown CON_UIDs and by age
+                final int ddlConId = containerCache.getConId(row.getConUid());
+                if (objectFilter.acceptsDdl(row.getObjectId(), ddlConId, row.getSegOwner(), row.getTableName())) {
+                    objectFilter.invalidate();
+                    metadataCache.refresh(row.getScn(), ddlConId, row.getSegOwner(), row.getTableName());
+                    System.out.println("Operation: " + operation);
+                    System.out.println(sqlRedo);
+                }
+                OracleRedoText.release(sqlRedo, charBufferPool);
+                break;
+            default:
+                break;
         }
+    }
 
-        if (!lastValue) {
-            sb.append(")");
+    @Override
+    public void onEvent(OracleRedoEvent event) {
+        // Numbered before de-duplication, a row keeps its sequence when it is replayed after a restart
+        final int sequence = transactionRows++;
+        if (dedupWindow.isDuplicate(event.getScn(), event.getRsId(), event.getSsn())) {
+            suppressedRows++;
+            return;
         }
-        sb.append(")");
+        // Definition as of the change, the table may have been altered since
+        final OracleTableMetadata table = metadataCache.get(event.getObjectId(), event.getConId(), event.getScn());
+        try {
+            final OracleRedoStatement statement = redoParser.parse(event.getSqlRedo());
+            OracleChangeEvents.fill(changeEvent, event, statement, table, sequence, commitTimeMicros);
+        } catch (IllegalArgumentException e) {
+            // LOB operations and Unsupported Type among others. Sent as they are, the commit of the transaction
+            // moves the checkpoint past them. Counted and reported once per cycle
+            lastUnparsedMessage = e.getMessage();
+            OracleChangeEvents.fillUnparsed(changeEvent, event, table, sequence, commitTimeMicros);
+            unparsed++;
+        }
+        pipeline.onChange(changeEvent);
+        count++;
+    }
 
-        rs.close();
-        ps.close();
+    @Override
+    public void onCommit(long xid, long commitScn, int events) {
+        // A transaction whose rows were all sent before the restart had its commit sent with them
+        if (suppressedRows == 0 || suppressedRows < transactionRows) {
+            OracleChangeEvents.fillCommit(changeEvent, xid, commitScn, events, commitTimeMicros,
+                    getLastRsId(), getLastSsn());
+            pipeline.onChange(changeEvent);
+        }
+        transactionRows = 0;
+        suppressedRows = 0;
+    }
 
-        System.out.println("Object List: " + sb.toString());
-        return sb.toString();
+    /**
+     * Called on the sink thread once an event has been written out: the row is recorded in the de-duplication
+     * window, and a commit moves the checkpoint.
+     */
+    private void onDelivered(ChangeEvent event) {
+        if (!event.isCommit()) {
+            dedupWindow.record(event.getCommitPosition(), event.getPosition(), event.getRecordId(),
+                    event.getSubPosition());
+            return;
+        }
+        lastCommitScn = event.getCommitPosition();
+        dedupWindow.advance(lastCommitScn);
+        checkpoint.update(restartScn, lastCommitScn, event.getRecordId(), event.getSubPosition());
+    }
+
+    /**
+     * Skips the transactions committed before {@code commitScn} after a restart, they were sent already. Rows of
+     * the later ones are checked against the de-duplication window.
+     */
+    public void resumeAfter(long commitScn) {
+        resumeCommitScn = commitScn;
+        lastCommitScn = commitScn;
+    }
+
+    /**
+     * Records the checkpoint at the end of a mining cycle. A restart has to go back to the oldest open
+     * transaction to rebuild it, or else starts at {@code nextStartScn}; the same restart SCN is used by the
+     * checkpoints of the next cycle, none of its transactions can start earlier.
+     * <p>
+     * Waits for the pipeline to deliver the transactions of the cycle first, the checkpoint is then only updated
+     * by this thread.
+     */
+    public void checkpoint(OracleScn nextStartScn) {
+        pipeline.flush();
+        final OracleScn oldestScn = transactionBuffer.getOldestScn();
+        restartScn = oldestScn.isNull() ? nextStartScn.longValue() : oldestScn.longValue();
+        checkpoint.update(restartScn, lastCommitScn, getLastRsId(), getLastSsn());
+    }
+
+    /**
+     * Returns the commit SCN of the last transaction delivered, {@link OracleScn#NULL_VALUE} if none.
+     */
+    public long getLastCommitScn() {
+        return lastCommitScn;
+    }
+
+    /**
+     * Returns the start SCN of the oldest transaction still buffered, mining must not restart after it.
+     */
+    public OracleScn getOldestOpenTransactionScn() {
+        return transactionBuffer.getOldestScn();
+    }
+
+    /**
+     * Returns the position of the last complete statement read, as SCN, RS_ID and SSN.
+     */
+    public OracleScn getLastScn() {
+        return OracleScn.valueOf(redoAssembler.getLastScn());
+    }
+
+    public String getLastRsId() {
+        return redoAssembler.getLastRsId();
+    }
+
+    public long getLastSsn() {
+        return redoAssembler.getLastSsn();
+    }
+
+    /**
+     * Returns the time taken by the last V$LOGMNR_CONTENTS query, including fetching all of its rows.
+     */
+    public long getLastQueryMs() {
+        return lastQueryMs;
+    }
+
+    /**
+     * Reads the rows of the mining query into the row ring, then lets the decoder finish.
+     */
+    private final class ContentsFetcher implements Runnable {
+
+        private final ResultSet rs;
+        private final BatchStage<OracleContentsRow> decoder;
+        private final WaitStrategy wait;
+        private volatile int rows;
+        private volatile SQLException failure;
+
+        private ContentsFetcher(ResultSet rs, BatchStage<OracleContentsRow> decoder, WaitStrategy wait) {
+            this.rs = rs;
+            this.decoder = decoder;
+            this.wait = wait;
+        }
+
+        @Override
+        public void run() {
+            try {
+                int fetched = 0;
+                while (rs.next()) {
+                    final long sequence = rowRing.next(wait);
+                    contentsReader.read(rs, rowRing.get(sequence));
+                    rowRing.publish(sequence);
+                    fetched++;
+                }
+                rows = fetched;
+            } catch (SQLException e) {
+                failure = e;
+            } catch (IllegalStateException e) {
+                // The decoder failed and stopped taking rows, it reports the error
+            } finally {
+                decoder.halt();
+            }
+        }
     }
 
     public static String parseTableSchemaList(final boolean exclude, final int mode,
@@ -220,29 +443,4 @@ public class OracleCDCTask {
         sb.append(")");
         return sb.toString();
     }
-
-    public String getConUidsList(final Connection connection) throws SQLException {
-        final StringBuilder sb = new StringBuilder(256);
-        sb.append(" and SRC_CON_UID in (");
-
-        PreparedStatement statement = connection.prepareStatement(
-                "select CON_UID from V$CONTAINERS where CON_ID > 2");
-        ResultSet rs = statement.executeQuery();
-        boolean first = true;
-
-        while (rs.next()) {
-            if (first) {
-                first = false;
-            } else {
-                sb.append(",");
-            }
-            sb.append(rs.getLong(1));
-        }
-
-        if (first) {
-            return "";
-        } else {
-            return sb.toString() + ")";
-        }
-    }
 }
@@ -0,0 +1,112 @@
+package com.chassis.logminer.cdc.oracle;
+
+import com.chassis.logminer.cdc.event.ChangeEvent;
+import com.chassis.logminer.cdc.event.ChangeEventRow;
+
+/**
+ * Fills {@link ChangeEvent}s from committed redo rows.
+ * <p>
+ * Column names are taken from the table metadata when the table is known, so the events share its Strings
+ * instead of allocating names for every row.
+ */
+final class OracleChangeEvents {
+
+    static final String SQL_REDO_COLUMN = "SQL_REDO";
+
+    private OracleChangeEvents() {
+    }
+
+    /**
+     * @param table            definition of the table as of the change, null if not known
+     * @param sequence         index of the row inside its transaction
+     * @param commitTimeMicros time of the COMMIT row of the transaction
+     */
+    static void fill(ChangeEvent changeEvent, OracleRedoEvent event, OracleRedoStatement statement,
+                     OracleTableMetadata table, int sequence, long commitTimeMicros) {
+        changeEvent.reset(ChangeEvent.SOURCE_ORACLE, operation(statement.getOperation()))
+                .setPosition(event.getScn(), event.getCommitScn(), sequence)
+                .setRecord(event.getRsId(), event.getSsn())
+                .setTransaction(event.getXid(), commitTimeMicros);
+        if (table != null) {
+            changeEvent.setTable(event.getObjectId(), table.getPdbName(), table.getOwner(), table.getTableName());
+        } else {
+            changeEvent.setTable(event.getObjectId(), event.getPdbName(), event.getSegOwner(), event.getTableName());
+        }
+
+        if (statement.getBefore() != null) {
+            copy(statement.getBefore(), table, changeEvent.getBefore());
+        }
+        if (statement.getAfter() != null) {
+            copy(statement.getAfter(), table, changeEvent.getAfter());
+        }
+    }
+
+    /**
+     * Fills a {@link ChangeEvent#UNPARSED} event from a row whose SQL_REDO could not be parsed, the statement
+     * goes in the {@link #SQL_REDO_COLUMN} column of the after image.
+     */
+    static void fillUnparsed(ChangeEvent changeEvent, OracleRedoEvent event, OracleTableMetadata table,
+                             int sequence, long commitTimeMicros) {
+        changeEvent.reset(ChangeEvent.SOURCE_ORACLE, ChangeEvent.UNPARSED)
+                .setPosition(event.getScn(), event.getCommitScn(), sequence)
+                .setRecord(event.getRsId(), event.getSsn())
+                .setTransaction(event.getXid(), commitTimeMicros);
+        if (table != null) {
+            changeEvent.setTable(event.getObjectId(), table.getPdbName(), table.getOwner(), table.getTableName());
+        } else {
+            changeEvent.setTable(event.getObjectId(), event.getPdbName(), event.getSegOwner(), event.getTableName());
+        }
+        changeEvent.getAfter().add(SQL_REDO_COLUMN, ChangeEventRow.EXPRESSION, event.getSqlRedo());
+    }
+
+    /**
+     * @param rsId RS_ID of the last statement read, stored with {@code ssn} in the checkpoint
+     */
+    static void fillCommit(ChangeEvent changeEvent, long xid, long commitScn, int rows, long commitTimeMicros,
+                           String rsId, long ssn) {
+        changeEvent.reset(ChangeEvent.SOURCE_ORACLE, ChangeEvent.COMMIT)
+                .setPosition(commitScn, commitScn, rows)
+                .setRecord(rsId, ssn)
+                .setTransaction(xid, commitTimeMicros);
+    }
+
+    private static byte operation(byte operation) {
+        switch (operation) {
+            case OracleRedoStatement.INSERT:
+                return ChangeEvent.INSERT;
+            case OracleRedoStatement.UPDATE:
+                return ChangeEvent.UPDATE;
+            case OracleRedoStatement.DELETE:
+                return ChangeEvent.DELETE;
+            default:
+                throw new IllegalArgumentException("Unknown redo operation: " + (char) operation);
+        }
+    }
+
+    private static void copy(OracleRowImage image, OracleTableMetadata table, ChangeEventRow row) {
+        // SQL_REDO lists the columns in table order, so the next table column is almost always the match
+        int next = 0;
+        for (int i = 0; i < image.getColumnCount(); i++) {
+            String name = null;
+            if (table != null) {
+                final int column = find(image, i, table, next);
+                if (column >= 0) {
+                    name = table.getColumnName(column);
+                    next = column + 1;
+                }
+            }
+            image.copyTo(i, name != null ? name : image.getColumnName(i), row);
+        }
+    }
+
+    private static int find(OracleRowImage image, int column, OracleTableMetadata table, int from) {
+        final int count = table.getColumnCount();
+        for (int n = 0; n < count; n++) {
+            final int candidate = (from + n) % count;
+            if (image.columnNameEquals(column, table.getColumnName(candidate))) {
+                return candidate;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,93 @@
+package com.chassis.logminer.cdc.oracle;
+
+/**
+ * Pool of {@code char[]} buffers in power of two size classes, used to reassemble {@code SQL_REDO}
+ * statements split over several {@code CSF} rows without allocating a new buffer per statement.
+ * <p>
+ * Not thread safe, meant to be owned by the mining loop.
+ */
+public class OracleCharBufferPool {
+
+    /**
+     * Smallest buffer handed out, a little more than two 4000 character {@code SQL_REDO} rows.
+     */
+    public static final int MIN_BUFFER_SIZE = 8192;
+
+    private static final int MIN_SHIFT = 13;
+    private static final int SIZE_CLASSES = 19; // 8K .. 2G chars
+    private static final int DEFAULT_MAX_POOLED_PER_CLASS = 8;
+
+    private final char[][][] pooled = new char[SIZE_CLASSES][][];
+    private final int[] pooledCounts = new int[SIZE_CLASSES];
+    private final int maxPooledPerClass;
+
+    private long allocated;
+    private long reused;
+
+    public OracleCharBufferPool() {
+        this(DEFAULT_MAX_POOLED_PER_CLASS);
+    }
+
+    public OracleCharBufferPool(int maxPooledPerClass) {
+        if (maxPooledPerClass < 0) {
+            throw new IllegalArgumentException("Invalid pool size: " + maxPooledPerClass);
+        }
+        this.maxPooledPerClass = maxPooledPerClass;
+    }
+
+    /**
+     * Returns a buffer of at least {@code minCapacity} chars, its content is undefined.
+     */
+    public char[] acquire(int minCapacity) {
+        final int sizeClass = sizeClass(minCapacity);
+        if (pooledCounts[sizeClass] > 0) {
+            final char[] buffer = pooled[sizeClass][--pooledCounts[sizeClass]];
+            pooled[sizeClass][pooledCounts[sizeClass]] = null;
+            reused++;
+            return buffer;
+        }
+        allocated++;
+        return new char[1 << (sizeClass + MIN_SHIFT)];
+    }
+
+    /**
+     * Returns a buffer obtained from {@link #acquire(int)} to the pool. It must not be used afterwards.
+     */
+    public void release(char[] buffer) {
+        final int sizeClass = Integer.numberOfTrailingZeros(buffer.length) - MIN_SHIFT;
+        if (sizeClass < 0 || sizeClass >= SIZE_CLASSES || buffer.length != 1 << (sizeClass + MIN_SHIFT)) {
+            return;
+        }
+        if (pooled[sizeClass] == null) {
+            pooled[sizeClass] = new char[maxPooledPerClass][];
+        }
+        if (pooledCounts[sizeClass] < maxPooledPerClass) {
+            pooled[sizeClass][pooledCounts[sizeClass]++] = buffer;
+        }
+    }
+
+    /**
+     * Number of buffers that had to be allocated.
+     */
+    public long getAllocated() {
+        return allocated;
+    }
+
+    /**
+     * Number of buffers served from the pool.
+     */
+    public long getReused() {
+        return reused;
+    }
+
+    private static int sizeClass(int minCapacity) {
+        if (minCapacity <= MIN_BUFFER_SIZE) {
+            return 0;
+        }
+        final int sizeClass = 32 - Integer.numberOfLeadingZeros(minCapacity - 1) - MIN_SHIFT;
+        if (sizeClass >= SIZE_CLASSES) {
+            throw new IllegalArgumentException("SQL_REDO too large: " + minCapacity + " chars");
+        }
+        return sizeClass;
+    }
+}
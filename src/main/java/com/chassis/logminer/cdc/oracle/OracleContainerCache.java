@@ -0,0 +1,175 @@
+package com.chassis.logminer.cdc.oracle;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client-side copy of {@code V$CONTAINERS}, mapping the {@code SRC_CON_UID} of mined rows to the container id
+ * and PDB name without a per-row subquery.
+ * <p>
+ * Containers are kept in arrays sorted by CON_UID. The cache is re-read when a row refers to an unknown
+ * CON_UID (a PDB created or plugged in), after {@link #invalidate()} and once it is older than
+ * {@code maxAgeMs}, which picks up PDBs opened or closed: the mined rows carry no trace of open mode changes.
+ * A CON_UID still unknown after a refresh is remembered as such until the next refresh.
+ * <p>
+ * Not thread safe, meant to be owned by the mining loop.
+ */
+public class OracleContainerCache {
+
+    public static final long DEFAULT_MAX_AGE_MS = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * Containers with a lower CON_ID are CDB$ROOT and PDB$SEED.
+     */
+    private static final int FIRST_PDB_CON_ID = 3;
+    private static final int UNKNOWN = -1;
+
+    private final Connection connection;
+    private final long maxAgeNanos;
+
+    private long[] conUids = new long[0];
+    private int[] conIds = new int[0];
+    private String[] names = new String[0];
+    private boolean[] open = new boolean[0];
+    private int size;
+
+    private boolean stale = true;
+    private long refreshedAtNanos;
+    private long refreshes;
+
+    public OracleContainerCache(Connection connection) {
+        this(connection, DEFAULT_MAX_AGE_MS);
+    }
+
+    public OracleContainerCache(Connection connection, long maxAgeMs) {
+        this.connection = connection;
+        this.maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(maxAgeMs);
+    }
+
+    /**
+     * Re-reads {@code V$CONTAINERS}.
+     */
+    public void refresh() throws SQLException {
+        final List<Object[]> rows = new ArrayList<>();
+        try (PreparedStatement ps = connection.prepareStatement(
+                OracleStatements.CONTAINERS,
+                ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                final String openMode = rs.getString(4);
+                rows.add(new Object[]{rs.getLong(1), rs.getInt(2), rs.getString(3),
+                        openMode != null && openMode.startsWith("READ")});
+            }
+        } catch (SQLException e) {
+            throw new SQLException("Unable to read V$CONTAINERS!", e);
+        }
+
+        final int capacity = rows.size() + 4;
+        conUids = new long[capacity];
+        conIds = new int[capacity];
+        names = new String[capacity];
+        open = new boolean[capacity];
+        size = 0;
+        for (Object[] row : rows) {
+            insert((Long) row[0], (Integer) row[1], (String) row[2], (Boolean) row[3]);
+        }
+
+        stale = false;
+        refreshedAtNanos = System.nanoTime();
+        refreshes++;
+    }
+
+    /**
+     * Makes the next lookup re-read {@code V$CONTAINERS}.
+     */
+    public void invalidate() {
+        stale = true;
+    }
+
+    /**
+     * Returns the CON_ID of the container, -1 if it is unknown.
+     */
+    public int getConId(long conUid) throws SQLException {
+        return conIds[indexOf(conUid)];
+    }
+
+    /**
+     * Returns the name of the container, such as {@code ORCLPDB1}, or null if it is unknown.
+     */
+    public String getName(long conUid) throws SQLException {
+        return names[indexOf(conUid)];
+    }
+
+    /**
+     * Returns the CON_UIDs of the PDBs that are open, CDB$ROOT and PDB$SEED excluded.
+     */
+    public long[] getOpenPdbUids() throws SQLException {
+        refreshIfStale();
+        final long[] uids = new long[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (open[i] && conIds[i] >= FIRST_PDB_CON_ID) {
+                uids[count++] = conUids[i];
+            }
+        }
+        return Arrays.copyOf(uids, count);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getRefreshes() {
+        return refreshes;
+    }
+
+    private int indexOf(long conUid) throws SQLException {
+        refreshIfStale();
+        int index = Arrays.binarySearch(conUids, 0, size, conUid);
+        if (index < 0) {
+            // Created or plugged in since the last refresh
+            refresh();
+            index = Arrays.binarySearch(conUids, 0, size, conUid);
+            if (index < 0) {
+                index = insert(conUid, UNKNOWN, null, false);
+            }
+        }
+        return index;
+    }
+
+    private void refreshIfStale() throws SQLException {
+        if (stale || System.nanoTime() - refreshedAtNanos > maxAgeNanos) {
+            refresh();
+        }
+    }
+
+    private int insert(long conUid, int conId, String name, boolean isOpen) {
+        if (size == conUids.length) {
+            final int capacity = size * 2 + 4;
+            conUids = Arrays.copyOf(conUids, capacity);
+            conIds = Arrays.copyOf(conIds, capacity);
+            names = Arrays.copyOf(names, capacity);
+            open = Arrays.copyOf(open, capacity);
+        }
+        int index = Arrays.binarySearch(conUids, 0, size, conUid);
+        index = index < 0 ? -index - 1 : index;
+        final int moved = size - index;
+        System.arraycopy(conUids, index, conUids, index + 1, moved);
+        System.arraycopy(conIds, index, conIds, index + 1, moved);
+        System.arraycopy(names, index, names, index + 1, moved);
+        System.arraycopy(open, index, open, index + 1, moved);
+        conUids[index] = conUid;
+        conIds[index] = conId;
+        names[index] = name;
+        open[index] = isOpen;
+        size++;
+        return index;
+    }
+}
@@ -0,0 +1,123 @@
+package com.chassis.logminer.cdc.oracle;
+
+import oracle.jdbc.OraclePreparedStatement;
+import oracle.jdbc.OracleTypes;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * Reads {@code V$LOGMNR_CONTENTS} rows selected with {@link OracleStatements#MINE_CONTENTS}.
+ * <p>
+ * Columns are read by index into the primitive fields of an {@link OracleContentsRow}, a slot of the ring
+ * between the fetch thread and the decoder. {@link #define} declares the column
+ * types up front so the driver skips the describe round trip, and sets the row prefetch. The prefetch is tuned
+ * after each query from the number of rows it returned: busy windows fetch more rows per round trip, quiet ones
+ * fall back to small fetches so the first rows arrive sooner.
+ * <p>
+ * Not thread safe: rows are read by the fetch thread while a query runs, the prefetch is tuned by the mining
+ * loop between queries.
+ */
+public class OracleContentsReader {
+
+    public static final int DEFAULT_MIN_PREFETCH = 10;
+    public static final int DEFAULT_MAX_PREFETCH = 2000;
+    public static final int DEFAULT_PREFETCH = 100;
+
+    private static final int SCN = 1;
+    private static final int OPERATION_CODE = 2;
+    private static final int TIMESTAMP = 3;
+    private static final int XIDUSN = 4;
+    private static final int XIDSLT = 5;
+    private static final int XIDSQN = 6;
+    private static final int RS_ID = 7;
+    private static final int SSN = 8;
+    private static final int CSF = 9;
+    private static final int ROLLBACK = 10;
+    private static final int ROW_ID = 11;
+    private static final int SEG_OWNER = 12;
+    private static final int TABLE_NAME = 13;
+    private static final int SQL_REDO = 14;
+    private static final int SRC_CON_UID = 15;
+    private static final int DATA_OBJ = 16;
+
+    private final int minPrefetch;
+    private final int maxPrefetch;
+    private int prefetch;
+
+    public OracleContentsReader() {
+        this(DEFAULT_MIN_PREFETCH, DEFAULT_MAX_PREFETCH, DEFAULT_PREFETCH);
+    }
+
+    /**
+     * A fixed prefetch is configured with {@code minPrefetch == maxPrefetch}.
+     */
+    public OracleContentsReader(int minPrefetch, int maxPrefetch, int prefetch) {
+        if (minPrefetch < 1 || maxPrefetch < minPrefetch || prefetch < minPrefetch || prefetch > maxPrefetch) {
+            throw new IllegalArgumentException("Invalid row prefetch settings");
+        }
+        this.minPrefetch = minPrefetch;
+        this.maxPrefetch = maxPrefetch;
+        this.prefetch = prefetch;
+    }
+
+    /**
+     * Declares the column types and sets the row prefetch, before the statement is executed.
+     */
+    public void define(OraclePreparedStatement statement) throws SQLException {
+        statement.setRowPrefetch(prefetch);
+        statement.defineColumnType(SCN, OracleTypes.NUMBER);
+        statement.defineColumnType(OPERATION_CODE, OracleTypes.NUMBER);
+        statement.defineColumnType(TIMESTAMP, OracleTypes.TIMESTAMP);
+        statement.defineColumnType(XIDUSN, OracleTypes.NUMBER);
+        statement.defineColumnType(XIDSLT, OracleTypes.NUMBER);
+        statement.defineColumnType(XIDSQN, OracleTypes.NUMBER);
+        statement.defineColumnType(RS_ID, OracleTypes.VARCHAR, 32);
+        statement.defineColumnType(SSN, OracleTypes.NUMBER);
+        statement.defineColumnType(CSF, OracleTypes.NUMBER);
+        statement.defineColumnType(ROLLBACK, OracleTypes.NUMBER);
+        statement.defineColumnType(ROW_ID, OracleTypes.VARCHAR, 18);
+        statement.defineColumnType(SEG_OWNER, OracleTypes.VARCHAR, 128);
+        statement.defineColumnType(TABLE_NAME, OracleTypes.VARCHAR, 128);
+        statement.defineColumnType(SQL_REDO, OracleTypes.VARCHAR, 4000);
+        statement.defineColumnType(SRC_CON_UID, OracleTypes.NUMBER);
+        statement.defineColumnType(DATA_OBJ, OracleTypes.NUMBER);
+    }
+
+    /**
+     * Reads the current row of {@code rs} into {@code row}.
+     */
+    public void read(ResultSet rs, OracleContentsRow row) throws SQLException {
+        row.scn = rs.getLong(SCN);
+        row.operation = rs.getInt(OPERATION_CODE);
+        final Timestamp changeTime = rs.getTimestamp(TIMESTAMP);
+        row.timestamp = changeTime == null ? 0 : changeTime.getTime();
+        row.xid = OracleXid.pack(rs.getInt(XIDUSN), rs.getInt(XIDSLT), rs.getLong(XIDSQN));
+        row.rsId = rs.getString(RS_ID);
+        row.ssn = rs.getLong(SSN);
+        row.csf = rs.getInt(CSF) == 1;
+        row.rollback = rs.getInt(ROLLBACK) == 1;
+        row.rowId = rs.getString(ROW_ID);
+        row.segOwner = rs.getString(SEG_OWNER);
+        row.tableName = rs.getString(TABLE_NAME);
+        row.sqlRedo = rs.getString(SQL_REDO);
+        row.conUid = rs.getLong(SRC_CON_UID);
+        row.objectId = rs.getLong(DATA_OBJ);
+    }
+
+    /**
+     * Adjusts the prefetch of the next query to the number of rows returned by the last one.
+     */
+    public void tunePrefetch(int rows) {
+        if (rows >= prefetch * 4) {
+            prefetch = Math.min(maxPrefetch, prefetch * 2);
+        } else if (rows < prefetch / 4) {
+            prefetch = Math.max(minPrefetch, prefetch / 2);
+        }
+    }
+
+    public int getRowPrefetch() {
+        return prefetch;
+    }
+}
@@ -0,0 +1,97 @@
+package com.chassis.logminer.cdc.oracle;
+
+/**
+ * One {@code V$LOGMNR_CONTENTS} row read by {@link OracleContentsReader}, a reusable slot of the ring between the
+ * fetch thread and the decoder.
+ */
+public class OracleContentsRow {
+
+    long scn;
+    int operation;
+    long timestamp;
+    long xid;
+    String rsId;
+    long ssn;
+    boolean csf;
+    boolean rollback;
+    String rowId;
+    String segOwner;
+    String tableName;
+    String sqlRedo;
+    long conUid;
+    long objectId;
+
+    public long getScn() {
+        return scn;
+    }
+
+    public int getOperation() {
+        return operation;
+    }
+
+    /**
+     * Time of the change in milliseconds since the epoch, 0 when not known.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * XIDUSN, XIDSLT and XIDSQN packed with {@link OracleXid#pack}.
+     */
+    public long getXid() {
+        return xid;
+    }
+
+    public String getRsId() {
+        return rsId;
+    }
+
+    public long getSsn() {
+        return ssn;
+    }
+
+    /**
+     * Whether {@code SQL_REDO} continues on the next row.
+     */
+    public boolean isCsf() {
+        return csf;
+    }
+
+    /**
+     * Whether the row undoes an earlier change of the transaction, {@code ROLLBACK = 1}.
+     */
+    public boolean isRollback() {
+        return rollback;
+    }
+
+    public String getRowId() {
+        return rowId;
+    }
+
+    public String getSegOwner() {
+        return segOwner;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public String getSqlRedo() {
+        return sqlRedo;
+    }
+
+    /**
+     * {@code SRC_CON_UID} of the container the change was made in, resolved with {@link OracleContainerCache}.
+     */
+    public long getConUid() {
+        return conUid;
+    }
+
+    /**
+     * {@code DATA_OBJ#} of the changed table or partition, 0 for COMMIT and ROLLBACK rows.
+     */
+    public long getObjectId() {
+        return objectId;
+    }
+}
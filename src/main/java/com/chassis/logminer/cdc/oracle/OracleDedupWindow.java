@@ -0,0 +1,312 @@
+package com.chassis.logminer.cdc.oracle;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Rows sent since the checkpoint, keyed by {@code (SCN, RS_ID, SSN)}, so rows already sent before a crash are
+ * suppressed when mining resumes.
+ * <p>
+ * The checkpoint holds the commit SCN of the last transaction sent completely. After a restart, transactions
+ * committed before it are skipped as a whole; the ones committed at or after it may have been sent completely
+ * (several transactions can commit at the same SCN) or partly (the crash hit while one was being sent), so their
+ * rows are checked one by one against this window. The window therefore only keeps the rows of the transactions
+ * committed at or after the checkpointed commit SCN: {@link #advance} drops the older ones every time the
+ * checkpoint moves.
+ * <p>
+ * The keys live in a memory-mapped file of at most {@code maxKeys} entries that survives a crash of the
+ * process. A restart sorts them into primitive arrays searched by binary search until mining has passed the
+ * last commit SCN they cover. A commit SCN with more rows than {@code maxKeys} is not fully recorded, rows past
+ * the capacity may then be sent twice after a crash.
+ * <p>
+ * {@link #isDuplicate} is called by the decoding thread while rows are recorded and the window advanced by the
+ * thread delivering them; the sorted keys are only released by the decoding thread once resuming is over.
+ */
+public class OracleDedupWindow implements AutoCloseable {
+
+    public static final Path DEFAULT_FILE = Paths.get("data", "oracle-cdc", "dedup-window.dat");
+    public static final int DEFAULT_MAX_KEYS = 100000;
+
+    private static final int MAGIC = 0x4F445731;
+    private static final int HEADER_SIZE = 8;
+    private static final int COUNT_OFFSET = 4;
+    private static final int ENTRY_SIZE = 4 * Long.BYTES;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int maxKeys;
+    private volatile int size;
+    private boolean overflowed;
+
+    // Keys sent before the restart, sorted by SCN, RBA and offset/SSN, null when not resuming
+    private long[] resumeScns;
+    private long[] resumeRbas;
+    private long[] resumeOffsets;
+    private long resumeLastCommitScn;
+    private volatile boolean resuming;
+    private volatile long suppressed;
+
+    public OracleDedupWindow(Path file, int maxKeys) throws IOException {
+        if (maxKeys < 1) {
+            throw new IllegalArgumentException("Invalid de-duplication window size: " + maxKeys);
+        }
+        this.maxKeys = maxKeys;
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        this.channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        final boolean created = channel.size() == 0;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) maxKeys * ENTRY_SIZE);
+
+        if (created) {
+            buffer.putInt(0, MAGIC);
+        } else if (buffer.getInt(0) != MAGIC) {
+            channel.close();
+            throw new IOException("Not a de-duplication window file: " + file);
+        } else {
+            size = Math.min(buffer.getInt(COUNT_OFFSET), maxKeys);
+            loadResumeKeys();
+        }
+    }
+
+    private void loadResumeKeys() {
+        if (size == 0) {
+            return;
+        }
+        resumeScns = new long[size];
+        resumeRbas = new long[size];
+        resumeOffsets = new long[size];
+        for (int i = 0; i < size; i++) {
+            final int offset = HEADER_SIZE + i * ENTRY_SIZE;
+            resumeLastCommitScn = max(resumeLastCommitScn, buffer.getLong(offset));
+            resumeScns[i] = buffer.getLong(offset + Long.BYTES);
+            resumeRbas[i] = buffer.getLong(offset + 2 * Long.BYTES);
+            resumeOffsets[i] = buffer.getLong(offset + 3 * Long.BYTES);
+        }
+        resuming = true;
+        sort(0, size - 1);
+        System.out.println("Resuming with " + size + " row(s) sent before the restart, up to commit SCN " +
+                Long.toUnsignedString(resumeLastCommitScn));
+    }
+
+    /**
+     * Whether rows sent before a restart are still being looked for.
+     */
+    public boolean isResuming() {
+        return resuming;
+    }
+
+    /**
+     * Whether the row was already sent before the restart. Counts it as suppressed if so.
+     */
+    public boolean isDuplicate(long scn, String rsId, long ssn) {
+        if (!resuming) {
+            if (resumeScns != null) {
+                resumeScns = null;
+                resumeRbas = null;
+                resumeOffsets = null;
+            }
+            return false;
+        }
+        final long rba = rba(rsId);
+        final long offset = offset(rsId, ssn);
+        int low = 0;
+        int high = resumeScns.length - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int cmp = compare(resumeScns[mid], resumeRbas[mid], resumeOffsets[mid], scn, rba, offset);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                suppressed++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Records a row sent for a transaction committed at {@code commitScn}.
+     */
+    public void record(long commitScn, long scn, String rsId, long ssn) {
+        if (size == maxKeys) {
+            if (!overflowed) {
+                overflowed = true;
+                System.out.println("De-duplication window full at " + maxKeys + " rows for commit SCN " +
+                        Long.toUnsignedString(commitScn));
+            }
+            return;
+        }
+        final int offset = HEADER_SIZE + size * ENTRY_SIZE;
+        buffer.putLong(offset, commitScn);
+        buffer.putLong(offset + Long.BYTES, scn);
+        buffer.putLong(offset + 2 * Long.BYTES, rba(rsId));
+        buffer.putLong(offset + 3 * Long.BYTES, offset(rsId, ssn));
+        size++;
+        buffer.putInt(COUNT_OFFSET, size);
+    }
+
+    /**
+     * Drops the rows of transactions committed before {@code commitScn}, the new checkpointed commit SCN.
+     */
+    public void advance(long commitScn) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            final int from = HEADER_SIZE + i * ENTRY_SIZE;
+            if (OracleScn.compare(buffer.getLong(from), commitScn) < 0) {
+                continue;
+            }
+            if (kept != i) {
+                final int to = HEADER_SIZE + kept * ENTRY_SIZE;
+                for (int j = 0; j < ENTRY_SIZE; j += Long.BYTES) {
+                    buffer.putLong(to + j, buffer.getLong(from + j));
+                }
+            }
+            kept++;
+        }
+        if (kept != size) {
+            size = kept;
+            buffer.putInt(COUNT_OFFSET, size);
+            overflowed = false;
+        }
+
+        if (resuming && OracleScn.compare(commitScn, resumeLastCommitScn) > 0) {
+            System.out.println("Resume complete, " + suppressed + " row(s) sent before the restart suppressed");
+            resuming = false;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isOverflowed() {
+        return overflowed;
+    }
+
+    public long getSuppressed() {
+        return suppressed;
+    }
+
+    /**
+     * Memory used by the window: the mapped file plus the sorted keys while resuming.
+     */
+    public long getMemoryBytes() {
+        return buffer.capacity() + (resumeScns == null ? 0 : 3L * Long.BYTES * resumeScns.length);
+    }
+
+    public void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    /**
+     * Redo log sequence and block of the RS_ID, such as {@code  0x0000a1.00000123.0010 }, packed in a long.
+     */
+    static long rba(String rsId) {
+        if (rsId == null) {
+            return 0;
+        }
+        final int start = rsId.indexOf("0x");
+        final int firstDot = rsId.indexOf('.', start);
+        final int secondDot = rsId.indexOf('.', firstDot + 1);
+        if (start < 0 || firstDot < 0 || secondDot < 0) {
+            return rsId.hashCode();
+        }
+        return (hex(rsId, start + 2, firstDot) << 32) | hex(rsId, firstDot + 1, secondDot);
+    }
+
+    /**
+     * Byte offset of the RS_ID in its block and the SSN packed in a long, 16 and 48 bits.
+     */
+    static long offset(String rsId, long ssn) {
+        long offset = 0;
+        if (rsId != null) {
+            final int secondDot = rsId.indexOf('.', rsId.indexOf('.') + 1);
+            if (secondDot > 0) {
+                int end = secondDot + 1;
+                while (end < rsId.length() && Character.digit(rsId.charAt(end), 16) >= 0) {
+                    end++;
+                }
+                offset = hex(rsId, secondDot + 1, end);
+            }
+        }
+        return (offset << 48) | (ssn & 0xFFFFFFFFFFFFL);
+    }
+
+    private static long hex(String value, int start, int end) {
+        long result = 0;
+        for (int i = start; i < end; i++) {
+            result = (result << 4) | Character.digit(value.charAt(i), 16);
+        }
+        return result & 0xFFFFFFFFL;
+    }
+
+    private static long max(long scn1, long scn2) {
+        return OracleScn.compare(scn1, scn2) >= 0 ? scn1 : scn2;
+    }
+
+    private static int compare(long scn1, long rba1, long offset1, long scn2, long rba2, long offset2) {
+        int cmp = Long.compareUnsigned(scn1, scn2);
+        if (cmp == 0) {
+            cmp = Long.compareUnsigned(rba1, rba2);
+        }
+        if (cmp == 0) {
+            cmp = Long.compareUnsigned(offset1, offset2);
+        }
+        return cmp;
+    }
+
+    private void sort(int low, int high) {
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            final long pivotScn = resumeScns[mid];
+            final long pivotRba = resumeRbas[mid];
+            final long pivotOffset = resumeOffsets[mid];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (compare(resumeScns[i], resumeRbas[i], resumeOffsets[i], pivotScn, pivotRba, pivotOffset) < 0) {
+                    i++;
+                }
+                while (compare(resumeScns[j], resumeRbas[j], resumeOffsets[j], pivotScn, pivotRba, pivotOffset) > 0) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            // Recurse into the smaller side to bound the stack depth
+            if (j - low < high - i) {
+                sort(low, j);
+                low = i;
+            } else {
+                sort(i, high);
+                high = j;
+            }
+        }
+    }
+
+    private void swap(int i, int j) {
+        long tmp = resumeScns[i];
+        resumeScns[i] = resumeScns[j];
+        resumeScns[j] = tmp;
+        tmp = resumeRbas[i];
+        resumeRbas[i] = resumeRbas[j];
+        resumeRbas[j] = tmp;
+        tmp = resumeOffsets[i];
+        resumeOffsets[i] = resumeOffsets[j];
+        resumeOffsets[j] = tmp;
+    }
+}
@@ -3,19 +3,12 @@ package com.chassis.logminer.cdc.oracle;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 
-import java.math.BigInteger;
 import java.sql.*;
-import java.time.Duration;
-import java.util.ArrayList;
-import java.util.LinkedHashSet;
-import java.util.List;
-import java.util.Set;
 
 @Slf4j
 public class OracleInitializer {
 
     private final Connection connection;
-    private static final String CURRENT = "CURRENT";
 
     public OracleInitializer(Connection connection) {
         this.connection = connection;
@@ -37,6 +30,19 @@ public class OracleInitializer {
         }
     }
 
+    public OracleScn getCurrentScn() throws SQLException {
+        try (final PreparedStatement ps = this.connection.prepareStatement(
+                OracleStatements.CURRENT_SCN,
+                ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY);
+             final ResultSet rs = ps.executeQuery()) {
+            if (rs.next()) {
+                return OracleScn.valueOf(rs, 1);
+            }
+            throw new SQLException("Unable to read current SCN from V$DATABASE!");
+        }
+    }
+
     public int getCurrentRedoThread() throws SQLException {
         int redoThread = 0;
         try (final PreparedStatement ps = this.connection.prepareStatement(
@@ -53,54 +59,7 @@ public class OracleInitializer {
         }
     }
 
-    public List<OracleLogFile> getArchivedLogs(long firstChange) throws SQLException {
-        String query = OracleStatements.allMinableLogsQuery(firstChange, Duration.ZERO, null);
-
-        System.out.println("Query: " + query);
-
-        final List<OracleLogFile> logFiles = new ArrayList<>();
-        final Set<OracleLogFile> onlineLogFiles = new LinkedHashSet<>();
-        final Set<OracleLogFile> archivedLogFiles = new LinkedHashSet<>();
-
-        try (final Statement stmt = this.connection.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-
-            while (rs.next()) {
-                String fileName = rs.getString(1);
-                OracleScn firstScn = getScnFromString(rs.getString(2));
-                OracleScn nextScn = getScnFromString(rs.getString(3));
-                String status = rs.getString(5);
-                String type = rs.getString(6);
-                BigInteger sequence = new BigInteger(rs.getString(7));
-                int thread = rs.getInt(10);
-
-                if ("ARCHIVED".equals(type)) {
-                    OracleLogFile logFile = new OracleLogFile(
-                            fileName, firstScn, nextScn, sequence,
-                            OracleLogFile.Type.ARCHIVE, thread);
-                    archivedLogFiles.add(logFile);
-                } else if ("ONLINE".equals(type)) {
-                    OracleLogFile logFile = new OracleLogFile(
-                            fileName, firstScn, nextScn, sequence,
-                            OracleLogFile.Type.REDO,
-                            CURRENT.equalsIgnoreCase(status), thread);
-                    onlineLogFiles.add(logFile);
-                }
-            }
-        }
-
-        // Remove archived logs with duplicate sequences
-        for (OracleLogFile redoLog : onlineLogFiles) {
-            archivedLogFiles.removeIf(f -> f.getSequence().equals(redoLog.getSequence()));
-        }
-
-        logFiles.addAll(archivedLogFiles);
-        logFiles.addAll(onlineLogFiles);
-
-        return logFiles;
-    }
-
-    private static OracleScn getScnFromString(String value) {
+    static OracleScn getScnFromString(String value) {
         if (StringUtils.isEmpty(value)) {
             return OracleScn.MAX;
         }
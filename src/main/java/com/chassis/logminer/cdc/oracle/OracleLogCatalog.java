@@ -0,0 +1,212 @@
+package com.chassis.logminer.cdc.oracle;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory catalog of the redo and archived logs available for mining.
+ * <p>
+ * Archived logs are loaded incrementally: each refresh only reads {@code SEQUENCE# >} the last sequence seen
+ * for every redo thread. Logs of a thread never overlap and are appended in sequence order, so each thread
+ * keeps them in SCN-sorted primitive arrays and "which logs cover SCN X" is a binary search. Online logs are
+ * re-read on every refresh, V$LOG only has a handful of rows and their status changes on every log switch.
+ * The rows read are handed to {@link #addOnlineLog} and {@link #addArchivedLog}, the rest of the catalog does
+ * not touch the connection.
+ * <p>
+ * Not thread safe, meant to be owned by the mining loop.
+ */
+public class OracleLogCatalog {
+
+    private static final String CURRENT = "CURRENT";
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Connection connection;
+    private final Map<Integer, ThreadLogs> threads = new LinkedHashMap<>();
+    private final List<OracleLogFile> onlineLogs = new ArrayList<>();
+
+    public OracleLogCatalog(Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Picks up log switches and newly archived logs. Archived logs ending at or before {@code fromScn} are
+     * never loaded.
+     */
+    public void refresh(long fromScn) throws SQLException {
+        refreshOnlineLogs();
+
+        try (PreparedStatement ps = connection.prepareStatement(
+                OracleStatements.ARCHIVED_LOGS_AFTER_SEQUENCE,
+                ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY)) {
+            for (Map.Entry<Integer, ThreadLogs> entry : threads.entrySet()) {
+                final int thread = entry.getKey();
+                final ThreadLogs logs = entry.getValue();
+
+                ps.setInt(1, thread);
+                ps.setLong(2, logs.lastSequence);
+                ps.setLong(3, fromScn);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        addArchivedLog(new OracleLogFile(
+                                rs.getString(1),
+                                OracleScn.valueOf(rs, 2),
+                                OracleInitializer.getScnFromString(rs.getString(3)),
+                                rs.getLong(4),
+                                OracleLogFile.Type.ARCHIVE, thread));
+                    }
+                }
+            }
+        }
+    }
+
+    private void refreshOnlineLogs() throws SQLException {
+        onlineLogs.clear();
+        try (PreparedStatement ps = connection.prepareStatement(
+                OracleStatements.ONLINE_LOGS,
+                ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                addOnlineLog(new OracleLogFile(
+                        rs.getString(1),
+                        OracleScn.valueOf(rs, 2),
+                        OracleInitializer.getScnFromString(rs.getString(3)),
+                        rs.getLong(5),
+                        OracleLogFile.Type.REDO,
+                        CURRENT.equalsIgnoreCase(rs.getString(4)), rs.getInt(6)));
+            }
+        }
+    }
+
+    /**
+     * Adds a row of V$LOG, its redo thread is then refreshed for archived logs too.
+     */
+    void addOnlineLog(OracleLogFile logFile) {
+        onlineLogs.add(logFile);
+        threads.computeIfAbsent(logFile.getThread(), t -> new ThreadLogs());
+    }
+
+    /**
+     * Adds a row of V$ARCHIVED_LOG, logs of a thread must come in sequence order.
+     */
+    void addArchivedLog(OracleLogFile logFile) {
+        threads.computeIfAbsent(logFile.getThread(), t -> new ThreadLogs()).append(logFile);
+    }
+
+    /**
+     * Returns the logs of every thread whose SCN range overlaps {@code [startScn, endScn]}. An archived copy
+     * is preferred to the online log with the same sequence.
+     */
+    public List<OracleLogFile> getLogFiles(OracleScn startScn, OracleScn endScn) {
+        final long start = toLong(startScn);
+        final long end = toLong(endScn);
+        final List<OracleLogFile> logFiles = new ArrayList<>();
+
+        for (ThreadLogs logs : threads.values()) {
+            for (int i = logs.indexOf(start); i < logs.size && logs.firstScns[i] <= end; i++) {
+                if (logs.nextScns[i] > start) {
+                    logFiles.add(logs.files[i]);
+                }
+            }
+        }
+
+        for (OracleLogFile onlineLog : onlineLogs) {
+            final ThreadLogs logs = threads.get(onlineLog.getThread());
+            if (onlineLog.getSequence() > logs.lastSequence && onlineLog.isOverlapping(startScn, endScn)) {
+                logFiles.add(onlineLog);
+            }
+        }
+        return logFiles;
+    }
+
+    /**
+     * Returns the logs containing {@code scn}, at most one per redo thread.
+     */
+    public List<OracleLogFile> getLogFilesContaining(OracleScn scn) {
+        return getLogFiles(scn, scn);
+    }
+
+    /**
+     * Drops archived logs that end at or before {@code scn}, the mining loop never goes back past it.
+     */
+    public void evictBefore(OracleScn scn) {
+        final long value = toLong(scn);
+        for (ThreadLogs logs : threads.values()) {
+            logs.evictBefore(value);
+        }
+    }
+
+    public int size() {
+        int size = onlineLogs.size();
+        for (ThreadLogs logs : threads.values()) {
+            size += logs.size;
+        }
+        return size;
+    }
+
+    // NEXT_CHANGE# of the current log is NULL or the unsigned maximum, both map to MAX
+    private static long toLong(OracleScn scn) {
+        return scn.equals(OracleScn.MAX) ? Long.MAX_VALUE : scn.longValue();
+    }
+
+    /**
+     * Archived logs of one redo thread, sorted by SCN.
+     */
+    private static final class ThreadLogs {
+
+        private long lastSequence;
+        private int size;
+        private long[] firstScns = new long[INITIAL_CAPACITY];
+        private long[] nextScns = new long[INITIAL_CAPACITY];
+        private OracleLogFile[] files = new OracleLogFile[INITIAL_CAPACITY];
+
+        private void append(OracleLogFile logFile) {
+            if (size == files.length) {
+                final int capacity = size * 2;
+                firstScns = Arrays.copyOf(firstScns, capacity);
+                nextScns = Arrays.copyOf(nextScns, capacity);
+                files = Arrays.copyOf(files, capacity);
+            }
+            firstScns[size] = toLong(logFile.getFirstScn());
+            nextScns[size] = toLong(logFile.getNextScn());
+            files[size] = logFile;
+            size++;
+            lastSequence = logFile.getSequence();
+        }
+
+        /**
+         * Index of the log containing {@code scn}, or of the first log after it.
+         */
+        private int indexOf(long scn) {
+            final int index = Arrays.binarySearch(firstScns, 0, size, scn);
+            if (index >= 0) {
+                return index;
+            }
+            final int insertionPoint = -index - 1;
+            return insertionPoint > 0 && nextScns[insertionPoint - 1] > scn ? insertionPoint - 1 : insertionPoint;
+        }
+
+        private void evictBefore(long scn) {
+            int evicted = 0;
+            while (evicted < size && nextScns[evicted] <= scn) {
+                evicted++;
+            }
+            if (evicted == 0) {
+                return;
+            }
+            size -= evicted;
+            System.arraycopy(firstScns, evicted, firstScns, 0, size);
+            System.arraycopy(nextScns, evicted, nextScns, 0, size);
+            System.arraycopy(files, evicted, files, 0, size);
+            Arrays.fill(files, size, size + evicted, null);
+        }
+    }
+}
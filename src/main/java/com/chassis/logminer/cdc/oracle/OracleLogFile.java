@@ -1,8 +1,5 @@
 package com.chassis.logminer.cdc.oracle;
 
-import java.math.BigInteger;
-import java.util.Objects;
-
 public class OracleLogFile {
 
     public enum Type {
@@ -13,18 +10,18 @@ public class OracleLogFile {
     private final String fileName;
     private final OracleScn firstScn;
     private final OracleScn nextScn;
-    private final BigInteger sequence;
+    private final long sequence;
     private final boolean current;
     private final Type type;
     private final int thread;
 
     public OracleLogFile(String fileName, OracleScn firstScn, OracleScn nextScn,
-                         BigInteger sequence, Type type, int thread) {
+                         long sequence, Type type, int thread) {
         this(fileName, firstScn, nextScn, sequence, type, false, thread);
     }
 
     public OracleLogFile(String fileName, OracleScn firstScn, OracleScn nextScn,
-                         BigInteger sequence, Type type, boolean current, int thread) {
+                         long sequence, Type type, boolean current, int thread) {
         this.fileName = fileName;
         this.firstScn = firstScn;
         this.nextScn = nextScn;
@@ -46,7 +43,7 @@ public class OracleLogFile {
         return nextScn;
     }
 
-    public BigInteger getSequence() {
+    public long getSequence() {
         return sequence;
     }
 
@@ -67,9 +64,14 @@ public class OracleLogFile {
                (getNextScn().compareTo(scn) > 0 || getNextScn().equals(OracleScn.MAX));
     }
 
+    public boolean isOverlapping(OracleScn startScn, OracleScn endScn) {
+        return isScnInLogFileRange(startScn) ||
+               (getFirstScn().compareTo(startScn) >= 0 && getFirstScn().compareTo(endScn) <= 0);
+    }
+
     @Override
     public int hashCode() {
-        return Objects.hash(thread, sequence);
+        return 31 * thread + Long.hashCode(sequence);
     }
 
     @Override
@@ -81,7 +83,7 @@ public class OracleLogFile {
             return false;
         }
         final OracleLogFile other = (OracleLogFile) obj;
-        return thread == other.thread && Objects.equals(sequence, other.sequence);
+        return thread == other.thread && sequence == other.sequence;
     }
 
     @Override
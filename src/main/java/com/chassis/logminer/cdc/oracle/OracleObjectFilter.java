@@ -0,0 +1,169 @@
+package com.chassis.logminer.cdc.oracle;
+
+import oracle.jdbc.OracleConnection;
+import org.apache.commons.lang3.StringUtils;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tables to mine, as {@code (DATA_OBJ#, CON_ID)} pairs bound to the mining statement as a single collection.
+ * <p>
+ * Object numbers are only unique inside a container, so each table is identified by its object number and the
+ * CON_ID of its PDB, packed into one key as {@code DATA_OBJ# * 65536 + CON_ID} (CON_ID stays below 4099). The
+ * keys are bound as a {@code SYS.ODCINUMBERLIST}, the mining statement text is the same whatever the number of
+ * tables and Oracle reuses its cursor instead of hard parsing a new IN-list every cycle.
+ * <p>
+ * The object numbers are read once and again after {@link #invalidate()}. DDL rows are mined for every table,
+ * a table created under a captured name has no object number in the filter yet: {@link #acceptsDdl} checks
+ * them against the table list on the client instead. Not thread safe, meant to be owned by the mining loop.
+ */
+public class OracleObjectFilter {
+
+    private static final int CON_ID_BITS = 16;
+    private static final int CON_ID_MASK = (1 << CON_ID_BITS) - 1;
+
+    private final Connection connection;
+    private final boolean cdb;
+    private final boolean exclude;
+    private final String tableCondition;
+    /**
+     * Owner and name of each entry of the table list, a null owner or name matches any.
+     */
+    private final String[] owners;
+    private final String[] names;
+
+    private long[] keys = new long[0];
+    private boolean stale = true;
+
+    /**
+     * @param cdb            whether the tables are looked up in every PDB with {@code CDB_OBJECTS}
+     * @param exclude        whether the tables are excluded from mining instead of the only ones mined
+     * @param tables         tables as {@code OWNER.NAME}, {@code OWNER.%} or {@code NAME}, see
+     *                       {@link OracleCDCTask#parseTableSchemaList}
+     */
+    public OracleObjectFilter(Connection connection, boolean cdb, boolean exclude, List<String> tables) {
+        this.connection = connection;
+        this.cdb = cdb;
+        this.exclude = exclude;
+        this.tableCondition = OracleCDCTask.parseTableSchemaList(exclude, OracleCDCTask.MODE_WHERE_ALL_OBJECTS,
+                tables);
+        this.owners = new String[tables.size()];
+        this.names = new String[tables.size()];
+        for (int i = 0; i < tables.size(); i++) {
+            // Same rules as the SQL condition: quoted names keep their case, the others are upper-cased
+            final String table = StringUtils.trim(tables.get(i));
+            final boolean escaped = StringUtils.contains(table, "\"");
+            if (table.contains(".")) {
+                final String[] pair = table.split("\\.");
+                owners[i] = escaped ? StringUtils.remove(pair[0].trim(), "\"") : StringUtils.upperCase(pair[0].trim());
+                final String name = pair[1].trim();
+                if (!"%".equals(name) && !"*".equals(name)) {
+                    names[i] = escaped ? StringUtils.remove(name, "\"") : StringUtils.upperCase(name);
+                }
+            } else {
+                names[i] = table;
+            }
+        }
+    }
+
+    public static long key(long dataObj, int conId) {
+        return (dataObj << CON_ID_BITS) | (conId & CON_ID_MASK);
+    }
+
+    /**
+     * Returns the mining statement this filter binds to, its only parameter is the object keys.
+     */
+    public String getMineStatement() {
+        return exclude
+                ? OracleStatements.MINE_CONTENTS_EXCLUDE_OBJECTS
+                : OracleStatements.MINE_CONTENTS_INCLUDE_OBJECTS;
+    }
+
+    /**
+     * Re-reads the object numbers of the tables.
+     */
+    public void refresh() throws SQLException {
+        final String selectObjectIds =
+                (cdb ? OracleStatements.TABLE_OBJECTS_CDB : OracleStatements.TABLE_OBJECTS) + tableCondition;
+
+        long[] loaded = new long[64];
+        int size = 0;
+        try (PreparedStatement ps = connection.prepareStatement(selectObjectIds,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                if (size == loaded.length) {
+                    loaded = Arrays.copyOf(loaded, size * 2);
+                }
+                loaded[size++] = key(rs.getLong(1), rs.getInt(2));
+            }
+        } catch (SQLException e) {
+            throw new SQLException("Unable to read the object numbers of the mined tables!", e);
+        }
+
+        keys = Arrays.copyOf(loaded, size);
+        Arrays.sort(keys);
+        stale = false;
+        System.out.println("Mining " + (exclude ? "all tables but " : "") + size + " table object(s)");
+    }
+
+    /**
+     * Makes the next {@link #bind} re-read the object numbers, for instance after a DDL on a mined schema.
+     */
+    public void invalidate() {
+        stale = true;
+    }
+
+    /**
+     * Binds the object keys as parameter {@code index} of the mining statement.
+     *
+     * @return the bound collection, to be freed once the statement has run
+     */
+    public Array bind(PreparedStatement statement, int index) throws SQLException {
+        if (stale) {
+            refresh();
+        }
+        final Array array = connection.unwrap(OracleConnection.class)
+                .createOracleArray(OracleStatements.OBJECT_KEY_ARRAY_TYPE, keys);
+        statement.setArray(index, array);
+        return array;
+    }
+
+    /**
+     * Whether rows of the object are mined, checked without a round trip.
+     */
+    public boolean accepts(long dataObj, int conId) {
+        return (Arrays.binarySearch(keys, key(dataObj, conId)) >= 0) != exclude;
+    }
+
+    /**
+     * Whether a DDL row concerns a mined table, so the object numbers and its definition have to be read again.
+     * Either the object is mined already (altered, renamed or dropped) or its owner and name match the table
+     * list (created, or renamed to a mined name).
+     */
+    public boolean acceptsDdl(long dataObj, int conId, String owner, String tableName) {
+        if (tableName == null) {
+            return false;
+        }
+        return accepts(dataObj, conId) || matches(owner, tableName) != exclude;
+    }
+
+    private boolean matches(String owner, String tableName) {
+        for (int i = 0; i < names.length; i++) {
+            if ((owners[i] == null || owners[i].equals(owner)) && (names[i] == null || names[i].equals(tableName))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return keys.length;
+    }
+}
@@ -0,0 +1,138 @@
+package com.chassis.logminer.cdc.oracle;
+
+import java.util.Objects;
+
+/**
+ * Joins {@code SQL_REDO} statements that LogMiner splits over several rows.
+ * <p>
+ * Every row of a split statement has {@code CSF = 1} except the last one, and all of them share the
+ * {@code RS_ID} and {@code SSN} of the statement. Chunks are copied straight from the row Strings into a buffer
+ * of the {@link OracleCharBufferPool}, no intermediate String of the whole statement is built. The position of
+ * the last complete statement is tracked separately so a checkpoint never lands in the middle of one.
+ * <p>
+ * Not thread safe, meant to be owned by the mining loop.
+ */
+public class OracleRedoAssembler {
+
+    private final OracleCharBufferPool pool;
+
+    private char[] buffer;
+    private int length;
+    private int chunks;
+    private String rsId;
+    private long ssn;
+    private long scn;
+
+    private long lastScn = OracleScn.NULL_VALUE;
+    private String lastRsId;
+    private long lastSsn;
+    private long discarded;
+
+    public OracleRedoAssembler(OracleCharBufferPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Adds the {@code SQL_REDO} of one row.
+     *
+     * @param csf whether the statement continues on the next row
+     * @return the complete statement, {@code sqlRedo} itself when it was not split, or null when more rows are
+     * expected
+     */
+    public CharSequence append(String sqlRedo, boolean csf, long scn, String rsId, long ssn) {
+        if (chunks > 0 && (ssn != this.ssn || scn != this.scn || !Objects.equals(rsId, this.rsId))) {
+            // The rest of the previous statement never came, it is not part of the current one
+            System.out.println("Discarding incomplete SQL_REDO at RS_ID " + this.rsId + ", SSN " + this.ssn);
+            reset();
+            discarded++;
+        }
+
+        if (!csf && chunks == 0) {
+            markComplete(scn, rsId, ssn);
+            return sqlRedo;
+        }
+
+        if (chunks == 0) {
+            this.rsId = rsId;
+            this.ssn = ssn;
+            this.scn = scn;
+        }
+        copy(sqlRedo);
+        chunks++;
+
+        if (csf) {
+            return null;
+        }
+        final OracleRedoText text = new OracleRedoText(buffer, length);
+        buffer = null;
+        length = 0;
+        chunks = 0;
+        markComplete(scn, rsId, ssn);
+        return text;
+    }
+
+    private void copy(String chunk) {
+        if (chunk == null) {
+            return;
+        }
+        final int chunkLength = chunk.length();
+        if (buffer == null) {
+            buffer = pool.acquire(chunkLength * 2);
+        } else if (length + chunkLength > buffer.length) {
+            final char[] larger = pool.acquire(length + chunkLength);
+            System.arraycopy(buffer, 0, larger, 0, length);
+            pool.release(buffer);
+            buffer = larger;
+        }
+        chunk.getChars(0, chunkLength, buffer, length);
+        length += chunkLength;
+    }
+
+    private void markComplete(long scn, String rsId, long ssn) {
+        this.lastScn = scn;
+        this.lastRsId = rsId;
+        this.lastSsn = ssn;
+    }
+
+    /**
+     * Returns whether a statement was started and is waiting for its remaining rows.
+     */
+    public boolean isPending() {
+        return chunks > 0;
+    }
+
+    /**
+     * Drops an incomplete statement, for instance when the mining query ended in the middle of it.
+     */
+    public void reset() {
+        if (buffer != null) {
+            pool.release(buffer);
+            buffer = null;
+        }
+        length = 0;
+        chunks = 0;
+        rsId = null;
+    }
+
+    /**
+     * SCN of the last complete statement, {@link OracleScn#NULL_VALUE} before the first one.
+     */
+    public long getLastScn() {
+        return lastScn;
+    }
+
+    public String getLastRsId() {
+        return lastRsId;
+    }
+
+    public long getLastSsn() {
+        return lastSsn;
+    }
+
+    /**
+     * Number of incomplete statements that had to be dropped.
+     */
+    public long getDiscarded() {
+        return discarded;
+    }
+}
@@ -0,0 +1,133 @@
+package com.chassis.logminer.cdc.oracle;
+
+/**
+ * DML row of a committed transaction, as read from {@code V$LOGMNR_CONTENTS}.
+ * <p>
+ * A single instance is reused by {@link OracleTransactionBuffer} while replaying a transaction, listeners must
+ * copy what they need before returning.
+ */
+public class OracleRedoEvent {
+
+    long xid;
+    int conId;
+    String pdbName;
+    long scn;
+    long commitScn;
+    long timestamp;
+    int operation;
+    String rsId;
+    long ssn;
+    long objectId;
+    String rowId;
+    String segOwner;
+    String tableName;
+    CharSequence sqlRedo;
+
+    public long getXid() {
+        return xid;
+    }
+
+    /**
+     * {@code CON_ID} of the PDB the change was made in, -1 if the container is not known.
+     */
+    public int getConId() {
+        return conId;
+    }
+
+    /**
+     * Name of the PDB the change was made in, null if the container is not known.
+     */
+    public String getPdbName() {
+        return pdbName;
+    }
+
+    public long getScn() {
+        return scn;
+    }
+
+    /**
+     * SCN of the COMMIT row of the transaction.
+     */
+    public long getCommitScn() {
+        return commitScn;
+    }
+
+    /**
+     * Time of the change in milliseconds since the epoch.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * {@code OPERATION_CODE}, one of the DML codes of {@code LogmnrContents}.
+     */
+    public int getOperation() {
+        return operation;
+    }
+
+    public String getRsId() {
+        return rsId;
+    }
+
+    public long getSsn() {
+        return ssn;
+    }
+
+    /**
+     * {@code DATA_OBJ#} of the changed table or partition, resolved with {@link OracleTableMetadataCache}.
+     */
+    public long getObjectId() {
+        return objectId;
+    }
+
+    public String getRowId() {
+        return rowId;
+    }
+
+    public String getSegOwner() {
+        return segOwner;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * Returns the statement, an {@link OracleRedoText} when it was reassembled from several rows.
+     */
+    public CharSequence getSqlRedo() {
+        return sqlRedo;
+    }
+
+    void set(long xid, long scn, long timestamp, int operation, String rsId, long ssn,
+             long objectId, String rowId, String segOwner, String tableName, CharSequence sqlRedo) {
+        this.xid = xid;
+        this.scn = scn;
+        this.timestamp = timestamp;
+        this.operation = operation;
+        this.rsId = rsId;
+        this.ssn = ssn;
+        this.objectId = objectId;
+        this.rowId = rowId;
+        this.segOwner = segOwner;
+        this.tableName = tableName;
+        this.sqlRedo = sqlRedo;
+    }
+
+    @Override
+    public String toString() {
+        return "OracleRedoEvent{" +
+                "xid=" + OracleXid.toString(xid) +
+                ", pdb=" + pdbName +
+                ", scn=" + Long.toUnsignedString(scn) +
+                ", commitScn=" + Long.toUnsignedString(commitScn) +
+                ", operation=" + operation +
+                ", rsId='" + rsId + '\'' +
+                ", ssn=" + ssn +
+                ", objectId=" + objectId +
+                ", rowId='" + rowId + '\'' +
+                ", table=" + segOwner + "." + tableName +
+                '}';
+    }
+}
@@ -0,0 +1,330 @@
+package com.chassis.logminer.cdc.oracle;
+
+/**
+ * Single pass parser of the {@code SQL_REDO} statements generated by LogMiner:
+ * <pre>
+ * insert into "S"."T"("A","B") values ('1',NULL);
+ * update "S"."T" set "B" = 'x' where "A" = '1' and "B" IS NULL and ROWID = 'AAAS...';
+ * delete from "S"."T" where "A" = '1' and "B" = 'y' and ROWID = 'AAAS...';
+ * </pre>
+ * The statement is scanned character by character and columns are recorded as offsets into the parser's
+ * buffer, no substring is built. Quoted literals may contain doubled quotes; anything that is neither a
+ * literal nor {@code NULL}, such as {@code TO_DATE('...', '...')}, is kept as an expression with balanced
+ * parentheses. Keywords are matched case-insensitively.
+ * <p>
+ * Statements split over several {@code CSF} rows are joined by {@link OracleRedoAssembler} and parsed in place.
+ * Not thread safe, the returned {@link OracleRedoStatement} is reused.
+ */
+public class OracleRedoParser {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final OracleRedoStatement statement = new OracleRedoStatement();
+
+    private char[] buffer = new char[INITIAL_CAPACITY];
+    private char[] chars;
+    private int start;
+    private int pos;
+    private int end;
+    private int identifierLength;
+
+    /**
+     * Parses {@code redo}, copied once into a reused buffer unless it is an {@link OracleRedoText}.
+     *
+     * @throws IllegalArgumentException if the statement is not an insert, update or delete in LogMiner's form
+     */
+    public OracleRedoStatement parse(CharSequence redo) {
+        if (redo instanceof OracleRedoText) {
+            // Reassembled from CSF rows, already in a buffer of its own
+            return parse(((OracleRedoText) redo).buffer(), 0, redo.length());
+        }
+        final int length = redo.length();
+        if (length > buffer.length) {
+            buffer = new char[Math.max(length, buffer.length * 2)];
+        }
+        if (redo instanceof String) {
+            ((String) redo).getChars(0, length, buffer, 0);
+        } else if (redo instanceof StringBuilder) {
+            ((StringBuilder) redo).getChars(0, length, buffer, 0);
+        } else {
+            for (int i = 0; i < length; i++) {
+                buffer[i] = redo.charAt(i);
+            }
+        }
+        return parse(buffer, 0, length);
+    }
+
+    /**
+     * Parses the statement in {@code chars[offset, offset + length)} in place. The returned statement refers
+     * to {@code chars}, which must not change while it is used.
+     *
+     * @throws IllegalArgumentException if the statement is not an insert, update or delete in LogMiner's form
+     */
+    public OracleRedoStatement parse(char[] chars, int offset, int length) {
+        this.chars = chars;
+        this.start = offset;
+        this.pos = offset;
+        this.end = offset + length;
+        statement.reset(chars);
+
+        if (matchKeyword("insert")) {
+            statement.operation = OracleRedoStatement.INSERT;
+            parseInsert();
+        } else if (matchKeyword("update")) {
+            statement.operation = OracleRedoStatement.UPDATE;
+            parseUpdate();
+        } else if (matchKeyword("delete")) {
+            statement.operation = OracleRedoStatement.DELETE;
+            parseDelete();
+        } else {
+            throw error("insert, update or delete expected");
+        }
+
+        skipWhitespace();
+        if (pos < end && chars[pos] == ';') {
+            pos++;
+            skipWhitespace();
+        }
+        if (pos != end) {
+            throw error("end of statement expected");
+        }
+        return statement;
+    }
+
+    private void parseInsert() {
+        expectKeyword("into");
+        parseTable();
+
+        final OracleRowImage after = statement.after();
+        expect('(');
+        do {
+            after.addColumn(parseIdentifier(), identifierLength);
+        } while (next(',', ')'));
+
+        expectKeyword("values");
+        expect('(');
+        for (int column = 0; column < after.getColumnCount(); column++) {
+            if (column > 0) {
+                expect(',');
+            }
+            parseValue(after, column);
+        }
+        expect(')');
+    }
+
+    private void parseUpdate() {
+        parseTable();
+        expectKeyword("set");
+
+        final OracleRowImage after = statement.after();
+        do {
+            after.addColumn(parseIdentifier(), identifierLength);
+            expect('=');
+            parseValue(after, after.getColumnCount() - 1);
+        } while (accept(','));
+
+        if (matchKeyword("where")) {
+            parseConditions(statement.before());
+        }
+    }
+
+    private void parseDelete() {
+        expectKeyword("from");
+        parseTable();
+        expectKeyword("where");
+        parseConditions(statement.before());
+    }
+
+    /**
+     * {@code "A" = 'x' and "B" IS NULL and ROWID = '...'}
+     */
+    private void parseConditions(OracleRowImage image) {
+        do {
+            if (matchKeyword("rowid")) {
+                expect('=');
+                skipValue();
+                continue;
+            }
+            image.addColumn(parseIdentifier(), identifierLength);
+            if (matchKeyword("is")) {
+                expectKeyword("null");
+            } else {
+                expect('=');
+                parseValue(image, image.getColumnCount() - 1);
+            }
+        } while (matchKeyword("and"));
+    }
+
+    private void parseTable() {
+        statement.schemaOffset = parseIdentifier();
+        statement.schemaLength = identifierLength;
+        expect('.');
+        statement.tableOffset = parseIdentifier();
+        statement.tableLength = identifierLength;
+    }
+
+    /**
+     * Reads a double quoted identifier.
+     *
+     * @return offset of its first character, its length is left in {@link #identifierLength}
+     */
+    private int parseIdentifier() {
+        expect('"');
+        final int offset = pos;
+        while (pos < end && chars[pos] != '"') {
+            pos++;
+        }
+        if (pos == end) {
+            throw error("closing quote of identifier expected");
+        }
+        identifierLength = pos - offset;
+        pos++;
+        return offset;
+    }
+
+    private void parseValue(OracleRowImage image, int column) {
+        skipWhitespace();
+        if (pos < end && chars[pos] == '\'') {
+            final int offset = ++pos;
+            final boolean escaped = skipLiteral();
+            image.setValue(column, OracleRowImage.LITERAL, offset, pos - offset - 1, escaped);
+        } else if (matchKeyword("null")) {
+            image.setValue(column, OracleRowImage.NULL, 0, 0, false);
+        } else {
+            final int offset = pos;
+            skipExpression();
+            image.setValue(column, OracleRowImage.EXPRESSION, offset, pos - offset, false);
+        }
+    }
+
+    private void skipValue() {
+        skipWhitespace();
+        if (pos < end && chars[pos] == '\'') {
+            pos++;
+            skipLiteral();
+        } else if (!matchKeyword("null")) {
+            skipExpression();
+        }
+    }
+
+    /**
+     * Skips the rest of a quoted literal, up to and including its closing quote.
+     *
+     * @return whether the literal contains doubled quotes
+     */
+    private boolean skipLiteral() {
+        boolean escaped = false;
+        while (pos < end) {
+            if (chars[pos++] == '\'') {
+                if (pos < end && chars[pos] == '\'') {
+                    escaped = true;
+                    pos++;
+                } else {
+                    return escaped;
+                }
+            }
+        }
+        throw error("closing quote of literal expected");
+    }
+
+    /**
+     * Skips a bare word optionally followed by a parenthesized argument list, quotes inside it respected.
+     */
+    private void skipExpression() {
+        final int offset = pos;
+        while (pos < end && isExpressionChar(chars[pos])) {
+            pos++;
+        }
+        if (pos < end && chars[pos] == '(') {
+            int depth = 0;
+            boolean quoted = false;
+            for (; pos < end; pos++) {
+                final char c = chars[pos];
+                if (c == '\'') {
+                    quoted = !quoted;
+                } else if (!quoted && c == '(') {
+                    depth++;
+                } else if (!quoted && c == ')' && --depth == 0) {
+                    pos++;
+                    return;
+                }
+            }
+            throw error("closing parenthesis expected");
+        }
+        if (pos == offset) {
+            throw error("value expected");
+        }
+    }
+
+    private static boolean isExpressionChar(char c) {
+        return c > ' ' && c != ',' && c != '(' && c != ')' && c != ';' && c != '\'' && c != '"';
+    }
+
+    /**
+     * Matches a lower case keyword case-insensitively, only as a whole word.
+     */
+    private boolean matchKeyword(String keyword) {
+        skipWhitespace();
+        final int length = keyword.length();
+        if (end - pos < length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if ((chars[pos + i] | 0x20) != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        if (pos + length < end && Character.isLetterOrDigit(chars[pos + length])) {
+            return false;
+        }
+        pos += length;
+        return true;
+    }
+
+    private void expectKeyword(String keyword) {
+        if (!matchKeyword(keyword)) {
+            throw error(keyword + " expected");
+        }
+    }
+
+    private boolean accept(char c) {
+        skipWhitespace();
+        if (pos < end && chars[pos] == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char c) {
+        if (!accept(c)) {
+            throw error("'" + c + "' expected");
+        }
+    }
+
+    /**
+     * Consumes {@code more} or {@code last}.
+     *
+     * @return true for {@code more}
+     */
+    private boolean next(char more, char last) {
+        if (accept(more)) {
+            return true;
+        }
+        expect(last);
+        return false;
+    }
+
+    private void skipWhitespace() {
+        while (pos < end && chars[pos] <= ' ') {
+            pos++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        final int from = Math.max(start, pos - 20);
+        final int to = Math.min(end, pos + 20);
+        return new IllegalArgumentException("Unable to parse SQL_REDO at " + (pos - start) + ", " + message +
+                ": ..." + new String(chars, from, to - from) + "...");
+    }
+}
@@ -0,0 +1,78 @@
+package com.chassis.logminer.cdc.oracle;
+
+/**
+ * Insert, update or delete statement parsed from {@code SQL_REDO}.
+ * <p>
+ * Inserts only have an after image and deletes only a before image. For updates the after image holds the
+ * {@code set} columns and the before image the {@code where} columns, which are the changed columns plus the
+ * supplementally logged ones. The {@code ROWID} predicate is not part of the before image.
+ * <p>
+ * Reused by {@link OracleRedoParser}, only valid until the next statement is parsed.
+ */
+public class OracleRedoStatement {
+
+    public static final byte INSERT = 'I';
+    public static final byte UPDATE = 'U';
+    public static final byte DELETE = 'D';
+
+    private final OracleRowImage after = new OracleRowImage();
+    private final OracleRowImage before = new OracleRowImage();
+
+    private char[] chars;
+    byte operation;
+    int schemaOffset;
+    int schemaLength;
+    int tableOffset;
+    int tableLength;
+
+    void reset(char[] chars) {
+        this.chars = chars;
+        this.operation = 0;
+        after.reset(chars);
+        before.reset(chars);
+    }
+
+    public byte getOperation() {
+        return operation;
+    }
+
+    public String getSchema() {
+        return new String(chars, schemaOffset, schemaLength);
+    }
+
+    public String getTable() {
+        return new String(chars, tableOffset, tableLength);
+    }
+
+    /**
+     * Returns the after image, null for a delete.
+     */
+    public OracleRowImage getAfter() {
+        return operation != DELETE ? after : null;
+    }
+
+    /**
+     * Returns the before image, null for an insert.
+     */
+    public OracleRowImage getBefore() {
+        return operation != INSERT ? before : null;
+    }
+
+    OracleRowImage after() {
+        return after;
+    }
+
+    OracleRowImage before() {
+        return before;
+    }
+
+    @Override
+    public String toString() {
+        return "OracleRedoStatement{" +
+                "operation=" + (char) operation +
+                ", table=" + getSchema() + "." + getTable() +
+                ", before=" + getBefore() +
+                ", after=" + getAfter() +
+                '}';
+    }
+}
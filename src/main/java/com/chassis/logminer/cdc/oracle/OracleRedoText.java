@@ -0,0 +1,62 @@
+package com.chassis.logminer.cdc.oracle;
+
+/**
+ * {@code SQL_REDO} statement reassembled from several {@code CSF} rows into a pooled buffer.
+ * <p>
+ * {@link OracleRedoParser} parses it in place. The buffer goes back to the {@link OracleCharBufferPool} with
+ * {@link #release(OracleCharBufferPool)} once the statement is no longer needed, after which the text must not
+ * be used.
+ */
+public final class OracleRedoText implements CharSequence {
+
+    private char[] chars;
+    private final int length;
+
+    OracleRedoText(char[] chars, int length) {
+        this.chars = chars;
+        this.length = length;
+    }
+
+    char[] buffer() {
+        return chars;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index >= length) {
+            throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+        }
+        return chars[index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return new String(chars, start, end - start);
+    }
+
+    public void release(OracleCharBufferPool pool) {
+        if (chars != null) {
+            pool.release(chars);
+            chars = null;
+        }
+    }
+
+    /**
+     * Releases {@code redo} if it is a pooled text, plain Strings are left alone.
+     */
+    static void release(CharSequence redo, OracleCharBufferPool pool) {
+        if (redo instanceof OracleRedoText) {
+            ((OracleRedoText) redo).release(pool);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return new String(chars, 0, length);
+    }
+}
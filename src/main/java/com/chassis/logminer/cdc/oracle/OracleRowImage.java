@@ -0,0 +1,200 @@
+package com.chassis.logminer.cdc.oracle;
+
+import com.chassis.logminer.cdc.event.ChangeEventRow;
+
+import java.util.Arrays;
+
+/**
+ * Column names and values of one row image parsed from {@code SQL_REDO}, kept as offsets into the parser's
+ * character buffer.
+ * <p>
+ * Nothing is copied while parsing; {@link #getColumnName(int)} and {@link #getValue(int)} build Strings on
+ * demand, {@link #appendValue(int, StringBuilder)} and {@link #columnNameEquals(int, CharSequence)} do not
+ * allocate. Reused by {@link OracleRedoParser}, only valid until the next statement is parsed.
+ */
+public class OracleRowImage {
+
+    /**
+     * SQL {@code NULL}, written as {@code NULL} or {@code IS NULL}.
+     */
+    public static final byte NULL = 0;
+
+    /**
+     * Quoted literal, the offsets exclude the quotes.
+     */
+    public static final byte LITERAL = 1;
+
+    /**
+     * Anything else, such as {@code TO_DATE('...', '...')} or {@code HEXTORAW('...')}, kept as written.
+     */
+    public static final byte EXPRESSION = 2;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private char[] chars;
+    private int columnCount;
+    private int[] nameOffsets = new int[INITIAL_CAPACITY];
+    private int[] nameLengths = new int[INITIAL_CAPACITY];
+    private int[] valueOffsets = new int[INITIAL_CAPACITY];
+    private int[] valueLengths = new int[INITIAL_CAPACITY];
+    private byte[] valueKinds = new byte[INITIAL_CAPACITY];
+    private boolean[] escaped = new boolean[INITIAL_CAPACITY];
+
+    void reset(char[] chars) {
+        this.chars = chars;
+        this.columnCount = 0;
+    }
+
+    /**
+     * Adds a column, its value is set by {@link #setValue}.
+     */
+    void addColumn(int nameOffset, int nameLength) {
+        if (columnCount == nameOffsets.length) {
+            final int capacity = columnCount * 2;
+            nameOffsets = Arrays.copyOf(nameOffsets, capacity);
+            nameLengths = Arrays.copyOf(nameLengths, capacity);
+            valueOffsets = Arrays.copyOf(valueOffsets, capacity);
+            valueLengths = Arrays.copyOf(valueLengths, capacity);
+            valueKinds = Arrays.copyOf(valueKinds, capacity);
+            escaped = Arrays.copyOf(escaped, capacity);
+        }
+        nameOffsets[columnCount] = nameOffset;
+        nameLengths[columnCount] = nameLength;
+        valueKinds[columnCount] = NULL;
+        escaped[columnCount] = false;
+        columnCount++;
+    }
+
+    void setValue(int column, byte kind, int offset, int length, boolean hasEscapes) {
+        valueKinds[column] = kind;
+        valueOffsets[column] = offset;
+        valueLengths[column] = length;
+        escaped[column] = hasEscapes;
+    }
+
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    public String getColumnName(int column) {
+        return new String(chars, nameOffsets[column], nameLengths[column]);
+    }
+
+    public boolean columnNameEquals(int column, CharSequence name) {
+        final int length = nameLengths[column];
+        if (name.length() != length) {
+            return false;
+        }
+        final int offset = nameOffsets[column];
+        for (int i = 0; i < length; i++) {
+            if (chars[offset + i] != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the index of the column named {@code name}, or -1.
+     */
+    public int indexOf(CharSequence name) {
+        for (int i = 0; i < columnCount; i++) {
+            if (columnNameEquals(i, name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns {@link #NULL}, {@link #LITERAL} or {@link #EXPRESSION}.
+     */
+    public byte getValueKind(int column) {
+        return valueKinds[column];
+    }
+
+    public boolean isNull(int column) {
+        return valueKinds[column] == NULL;
+    }
+
+    /**
+     * Returns the value with quotes removed and doubled quotes unescaped, or null for SQL {@code NULL}.
+     */
+    public String getValue(int column) {
+        if (valueKinds[column] == NULL) {
+            return null;
+        }
+        if (!escaped[column]) {
+            return new String(chars, valueOffsets[column], valueLengths[column]);
+        }
+        return appendValue(column, new StringBuilder(valueLengths[column])).toString();
+    }
+
+    /**
+     * Appends the value like {@link #getValue(int)} returns it, nothing for SQL {@code NULL}.
+     */
+    public StringBuilder appendValue(int column, StringBuilder sb) {
+        if (valueKinds[column] == NULL) {
+            return sb;
+        }
+        final int offset = valueOffsets[column];
+        final int end = offset + valueLengths[column];
+        if (!escaped[column]) {
+            return sb.append(chars, offset, end - offset);
+        }
+        for (int i = offset; i < end; i++) {
+            sb.append(chars[i]);
+            if (chars[i] == '\'') {
+                i++;
+            }
+        }
+        return sb;
+    }
+
+    /**
+     * Adds the column to {@code row} as {@code name}, with the value {@link #getValue(int)} returns.
+     */
+    void copyTo(int column, String name, ChangeEventRow row) {
+        final byte kind = valueKinds[column];
+        if (kind == NULL) {
+            row.addNull(name);
+            return;
+        }
+        row.add(name, kind == LITERAL ? ChangeEventRow.TEXT : ChangeEventRow.EXPRESSION);
+        final int offset = valueOffsets[column];
+        final int end = offset + valueLengths[column];
+        if (!escaped[column]) {
+            row.append(chars, offset, end - offset);
+            return;
+        }
+        // Copy the runs between doubled quotes, keeping one quote of each pair
+        int start = offset;
+        for (int i = offset; i < end; i++) {
+            if (chars[i] == '\'') {
+                row.append(chars, start, i + 1 - start);
+                i++;
+                start = i + 1;
+            }
+        }
+        if (start < end) {
+            row.append(chars, start, end - start);
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < columnCount; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(chars, nameOffsets[i], nameLengths[i]).append('=');
+            if (isNull(i)) {
+                sb.append("NULL");
+            } else {
+                appendValue(i, sb);
+            }
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,402 @@
+package com.chassis.logminer.cdc.oracle;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Append-only history of the mined table definitions, each version tagged with the SCN of the DDL that produced
+ * it, kept in a memory-mapped file.
+ * <p>
+ * Rows mined from old logs are decoded with the definition that was current at their SCN instead of today's
+ * one, without rebuilding a LogMiner dictionary. After a restart the definitions are read back from the file
+ * instead of the database catalog.
+ * <p>
+ * The file starts with a magic number and is followed by records written as {@code [length][body]}; the length
+ * is written after the body, so a record torn by a crash reads as the end of the file. Records are a table
+ * definition, a dropped table, or a bulk load of every table matching a condition. The whole history is also
+ * kept in memory, a few versions per table, in an open addressing table of primitive {@code long} keys (see
+ * {@link OracleObjectFilter#key}) as it is looked up for every mined row. Not thread safe, meant to be owned by
+ * the mining loop.
+ */
+public class OracleSchemaHistory implements AutoCloseable {
+
+    public static final Path DEFAULT_FILE = Paths.get("data", "oracle-cdc", "schema-history.dat");
+
+    private static final int MAGIC = 0x4F534831;
+    private static final int HEADER_SIZE = 8;
+    private static final int MAP_CHUNK = 1024 * 1024;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private static final byte TYPE_TABLE = 1;
+    private static final byte TYPE_DROPPED = 2;
+    private static final byte TYPE_LOADED = 3;
+
+    private final Path file;
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+
+    // Keys are never 0, object numbers start at 1; entries are never removed, a drop is a version
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private Versions[] versions = new Versions[INITIAL_CAPACITY];
+    private int size;
+    private String loadedCondition;
+    private long records;
+
+    public OracleSchemaHistory(Path file) throws IOException {
+        this.file = file;
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        this.channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        final long size = channel.size();
+        map(Math.max(MAP_CHUNK, size));
+
+        if (size == 0) {
+            buffer.putInt(0, MAGIC);
+            buffer.position(HEADER_SIZE);
+        } else if (buffer.getInt(0) != MAGIC) {
+            channel.close();
+            throw new IOException("Not a schema history file: " + file);
+        } else {
+            buffer.position(HEADER_SIZE);
+            replay();
+        }
+    }
+
+    private void map(long size) throws IOException {
+        final int position = buffer == null ? 0 : buffer.position();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        buffer.position(position);
+    }
+
+    private void replay() {
+        int length;
+        while (buffer.remaining() >= Integer.BYTES && (length = buffer.getInt(buffer.position())) > 0) {
+            buffer.position(buffer.position() + Integer.BYTES);
+            final int end = buffer.position() + length;
+            final byte type = buffer.get();
+            final long scn = buffer.getLong();
+            if (type == TYPE_TABLE) {
+                final OracleTableMetadata table = readTable();
+                add(scn, table, OracleObjectFilter.key(table.getObjectId(), table.getConId()));
+            } else if (type == TYPE_DROPPED) {
+                add(scn, null, buffer.getLong());
+            } else if (type == TYPE_LOADED) {
+                loadedCondition = readString();
+            }
+            buffer.position(end);
+            records++;
+        }
+    }
+
+    /**
+     * Condition of the last bulk load recorded with {@link #recordLoaded}, null if there was none.
+     */
+    public String getLoadedCondition() {
+        return loadedCondition;
+    }
+
+    /**
+     * Records that every table matching {@code condition} was read from the catalog at {@code scn}, followed by
+     * one {@link #record} per table.
+     */
+    public void recordLoaded(long scn, String condition) throws IOException {
+        final byte[] bytes = condition.getBytes(StandardCharsets.UTF_8);
+        final int start = begin(TYPE_LOADED, scn, Integer.BYTES + bytes.length);
+        writeBytes(bytes);
+        commit(start);
+        loadedCondition = condition;
+    }
+
+    /**
+     * Records the definition of a table or partition as of {@code scn}. A definition equal to the previous one is
+     * not recorded again, so re-mining a DDL after a restart does not grow the file.
+     */
+    public void record(long scn, OracleTableMetadata table) throws IOException {
+        final long key = OracleObjectFilter.key(table.getObjectId(), table.getConId());
+        final Versions tableVersions = find(key);
+        if (tableVersions != null && sameDefinition(tableVersions.latest(), table)) {
+            return;
+        }
+
+        final int start = begin(TYPE_TABLE, scn, sizeOf(table));
+        writeTable(table);
+        commit(start);
+        add(scn, table, key);
+    }
+
+    /**
+     * Records that a table or partition no longer exists as of {@code scn}.
+     */
+    public void recordDropped(long scn, long objectId, int conId) throws IOException {
+        final long key = OracleObjectFilter.key(objectId, conId);
+        final Versions tableVersions = find(key);
+        if (tableVersions == null || tableVersions.latest() == null) {
+            return;
+        }
+        final int start = begin(TYPE_DROPPED, scn, Long.BYTES);
+        buffer.putLong(key);
+        commit(start);
+        add(scn, null, key);
+    }
+
+    /**
+     * Returns the definition of the table or partition as of {@code scn}, or null if it did not exist then.
+     * Changes older than the first known definition get that first definition.
+     */
+    public OracleTableMetadata get(long objectId, int conId, long scn) {
+        final Versions tableVersions = find(OracleObjectFilter.key(objectId, conId));
+        return tableVersions == null ? null : tableVersions.at(scn);
+    }
+
+    /**
+     * Passes the latest definition of every table and partition that was not dropped.
+     */
+    public void forEachLatest(Consumer<OracleTableMetadata> consumer) {
+        for (Versions tableVersions : versions) {
+            final OracleTableMetadata latest = tableVersions == null ? null : tableVersions.latest();
+            if (latest != null) {
+                consumer.accept(latest);
+            }
+        }
+    }
+
+    public long getRecords() {
+        return records;
+    }
+
+    /**
+     * Writes the recorded definitions to disk.
+     */
+    public void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+        System.out.println("Closed schema history " + file + " with " + records + " record(s)");
+    }
+
+    private void add(long scn, OracleTableMetadata table, long key) {
+        Versions tableVersions = find(key);
+        if (tableVersions == null) {
+            if ((size + 1) * 4 > keys.length * 3) {
+                resize(keys.length * 2);
+            }
+            tableVersions = new Versions();
+            insert(keys, versions, key, tableVersions);
+            size++;
+        }
+        tableVersions.add(scn, table);
+    }
+
+    private Versions find(long key) {
+        final int mask = keys.length - 1;
+        int index = indexFor(key, mask);
+        long current;
+        while ((current = keys[index]) != 0) {
+            if (current == key) {
+                return versions[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    private static void insert(long[] keys, Versions[] versions, long key, Versions tableVersions) {
+        final int mask = keys.length - 1;
+        int index = indexFor(key, mask);
+        while (keys[index] != 0) {
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        versions[index] = tableVersions;
+    }
+
+    private void resize(int capacity) {
+        final long[] newKeys = new long[capacity];
+        final Versions[] newVersions = new Versions[capacity];
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                insert(newKeys, newVersions, keys[i], versions[i]);
+            }
+        }
+        keys = newKeys;
+        versions = newVersions;
+    }
+
+    private static int indexFor(long key, int mask) {
+        final long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private int begin(byte type, long scn, int size) throws IOException {
+        final int recordSize = Integer.BYTES + Byte.BYTES + Long.BYTES + size;
+        // Keeps room for the zero length that marks the end of the records
+        if (buffer.remaining() < recordSize + Integer.BYTES) {
+            map(buffer.capacity() + Math.max(MAP_CHUNK, recordSize));
+        }
+        final int start = buffer.position();
+        buffer.position(start + Integer.BYTES);
+        buffer.put(type);
+        buffer.putLong(scn);
+        return start;
+    }
+
+    private void commit(int start) {
+        buffer.putInt(start, buffer.position() - start - Integer.BYTES);
+        records++;
+    }
+
+    private static boolean sameDefinition(OracleTableMetadata a, OracleTableMetadata b) {
+        if (a == null || a.getColumnCount() != b.getColumnCount() ||
+                a.getParentObjectId() != b.getParentObjectId() ||
+                !a.getQualifiedName().equals(b.getQualifiedName())) {
+            return false;
+        }
+        for (int i = 0; i < a.getColumnCount(); i++) {
+            if (!a.getColumnName(i).equals(b.getColumnName(i)) ||
+                    !a.getDataType(i).equals(b.getDataType(i)) ||
+                    a.getDataLength(i) != b.getDataLength(i) ||
+                    a.getPrecision(i) != b.getPrecision(i) ||
+                    a.getScale(i) != b.getScale(i) ||
+                    a.isNullable(i) != b.isNullable(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int sizeOf(OracleTableMetadata table) {
+        int size = Long.BYTES + Integer.BYTES + Long.BYTES + Integer.BYTES +
+                sizeOf(table.getOwner()) + sizeOf(table.getTableName()) +
+                sizeOf(table.getPartitionName()) + sizeOf(table.getPdbName());
+        for (int i = 0; i < table.getColumnCount(); i++) {
+            size += sizeOf(table.getColumnName(i)) + sizeOf(table.getDataType(i)) + 3 * Integer.BYTES + Byte.BYTES;
+        }
+        return size;
+    }
+
+    private static int sizeOf(String value) {
+        return Integer.BYTES + (value == null ? 0 : value.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    private void writeTable(OracleTableMetadata table) {
+        buffer.putLong(table.getObjectId());
+        buffer.putInt(table.getConId());
+        buffer.putLong(table.getParentObjectId());
+        writeString(table.getOwner());
+        writeString(table.getTableName());
+        writeString(table.getPartitionName());
+        writeString(table.getPdbName());
+        buffer.putInt(table.getColumnCount());
+        for (int i = 0; i < table.getColumnCount(); i++) {
+            writeString(table.getColumnName(i));
+            writeString(table.getDataType(i));
+            buffer.putInt(table.getDataLength(i));
+            buffer.putInt(table.getPrecision(i));
+            buffer.putInt(table.getScale(i));
+            buffer.put(table.isNullable(i) ? (byte) 1 : (byte) 0);
+        }
+    }
+
+    private OracleTableMetadata readTable() {
+        final long objectId = buffer.getLong();
+        final int conId = buffer.getInt();
+        final long parentObjectId = buffer.getLong();
+        final String owner = readString();
+        final String tableName = readString();
+        final String partitionName = readString();
+        final String pdbName = readString();
+        final int columns = buffer.getInt();
+        final String[] names = new String[columns];
+        final String[] types = new String[columns];
+        final int[] lengths = new int[columns];
+        final int[] precisions = new int[columns];
+        final int[] scales = new int[columns];
+        final boolean[] nullable = new boolean[columns];
+        for (int i = 0; i < columns; i++) {
+            names[i] = readString();
+            types[i] = readString();
+            lengths[i] = buffer.getInt();
+            precisions[i] = buffer.getInt();
+            scales[i] = buffer.getInt();
+            nullable[i] = buffer.get() == 1;
+        }
+        return new OracleTableMetadata(objectId, conId, parentObjectId, owner, tableName, partitionName, pdbName,
+                names, types, lengths, precisions, scales, nullable);
+    }
+
+    private void writeString(String value) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        writeBytes(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void writeBytes(byte[] bytes) {
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private String readString() {
+        final int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Definitions of one table or partition sorted by SCN, null for a drop.
+     */
+    private static final class Versions {
+
+        private long[] scns = new long[2];
+        private OracleTableMetadata[] tables = new OracleTableMetadata[2];
+        private int size;
+
+        private void add(long scn, OracleTableMetadata table) {
+            int index = Arrays.binarySearch(scns, 0, size, scn);
+            if (index >= 0) {
+                tables[index] = table;
+                return;
+            }
+            index = -index - 1;
+            if (size == scns.length) {
+                scns = Arrays.copyOf(scns, size * 2);
+                tables = Arrays.copyOf(tables, size * 2);
+            }
+            System.arraycopy(scns, index, scns, index + 1, size - index);
+            System.arraycopy(tables, index, tables, index + 1, size - index);
+            scns[index] = scn;
+            tables[index] = table;
+            size++;
+        }
+
+        private OracleTableMetadata at(long scn) {
+            final int index = Arrays.binarySearch(scns, 0, size, scn);
+            if (index >= 0) {
+                return tables[index];
+            }
+            final int insertionPoint = -index - 1;
+            return insertionPoint == 0 ? tables[0] : tables[insertionPoint - 1];
+        }
+
+        private OracleTableMetadata latest() {
+            return tables[size - 1];
+        }
+    }
+}
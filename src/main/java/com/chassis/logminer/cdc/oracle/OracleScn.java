@@ -1,72 +1,129 @@
 package com.chassis.logminer.cdc.oracle;
 
-import java.math.BigInteger;
-import java.util.Objects;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 
-public class OracleScn implements Comparable<OracleScn> {
+/**
+ * Oracle System Change Number stored as an unsigned 64-bit {@code long}.
+ * <p>
+ * The two largest unsigned values are reserved for the {@link #MAX} and {@link #NULL} sentinels, they are far
+ * above any SCN a database can reach. Code on the per-row path can work on the raw values with
+ * {@link #compare(long, long)} and {@link #parse(String)} and only wrap them when a position is kept.
+ */
+public final class OracleScn implements Comparable<OracleScn> {
 
-    public static final OracleScn MAX = new OracleScn(BigInteger.valueOf(-2));
-    public static final OracleScn NULL = new OracleScn(null);
-    public static final OracleScn ONE = new OracleScn(BigInteger.valueOf(1));
+    public static final long MAX_VALUE = 0xFFFFFFFFFFFFFFFFL;
+    public static final long NULL_VALUE = 0xFFFFFFFFFFFFFFFEL;
 
-    private final BigInteger scn;
+    public static final OracleScn MAX = new OracleScn(MAX_VALUE);
+    public static final OracleScn NULL = new OracleScn(NULL_VALUE);
+    public static final OracleScn ONE = new OracleScn(1);
 
-    public OracleScn(BigInteger scn) {
+    private final long scn;
+
+    private OracleScn(long scn) {
         this.scn = scn;
     }
 
     public boolean isNull() {
-        return this.scn == null;
+        return scn == NULL_VALUE;
     }
 
     public static OracleScn valueOf(int value) {
-        return new OracleScn(BigInteger.valueOf(value));
+        return valueOf((long) value);
     }
 
     public static OracleScn valueOf(long value) {
-        return new OracleScn(BigInteger.valueOf(value));
+        if (value == MAX_VALUE) {
+            return MAX;
+        } else if (value == NULL_VALUE) {
+            return NULL;
+        } else if (value == 1) {
+            return ONE;
+        }
+        return new OracleScn(value);
     }
 
     public static OracleScn valueOf(String value) {
-        return new OracleScn(new BigInteger(value));
+        return valueOf(parse(value));
+    }
+
+    /**
+     * Reads an SCN column, SQL {@code NULL} maps to {@link #NULL}.
+     */
+    public static OracleScn valueOf(ResultSet rs, int columnIndex) throws SQLException {
+        final long value = rs.getLong(columnIndex);
+        return rs.wasNull() ? NULL : valueOf(value);
+    }
+
+    /**
+     * Parses an unsigned decimal SCN without allocating.
+     *
+     * @throws NumberFormatException if the value is not an unsigned decimal number
+     */
+    public static long parse(String value) {
+        return Long.parseUnsignedLong(value);
+    }
+
+    /**
+     * Unsigned comparison of raw SCN values, {@link #NULL_VALUE} sorts before every other value.
+     */
+    public static int compare(long scn1, long scn2) {
+        if (scn1 == scn2) {
+            return 0;
+        } else if (scn1 == NULL_VALUE) {
+            return -1;
+        } else if (scn2 == NULL_VALUE) {
+            return 1;
+        }
+        return Long.compareUnsigned(scn1, scn2);
     }
 
     public long longValue() {
-        return isNull() ? 0 : scn.longValue();
+        return isNull() ? 0 : scn;
     }
 
     public OracleScn add(OracleScn value) {
-        if (isNull() && value.isNull()) {
-            return OracleScn.NULL;
+        if (isNull()) {
+            return value;
         } else if (value.isNull()) {
-            return new OracleScn(scn);
-        } else if (isNull()) {
-            return new OracleScn(value.scn);
+            return this;
         }
-        return new OracleScn(scn.add(value.scn));
+        return add(value.scn);
+    }
+
+    public OracleScn add(long value) {
+        if (isNull()) {
+            return valueOf(value);
+        } else if (scn == MAX_VALUE || value == MAX_VALUE) {
+            return MAX;
+        }
+        final long result = scn + value;
+        // Saturate instead of wrapping into the sentinels
+        return Long.compareUnsigned(result, NULL_VALUE) >= 0 || Long.compareUnsigned(result, scn) < 0
+                ? MAX : valueOf(result);
     }
 
     public OracleScn subtract(OracleScn value) {
-        if (isNull() && value.isNull()) {
-            return OracleScn.NULL;
-        } else if (value.isNull()) {
-            return new OracleScn(scn);
+        if (value.isNull() || scn == MAX_VALUE) {
+            return this;
         } else if (isNull()) {
-            return new OracleScn(value.scn.negate());
+            return subtractFrom(0, value.scn);
+        }
+        return subtractFrom(scn, value.scn);
+    }
+
+    private static OracleScn subtractFrom(long scn, long value) {
+        if (Long.compareUnsigned(scn, value) < 0) {
+            throw new ArithmeticException("SCN underflow: " + Long.toUnsignedString(scn) +
+                    " - " + Long.toUnsignedString(value));
         }
-        return new OracleScn(scn.subtract(value.scn));
+        return valueOf(scn - value);
     }
 
     @Override
     public int compareTo(OracleScn o) {
-        if (isNull() && o.isNull()) {
-            return 0;
-        } else if (isNull() && !o.isNull()) {
-            return -1;
-        } else if (!isNull() && o.isNull()) {
-            return 1;
-        }
-        return scn.compareTo(o.scn);
+        return compare(scn, o.scn);
     }
 
     @Override
@@ -77,17 +134,21 @@ public class OracleScn implements Comparable<OracleScn> {
         if (o == null || getClass() != o.getClass()) {
             return false;
         }
-        OracleScn oracleScn = (OracleScn) o;
-        return Objects.equals(scn, oracleScn.scn);
+        return scn == ((OracleScn) o).scn;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(scn);
+        return Long.hashCode(scn);
     }
 
     @Override
     public String toString() {
-        return isNull() ? "null" : scn.toString();
+        if (isNull()) {
+            return "null";
+        } else if (scn == MAX_VALUE) {
+            return "MAX";
+        }
+        return Long.toUnsignedString(scn);
     }
 }
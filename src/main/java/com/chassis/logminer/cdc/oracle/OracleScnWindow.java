@@ -0,0 +1,99 @@
+package com.chassis.logminer.cdc.oracle;
+
+/**
+ * Adaptive width of the SCN range handed to DBMS_LOGMNR.START_LOGMNR.
+ * <p>
+ * After every mining cycle the window is shrunk when the previous cycle was slow, returned too many rows
+ * or pushed the LogMiner session close to its memory limit, and grown when the cycle was cheap. The
+ * window always stays within the configured minimum and maximum.
+ */
+public class OracleScnWindow {
+
+    public static final long DEFAULT_MIN_WINDOW = 10000L;
+    public static final long DEFAULT_MAX_WINDOW = 10000000L;
+    public static final long DEFAULT_INITIAL_WINDOW = 1000000L;
+    public static final long DEFAULT_TARGET_QUERY_MS = 2000L;
+    public static final long DEFAULT_TARGET_ROWS = 100000L;
+
+    private static final double MEMORY_HIGH_WATERMARK = 0.8;
+    private static final double MEMORY_LOW_WATERMARK = 0.5;
+
+    private final long minWindow;
+    private final long maxWindow;
+    private final long targetQueryMs;
+    private final long targetRows;
+
+    private long window;
+    private long usedMemory;
+    private long maxMemory;
+
+    public OracleScnWindow() {
+        this(DEFAULT_MIN_WINDOW, DEFAULT_MAX_WINDOW, DEFAULT_INITIAL_WINDOW,
+                DEFAULT_TARGET_QUERY_MS, DEFAULT_TARGET_ROWS);
+    }
+
+    public OracleScnWindow(long minWindow, long maxWindow, long initialWindow,
+                           long targetQueryMs, long targetRows) {
+        if (minWindow <= 0 || maxWindow < minWindow) {
+            throw new IllegalArgumentException("Invalid SCN window bounds: " + minWindow + " - " + maxWindow);
+        }
+        if (targetQueryMs <= 0 || targetRows <= 0) {
+            throw new IllegalArgumentException("SCN window targets must be positive");
+        }
+        this.minWindow = minWindow;
+        this.maxWindow = maxWindow;
+        this.targetQueryMs = targetQueryMs;
+        this.targetRows = targetRows;
+        this.window = clamp(initialWindow);
+    }
+
+    public OracleScn getWindow() {
+        return OracleScn.valueOf(window);
+    }
+
+    /**
+     * Records the LogMiner session memory reported by V$LOGMNR_SESSION for the cycle in progress.
+     */
+    public void recordSessionMemory(long usedMemory, long maxMemory) {
+        this.usedMemory = usedMemory;
+        this.maxMemory = maxMemory;
+    }
+
+    /**
+     * Resizes the window for the next cycle from the measurements of the cycle that just finished.
+     *
+     * @param queryMs time spent querying V$LOGMNR_CONTENTS
+     * @param rows number of rows returned by the query
+     * @param minedWindow number of SCNs actually mined, smaller than the window when capped by the current SCN
+     */
+    public void adjust(long queryMs, long rows, long minedWindow) {
+        final double memoryRatio = maxMemory > 0 ? (double) usedMemory / maxMemory : 0;
+
+        if (memoryRatio >= MEMORY_HIGH_WATERMARK || queryMs > targetQueryMs || rows > targetRows) {
+            // Scale by the worst overshoot so a single huge burst does not take several cycles to absorb
+            double overshoot = Math.max((double) queryMs / targetQueryMs, (double) rows / targetRows);
+            overshoot = Math.max(overshoot, memoryRatio >= MEMORY_HIGH_WATERMARK ? 2 : 1);
+            window = clamp((long) (window / Math.max(overshoot, 2)));
+        } else if (minedWindow >= window && memoryRatio < MEMORY_LOW_WATERMARK
+                && queryMs < targetQueryMs / 2 && rows < targetRows / 2) {
+            // Only grow when the whole window was used, a window capped by the current SCN says nothing
+            window = clamp(window * 2);
+        }
+
+        usedMemory = 0;
+        maxMemory = 0;
+    }
+
+    private long clamp(long value) {
+        return Math.max(minWindow, Math.min(maxWindow, value));
+    }
+
+    @Override
+    public String toString() {
+        return "OracleScnWindow{" +
+                "window=" + window +
+                ", minWindow=" + minWindow +
+                ", maxWindow=" + maxWindow +
+                '}';
+    }
+}
@@ -1,7 +1,5 @@
 package com.chassis.logminer.cdc.oracle;
 
-import java.time.Duration;
-
 public class OracleStatements {
 
     private static final String DATABASE_VIEW = "V$DATABASE";
@@ -16,8 +14,7 @@ public class OracleStatements {
             "    STARTSCN => ?,\n" +
             "    ENDSCN => ?,\n" +
             "    OPTIONS => \n" +
-            "      DBMS_LOGMNR.DICT_FROM_ONLINE_CATALOG +\n" +
-            "      DBMS_LOGMNR.COMMITTED_DATA_ONLY);\n" +
+            "      DBMS_LOGMNR.DICT_FROM_ONLINE_CATALOG);\n" +
             "end;\n";
 
     public static final String STOP_LOGMINER =
@@ -25,57 +22,53 @@ public class OracleStatements {
             "  DBMS_LOGMNR.END_LOGMNR;\n" +
             "end;\n";
 
-    public static final String ADD_ARCHIVED_LOG =
+    public static final String ADD_LOG_FILES =
             "declare\n" +
-            "  l_OPTION binary_integer; \n" +
+            "  l_FILES SYS.ODCIVARCHAR2LIST := ?;\n" +
             "begin\n" +
-            "  if (? = 0) then\n" +
-            "    l_OPTION := DBMS_LOGMNR.NEW;\n" +
-            "  else\n" +
-            "    l_OPTION := DBMS_LOGMNR.ADDFILE;\n" +
-            "  end if;\n" +
-            "  DBMS_LOGMNR.ADD_LOGFILE(LOGFILENAME => ?, OPTIONS => l_OPTION);\n" +
+            "  for i in 1 .. l_FILES.count loop\n" +
+            "    DBMS_LOGMNR.ADD_LOGFILE(\n" +
+            "      LOGFILENAME => l_FILES(i),\n" +
+            "      OPTIONS => case when i = 1 then DBMS_LOGMNR.NEW else DBMS_LOGMNR.ADDFILE end);\n" +
+            "  end loop;\n" +
             "end;\n";
 
+    public static final String LOG_FILE_ARRAY_TYPE = "SYS.ODCIVARCHAR2LIST";
+
     public static final String RDBMS_VERSION_AND_MORE =
             "select VERSION, INSTANCE_NUMBER, INSTANCE_NAME, HOST_NAME, THREAD#,\n" +
             "(select nvl(CPU_CORE_COUNT_CURRENT, CPU_COUNT_CURRENT) from V$LICENSE) CPU_CORE_COUNT_CURRENT\n" +
             "from V$INSTANCE";
 
+    public static final String CURRENT_SCN =
+            "select CURRENT_SCN from " + DATABASE_VIEW;
+
+    public static final String LOGMINER_SESSION_MEMORY =
+            "select nvl(sum(USED_MEMORY_SIZE), 0), nvl(sum(MAX_MEMORY_SIZE), 0) from V$LOGMNR_SESSION";
+
     public static final String FIRST_AVAILABLE_SCN_IN_ARCHIVE =
             "select min(FIRST_CHANGE#)\n" +
             "from V$ARCHIVED_LOG\n" +
             "where ARCHIVED='YES' and STANDBY_DEST='NO' and DELETED='NO'\n" +
             "  and THREAD#=?";
 
-    public static String allMinableLogsQuery(long scn, Duration archiveLogRetention, String archiveDestinationName) {
-        final StringBuilder sb = new StringBuilder();
-
-        sb.append("SELECT MIN(F.MEMBER) AS FILE_NAME, L.FIRST_CHANGE# FIRST_CHANGE, L.NEXT_CHANGE# NEXT_CHANGE, L.ARCHIVED, ");
-        sb.append("L.STATUS, 'ONLINE' AS TYPE, L.SEQUENCE# AS SEQ, 'NO' AS DICT_START, 'NO' AS DICT_END, L.THREAD# AS THREAD ");
-        sb.append("FROM ").append(LOGFILE_VIEW).append(" F, ").append(LOG_VIEW).append(" L ");
-        sb.append("LEFT JOIN ").append(ARCHIVED_LOG_VIEW).append(" A ");
-        sb.append("ON A.FIRST_CHANGE# = L.FIRST_CHANGE# AND A.NEXT_CHANGE# = L.NEXT_CHANGE# ");
-        sb.append("WHERE (A.STATUS <> 'A' OR A.FIRST_CHANGE# IS NULL) ");
-        sb.append("AND F.GROUP# = L.GROUP# ");
-        sb.append("GROUP BY F.GROUP#, L.FIRST_CHANGE#, L.NEXT_CHANGE#, L.STATUS, L.ARCHIVED, L.SEQUENCE#, L.THREAD# ");
-        sb.append("UNION ");
-
-        sb.append("SELECT A.NAME AS FILE_NAME, A.FIRST_CHANGE# FIRST_CHANGE, A.NEXT_CHANGE# NEXT_CHANGE, 'YES', ");
-        sb.append("NULL, 'ARCHIVED', A.SEQUENCE# AS SEQ, A.DICTIONARY_BEGIN, A.DICTIONARY_END, A.THREAD# AS THREAD ");
-        sb.append("FROM ").append(ARCHIVED_LOG_VIEW).append(" A ");
-        sb.append("WHERE A.NAME IS NOT NULL ");
-        sb.append("AND A.ARCHIVED = 'YES' ");
-        sb.append("AND A.STATUS = 'A' ");
-        sb.append("AND A.NEXT_CHANGE# > ").append(scn).append(" ");
-        sb.append("AND A.DEST_ID IN (").append(localArchiveLogDestinationsOnlyQuery(archiveDestinationName)).append(") ");
-
-        if (!archiveLogRetention.isNegative() && !archiveLogRetention.isZero()) {
-            sb.append("AND A.FIRST_TIME >= SYSDATE - (").append(archiveLogRetention.toHours()).append("/24) ");
-        }
-
-        return sb.append("ORDER BY 7").toString();
-    }
+    public static final String ONLINE_LOGS =
+            "select min(F.MEMBER), L.FIRST_CHANGE#, L.NEXT_CHANGE#, L.STATUS, L.SEQUENCE#, L.THREAD#\n" +
+            "from " + LOGFILE_VIEW + " F, " + LOG_VIEW + " L\n" +
+            "where F.GROUP# = L.GROUP#\n" +
+            "group by F.GROUP#, L.FIRST_CHANGE#, L.NEXT_CHANGE#, L.STATUS, L.SEQUENCE#, L.THREAD#";
+
+    public static final String ARCHIVED_LOGS_AFTER_SEQUENCE =
+            "select A.NAME, A.FIRST_CHANGE#, A.NEXT_CHANGE#, A.SEQUENCE#\n" +
+            "from " + ARCHIVED_LOG_VIEW + " A\n" +
+            "where A.NAME is not null\n" +
+            "  and A.ARCHIVED = 'YES'\n" +
+            "  and A.STATUS = 'A'\n" +
+            "  and A.THREAD# = ?\n" +
+            "  and A.SEQUENCE# > ?\n" +
+            "  and A.NEXT_CHANGE# > ?\n" +
+            "  and A.DEST_ID in (" + localArchiveLogDestinationsOnlyQuery(null) + ")\n" +
+            "order by A.SEQUENCE#";
 
     private static String localArchiveLogDestinationsOnlyQuery(String archiveDestinationName) {
         final StringBuilder query = new StringBuilder(256);
@@ -85,26 +78,108 @@ public class OracleStatements {
         return query.toString();
     }
 
-    public static final String MINE_DATA_CDB =
-            "select SCN, TIMESTAMP, OPERATION_CODE, XID, RS_ID, SSN, CSF, ROW_ID, DATA_OBJ#, DATA_OBJD#, SQL_REDO,\n" +
-            "       SRC_CON_UID, (select CON_ID from V$CONTAINERS C where C.CON_UID = L.SRC_CON_UID) CON_ID\n" +
-            "from V$LOGMNR_CONTENTS L\n";
-
-    public static final String CHECK_TABLE_CDB =
-            "select O.OBJECT_ID, O.CON_ID, T.OWNER, T.TABLE_NAME, T.DEPENDENCIES, P.PDB_NAME,\n" +
-            "       decode(O.OBJECT_TYPE, 'TABLE', 'Y', 'N') IS_TABLE,\n" +
-            "       decode(O.OBJECT_TYPE, 'TABLE', O.OBJECT_ID,\n" +
-            "         (select PT.OBJECT_ID\n" +
-            "          from CDB_OBJECTS PT\n" +
-            "          where PT.OWNER=O.OWNER\n" +
-            "            and PT.OBJECT_NAME=O.OBJECT_NAME\n" +
-            "            and PT.CON_ID=O.CON_ID\n" +
-            "            and PT.OBJECT_TYPE='TABLE')) PARENT_OBJECT_ID\n" +
-            "from CDB_OBJECTS O, CDB_PDBS P, CDB_TABLES T\n" +
+    /**
+     * Columns read by {@link OracleContentsReader}, in the order of its column indexes.
+     */
+    public static final String MINE_CONTENTS =
+            "select SCN, OPERATION_CODE, TIMESTAMP, XIDUSN, XIDSLT, XIDSQN, RS_ID, SSN, CSF, ROLLBACK, ROW_ID,\n" +
+            "       SEG_OWNER, TABLE_NAME, SQL_REDO, SRC_CON_UID, DATA_OBJ#\n" +
+            "from V$LOGMNR_CONTENTS\n";
+
+    /**
+     * {@link #MINE_CONTENTS} restricted to the DML rows of the tables bound as one
+     * {@link #OBJECT_KEY_ARRAY_TYPE} of {@link OracleObjectFilter} keys, plus every DDL, COMMIT and ROLLBACK row.
+     * DDL rows are not restricted, a table created under a mined name has no key yet; they are few and checked
+     * by {@link OracleObjectFilter#acceptsDdl}. The text never changes, so the cursor is shared between mining
+     * cycles.
+     */
+    public static final String MINE_CONTENTS_INCLUDE_OBJECTS =
+            MINE_CONTENTS +
+            "where (OPERATION_CODE in (1, 2, 3)\n" +
+            "  and DATA_OBJ# * 65536 + SRC_CON_ID in (select COLUMN_VALUE from TABLE(?)))\n" +
+            "   or OPERATION_CODE in (5, 7, 36)";
+
+    public static final String MINE_CONTENTS_EXCLUDE_OBJECTS =
+            MINE_CONTENTS +
+            "where (OPERATION_CODE in (1, 2, 3)\n" +
+            "  and DATA_OBJ# * 65536 + SRC_CON_ID not in (select COLUMN_VALUE from TABLE(?)))\n" +
+            "   or OPERATION_CODE in (5, 7, 36)";
+
+    public static final String OBJECT_KEY_ARRAY_TYPE = "SYS.ODCINUMBERLIST";
+
+    /**
+     * Tables of every PDB, followed by a condition on {@code O.OWNER} and {@code O.OBJECT_NAME}.
+     */
+    public static final String TABLE_OBJECTS_CDB =
+            "select OBJECT_ID, CON_ID\n" +
+            "from CDB_OBJECTS O\n" +
+            "where DATA_OBJECT_ID is not null\n" +
+            "  and OBJECT_TYPE like 'TABLE%'\n" +
+            "  and TEMPORARY='N'\n";
+
+    /**
+     * Tables of the current database or PDB, followed by a condition on {@code O.OWNER} and {@code O.OBJECT_NAME}.
+     */
+    public static final String TABLE_OBJECTS =
+            "select OBJECT_ID, to_number(sys_context('USERENV', 'CON_ID')) CON_ID\n" +
+            "from DBA_OBJECTS O\n" +
+            "where DATA_OBJECT_ID is not null\n" +
+            "  and OBJECT_TYPE like 'TABLE%'\n" +
+            "  and TEMPORARY='N'\n";
+
+    /**
+     * Tables and partitions of every PDB for {@link OracleTableMetadataCache}, followed by a condition on
+     * {@code O.OWNER} and {@code O.OBJECT_NAME}.
+     */
+    public static final String TABLE_METADATA_OBJECTS_CDB =
+            "select O.OBJECT_ID, O.CON_ID, O.OWNER, O.OBJECT_NAME, O.SUBOBJECT_NAME, P.PDB_NAME\n" +
+            "from CDB_OBJECTS O, CDB_PDBS P\n" +
             "where O.OBJECT_TYPE in ('TABLE', 'TABLE PARTITION', 'TABLE SUBPARTITION')\n" +
             "  and O.TEMPORARY='N'\n" +
-            "  and O.OWNER not in ('SYS','SYSTEM','MGDSYS','OJVMSYS','AUDSYS','OUTLN','APPQOSSYS','DBSNMP','CTXSYS','ORDSYS','ORDPLUGINS','ORDDATA','MDSYS','OLAPSYS','GGSYS','XDB','GSMADMIN_INTERNAL','DBSFWUSER','LBACSYS','DVSYS','WMSYS')\n" +
-            "  and O.CON_ID=P.CON_ID (+)\n" +
-            "  and O.OWNER=T.OWNER\n" +
-            "  and O.OBJECT_NAME=T.TABLE_NAME\n";
+            "  and O.CON_ID=P.CON_ID (+)\n";
+
+    public static final String TABLE_METADATA_OBJECTS =
+            "select O.OBJECT_ID, to_number(sys_context('USERENV', 'CON_ID')) CON_ID, O.OWNER, O.OBJECT_NAME,\n" +
+            "       O.SUBOBJECT_NAME, sys_context('USERENV', 'CON_NAME') PDB_NAME\n" +
+            "from DBA_OBJECTS O\n" +
+            "where O.OBJECT_TYPE in ('TABLE', 'TABLE PARTITION', 'TABLE SUBPARTITION')\n" +
+            "  and O.TEMPORARY='N'\n";
+
+    /**
+     * Columns of the tables of every PDB, followed by a condition on {@code O.OWNER} and {@code O.OBJECT_NAME}
+     * and {@link #TABLE_METADATA_COLUMNS_ORDER}.
+     */
+    public static final String TABLE_METADATA_COLUMNS_CDB =
+            "select C.CON_ID, C.OWNER, C.TABLE_NAME, C.COLUMN_NAME, C.DATA_TYPE, C.DATA_LENGTH,\n" +
+            "       C.DATA_PRECISION, C.DATA_SCALE, C.NULLABLE\n" +
+            "from CDB_TAB_COLUMNS C, CDB_OBJECTS O\n" +
+            "where O.OBJECT_TYPE='TABLE'\n" +
+            "  and O.TEMPORARY='N'\n" +
+            "  and C.CON_ID=O.CON_ID\n" +
+            "  and C.OWNER=O.OWNER\n" +
+            "  and C.TABLE_NAME=O.OBJECT_NAME\n";
+
+    public static final String TABLE_METADATA_COLUMNS =
+            "select to_number(sys_context('USERENV', 'CON_ID')) CON_ID, C.OWNER, C.TABLE_NAME, C.COLUMN_NAME,\n" +
+            "       C.DATA_TYPE, C.DATA_LENGTH, C.DATA_PRECISION, C.DATA_SCALE, C.NULLABLE\n" +
+            "from DBA_TAB_COLUMNS C, DBA_OBJECTS O\n" +
+            "where O.OBJECT_TYPE='TABLE'\n" +
+            "  and O.TEMPORARY='N'\n" +
+            "  and C.OWNER=O.OWNER\n" +
+            "  and C.TABLE_NAME=O.OBJECT_NAME\n";
+
+    public static final String TABLE_METADATA_COLUMNS_ORDER =
+            "order by 1, C.OWNER, C.TABLE_NAME, C.COLUMN_ID";
+
+    /**
+     * Restricts the table metadata queries to one table, in every PDB.
+     */
+    public static final String TABLE_METADATA_ONE_TABLE =
+            "  and O.OWNER=?\n" +
+            "  and O.OBJECT_NAME=?\n";
+
+    public static final String CONTAINERS =
+            "select CON_UID, CON_ID, NAME, OPEN_MODE\n" +
+            "from V$CONTAINERS\n" +
+            "order by CON_UID";
 }
@@ -0,0 +1,159 @@
+package com.chassis.logminer.cdc.oracle;
+
+/**
+ * Dictionary description of a table, or of one partition of it, as seen by {@link OracleTableMetadataCache}.
+ * <p>
+ * Partitions and subpartitions have their own object number but share the columns of their table,
+ * {@link #getParentObjectId()} gives the object number of the table itself.
+ */
+public class OracleTableMetadata {
+
+    private final long objectId;
+    private final int conId;
+    private final long parentObjectId;
+    private final String owner;
+    private final String tableName;
+    private final String partitionName;
+    private final String pdbName;
+    private final String[] columnNames;
+    private final String[] dataTypes;
+    private final int[] dataLengths;
+    private final int[] precisions;
+    private final int[] scales;
+    private final boolean[] nullable;
+
+    public OracleTableMetadata(long objectId, int conId, long parentObjectId, String owner, String tableName,
+                               String partitionName, String pdbName, String[] columnNames, String[] dataTypes,
+                               int[] dataLengths, int[] precisions, int[] scales, boolean[] nullable) {
+        this.objectId = objectId;
+        this.conId = conId;
+        this.parentObjectId = parentObjectId;
+        this.owner = owner;
+        this.tableName = tableName;
+        this.partitionName = partitionName;
+        this.pdbName = pdbName;
+        this.columnNames = columnNames;
+        this.dataTypes = dataTypes;
+        this.dataLengths = dataLengths;
+        this.precisions = precisions;
+        this.scales = scales;
+        this.nullable = nullable;
+    }
+
+    /**
+     * Returns the same description for another object of the table, such as one of its partitions.
+     */
+    OracleTableMetadata withObject(long objectId, String partitionName) {
+        return new OracleTableMetadata(objectId, conId, parentObjectId, owner, tableName, partitionName, pdbName,
+                columnNames, dataTypes, dataLengths, precisions, scales, nullable);
+    }
+
+    /**
+     * {@code DATA_OBJ#} of the mined rows, the {@code OBJECT_ID} of the table or partition.
+     */
+    public long getObjectId() {
+        return objectId;
+    }
+
+    public int getConId() {
+        return conId;
+    }
+
+    /**
+     * Object number of the table, the same as {@link #getObjectId()} unless this is a partition.
+     */
+    public long getParentObjectId() {
+        return parentObjectId;
+    }
+
+    public boolean isPartition() {
+        return partitionName != null;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * Returns {@code owner.tableName}.
+     */
+    public String getQualifiedName() {
+        return owner + "." + tableName;
+    }
+
+    /**
+     * Name of the partition or subpartition, null for the table itself.
+     */
+    public String getPartitionName() {
+        return partitionName;
+    }
+
+    public String getPdbName() {
+        return pdbName;
+    }
+
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    /**
+     * Returns the index of the column, -1 if the table has no such column.
+     */
+    public int indexOf(String columnName) {
+        for (int i = 0; i < columnNames.length; i++) {
+            if (columnNames[i].equals(columnName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * {@code DATA_TYPE} of the column, such as {@code NUMBER}, {@code VARCHAR2} or {@code TIMESTAMP(6)}.
+     */
+    public String getDataType(int column) {
+        return dataTypes[column];
+    }
+
+    public int getDataLength(int column) {
+        return dataLengths[column];
+    }
+
+    /**
+     * {@code DATA_PRECISION} of the column, 0 when not set.
+     */
+    public int getPrecision(int column) {
+        return precisions[column];
+    }
+
+    /**
+     * {@code DATA_SCALE} of the column, 0 when not set.
+     */
+    public int getScale(int column) {
+        return scales[column];
+    }
+
+    public boolean isNullable(int column) {
+        return nullable[column];
+    }
+
+    @Override
+    public String toString() {
+        return "OracleTableMetadata{" +
+                "objectId=" + objectId +
+                ", conId=" + conId +
+                ", table=" + getQualifiedName() +
+                (partitionName == null ? "" : ", partition=" + partitionName) +
+                ", pdb=" + pdbName +
+                ", columns=" + columnNames.length +
+                '}';
+    }
+}
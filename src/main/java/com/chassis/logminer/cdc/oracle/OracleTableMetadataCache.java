@@ -0,0 +1,321 @@
+package com.chassis.logminer.cdc.oracle;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Owner, table, partition parent, PDB and columns of the mined tables keyed by {@code (DATA_OBJ#, CON_ID)}, so
+ * that no dictionary query runs per mined row.
+ * <p>
+ * {@link #warm(long)} reads the tables in bulk at startup with two queries, one for the tables and partitions and
+ * one for the columns. Afterwards a table is only read again by {@link #refresh} when a DDL row is mined for
+ * it. Lookups are lock-free: the entries live in an open addressing table of primitive {@code long} keys
+ * (see {@link OracleObjectFilter#key}) that is never modified once published through a volatile field; the
+ * mining thread builds a new table on every change, DDL is rare enough for the copy not to matter.
+ * <p>
+ * With an {@link OracleSchemaHistory} every definition read is also recorded there, lookups are served from its
+ * versions as of the SCN of the change, and a restart with the same table condition loads the cache from the
+ * history instead of the catalog.
+ */
+public class OracleTableMetadataCache {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Connection connection;
+    private final boolean cdb;
+    private final String tableCondition;
+    private final OracleSchemaHistory history;
+
+    private volatile Table table = new Table(INITIAL_CAPACITY);
+
+    /**
+     * @param cdb            whether the tables are looked up in every PDB with the {@code CDB_} views
+     * @param tableCondition condition on the owner and name of the tables, see
+     *                       {@link OracleCDCTask#parseTableSchemaList}
+     */
+    public OracleTableMetadataCache(Connection connection, boolean cdb, String tableCondition) {
+        this(connection, cdb, tableCondition, null);
+    }
+
+    /**
+     * @param history where the definitions are recorded, null to only keep them in memory
+     */
+    public OracleTableMetadataCache(Connection connection, boolean cdb, String tableCondition,
+                                    OracleSchemaHistory history) {
+        this.connection = connection;
+        this.cdb = cdb;
+        this.tableCondition = tableCondition;
+        this.history = history;
+    }
+
+    /**
+     * Reads every table matching the table condition, replacing the cached entries. The definitions are taken
+     * from the schema history when it already holds a load of the same tables, otherwise they are read from the
+     * catalog and recorded as of {@code scn}.
+     */
+    public void warm(long scn) throws SQLException {
+        final List<OracleTableMetadata> loaded = new ArrayList<>();
+        final boolean fromHistory = history != null && tableCondition.equals(history.getLoadedCondition());
+        if (fromHistory) {
+            history.forEachLatest(loaded::add);
+        } else {
+            loaded.addAll(load(tableCondition, null, null));
+            if (history != null) {
+                try {
+                    history.recordLoaded(scn, tableCondition);
+                    for (OracleTableMetadata metadata : loaded) {
+                        history.record(scn, metadata);
+                    }
+                    history.force();
+                } catch (IOException e) {
+                    throw new SQLException("Unable to record the table definitions in the schema history!", e);
+                }
+            }
+        }
+
+        final Table warmed = new Table(capacityFor(loaded.size()));
+        for (OracleTableMetadata metadata : loaded) {
+            warmed.put(metadata);
+        }
+        table = warmed;
+        System.out.println("Loaded metadata of " + loaded.size() + " table object(s) from the " +
+                (fromHistory ? "schema history" : "catalog"));
+    }
+
+    /**
+     * Returns the table or partition with the given {@code DATA_OBJ#} in container {@code conId} as of
+     * {@code scn}, or null if it is not known. With a schema history the definition may be an earlier one and
+     * the call belongs to the mining thread; without one it is the current definition, and safe to call from any
+     * thread.
+     */
+    public OracleTableMetadata get(long objectId, int conId, long scn) {
+        if (history != null) {
+            return history.get(objectId, conId, scn);
+        }
+        return table.get(OracleObjectFilter.key(objectId, conId));
+    }
+
+    /**
+     * Reads a table and its partitions again after a DDL row at {@code scn}, dropping the entries of the previous
+     * definition. A dropped or renamed table simply disappears from the cache.
+     */
+    public void refresh(long scn, int conId, String owner, String tableName) throws SQLException {
+        final List<OracleTableMetadata> loaded = load(OracleStatements.TABLE_METADATA_ONE_TABLE, owner, tableName);
+
+        final Table current = table;
+        final Table refreshed = new Table(capacityFor(current.size + loaded.size()));
+        final List<OracleTableMetadata> removed = new ArrayList<>();
+        for (OracleTableMetadata metadata : current.values) {
+            if (metadata == null) {
+                continue;
+            }
+            if (metadata.getConId() == conId &&
+                    metadata.getOwner().equals(owner) && metadata.getTableName().equals(tableName)) {
+                removed.add(metadata);
+            } else {
+                refreshed.put(metadata);
+            }
+        }
+        for (OracleTableMetadata metadata : loaded) {
+            if (metadata.getConId() == conId) {
+                refreshed.put(metadata);
+            }
+        }
+        table = refreshed;
+
+        if (history != null) {
+            try {
+                for (OracleTableMetadata metadata : removed) {
+                    if (refreshed.get(OracleObjectFilter.key(metadata.getObjectId(), conId)) == null) {
+                        history.recordDropped(scn, metadata.getObjectId(), conId);
+                    }
+                }
+                for (OracleTableMetadata metadata : loaded) {
+                    if (metadata.getConId() == conId) {
+                        history.record(scn, metadata);
+                    }
+                }
+                history.force();
+            } catch (IOException e) {
+                throw new SQLException("Unable to record the table definitions in the schema history!", e);
+            }
+        }
+    }
+
+    public int size() {
+        return table.size;
+    }
+
+    private List<OracleTableMetadata> load(String condition, String owner, String tableName) throws SQLException {
+        final Map<String, Columns> columns = new HashMap<>();
+        try (PreparedStatement ps = connection.prepareStatement(
+                (cdb ? OracleStatements.TABLE_METADATA_COLUMNS_CDB : OracleStatements.TABLE_METADATA_COLUMNS) +
+                        condition + OracleStatements.TABLE_METADATA_COLUMNS_ORDER,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            bindTable(ps, owner, tableName);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    columns.computeIfAbsent(tableKey(rs.getInt(1), rs.getString(2), rs.getString(3)),
+                            k -> new Columns()).add(rs);
+                }
+            }
+        } catch (SQLException e) {
+            throw new SQLException("Unable to read the columns of the mined tables!", e);
+        }
+
+        final List<Object[]> objects = new ArrayList<>();
+        final Map<String, Long> tableObjectIds = new HashMap<>();
+        try (PreparedStatement ps = connection.prepareStatement(
+                (cdb ? OracleStatements.TABLE_METADATA_OBJECTS_CDB : OracleStatements.TABLE_METADATA_OBJECTS) +
+                        condition,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            bindTable(ps, owner, tableName);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    final Object[] object = {rs.getLong(1), rs.getInt(2), rs.getString(3), rs.getString(4),
+                            rs.getString(5), rs.getString(6)};
+                    objects.add(object);
+                    if (object[4] == null) {
+                        tableObjectIds.put(tableKey((Integer) object[1], (String) object[2], (String) object[3]),
+                                (Long) object[0]);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new SQLException("Unable to read the objects of the mined tables!", e);
+        }
+
+        final List<OracleTableMetadata> loaded = new ArrayList<>(objects.size());
+        for (Object[] object : objects) {
+            final long objectId = (Long) object[0];
+            final int conId = (Integer) object[1];
+            final String key = tableKey(conId, (String) object[2], (String) object[3]);
+            final Columns tableColumns = columns.getOrDefault(key, new Columns());
+            final Long parentObjectId = tableObjectIds.get(key);
+            loaded.add(new OracleTableMetadata(objectId, conId,
+                    parentObjectId == null ? objectId : parentObjectId,
+                    (String) object[2], (String) object[3], (String) object[4], (String) object[5],
+                    tableColumns.names.toArray(new String[0]), tableColumns.types.toArray(new String[0]),
+                    tableColumns.lengths(), tableColumns.precisions(), tableColumns.scales(),
+                    tableColumns.nullable()));
+        }
+        return loaded;
+    }
+
+    private static void bindTable(PreparedStatement ps, String owner, String tableName) throws SQLException {
+        if (owner != null) {
+            ps.setString(1, owner);
+            ps.setString(2, tableName);
+        }
+    }
+
+    private static String tableKey(int conId, String owner, String tableName) {
+        return conId + "." + owner + "." + tableName;
+    }
+
+    private static int capacityFor(int size) {
+        int capacity = INITIAL_CAPACITY;
+        while (size * 4 > capacity * 3) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * Columns of one table while loading, in {@code COLUMN_ID} order.
+     */
+    private static final class Columns {
+
+        private final List<String> names = new ArrayList<>();
+        private final List<String> types = new ArrayList<>();
+        private final List<int[]> sizes = new ArrayList<>();
+
+        private void add(ResultSet rs) throws SQLException {
+            names.add(rs.getString(4));
+            types.add(rs.getString(5));
+            sizes.add(new int[]{rs.getInt(6), rs.getInt(7), rs.getInt(8), "Y".equals(rs.getString(9)) ? 1 : 0});
+        }
+
+        private int[] column(int field) {
+            final int[] values = new int[sizes.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = sizes.get(i)[field];
+            }
+            return values;
+        }
+
+        private int[] lengths() {
+            return column(0);
+        }
+
+        private int[] precisions() {
+            return column(1);
+        }
+
+        private int[] scales() {
+            return column(2);
+        }
+
+        private boolean[] nullable() {
+            final boolean[] values = new boolean[sizes.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = sizes.get(i)[3] == 1;
+            }
+            return values;
+        }
+    }
+
+    /**
+     * Open addressing table, only modified before it is published. Keys are never 0, object numbers start at 1.
+     */
+    private static final class Table {
+
+        private final long[] keys;
+        private final OracleTableMetadata[] values;
+        private int size;
+
+        private Table(int capacity) {
+            keys = new long[capacity];
+            values = new OracleTableMetadata[capacity];
+        }
+
+        private void put(OracleTableMetadata metadata) {
+            final long key = OracleObjectFilter.key(metadata.getObjectId(), metadata.getConId());
+            final int mask = keys.length - 1;
+            int index = indexFor(key, mask);
+            while (keys[index] != 0 && keys[index] != key) {
+                index = (index + 1) & mask;
+            }
+            if (keys[index] == 0) {
+                size++;
+            }
+            keys[index] = key;
+            values[index] = metadata;
+        }
+
+        private OracleTableMetadata get(long key) {
+            final int mask = keys.length - 1;
+            int index = indexFor(key, mask);
+            long current;
+            while ((current = keys[index]) != 0) {
+                if (current == key) {
+                    return values[index];
+                }
+                index = (index + 1) & mask;
+            }
+            return null;
+        }
+
+        private static int indexFor(long key, int mask) {
+            final long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.chassis.logminer.cdc.oracle;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Rows of one open transaction, kept in primitive arrays until the transaction grows past the in-memory limit
+ * and then in an {@link OracleTransactionSpill}.
+ * <p>
+ * Partial rollbacks ({@code ROLLBACK = 1} rows) are only recorded as they arrive; which row each of them undoes
+ * is resolved once, when the transaction commits.
+ */
+class OracleTransaction {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final long xid;
+    private final int conId;
+    private final String pdbName;
+    private final long startScn;
+
+    private int size;
+    private long[] scns = new long[INITIAL_CAPACITY];
+    private long[] timestamps = new long[INITIAL_CAPACITY];
+    private int[] operations = new int[INITIAL_CAPACITY];
+    private long[] ssns = new long[INITIAL_CAPACITY];
+    private String[] rsIds = new String[INITIAL_CAPACITY];
+    private long[] objectIds = new long[INITIAL_CAPACITY];
+    private String[] rowIds = new String[INITIAL_CAPACITY];
+    private String[] segOwners = new String[INITIAL_CAPACITY];
+    private String[] tableNames = new String[INITIAL_CAPACITY];
+    private CharSequence[] sqlRedos = new CharSequence[INITIAL_CAPACITY];
+
+    private OracleTransactionSpill spill;
+
+    // Row count at the time of each partial rollback and the ROW_ID it undoes
+    private int undoCount;
+    private int[] undoPositions;
+    private String[] undoRowIds;
+
+    OracleTransaction(long xid, int conId, String pdbName, long startScn) {
+        this.xid = xid;
+        this.conId = conId;
+        this.pdbName = pdbName;
+        this.startScn = startScn;
+    }
+
+    long getXid() {
+        return xid;
+    }
+
+    /**
+     * Container of the transaction, a transaction never spans PDBs.
+     */
+    int getConId() {
+        return conId;
+    }
+
+    String getPdbName() {
+        return pdbName;
+    }
+
+    /**
+     * SCN of the first row seen for the transaction, mining must restart from there to rebuild it.
+     */
+    long getStartScn() {
+        return startScn;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isSpilled() {
+        return spill != null;
+    }
+
+    void add(long scn, long timestamp, int operation, String rsId, long ssn,
+             long objectId, String rowId, String segOwner, String tableName, CharSequence sqlRedo) {
+        if (spill != null) {
+            spill.append(scn, timestamp, operation, rsId, ssn, objectId, rowId, segOwner, tableName, sqlRedo);
+            size++;
+            return;
+        }
+        if (size == scns.length) {
+            grow(size * 2);
+        }
+        scns[size] = scn;
+        timestamps[size] = timestamp;
+        operations[size] = operation;
+        rsIds[size] = rsId;
+        ssns[size] = ssn;
+        objectIds[size] = objectId;
+        rowIds[size] = rowId;
+        segOwners[size] = segOwner;
+        tableNames[size] = tableName;
+        sqlRedos[size] = sqlRedo;
+        size++;
+    }
+
+    private void grow(int capacity) {
+        scns = Arrays.copyOf(scns, capacity);
+        timestamps = Arrays.copyOf(timestamps, capacity);
+        operations = Arrays.copyOf(operations, capacity);
+        ssns = Arrays.copyOf(ssns, capacity);
+        rsIds = Arrays.copyOf(rsIds, capacity);
+        objectIds = Arrays.copyOf(objectIds, capacity);
+        rowIds = Arrays.copyOf(rowIds, capacity);
+        segOwners = Arrays.copyOf(segOwners, capacity);
+        tableNames = Arrays.copyOf(tableNames, capacity);
+        sqlRedos = Arrays.copyOf(sqlRedos, capacity);
+    }
+
+    /**
+     * Moves the rows collected so far to a Chronicle Queue in {@code directory}, later rows go there directly.
+     */
+    void spill(Path directory, OracleCharBufferPool pool) {
+        spill = new OracleTransactionSpill(directory);
+        for (int i = 0; i < size; i++) {
+            spill.append(scns[i], timestamps[i], operations[i], rsIds[i], ssns[i],
+                    objectIds[i], rowIds[i], segOwners[i], tableNames[i], sqlRedos[i]);
+            OracleRedoText.release(sqlRedos[i], pool);
+        }
+        scns = null;
+        timestamps = null;
+        operations = null;
+        ssns = null;
+        rsIds = null;
+        objectIds = null;
+        rowIds = null;
+        segOwners = null;
+        tableNames = null;
+        sqlRedos = null;
+    }
+
+    /**
+     * Records a partial rollback of the latest row with {@code rowId}.
+     */
+    void undo(String rowId) {
+        if (undoPositions == null) {
+            undoPositions = new int[4];
+            undoRowIds = new String[4];
+        } else if (undoCount == undoPositions.length) {
+            undoPositions = Arrays.copyOf(undoPositions, undoCount * 2);
+            undoRowIds = Arrays.copyOf(undoRowIds, undoCount * 2);
+        }
+        undoPositions[undoCount] = size;
+        undoRowIds[undoCount] = rowId;
+        undoCount++;
+    }
+
+    /**
+     * Replays the rows that were not rolled back, in order.
+     *
+     * @return the number of rows passed to the listener
+     */
+    int replay(OracleRedoEvent event, OracleTransactionListener listener) throws SQLException {
+        final BitSet undone = undoCount == 0 ? null : resolveUndos(event);
+        final int[] replayed = new int[1];
+        forEach(event, (index, e) -> {
+            if (undone == null || !undone.get(index)) {
+                listener.onEvent(e);
+                replayed[0]++;
+            }
+        });
+        return replayed[0];
+    }
+
+    /**
+     * Finds the rows cancelled by partial rollbacks: each one undoes the latest row with its ROW_ID that was
+     * added before it and is not undone yet. Rows added before mining started cannot be matched and are ignored.
+     */
+    private BitSet resolveUndos(OracleRedoEvent event) throws SQLException {
+        final BitSet undone = new BitSet(size);
+        final Map<String, ArrayDeque<Integer>> liveRows = new HashMap<>();
+        final int[] nextUndo = new int[1];
+
+        forEach(event, (index, e) -> {
+            nextUndo[0] = applyUndos(index, nextUndo[0], liveRows, undone);
+            liveRows.computeIfAbsent(e.getRowId(), k -> new ArrayDeque<>()).push(index);
+        });
+        applyUndos(size, nextUndo[0], liveRows, undone);
+        return undone;
+    }
+
+    private int applyUndos(int position, int nextUndo, Map<String, ArrayDeque<Integer>> liveRows, BitSet undone) {
+        while (nextUndo < undoCount && undoPositions[nextUndo] <= position) {
+            final ArrayDeque<Integer> rows = liveRows.get(undoRowIds[nextUndo]);
+            if (rows != null && !rows.isEmpty()) {
+                undone.set(rows.pop());
+            }
+            nextUndo++;
+        }
+        return nextUndo;
+    }
+
+    private void forEach(OracleRedoEvent event, RowVisitor visitor) throws SQLException {
+        event.conId = conId;
+        event.pdbName = pdbName;
+        if (spill != null) {
+            spill.forEach(xid, event, visitor);
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            event.set(xid, scns[i], timestamps[i], operations[i], rsIds[i], ssns[i],
+                    objectIds[i], rowIds[i], segOwners[i], tableNames[i], sqlRedos[i]);
+            visitor.visit(i, event);
+        }
+    }
+
+    /**
+     * Releases the pooled statement buffers and the spill files, if any.
+     */
+    void discard(OracleCharBufferPool pool) {
+        if (spill != null) {
+            spill.delete();
+            spill = null;
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            OracleRedoText.release(sqlRedos[i], pool);
+            sqlRedos[i] = null;
+        }
+    }
+
+    interface RowVisitor {
+        void visit(int index, OracleRedoEvent event) throws SQLException;
+    }
+}
@@ -0,0 +1,253 @@
+package com.chassis.logminer.cdc.oracle;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Client-side buffer of open transactions, so LogMiner can run without {@code COMMITTED_DATA_ONLY} and the
+ * database does not have to hold every open transaction in LogMiner session memory.
+ * <p>
+ * DML rows are collected per transaction, keyed by the XID packed with {@link OracleXid#pack}, until the
+ * COMMIT row replays them to a {@link OracleTransactionListener}; a ROLLBACK row drops them. Once a transaction
+ * has more than {@code maxRowsInMemory} rows it is moved to a memory-mapped Chronicle Queue under
+ * {@code spillDirectory}. Transactions are found with a probe in an open addressing table of primitive
+ * {@code long} keys, COMMIT rows of transactions that never touched a captured table cost nothing else.
+ * <p>
+ * Open transactions are not carried over a restart, mining resumes from the start of the oldest one, so the
+ * spill directory is emptied when the buffer is created.
+ * <p>
+ * Not thread safe, meant to be owned by the mining loop.
+ */
+public class OracleTransactionBuffer {
+
+    public static final int DEFAULT_MAX_ROWS_IN_MEMORY = 10000;
+    public static final Path DEFAULT_SPILL_DIRECTORY =
+            Paths.get(System.getProperty("java.io.tmpdir"), "oracle-cdc-transactions");
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Path spillDirectory;
+    private final int maxRowsInMemory;
+    private final OracleCharBufferPool pool;
+    private final OracleRedoEvent event = new OracleRedoEvent();
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private OracleTransaction[] transactions = new OracleTransaction[INITIAL_CAPACITY];
+    private int size;
+    private int spilled;
+
+    public OracleTransactionBuffer() {
+        this(DEFAULT_SPILL_DIRECTORY, DEFAULT_MAX_ROWS_IN_MEMORY, new OracleCharBufferPool());
+    }
+
+    /**
+     * @param pool where the buffers of {@link OracleRedoText} statements are returned once the transaction ends
+     */
+    public OracleTransactionBuffer(OracleCharBufferPool pool) {
+        this(DEFAULT_SPILL_DIRECTORY, DEFAULT_MAX_ROWS_IN_MEMORY, pool);
+    }
+
+    public OracleTransactionBuffer(Path spillDirectory, int maxRowsInMemory, OracleCharBufferPool pool) {
+        if (maxRowsInMemory < 1) {
+            throw new IllegalArgumentException("Invalid in-memory transaction size: " + maxRowsInMemory);
+        }
+        this.spillDirectory = spillDirectory;
+        this.maxRowsInMemory = maxRowsInMemory;
+        this.pool = pool;
+        try {
+            OracleTransactionSpill.deleteDirectory(spillDirectory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to clear transaction spill directory " + spillDirectory, e);
+        }
+    }
+
+    /**
+     * Adds a DML row to its transaction, opening the transaction on its first row. The container is only
+     * recorded when the transaction is opened.
+     */
+    public void add(long xid, int conId, String pdbName, long scn, long timestamp, int operation, String rsId, long ssn,
+                    long objectId, String rowId, String segOwner, String tableName, CharSequence sqlRedo) {
+        OracleTransaction transaction = get(xid);
+        if (transaction == null) {
+            transaction = new OracleTransaction(xid, conId, pdbName, scn);
+            put(transaction);
+        }
+        if (transaction.size() == maxRowsInMemory && !transaction.isSpilled()) {
+            transaction.spill(spillDirectory.resolve(OracleXid.toString(xid)), pool);
+            spilled++;
+            System.out.println("Spilled transaction " + OracleXid.toString(xid) + " to disk after " +
+                    maxRowsInMemory + " rows");
+        }
+        transaction.add(scn, timestamp, operation, rsId, ssn, objectId, rowId, segOwner, tableName, sqlRedo);
+    }
+
+    /**
+     * Records a row with {@code ROLLBACK = 1}, undoing the latest row of the transaction with the same ROW_ID.
+     */
+    public void undo(long xid, String rowId) {
+        final OracleTransaction transaction = get(xid);
+        if (transaction != null) {
+            transaction.undo(rowId);
+        }
+    }
+
+    /**
+     * Replays the rows of a committed transaction and forgets it.
+     *
+     * @return the number of rows passed to the listener, 0 if nothing was buffered for {@code xid}
+     */
+    public int commit(long xid, long commitScn, OracleTransactionListener listener) throws SQLException {
+        final OracleTransaction transaction = remove(xid);
+        if (transaction == null) {
+            return 0;
+        }
+        try {
+            event.commitScn = commitScn;
+            final int events = transaction.replay(event, listener);
+            listener.onCommit(xid, commitScn, events);
+            return events;
+        } finally {
+            discard(transaction);
+        }
+    }
+
+    /**
+     * Drops a rolled back transaction.
+     *
+     * @return whether anything was buffered for {@code xid}
+     */
+    public boolean rollback(long xid) {
+        final OracleTransaction transaction = remove(xid);
+        if (transaction == null) {
+            return false;
+        }
+        discard(transaction);
+        return true;
+    }
+
+    private void discard(OracleTransaction transaction) {
+        if (transaction.isSpilled()) {
+            spilled--;
+        }
+        transaction.discard(pool);
+    }
+
+    /**
+     * Returns the start SCN of the oldest open transaction, or {@link OracleScn#NULL} if there is none.
+     * Restarting from an earlier SCN than this would lose the beginning of that transaction.
+     */
+    public OracleScn getOldestScn() {
+        long oldest = OracleScn.NULL_VALUE;
+        for (OracleTransaction transaction : transactions) {
+            if (transaction != null && (oldest == OracleScn.NULL_VALUE ||
+                    OracleScn.compare(transaction.getStartScn(), oldest) < 0)) {
+                oldest = transaction.getStartScn();
+            }
+        }
+        return OracleScn.valueOf(oldest);
+    }
+
+    public int getOpenTransactions() {
+        return size;
+    }
+
+    public int getSpilledTransactions() {
+        return spilled;
+    }
+
+    /**
+     * Drops every open transaction and its spill files.
+     */
+    public void clear() {
+        for (OracleTransaction transaction : transactions) {
+            if (transaction != null) {
+                transaction.discard(pool);
+            }
+        }
+        Arrays.fill(keys, 0L);
+        Arrays.fill(transactions, null);
+        size = 0;
+        spilled = 0;
+    }
+
+    private OracleTransaction get(long xid) {
+        final int mask = keys.length - 1;
+        int index = indexFor(xid, mask);
+        OracleTransaction transaction;
+        while ((transaction = transactions[index]) != null) {
+            if (keys[index] == xid) {
+                return transaction;
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    private void put(OracleTransaction transaction) {
+        if ((size + 1) * 4 > keys.length * 3) {
+            resize(keys.length * 2);
+        }
+        insert(keys, transactions, transaction);
+        size++;
+    }
+
+    private static void insert(long[] keys, OracleTransaction[] transactions, OracleTransaction transaction) {
+        final int mask = keys.length - 1;
+        int index = indexFor(transaction.getXid(), mask);
+        while (transactions[index] != null) {
+            index = (index + 1) & mask;
+        }
+        keys[index] = transaction.getXid();
+        transactions[index] = transaction;
+    }
+
+    private OracleTransaction remove(long xid) {
+        final int mask = keys.length - 1;
+        int index = indexFor(xid, mask);
+        while (transactions[index] == null || keys[index] != xid) {
+            if (transactions[index] == null) {
+                return null;
+            }
+            index = (index + 1) & mask;
+        }
+
+        final OracleTransaction removed = transactions[index];
+        // Shift the following entries of the probe chain back so lookups never stop at the hole
+        int hole = index;
+        int next = (hole + 1) & mask;
+        while (transactions[next] != null) {
+            final int home = indexFor(keys[next], mask);
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                transactions[hole] = transactions[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = 0L;
+        transactions[hole] = null;
+        size--;
+        return removed;
+    }
+
+    private void resize(int capacity) {
+        final long[] newKeys = new long[capacity];
+        final OracleTransaction[] newTransactions = new OracleTransaction[capacity];
+        for (OracleTransaction transaction : transactions) {
+            if (transaction != null) {
+                insert(newKeys, newTransactions, transaction);
+            }
+        }
+        keys = newKeys;
+        transactions = newTransactions;
+    }
+
+    private static int indexFor(long xid, int mask) {
+        final long hash = xid * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
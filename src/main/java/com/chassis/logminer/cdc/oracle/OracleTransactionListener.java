@@ -0,0 +1,14 @@
+package com.chassis.logminer.cdc.oracle;
+
+import java.sql.SQLException;
+
+/**
+ * Receives the rows of committed transactions from {@link OracleTransactionBuffer}, in redo order.
+ */
+public interface OracleTransactionListener {
+
+    void onEvent(OracleRedoEvent event) throws SQLException;
+
+    default void onCommit(long xid, long commitScn, int events) throws SQLException {
+    }
+}
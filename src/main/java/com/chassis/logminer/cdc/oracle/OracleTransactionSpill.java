@@ -0,0 +1,114 @@
+package com.chassis.logminer.cdc.oracle;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.queue.ChronicleQueue;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.wire.DocumentContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Rows of one large transaction kept in a memory-mapped Chronicle Queue instead of the heap.
+ * <p>
+ * Each row is one excerpt written in binary, the queue lives in its own directory which is deleted once the
+ * transaction is committed or rolled back. A directory left by a process that died is deleted before the
+ * queue is opened: the transaction is mined again from its start and would otherwise be replayed twice.
+ */
+class OracleTransactionSpill {
+
+    private final Path directory;
+    private final ChronicleQueue queue;
+    private final ExcerptAppender appender;
+
+    OracleTransactionSpill(Path directory) {
+        this.directory = directory;
+        try {
+            deleteDirectory(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to delete stale transaction spill " + directory, e);
+        }
+        this.queue = ChronicleQueue.singleBuilder(directory).build();
+        this.appender = queue.acquireAppender();
+    }
+
+    void append(long scn, long timestamp, int operation, String rsId, long ssn,
+                long objectId, String rowId, String segOwner, String tableName, CharSequence sqlRedo) {
+        try (DocumentContext dc = appender.writingDocument()) {
+            final Bytes<?> bytes = dc.wire().bytes();
+            bytes.writeLong(scn);
+            bytes.writeLong(timestamp);
+            bytes.writeInt(operation);
+            bytes.writeLong(ssn);
+            bytes.writeLong(objectId);
+            bytes.writeUtf8(rsId);
+            bytes.writeUtf8(rowId);
+            bytes.writeUtf8(segOwner);
+            bytes.writeUtf8(tableName);
+            bytes.writeUtf8(sqlRedo);
+        }
+    }
+
+    /**
+     * Reads the rows back in the order they were appended, {@code event} is refilled for each of them.
+     */
+    void forEach(long xid, OracleRedoEvent event, OracleTransaction.RowVisitor visitor) throws SQLException {
+        try (ExcerptTailer tailer = queue.createTailer()) {
+            int index = 0;
+            while (true) {
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    if (!dc.isPresent()) {
+                        return;
+                    }
+                    final Bytes<?> bytes = dc.wire().bytes();
+                    final long scn = bytes.readLong();
+                    final long timestamp = bytes.readLong();
+                    final int operation = bytes.readInt();
+                    final long ssn = bytes.readLong();
+                    final long objectId = bytes.readLong();
+                    final String rsId = bytes.readUtf8();
+                    final String rowId = bytes.readUtf8();
+                    final String segOwner = bytes.readUtf8();
+                    final String tableName = bytes.readUtf8();
+                    final String sqlRedo = bytes.readUtf8();
+                    event.set(xid, scn, timestamp, operation, rsId, ssn, objectId, rowId, segOwner, tableName, sqlRedo);
+                }
+                visitor.visit(index++, event);
+            }
+        }
+    }
+
+    /**
+     * Closes the queue and deletes its files.
+     */
+    void delete() {
+        appender.close();
+        queue.close();
+        try {
+            deleteDirectory(directory);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Deletes {@code directory} and everything under it, if it exists.
+     */
+    static void deleteDirectory(Path directory) throws IOException {
+        if (Files.notExists(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            final Iterable<Path> deepestFirst = files.sorted(Comparator.reverseOrder())::iterator;
+            for (Path file : deepestFirst) {
+                Files.delete(file);
+            }
+        }
+    }
+}
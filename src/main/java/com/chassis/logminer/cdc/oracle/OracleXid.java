@@ -0,0 +1,34 @@
+package com.chassis.logminer.cdc.oracle;
+
+/**
+ * Oracle transaction id packed into a primitive {@code long}: 16 bits of undo segment number
+ * ({@code XIDUSN}), 16 bits of slot ({@code XIDSLT}) and 32 bits of sequence ({@code XIDSQN}).
+ */
+public final class OracleXid {
+
+    private OracleXid() {
+    }
+
+    public static long pack(int usn, int slot, long sequence) {
+        return ((long) (usn & 0xFFFF) << 48) | ((long) (slot & 0xFFFF) << 32) | (sequence & 0xFFFFFFFFL);
+    }
+
+    public static int getUsn(long xid) {
+        return (int) (xid >>> 48);
+    }
+
+    public static int getSlot(long xid) {
+        return (int) (xid >>> 32) & 0xFFFF;
+    }
+
+    public static long getSequence(long xid) {
+        return xid & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Returns the {@code usn.slot.sequence} form used by {@code V$TRANSACTION}.
+     */
+    public static String toString(long xid) {
+        return getUsn(xid) + "." + getSlot(xid) + "." + getSequence(xid);
+    }
+}
@@ -0,0 +1,80 @@
+package com.chassis.logminer.cdc.pipeline;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Idle strategy escalating from busy spinning to yielding, then to parking with a growing timeout, and finally
+ * asking the caller to block.
+ * <p>
+ * A burst of messages right after a short pause is picked up within nanoseconds while a quiet stream costs
+ * almost no CPU. Each thread needs its own instance, {@link #reset()} is called as soon as work is found.
+ */
+public class AdaptiveWait implements WaitStrategy {
+
+    private final int maxSpins;
+    private final int maxYields;
+    private final long minParkNanos;
+    private final long maxParkNanos;
+    private final boolean blocking;
+
+    private int spins;
+    private int yields;
+    private long parkNanos;
+
+    /**
+     * @param blocking whether {@link #idle()} ends in {@link #BLOCK} once parking reached {@code maxParkNanos}
+     */
+    public AdaptiveWait(int maxSpins, int maxYields, long minParkNanos, long maxParkNanos, boolean blocking) {
+        if (maxSpins < 0 || maxYields < 0 || minParkNanos < 1 || maxParkNanos < minParkNanos) {
+            throw new IllegalArgumentException("Invalid adaptive wait settings");
+        }
+        this.maxSpins = maxSpins;
+        this.maxYields = maxYields;
+        this.minParkNanos = minParkNanos;
+        this.maxParkNanos = maxParkNanos;
+        this.blocking = blocking;
+        reset();
+    }
+
+    /**
+     * 100 spins, 50 yields, then parking from 1 microsecond doubling up to 1 ms.
+     */
+    public static AdaptiveWait defaults(boolean blocking) {
+        return new AdaptiveWait(100, 50, 1000L, 1000000L, blocking);
+    }
+
+    /**
+     * Waits once according to the current stage and moves to the next one.
+     *
+     * @return the stage that was applied, on {@link #BLOCK} nothing was done and the caller should use its
+     * blocking call
+     */
+    @Override
+    public int idle() {
+        if (spins < maxSpins) {
+            spins++;
+            Thread.onSpinWait();
+            return SPIN;
+        }
+        if (yields < maxYields) {
+            yields++;
+            Thread.yield();
+            return YIELD;
+        }
+        if (parkNanos <= maxParkNanos || !blocking) {
+            LockSupport.parkNanos(Math.min(parkNanos, maxParkNanos));
+            if (parkNanos <= maxParkNanos) {
+                parkNanos <<= 1;
+            }
+            return PARK;
+        }
+        return BLOCK;
+    }
+
+    @Override
+    public void reset() {
+        spins = 0;
+        yields = 0;
+        parkNanos = minParkNanos;
+    }
+}
@@ -0,0 +1,119 @@
+package com.chassis.logminer.cdc.pipeline;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Consumer of a {@link RingBuffer}, handling the slots published by its upstream: the ring's cursor for the
+ * first stage, the previous stage's sequence for the next ones.
+ * <p>
+ * Every slot available when the stage wakes up is handled as one batch and the stage's own sequence is only
+ * published after the batch, one ordered store per batch instead of one per slot. Handlers see the end of
+ * each batch, so work like flushing or acknowledging is done once for many events when the stage falls behind.
+ * <p>
+ * Runs on its own thread after {@link #start()}, or on the caller's thread with {@link #run()}. A handler
+ * exception stops the stage and fails the ring, so the producer does not wait forever for it.
+ */
+public class BatchStage<T> implements Runnable {
+
+    private static final long JOIN_TIMEOUT_MS = 5000;
+
+    private final String name;
+    private final RingBuffer<T> ring;
+    private final AtomicLong upstream;
+    private final EventHandler<? super T> handler;
+    private final WaitStrategy wait;
+    private final AtomicLong sequence;
+
+    private volatile boolean halted;
+    private volatile Exception failure;
+    private volatile long batches;
+    private Thread thread;
+
+    /**
+     * The stage starts after the slots already published by {@code upstream}.
+     */
+    public BatchStage(String name, RingBuffer<T> ring, AtomicLong upstream, EventHandler<? super T> handler,
+                      WaitStrategy wait) {
+        this.name = name;
+        this.ring = ring;
+        this.upstream = upstream;
+        this.handler = handler;
+        this.wait = wait;
+        this.sequence = new AtomicLong(upstream.get());
+    }
+
+    public void start() {
+        thread = new Thread(this, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void run() {
+        long next = sequence.get() + 1;
+        try {
+            while (true) {
+                final long available = upstream.get();
+                if (available < next) {
+                    // Re-read after the halt, the last slots may have been published just before it
+                    if (halted && upstream.get() < next) {
+                        break;
+                    }
+                    wait.idle();
+                    continue;
+                }
+                wait.reset();
+
+                for (long s = next; s <= available; s++) {
+                    handler.onEvent(ring.get(s), s, s == available);
+                }
+                sequence.lazySet(available);
+                batches++;
+                next = available + 1;
+            }
+        } catch (Exception e) {
+            failure = e;
+            ring.fail(e);
+        }
+    }
+
+    /**
+     * Makes the stage stop once it has handled everything its upstream published. Called after the upstream
+     * stopped publishing.
+     */
+    public void halt() {
+        halted = true;
+    }
+
+    /**
+     * Halts the stage and waits for its thread.
+     */
+    public void stop() throws InterruptedException {
+        halt();
+        if (thread != null) {
+            thread.join(JOIN_TIMEOUT_MS);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Sequence of the last slot handled, the upstream of the next stage.
+     */
+    public AtomicLong getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns the handler exception that stopped the stage, or null.
+     */
+    public Exception getFailure() {
+        return failure;
+    }
+
+    public long getBatches() {
+        return batches;
+    }
+}
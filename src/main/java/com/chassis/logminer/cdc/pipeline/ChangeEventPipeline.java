@@ -0,0 +1,220 @@
+package com.chassis.logminer.cdc.pipeline;
+
+import com.chassis.logminer.cdc.event.ChangeEvent;
+import com.chassis.logminer.cdc.event.ChangeEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Carries the events of an engine from its decoding thread through the transformers to the sink, each stage on
+ * its own thread, over one {@link RingBuffer} of pre-allocated events.
+ * <p>
+ * The engine publishes with {@link #onChange}, which copies the event into the next free slot. Transformers
+ * work on the slot in place and the sink reads it from there, so the event is copied once whatever the number
+ * of stages. When the sink falls behind the ring fills up and {@code onChange} waits, which stops the decoder,
+ * which stops reading from the database: backpressure reaches the JDBC fetch or the replication read.
+ * <p>
+ * After the sink has written out a batch, every event of the batch is passed to the delivery listener given to
+ * {@link #start}, on the sink thread. Engines checkpoint from there, so a stored position never covers events
+ * still waiting in the ring.
+ */
+public class ChangeEventPipeline implements ChangeEventListener, AutoCloseable {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private final RingBuffer<Slot> ring;
+    private final Supplier<WaitStrategy> waitStrategy;
+    private final List<ChangeEventTransformer> transformers;
+    private final ChangeEventSink sink;
+    private final WaitStrategy producerWait;
+    private final List<BatchStage<Slot>> stages = new ArrayList<>();
+
+    private BatchStage<Slot> sinkStage;
+
+    public ChangeEventPipeline(ChangeEventSink sink) {
+        this(DEFAULT_CAPACITY, WaitStrategy::adaptive, Collections.emptyList(), sink);
+    }
+
+    /**
+     * @param capacity     number of events in flight, rounded up to a power of two
+     * @param waitStrategy wait strategy of each stage and of the publishing thread
+     */
+    public ChangeEventPipeline(int capacity, Supplier<WaitStrategy> waitStrategy,
+                               List<ChangeEventTransformer> transformers, ChangeEventSink sink) {
+        this.ring = new RingBuffer<>(capacity, Slot::new);
+        this.waitStrategy = waitStrategy;
+        this.transformers = new ArrayList<>(transformers);
+        this.sink = sink;
+        this.producerWait = waitStrategy.get();
+    }
+
+    /**
+     * Starts the stage threads.
+     *
+     * @param delivered called on the sink thread for every event once the sink wrote it out, including events
+     *                  dropped by a transformer; null for none
+     */
+    public void start(ChangeEventListener delivered) {
+        if (isStarted()) {
+            throw new IllegalStateException("Change event pipeline already started");
+        }
+        AtomicLong upstream = ring.getCursor();
+        for (int i = 0; i < transformers.size(); i++) {
+            final ChangeEventTransformer transformer = transformers.get(i);
+            final BatchStage<Slot> stage = new BatchStage<>("change-event-transformer-" + i, ring, upstream,
+                    (slot, sequence, endOfBatch) -> {
+                        if (!slot.dropped && !transformer.transform(slot.event)) {
+                            slot.dropped = true;
+                        }
+                    }, waitStrategy.get());
+            stages.add(stage);
+            upstream = stage.getSequence();
+        }
+        sinkStage = new BatchStage<>("change-event-sink", ring, upstream, new SinkHandler(delivered),
+                waitStrategy.get());
+        stages.add(sinkStage);
+        ring.setGatingSequence(sinkStage.getSequence());
+
+        for (BatchStage<Slot> stage : stages) {
+            stage.start();
+        }
+    }
+
+    public boolean isStarted() {
+        return sinkStage != null;
+    }
+
+    /**
+     * Publishes a copy of the event, waiting while the ring is full. Called by a single thread.
+     *
+     * @throws IllegalStateException if a stage failed
+     */
+    @Override
+    public void onChange(ChangeEvent event) {
+        if (sinkStage == null) {
+            throw new IllegalStateException("Change event pipeline not started");
+        }
+        final long sequence = ring.next(producerWait);
+        final Slot slot = ring.get(sequence);
+        slot.event.copyFrom(event);
+        slot.dropped = false;
+        ring.publish(sequence);
+    }
+
+    /**
+     * Waits until every event published so far has been delivered. Called by the publishing thread.
+     *
+     * @throws IllegalStateException if a stage failed
+     */
+    public void flush() {
+        if (sinkStage == null) {
+            return;
+        }
+        final long published = ring.getCursor().get();
+        while (sinkStage.getSequence().get() < published) {
+            checkFailure();
+            producerWait.idle();
+        }
+        producerWait.reset();
+        checkFailure();
+    }
+
+    private void checkFailure() {
+        if (ring.getFailure() != null) {
+            throw new IllegalStateException("Change event pipeline failed", ring.getFailure());
+        }
+    }
+
+    /**
+     * Returns a new instance of the pipeline's wait strategy, for stages the engine runs before the pipeline.
+     */
+    public WaitStrategy newWaitStrategy() {
+        return waitStrategy.get();
+    }
+
+    /**
+     * Returns the exception that stopped a stage, or null.
+     */
+    public Throwable getFailure() {
+        return ring.getFailure();
+    }
+
+    public long getPublished() {
+        return ring.getCursor().get() + 1;
+    }
+
+    public long getDelivered() {
+        return sinkStage == null ? 0 : sinkStage.getSequence().get() + 1;
+    }
+
+    /**
+     * Number of times the publishing thread waited for a full ring, how often backpressure reached the decoder.
+     */
+    public long getProducerWaits() {
+        return ring.getProducerWaits();
+    }
+
+    /**
+     * Delivers what was published and stops the stages one after the other.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        for (BatchStage<Slot> stage : stages) {
+            stage.stop();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ChangeEventPipeline{" +
+                "published=" + getPublished() +
+                ", delivered=" + getDelivered() +
+                ", inFlight=" + (getPublished() - getDelivered()) +
+                ", producerWaits=" + getProducerWaits() +
+                ", sinkBatches=" + (sinkStage == null ? 0 : sinkStage.getBatches()) +
+                '}';
+    }
+
+    /**
+     * Writes each batch to the sink, then reports its events as delivered.
+     */
+    private final class SinkHandler implements EventHandler<Slot> {
+
+        private final ChangeEventListener delivered;
+        private long batchStart = -1;
+
+        private SinkHandler(ChangeEventListener delivered) {
+            this.delivered = delivered;
+        }
+
+        @Override
+        public void onEvent(Slot slot, long sequence, boolean endOfBatch) throws Exception {
+            if (batchStart < 0) {
+                batchStart = sequence;
+            }
+            if (!slot.dropped) {
+                sink.onEvent(slot.event);
+            }
+            if (!endOfBatch) {
+                return;
+            }
+            sink.onEndOfBatch();
+            if (delivered != null) {
+                for (long s = batchStart; s <= sequence; s++) {
+                    delivered.onChange(ring.get(s).event);
+                }
+            }
+            batchStart = -1;
+        }
+    }
+
+    static final class Slot {
+
+        final ChangeEvent event = new ChangeEvent();
+        boolean dropped;
+    }
+}
@@ -0,0 +1,29 @@
+package com.chassis.logminer.cdc.pipeline;
+
+import com.chassis.logminer.cdc.event.ChangeEvent;
+import com.chassis.logminer.cdc.event.ChangeEventListener;
+
+/**
+ * Last stage of a {@link ChangeEventPipeline}, where events leave the process.
+ * <p>
+ * Events are handed over in batches: a sink may buffer them in {@link #onEvent} and write them out in
+ * {@link #onEndOfBatch()}. An event counts as delivered, and its position may be checkpointed, once the
+ * {@code onEndOfBatch()} following it returned.
+ */
+public interface ChangeEventSink {
+
+    /**
+     * The event is reused after the batch, sinks must copy what they keep longer.
+     */
+    void onEvent(ChangeEvent event) throws Exception;
+
+    default void onEndOfBatch() throws Exception {
+    }
+
+    /**
+     * Sink passing every event to {@code listener}, without buffering.
+     */
+    static ChangeEventSink of(ChangeEventListener listener) {
+        return listener::onChange;
+    }
+}
@@ -0,0 +1,16 @@
+package com.chassis.logminer.cdc.pipeline;
+
+import com.chassis.logminer.cdc.event.ChangeEvent;
+
+/**
+ * Stage of a {@link ChangeEventPipeline} between the decoder and the sink, running on its own thread.
+ */
+public interface ChangeEventTransformer {
+
+    /**
+     * Changes the event in place, for instance masking columns.
+     *
+     * @return false to drop the event, it then skips the following transformers and the sink
+     */
+    boolean transform(ChangeEvent event) throws Exception;
+}
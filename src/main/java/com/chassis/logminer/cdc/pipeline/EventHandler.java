@@ -0,0 +1,12 @@
+package com.chassis.logminer.cdc.pipeline;
+
+/**
+ * Work done by a {@link BatchStage} on each slot, in sequence order.
+ */
+public interface EventHandler<T> {
+
+    /**
+     * @param endOfBatch whether this is the last slot available for now, where buffered work should be flushed
+     */
+    void onEvent(T event, long sequence, boolean endOfBatch) throws Exception;
+}
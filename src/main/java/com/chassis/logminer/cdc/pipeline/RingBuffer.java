@@ -0,0 +1,132 @@
+package com.chassis.logminer.cdc.pipeline;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded ring of pre-allocated slots between one producer and a chain of {@link BatchStage}s.
+ * <p>
+ * Slots are created once and filled in place, so nothing is allocated per event. The producer claims a slot
+ * with {@link #next}, fills it and makes it visible with {@link #publish}; stages handle the slots published by
+ * their upstream in sequence order and publish their own progress the same way. The producer may not wrap
+ * past the last stage, set with {@link #setGatingSequence}: a slow consumer stops the producer, which in turn
+ * stops reading its source.
+ * <p>
+ * Sequences only move forward and are published with ordered stores; each side caches the other's sequence
+ * and only re-reads it when the ring looks full or empty. Exactly one thread may call {@link #next} and
+ * {@link #publish}.
+ */
+public class RingBuffer<T> {
+
+    private final Object[] slots;
+    private final int mask;
+
+    // Last slot published by the producer
+    private final AtomicLong cursor = new AtomicLong(-1);
+    private volatile AtomicLong gatingSequence = cursor;
+    private volatile Throwable failure;
+    private volatile long producerWaits;
+
+    private long claimed = -1;
+    private long gatingCache = -1;
+
+    /**
+     * @param capacity number of slots, rounded up to a power of two
+     * @param factory  creates the slots
+     */
+    public RingBuffer(int capacity, Supplier<T> factory) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Invalid ring buffer capacity: " + capacity);
+        }
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.slots = new Object[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            slots[i] = factory.get();
+        }
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(long sequence) {
+        return (T) slots[(int) sequence & mask];
+    }
+
+    /**
+     * Sets the sequence of the last consumer, the producer does not overwrite slots it has not handled yet.
+     * Set while the producer is not running.
+     */
+    public void setGatingSequence(AtomicLong sequence) {
+        this.gatingSequence = sequence;
+        this.gatingCache = sequence.get();
+    }
+
+    /**
+     * Claims the next slot, waiting with {@code wait} while the ring is full.
+     *
+     * @throws IllegalStateException if a stage failed, nothing will free the ring anymore
+     */
+    public long next(WaitStrategy wait) {
+        final long sequence = claimed + 1;
+        final long wrapPoint = sequence - slots.length;
+        if (wrapPoint > gatingCache) {
+            producerWaits++;
+            while (wrapPoint > (gatingCache = gatingSequence.get())) {
+                if (failure != null) {
+                    throw new IllegalStateException("Ring buffer consumer failed", failure);
+                }
+                wait.idle();
+            }
+            wait.reset();
+        }
+        claimed = sequence;
+        return sequence;
+    }
+
+    /**
+     * Makes the claimed slot, and every slot claimed before it, visible to the first stage.
+     */
+    public void publish(long sequence) {
+        cursor.lazySet(sequence);
+    }
+
+    /**
+     * Sequence of the last slot published, the upstream of the first stage.
+     */
+    public AtomicLong getCursor() {
+        return cursor;
+    }
+
+    /**
+     * Number of slots published and not yet released by the last consumer, approximate while running.
+     */
+    public int size() {
+        return (int) (cursor.get() - gatingSequence.get());
+    }
+
+    /**
+     * Number of times the producer found the ring full and had to wait for the consumers.
+     */
+    public long getProducerWaits() {
+        return producerWaits;
+    }
+
+    /**
+     * Records the failure of a stage, the producer then stops waiting for it.
+     */
+    void fail(Throwable failure) {
+        if (this.failure == null) {
+            this.failure = failure;
+        }
+    }
+
+    public Throwable getFailure() {
+        return failure;
+    }
+}
@@ -0,0 +1,55 @@
+package com.chassis.logminer.cdc.pipeline;
+
+/**
+ * What a thread does while it has nothing to do: a consumer waiting on an empty ring, or a producer waiting for
+ * a full one to drain. Instances keep per-thread state, each thread needs its own; pipelines take a
+ * {@code Supplier<WaitStrategy>} such as {@code WaitStrategy::adaptive}.
+ */
+public interface WaitStrategy {
+
+    int SPIN = 0;
+    int YIELD = 1;
+    int PARK = 2;
+    int BLOCK = 3;
+
+    /**
+     * Waits once, called again and again while there is nothing to do.
+     *
+     * @return {@link #SPIN}, {@link #YIELD} or {@link #PARK} for the wait applied, {@link #BLOCK} when nothing was
+     * done and the caller should use its own blocking call
+     */
+    int idle();
+
+    /**
+     * Called as soon as work is found, the next wait starts over.
+     */
+    void reset();
+
+    /**
+     * Lowest latency, burns a core while idle.
+     */
+    static WaitStrategy busySpin() {
+        return new AdaptiveWait(Integer.MAX_VALUE, Integer.MAX_VALUE, 1L, 1L, false);
+    }
+
+    /**
+     * 100 spins, then yields to other threads.
+     */
+    static WaitStrategy yielding() {
+        return new AdaptiveWait(100, Integer.MAX_VALUE, 1L, 1L, false);
+    }
+
+    /**
+     * Spins, yields, then parks up to 1 ms, see {@link AdaptiveWait#defaults(boolean)}.
+     */
+    static WaitStrategy adaptive() {
+        return AdaptiveWait.defaults(false);
+    }
+
+    /**
+     * Parks {@code parkNanos} at a time, for stages where latency matters less than CPU.
+     */
+    static WaitStrategy parking(long parkNanos) {
+        return new AdaptiveWait(0, 0, parkNanos, parkNanos, false);
+    }
+}
@@ -1,4 +1,6 @@
 package com.chassis.logminer.cdc.postgres;
 
-public class AbstractPostgresCDC implements IPostgresCDC {
+import com.chassis.logminer.cdc.core.AbstractLogMiner;
+
+public abstract class AbstractPostgresCDC extends AbstractLogMiner implements IPostgresCDC {
 }
@@ -1,4 +1,6 @@
 package com.chassis.logminer.cdc.postgres;
 
-public interface IPostgresCDC {
+import com.chassis.logminer.cdc.core.ILogMiner;
+
+public interface IPostgresCDC extends ILogMiner {
 }
@@ -0,0 +1,217 @@
+package com.chassis.logminer.cdc.postgres;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Decoder for the binary logical replication protocol of the {@code pgoutput} plugin (proto_version 1).
+ * <p>
+ * Messages are read straight from the buffer returned by the replication stream. Insert, Update and Delete
+ * messages never build Strings, their values are exposed through the reused {@link PgOutputTuple}s of a
+ * single {@link PgOutputRowChange}. Only Relation, Type and Origin messages, which are rare, allocate.
+ * <p>
+ * Relation messages are kept in a {@link PgOutputRelationCache} and every row change is resolved against it,
+ * so a schema change only costs the Relation message that announces it.
+ */
+public class PgOutputDecoder {
+
+    public static final byte BEGIN = 'B';
+    public static final byte COMMIT = 'C';
+    public static final byte ORIGIN = 'O';
+    public static final byte RELATION = 'R';
+    public static final byte TYPE = 'Y';
+    public static final byte INSERT = 'I';
+    public static final byte UPDATE = 'U';
+    public static final byte DELETE = 'D';
+    public static final byte TRUNCATE = 'T';
+    public static final byte MESSAGE = 'M';
+
+    /**
+     * Microseconds between the Unix epoch and the PostgreSQL epoch, 2000-01-01.
+     */
+    public static final long PG_EPOCH_OFFSET_MICROS = 946684800000000L;
+
+    private static final byte NEW_TUPLE = 'N';
+
+    private final PgOutputRelationCache relations;
+    private final PgOutputRowChange change = new PgOutputRowChange();
+    private int[] truncatedRelations = new int[8];
+    private byte[] stringBytes = new byte[64];
+
+    public PgOutputDecoder() {
+        this(new PgOutputRelationCache());
+    }
+
+    public PgOutputDecoder(PgOutputRelationCache relations) {
+        this.relations = relations;
+    }
+
+    public PgOutputRelationCache getRelations() {
+        return relations;
+    }
+
+    /**
+     * Decodes the message in {@code buffer}, from its position to its limit.
+     *
+     * @param buffer message as returned by the replication stream
+     * @param messageLsn position of the message, from the stream's last receive LSN
+     * @param listener receives the decoded message
+     * @return the message type
+     */
+    public byte decode(ByteBuffer buffer, long messageLsn, PgOutputListener listener) {
+        final byte type = buffer.get();
+        switch (type) {
+            case BEGIN:
+                decodeBegin(buffer, listener);
+                break;
+            case COMMIT:
+                decodeCommit(buffer, listener);
+                break;
+            case ORIGIN:
+                listener.onOrigin(buffer.getLong(), readString(buffer));
+                break;
+            case RELATION:
+                decodeRelation(buffer, listener);
+                break;
+            case TYPE:
+                listener.onType(buffer.getInt(), readString(buffer), readString(buffer));
+                break;
+            case INSERT:
+                decodeInsert(buffer, messageLsn, listener);
+                break;
+            case UPDATE:
+                decodeUpdate(buffer, messageLsn, listener);
+                break;
+            case DELETE:
+                decodeDelete(buffer, messageLsn, listener);
+                break;
+            case TRUNCATE:
+                decodeTruncate(buffer, listener);
+                break;
+            case MESSAGE:
+                // Logical decoding messages are only sent when the "messages" option is enabled
+                break;
+            default:
+                throw new IllegalStateException("Unknown pgoutput message type: " + (char) type);
+        }
+        return type;
+    }
+
+    private void decodeBegin(ByteBuffer buffer, PgOutputListener listener) {
+        change.transactionLsn = buffer.getLong();
+        change.commitTimeMicros = buffer.getLong() + PG_EPOCH_OFFSET_MICROS;
+        change.xid = buffer.getInt();
+        listener.onBegin(change.transactionLsn, change.commitTimeMicros, change.xid);
+    }
+
+    private void decodeCommit(ByteBuffer buffer, PgOutputListener listener) {
+        buffer.get(); // flags, unused
+        final long commitLsn = buffer.getLong();
+        final long endLsn = buffer.getLong();
+        final long commitTimeMicros = buffer.getLong() + PG_EPOCH_OFFSET_MICROS;
+        listener.onCommit(commitLsn, endLsn, commitTimeMicros);
+    }
+
+    private void decodeRelation(ByteBuffer buffer, PgOutputListener listener) {
+        final int relationId = buffer.getInt();
+        final String namespace = readString(buffer);
+        final String name = readString(buffer);
+        final byte replicaIdentity = buffer.get();
+        final int columnCount = buffer.getShort() & 0xFFFF;
+
+        final String[] columnNames = new String[columnCount];
+        final int[] typeOids = new int[columnCount];
+        final int[] typeModifiers = new int[columnCount];
+        final boolean[] keyColumns = new boolean[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            keyColumns[i] = (buffer.get() & 1) != 0;
+            columnNames[i] = readString(buffer);
+            typeOids[i] = buffer.getInt();
+            typeModifiers[i] = buffer.getInt();
+        }
+
+        final PgOutputRelation relation = new PgOutputRelation(relationId, namespace, name, replicaIdentity,
+                columnNames, typeOids, typeModifiers, keyColumns);
+        relations.put(relation);
+        listener.onRelation(relation);
+    }
+
+    private void decodeInsert(ByteBuffer buffer, long messageLsn, PgOutputListener listener) {
+        startChange(PgOutputRowChange.INSERT, buffer.getInt(), messageLsn);
+        expect(buffer, NEW_TUPLE);
+        change.newTuple().read(buffer);
+        listener.onRowChange(change);
+    }
+
+    private void decodeUpdate(ByteBuffer buffer, long messageLsn, PgOutputListener listener) {
+        startChange(PgOutputRowChange.UPDATE, buffer.getInt(), messageLsn);
+        byte tupleType = buffer.get();
+        if (tupleType == PgOutputRowChange.OLD_KEY || tupleType == PgOutputRowChange.OLD_ROW) {
+            change.oldTupleKind = tupleType;
+            change.oldTuple().read(buffer);
+            tupleType = buffer.get();
+        }
+        if (tupleType != NEW_TUPLE) {
+            throw new IllegalStateException("Expected new tuple in pgoutput Update but got " + (char) tupleType);
+        }
+        change.newTuple().read(buffer);
+        listener.onRowChange(change);
+    }
+
+    private void decodeDelete(ByteBuffer buffer, long messageLsn, PgOutputListener listener) {
+        startChange(PgOutputRowChange.DELETE, buffer.getInt(), messageLsn);
+        final byte tupleType = buffer.get();
+        if (tupleType != PgOutputRowChange.OLD_KEY && tupleType != PgOutputRowChange.OLD_ROW) {
+            throw new IllegalStateException("Expected old tuple in pgoutput Delete but got " + (char) tupleType);
+        }
+        change.oldTupleKind = tupleType;
+        change.oldTuple().read(buffer);
+        listener.onRowChange(change);
+    }
+
+    private void decodeTruncate(ByteBuffer buffer, PgOutputListener listener) {
+        final int relationCount = buffer.getInt();
+        final int options = buffer.get();
+        if (relationCount > truncatedRelations.length) {
+            truncatedRelations = new int[relationCount];
+        }
+        for (int i = 0; i < relationCount; i++) {
+            truncatedRelations[i] = buffer.getInt();
+        }
+        listener.onTruncate(truncatedRelations, relationCount, options);
+    }
+
+    private void startChange(byte operation, int relationId, long messageLsn) {
+        change.operation = operation;
+        change.relationId = relationId;
+        change.relation = relations.get(relationId);
+        if (change.relation == null) {
+            throw new IllegalStateException("No pgoutput Relation message received for relation " + relationId);
+        }
+        change.messageLsn = messageLsn;
+        change.oldTupleKind = 0;
+    }
+
+    private static void expect(ByteBuffer buffer, byte expected) {
+        final byte actual = buffer.get();
+        if (actual != expected) {
+            throw new IllegalStateException("Expected pgoutput tuple type " + (char) expected + " but got " + (char) actual);
+        }
+    }
+
+    /**
+     * Reads a null terminated UTF-8 string.
+     */
+    private String readString(ByteBuffer buffer) {
+        int length = 0;
+        byte b;
+        while ((b = buffer.get()) != 0) {
+            if (length == stringBytes.length) {
+                stringBytes = Arrays.copyOf(stringBytes, length * 2);
+            }
+            stringBytes[length++] = b;
+        }
+        return new String(stringBytes, 0, length, StandardCharsets.UTF_8);
+    }
+}
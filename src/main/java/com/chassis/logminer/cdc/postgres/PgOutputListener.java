@@ -0,0 +1,34 @@
+package com.chassis.logminer.cdc.postgres;
+
+/**
+ * Receives the messages decoded by {@link PgOutputDecoder}. Objects passed to the callbacks are only valid
+ * for the duration of the call.
+ */
+public interface PgOutputListener {
+
+    default void onBegin(long finalLsn, long commitTimeMicros, int xid) {
+    }
+
+    default void onCommit(long commitLsn, long endLsn, long commitTimeMicros) {
+    }
+
+    default void onOrigin(long commitLsn, String originName) {
+    }
+
+    /**
+     * Called after {@code relation} replaced any previous description of the same OID in the decoder's cache.
+     */
+    default void onRelation(PgOutputRelation relation) {
+    }
+
+    default void onType(int typeOid, String namespace, String name) {
+    }
+
+    void onRowChange(PgOutputRowChange change);
+
+    /**
+     * @param options bit 1 is CASCADE, bit 2 is RESTART IDENTITY
+     */
+    default void onTruncate(int[] relationIds, int relationCount, int options) {
+    }
+}
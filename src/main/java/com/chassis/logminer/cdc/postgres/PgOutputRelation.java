@@ -0,0 +1,120 @@
+package com.chassis.logminer.cdc.postgres;
+
+/**
+ * Table description sent by pgoutput in a Relation message, before the first change of the table in a session
+ * and again after every schema change.
+ */
+public class PgOutputRelation {
+
+    public static final byte REPLICA_IDENTITY_DEFAULT = 'd';
+    public static final byte REPLICA_IDENTITY_NOTHING = 'n';
+    public static final byte REPLICA_IDENTITY_FULL = 'f';
+    public static final byte REPLICA_IDENTITY_INDEX = 'i';
+
+    private final int relationId;
+    private final String namespace;
+    private final String name;
+    private final byte replicaIdentity;
+    private final String[] columnNames;
+    private final int[] typeOids;
+    private final int[] typeModifiers;
+    private final boolean[] keyColumns;
+    private final int[] keyColumnIndexes;
+
+    public PgOutputRelation(int relationId, String namespace, String name, byte replicaIdentity,
+                            String[] columnNames, int[] typeOids, int[] typeModifiers, boolean[] keyColumns) {
+        this.relationId = relationId;
+        this.namespace = namespace;
+        this.name = name;
+        this.replicaIdentity = replicaIdentity;
+        this.columnNames = columnNames;
+        this.typeOids = typeOids;
+        this.typeModifiers = typeModifiers;
+        this.keyColumns = keyColumns;
+        this.keyColumnIndexes = keyColumnIndexes(keyColumns);
+    }
+
+    private static int[] keyColumnIndexes(boolean[] keyColumns) {
+        int count = 0;
+        for (boolean keyColumn : keyColumns) {
+            if (keyColumn) {
+                count++;
+            }
+        }
+        final int[] indexes = new int[count];
+        for (int i = 0, j = 0; i < keyColumns.length; i++) {
+            if (keyColumns[i]) {
+                indexes[j++] = i;
+            }
+        }
+        return indexes;
+    }
+
+    public int getRelationId() {
+        return relationId;
+    }
+
+    public String getNamespace() {
+        return namespace;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns {@code namespace.name}.
+     */
+    public String getQualifiedName() {
+        return namespace + "." + name;
+    }
+
+    public byte getReplicaIdentity() {
+        return replicaIdentity;
+    }
+
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    public int getTypeOid(int column) {
+        return typeOids[column];
+    }
+
+    public int getTypeModifier(int column) {
+        return typeModifiers[column];
+    }
+
+    /**
+     * Returns whether the column is part of the replica identity key.
+     */
+    public boolean isKeyColumn(int column) {
+        return keyColumns[column];
+    }
+
+    public int getKeyColumnCount() {
+        return keyColumnIndexes.length;
+    }
+
+    /**
+     * Returns the column index of the {@code key}-th replica identity key column.
+     */
+    public int getKeyColumnIndex(int key) {
+        return keyColumnIndexes[key];
+    }
+
+    @Override
+    public String toString() {
+        return "PgOutputRelation{" +
+                "relationId=" + relationId +
+                ", namespace='" + namespace + '\'' +
+                ", name='" + name + '\'' +
+                ", replicaIdentity=" + (char) replicaIdentity +
+                ", columns=" + columnNames.length +
+                '}';
+    }
+}
@@ -0,0 +1,134 @@
+package com.chassis.logminer.cdc.postgres;
+
+import java.util.Arrays;
+
+/**
+ * Relations of the replication session keyed by OID, fed only by pgoutput Relation messages.
+ * <p>
+ * pgoutput sends a Relation message before the first change of a table in the session and again after every
+ * change of its schema, so the cache never has to query the catalog: a new Relation message simply replaces
+ * the previous entry. Lookups are a probe in an open addressing table of primitive {@code int} keys, OID 0
+ * ({@code InvalidOid}) marks a free slot.
+ * <p>
+ * Not thread safe, meant to be owned by the thread decoding the stream.
+ */
+public class PgOutputRelationCache {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int[] keys = new int[INITIAL_CAPACITY];
+    private PgOutputRelation[] values = new PgOutputRelation[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Adds or replaces the relation with the same OID.
+     *
+     * @return the replaced relation, or null if the OID was not cached
+     */
+    public PgOutputRelation put(PgOutputRelation relation) {
+        final int relationId = relation.getRelationId();
+        if (relationId == 0) {
+            throw new IllegalArgumentException("Invalid relation OID 0");
+        }
+        if ((size + 1) * 4 > keys.length * 3) {
+            resize(keys.length * 2);
+        }
+
+        int index = indexFor(relationId, keys.length);
+        while (keys[index] != 0) {
+            if (keys[index] == relationId) {
+                final PgOutputRelation previous = values[index];
+                values[index] = relation;
+                return previous;
+            }
+            index = (index + 1) & (keys.length - 1);
+        }
+        keys[index] = relationId;
+        values[index] = relation;
+        size++;
+        return null;
+    }
+
+    /**
+     * Returns the relation with the given OID, or null if no Relation message was received for it.
+     */
+    public PgOutputRelation get(int relationId) {
+        final int mask = keys.length - 1;
+        int index = indexFor(relationId, keys.length);
+        int key;
+        while ((key = keys[index]) != 0) {
+            if (key == relationId) {
+                return values[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Removes the relation with the given OID.
+     *
+     * @return the removed relation, or null if the OID was not cached
+     */
+    public PgOutputRelation remove(int relationId) {
+        final int mask = keys.length - 1;
+        int index = indexFor(relationId, keys.length);
+        while (keys[index] != relationId) {
+            if (keys[index] == 0) {
+                return null;
+            }
+            index = (index + 1) & mask;
+        }
+
+        final PgOutputRelation removed = values[index];
+        // Shift the following entries of the probe chain back so lookups never stop at the hole
+        int hole = index;
+        int next = (hole + 1) & mask;
+        while (keys[next] != 0) {
+            final int home = indexFor(keys[next], keys.length);
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = 0;
+        values[hole] = null;
+        size--;
+        return removed;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    private void resize(int capacity) {
+        final int[] oldKeys = keys;
+        final PgOutputRelation[] oldValues = values;
+        keys = new int[capacity];
+        values = new PgOutputRelation[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int index = indexFor(oldKeys[i], capacity);
+                while (keys[index] != 0) {
+                    index = (index + 1) & (capacity - 1);
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private static int indexFor(int relationId, int capacity) {
+        // OIDs are allocated sequentially, spread them before masking
+        final int hash = relationId * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (capacity - 1);
+    }
+}
@@ -0,0 +1,103 @@
+package com.chassis.logminer.cdc.postgres;
+
+/**
+ * Row change decoded from a pgoutput Insert, Update or Delete message.
+ * <p>
+ * A single instance is reused by {@link PgOutputDecoder} for every message, listeners must copy what they need
+ * before returning.
+ */
+public class PgOutputRowChange {
+
+    public static final byte INSERT = 'I';
+    public static final byte UPDATE = 'U';
+    public static final byte DELETE = 'D';
+
+    /**
+     * Old tuple holds only the replica identity key columns.
+     */
+    public static final byte OLD_KEY = 'K';
+
+    /**
+     * Old tuple holds the whole row, with REPLICA IDENTITY FULL.
+     */
+    public static final byte OLD_ROW = 'O';
+
+    private final PgOutputTuple oldTuple = new PgOutputTuple();
+    private final PgOutputTuple newTuple = new PgOutputTuple();
+
+    byte operation;
+    int relationId;
+    PgOutputRelation relation;
+    int xid;
+    long transactionLsn;
+    long commitTimeMicros;
+    long messageLsn;
+    byte oldTupleKind;
+
+    public byte getOperation() {
+        return operation;
+    }
+
+    public int getRelationId() {
+        return relationId;
+    }
+
+    /**
+     * Returns the relation of the changed row, as last described by a Relation message of the stream.
+     */
+    public PgOutputRelation getRelation() {
+        return relation;
+    }
+
+    public int getXid() {
+        return xid;
+    }
+
+    /**
+     * Final LSN of the transaction, from its Begin message.
+     */
+    public long getTransactionLsn() {
+        return transactionLsn;
+    }
+
+    /**
+     * Commit time of the transaction in microseconds since the Unix epoch.
+     */
+    public long getCommitTimeMicros() {
+        return commitTimeMicros;
+    }
+
+    /**
+     * Position of the WAL message carrying this change, as reported by the stream.
+     */
+    public long getMessageLsn() {
+        return messageLsn;
+    }
+
+    public boolean hasOldTuple() {
+        return oldTupleKind != 0;
+    }
+
+    /**
+     * Returns {@link #OLD_KEY}, {@link #OLD_ROW} or 0 when the message has no old tuple.
+     */
+    public byte getOldTupleKind() {
+        return oldTupleKind;
+    }
+
+    public PgOutputTuple getOldTuple() {
+        return oldTupleKind != 0 ? oldTuple : null;
+    }
+
+    public PgOutputTuple getNewTuple() {
+        return operation != DELETE ? newTuple : null;
+    }
+
+    PgOutputTuple oldTuple() {
+        return oldTuple;
+    }
+
+    PgOutputTuple newTuple() {
+        return newTuple;
+    }
+}
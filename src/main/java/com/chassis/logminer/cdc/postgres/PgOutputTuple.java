@@ -0,0 +1,166 @@
+package com.chassis.logminer.cdc.postgres;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * TupleData of a pgoutput Insert, Update or Delete message.
+ * <p>
+ * Column values are not copied: the tuple only records where each value starts and how long it is inside the
+ * replication buffer. It is reused for every message and is only valid until the next buffer is read from the
+ * stream, consumers that need a value later must copy it.
+ */
+public class PgOutputTuple {
+
+    public static final byte KIND_NULL = 'n';
+    public static final byte KIND_UNCHANGED_TOAST = 'u';
+    public static final byte KIND_TEXT = 't';
+    public static final byte KIND_BINARY = 'b';
+
+    private ByteBuffer buffer;
+    private int columnCount;
+    private byte[] kinds = new byte[16];
+    private int[] offsets = new int[16];
+    private int[] lengths = new int[16];
+
+    /**
+     * Reads the TupleData at the buffer position and leaves the position right after it.
+     */
+    void read(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.columnCount = buffer.getShort() & 0xFFFF;
+        if (columnCount > kinds.length) {
+            final int capacity = Math.max(columnCount, kinds.length * 2);
+            kinds = Arrays.copyOf(kinds, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+
+        for (int i = 0; i < columnCount; i++) {
+            final byte kind = buffer.get();
+            kinds[i] = kind;
+            if (kind == KIND_TEXT || kind == KIND_BINARY) {
+                final int length = buffer.getInt();
+                offsets[i] = buffer.position();
+                lengths[i] = length;
+                buffer.position(buffer.position() + length);
+            } else if (kind == KIND_NULL || kind == KIND_UNCHANGED_TOAST) {
+                offsets[i] = -1;
+                lengths[i] = 0;
+            } else {
+                throw new IllegalStateException("Unknown pgoutput tuple column kind: " + (char) kind);
+            }
+        }
+    }
+
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    public byte getKind(int column) {
+        return kinds[column];
+    }
+
+    public boolean isNull(int column) {
+        return kinds[column] == KIND_NULL;
+    }
+
+    /**
+     * Returns whether the column is an unchanged TOASTed value that the server did not send.
+     */
+    public boolean isUnchangedToast(int column) {
+        return kinds[column] == KIND_UNCHANGED_TOAST;
+    }
+
+    public ByteBuffer getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Absolute position of the value in {@link #getBuffer()}, -1 for null and unchanged TOAST values.
+     */
+    public int getOffset(int column) {
+        return offsets[column];
+    }
+
+    public int getLength(int column) {
+        return lengths[column];
+    }
+
+    /**
+     * Copies the raw value bytes into {@code dst} and returns the number of bytes copied.
+     */
+    public int getBytes(int column, byte[] dst, int dstOffset) {
+        final int length = lengths[column];
+        if (buffer.hasArray()) {
+            System.arraycopy(buffer.array(), buffer.arrayOffset() + offsets[column], dst, dstOffset, length);
+        } else {
+            for (int i = 0; i < length; i++) {
+                dst[dstOffset + i] = buffer.get(offsets[column] + i);
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Decodes a text value as a String, null for null and unchanged TOAST values. Allocates.
+     */
+    public String getString(int column) {
+        if (offsets[column] < 0) {
+            return null;
+        }
+        final int length = lengths[column];
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + offsets[column], length, StandardCharsets.UTF_8);
+        }
+        final byte[] bytes = new byte[length];
+        getBytes(column, bytes, 0);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses a text value of an integer column without allocating.
+     *
+     * @throws NumberFormatException if the column is null or not an integer
+     */
+    public long getLong(int column) {
+        final int length = lengths[column];
+        if (offsets[column] < 0 || length == 0) {
+            throw new NumberFormatException("Column " + column + " has no integer value");
+        }
+
+        int position = offsets[column];
+        final int end = position + length;
+        final boolean negative = buffer.get(position) == '-';
+        if (negative) {
+            position++;
+        }
+
+        long value = 0;
+        for (; position < end; position++) {
+            final int digit = buffer.get(position) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Column " + column + " is not an integer");
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Returns whether the text value equals {@code value}, without decoding it. Only meant for ASCII values.
+     */
+    public boolean contentEquals(int column, CharSequence value) {
+        final int length = lengths[column];
+        if (offsets[column] < 0 || length != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(offsets[column] + i) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,11 +1,17 @@
 package com.chassis.logminer.cdc.postgres;
 
+import com.chassis.logminer.cdc.checkpoint.CheckpointStore;
 import com.chassis.logminer.cdc.connectionfactory.PostgresConnectionFactory;
+import com.chassis.logminer.cdc.journal.ChangeJournal;
+import com.chassis.logminer.cdc.pipeline.ChangeEventPipeline;
 import org.postgresql.PGConnection;
 import org.postgresql.replication.LogSequenceNumber;
 import org.postgresql.replication.PGReplicationStream;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -14,20 +20,41 @@ import java.util.concurrent.TimeUnit;
 
 public class PostgresCDC extends AbstractPostgresCDC {
 
+    public static final Path CHECKPOINT_FILE = Paths.get("data", "postgres-cdc", "checkpoint.dat");
+    public static final Path JOURNAL_DIRECTORY = Paths.get("data", "postgres-cdc", "journal");
+
+    private volatile PostgresCDCTask cdcTask;
+    private volatile boolean running = true;
+
+    @Override
     public void startCDC() throws SQLException {
         PostgresConnectionFactory connectionFactory = new PostgresConnectionFactory();
 
-        try (Connection connection = connectionFactory.getConnection()) {
+        try (Connection connection = connectionFactory.getConnection();
+             // Closed after the checkpoint, whose last sync writes the journal first
+             ChangeJournal journal = openJournal(JOURNAL_DIRECTORY);
+             CheckpointStore checkpoint = new CheckpointStore(CHECKPOINT_FILE);
+             ChangeEventPipeline pipeline = createPipeline(journal)) {
+            checkpoint.setSyncDependency(journal::sync);
             PostgresInitializer initializer = new PostgresInitializer(connection);
 
-            // Get current LSN and replication slot info
+            List<String> includeList = new ArrayList<>();
+            includeList.add("public.cdc_test");
+
+            // Get current LSN, replication slot and publication info
             String slotName = initializer.getOrCreateReplicationSlot();
-            LogSequenceNumber startLSN = initializer.getCurrentLSN();
+            String publicationName = initializer.getOrCreatePublication(includeList);
+            // Resume from the checkpoint, starting at the current LSN would skip the changes made meanwhile
+            LogSequenceNumber startLSN = checkpoint.isEmpty()
+                    ? initializer.getCurrentLSN()
+                    : LogSequenceNumber.valueOf(checkpoint.getPosition());
             List<PostgresWalFile> walFiles = initializer.getWalFiles(startLSN);
 
             System.out.println("Starting PostgreSQL CDC from LSN: " + startLSN);
             System.out.println("Replication slot: " + slotName);
+            System.out.println("Publication: " + publicationName);
             System.out.println("WAL files available: " + walFiles.size());
+            System.out.println("Journal: " + journal.getDirectory());
 
             // Create replication connection
             PGConnection replConnection = connection.unwrap(PGConnection.class);
@@ -38,13 +65,16 @@ public class PostgresCDC extends AbstractPostgresCDC {
                     .logical()
                     .withSlotName(slotName)
                     .withStartPosition(startLSN)
-                    .withSlotOption("include-xids", true)
-                    .withSlotOption("include-timestamp", true)
-                    .withSlotOption("pretty-print", false)
+                    .withSlotOption("proto_version", 1)
+                    .withSlotOption("publication_names", publicationName)
                     .start();
 
-            PostgresCDCTask cdcTask = new PostgresCDCTask();
+            cdcTask = new PostgresCDCTask(includeList, checkpoint, pipeline);
+            if (!running) {
+                cdcTask.stop();
+            }
             cdcTask.startMine(stream, connection);
+            System.out.println(journal);
 
             // Cleanup
             stream.close();
@@ -53,11 +83,22 @@ public class PostgresCDC extends AbstractPostgresCDC {
 
         } catch (InterruptedException e) {
             e.printStackTrace();
+        } catch (IOException e) {
+            throw new SQLException("Unable to open the checkpoint or journal files!", e);
         } finally {
             System.out.println("PostgreSQL CDC session ended");
         }
     }
 
+    @Override
+    public void stopCDC() {
+        running = false;
+        final PostgresCDCTask task = cdcTask;
+        if (task != null) {
+            task.stop();
+        }
+    }
+
     public static void main(String[] args) throws SQLException {
         PostgresCDC postgresCDC = new PostgresCDC();
         postgresCDC.startCDC();
@@ -1,85 +1,214 @@
 package com.chassis.logminer.cdc.postgres;
 
+import com.chassis.logminer.cdc.checkpoint.CheckpointStore;
+import com.chassis.logminer.cdc.event.ChangeEvent;
+import com.chassis.logminer.cdc.event.ChangeEventPrinter;
+import com.chassis.logminer.cdc.event.ChangeEventRow;
+import com.chassis.logminer.cdc.pipeline.AdaptiveWait;
+import com.chassis.logminer.cdc.pipeline.ChangeEventPipeline;
+import com.chassis.logminer.cdc.pipeline.ChangeEventSink;
 import org.apache.commons.lang3.StringUtils;
-import org.postgresql.replication.LogSequenceNumber;
 import org.postgresql.replication.PGReplicationStream;
 
 import java.nio.ByteBuffer;
 import java.sql.*;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 
-public class PostgresCDCTask {
+public class PostgresCDCTask implements PgOutputListener {
 
     private static final String SQL_AND = " AND ";
-    private static final int READ_TIMEOUT_MS = 10000;
     private static final int MAX_RECORDS = 10000;
+    private static final int RING_BUFFER_CAPACITY = 1024;
+    private static final long METRICS_INTERVAL = 10000;
+    private static final long FEEDBACK_INTERVAL_MS = 1000;
+    private static final long FEEDBACK_MAX_BYTES = PostgresLsn.DEFAULT_WAL_SEGMENT_SIZE;
+    private static final long KEEPALIVE_INTERVAL_MS = 10000;
 
-    public void startMine(PGReplicationStream stream, Connection connection) throws SQLException {
-        List<String> includeList = new ArrayList<>();
-        includeList.add("public.cdc_test");
+    private final List<String> includeList;
+    private final CheckpointStore checkpoint;
+    private final ChangeEventPipeline pipeline;
+    private final PgOutputDecoder decoder = new PgOutputDecoder();
+    private final ChangeEvent changeEvent = new ChangeEvent();
+    private int count;
+    private int transactionRows;
+    private long transactionId;
+    private volatile boolean running = true;
+    private ReplicationFeedback feedback;
+
+    public PostgresCDCTask(List<String> includeList) {
+        this(includeList, null, new ChangeEventPipeline(ChangeEventSink.of(new ChangeEventPrinter())));
+    }
 
+    /**
+     * @param checkpoint where the LSN of the transactions delivered is stored, null for none
+     * @param pipeline   carries the row changes and commits of the stream to the sink, started by
+     *                   {@link #startMine}
+     */
+    public PostgresCDCTask(List<String> includeList, CheckpointStore checkpoint, ChangeEventPipeline pipeline) {
+        this.includeList = includeList;
+        this.checkpoint = checkpoint;
+        this.pipeline = pipeline;
+    }
+
+    /**
+     * Makes {@link #startMine} return after the message being decoded.
+     */
+    public void stop() {
+        running = false;
+    }
+
+    public void startMine(PGReplicationStream stream, Connection connection) throws SQLException {
         String tableFilter = parseTableSchemaList(includeList);
         System.out.println("Monitoring tables: " + tableFilter);
 
-        int count = 0;
+        count = 0;
 
+        ReplicationRingBuffer ringBuffer = new ReplicationRingBuffer(RING_BUFFER_CAPACITY);
+        ReplicationReader reader = new ReplicationReader(stream, ringBuffer);
+        AdaptiveWait pollWait = AdaptiveWait.defaults(false);
+        feedback = new ReplicationFeedback(stream, FEEDBACK_INTERVAL_MS, FEEDBACK_MAX_BYTES, KEEPALIVE_INTERVAL_MS,
+                checkpoint);
+        if (!pipeline.isStarted()) {
+            pipeline.start(this::onDelivered);
+        }
+        reader.start();
+        feedback.start();
+
+        RuntimeException decodeFailure = null;
+        long decodeLsn = 0;
         try {
-            while (count < MAX_RECORDS) {
-                // Read next WAL message with timeout
-                ByteBuffer buffer = stream.readPending();
+            while (running && count < MAX_RECORDS) {
+                ByteBuffer buffer = ringBuffer.poll();
 
                 if (buffer == null) {
-                    // No data available, wait a bit
-                    TimeUnit.MILLISECONDS.sleep(100);
+                    if (!reader.isRunning()) {
+                        break;
+                    }
+                    pollWait.idle();
                     continue;
                 }
+                pollWait.reset();
+                reader.getMetrics().recordDecoded(System.nanoTime() - ringBuffer.getPolledNanos());
 
-                // Process the message
-                int offset = buffer.arrayOffset();
-                byte[] source = buffer.array();
-                int length = source.length - offset;
-                String message = new String(source, offset, length);
-
-                // Parse the message (simplified - in production use a proper decoder)
-                if (StringUtils.isNotEmpty(message)) {
-                    System.out.println("CDC Message: " + message);
-
-                    // Determine operation type from message
-                    OperationType operation = parseOperationType(message);
-                    if (operation != null) {
-                        System.out.println("Operation: " + operation);
-                        count++;
-                    }
+                // Decode the pgoutput message in place, row changes arrive through onRowChange
+                decodeLsn = ringBuffer.getPolledLsn();
+                decoder.decode(buffer, decodeLsn, this);
 
-                    // Send feedback to server
-                    LogSequenceNumber lastReceiveLSN = stream.getLastReceiveLSN();
-                    if (lastReceiveLSN != null) {
-                        stream.setAppliedLSN(lastReceiveLSN);
-                        stream.setFlushedLSN(lastReceiveLSN);
-                        stream.forceUpdateStatus();
-                    }
+                if (reader.getMetrics().getMessagesDecoded() % METRICS_INTERVAL == 0) {
+                    System.out.println(reader.getMetrics());
+                }
+            }
+        } catch (RuntimeException e) {
+            // Unknown relation, truncated or malformed message: stop here, the slot resends it after a restart
+            decodeFailure = e;
+        } finally {
+            try {
+                reader.stop();
+                // The last transactions are acknowledged as they are delivered, before the last status update
+                if (pipeline.getFailure() == null) {
+                    pipeline.flush();
                 }
+                feedback.stop();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (decodeFailure != null) {
+            throw new SQLException("Unable to decode pgoutput message at LSN " +
+                    PostgresLsn.valueOf(decodeLsn).asString(), decodeFailure);
+        }
+        if (reader.getFailure() != null) {
+            throw new SQLException("Unable to read replication stream!", reader.getFailure());
+        }
+        if (pipeline.getFailure() != null) {
+            throw new SQLException("Unable to deliver change events!", pipeline.getFailure());
+        }
+        if (feedback.getFailure() != null) {
+            throw new SQLException("Unable to send replication feedback!", feedback.getFailure());
+        }
+
+        System.out.println(reader.getMetrics());
+        System.out.println("Status updates sent: " + feedback.getStatusUpdates() +
+                ", flushed LSN: " + PostgresLsn.valueOf(feedback.getReportedLsn()).asString());
+        System.out.println("Total records processed: " + count + ", " + pipeline);
+    }
+
+    @Override
+    public void onBegin(long finalLsn, long commitTimeMicros, int xid) {
+        transactionRows = 0;
+        transactionId = xid & 0xFFFFFFFFL;
+    }
+
+    @Override
+    public void onRowChange(PgOutputRowChange change) {
+        final PgOutputRelation relation = change.getRelation();
+        changeEvent.reset(ChangeEvent.SOURCE_POSTGRES, parseOperation(change.getOperation()))
+                .setPosition(change.getMessageLsn(), change.getTransactionLsn(), transactionRows++)
+                .setTransaction(transactionId, change.getCommitTimeMicros())
+                .setTable(change.getRelationId() & 0xFFFFFFFFL, null, relation.getNamespace(), relation.getName());
+        if (change.getOldTuple() != null) {
+            copy(change.getOldTuple(), relation, changeEvent.getBefore());
+        }
+        if (change.getNewTuple() != null) {
+            copy(change.getNewTuple(), relation, changeEvent.getAfter());
+        }
+        pipeline.onChange(changeEvent);
+        count++;
+    }
+
+    private static void copy(PgOutputTuple tuple, PgOutputRelation relation, ChangeEventRow row) {
+        for (int i = 0; i < tuple.getColumnCount(); i++) {
+            final String name = relation.getColumnName(i);
+            switch (tuple.getKind(i)) {
+                case PgOutputTuple.KIND_NULL:
+                    row.addNull(name);
+                    break;
+                case PgOutputTuple.KIND_UNCHANGED_TOAST:
+                    row.addUnchanged(name);
+                    break;
+                default:
+                    // pgoutput is started without the binary option, values are text
+                    row.add(name, ChangeEventRow.TEXT, tuple.getBuffer(), tuple.getOffset(i), tuple.getLength(i));
+                    break;
             }
-        } catch (Exception e) {
-            e.printStackTrace();
         }
+    }
+
+    @Override
+    public void onRelation(PgOutputRelation relation) {
+        System.out.println("Relation: " + relation);
+    }
+
+    @Override
+    public void onCommit(long commitLsn, long endLsn, long commitTimeMicros) {
+        changeEvent.reset(ChangeEvent.SOURCE_POSTGRES, ChangeEvent.COMMIT)
+                .setPosition(commitLsn, endLsn, transactionRows)
+                .setTransaction(transactionId, commitTimeMicros);
+        pipeline.onChange(changeEvent);
+    }
 
-        System.out.println("Total records processed: " + count);
+    /**
+     * Called on the sink thread once an event has been written out.
+     */
+    private void onDelivered(ChangeEvent event) {
+        if (event.isCommit()) {
+            // The transaction has been written out, the server may release the WAL up to its end
+            feedback.acknowledge(event.getCommitPosition());
+        }
     }
 
-    private OperationType parseOperationType(String message) {
-        if (message.contains("\"action\":\"I\"") || message.contains("BEGIN") && message.contains("INSERT")) {
-            return OperationType.INSERT;
-        } else if (message.contains("\"action\":\"U\"") || message.contains("UPDATE")) {
-            return OperationType.UPDATE;
-        } else if (message.contains("\"action\":\"D\"") || message.contains("DELETE")) {
-            return OperationType.DELETE;
-        } else if (message.contains("COMMIT")) {
-            return OperationType.COMMIT;
+    private static byte parseOperation(byte operation) {
+        switch (operation) {
+            case PgOutputRowChange.INSERT:
+                return ChangeEvent.INSERT;
+            case PgOutputRowChange.UPDATE:
+                return ChangeEvent.UPDATE;
+            case PgOutputRowChange.DELETE:
+                return ChangeEvent.DELETE;
+            default:
+                throw new IllegalArgumentException("Unknown pgoutput operation: " + (char) operation);
         }
-        return null;
     }
 
     public String parseTableSchemaList(List<String> listSchemaObj) {
@@ -132,22 +261,4 @@ public class PostgresCDCTask {
         sb.append(")");
         return sb.toString();
     }
-
-    public enum OperationType {
-        INSERT(1),
-        UPDATE(2),
-        DELETE(3),
-        COMMIT(7),
-        ROLLBACK(36);
-
-        private final int code;
-
-        OperationType(int code) {
-            this.code = code;
-        }
-
-        public int getCode() {
-            return code;
-        }
-    }
 }
@@ -16,6 +16,7 @@ public class PostgresInitializer {
     private final Connection connection;
     private static final String DEFAULT_SLOT_NAME = "cdc_slot";
     private static final String OUTPUT_PLUGIN = "pgoutput";
+    private static final String DEFAULT_PUBLICATION_NAME = "cdc_publication";
 
     public PostgresInitializer(Connection connection) {
         this.connection = connection;
@@ -26,8 +27,7 @@ public class PostgresInitializer {
         try (PreparedStatement ps = this.connection.prepareStatement(query);
              ResultSet rs = ps.executeQuery()) {
             if (rs.next()) {
-                String lsn = rs.getString(1);
-                return LogSequenceNumber.valueOf(lsn);
+                return LogSequenceNumber.valueOf(PostgresLsn.parse(rs.getString(1)));
             }
             throw new SQLException("Unable to read current LSN from database");
         }
@@ -56,6 +56,27 @@ public class PostgresInitializer {
         return DEFAULT_SLOT_NAME;
     }
 
+    public String getOrCreatePublication(List<String> tables) throws SQLException {
+        try (PreparedStatement ps = this.connection.prepareStatement(PostgresStatements.PUBLICATION_EXISTS)) {
+            ps.setString(1, DEFAULT_PUBLICATION_NAME);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    System.out.println("Publication already exists: " + DEFAULT_PUBLICATION_NAME);
+                    return DEFAULT_PUBLICATION_NAME;
+                }
+            }
+        }
+
+        // pgoutput only streams tables that belong to the publication
+        String createQuery = PostgresStatements.createPublication(DEFAULT_PUBLICATION_NAME, String.join(", ", tables));
+        try (Statement stmt = this.connection.createStatement()) {
+            stmt.execute(createQuery);
+            System.out.println("Created publication: " + DEFAULT_PUBLICATION_NAME);
+        }
+
+        return DEFAULT_PUBLICATION_NAME;
+    }
+
     public List<PostgresWalFile> getWalFiles(LogSequenceNumber fromLSN) throws SQLException {
         String query = PostgresStatements.LIST_WAL_FILES;
         System.out.println("WAL query: " + query);
@@ -1,60 +1,215 @@
 package com.chassis.logminer.cdc.postgres;
 
+import org.postgresql.replication.LogSequenceNumber;
+
 import java.math.BigInteger;
-import java.util.Objects;
 
+/**
+ * PostgreSQL write-ahead log position, the 64-bit {@code XLogRecPtr} kept in a primitive {@code long}.
+ * <p>
+ * Besides the decimal form used by {@link #valueOf(String)} and {@link #toString()}, positions can be parsed
+ * and formatted in the {@code 16/B374D848} form returned by {@code pg_current_wal_lsn()} and
+ * {@code pg_replication_slots}, treating the value as unsigned. Servers never hand out positions above
+ * 2^63, so for real positions the signed ordering of {@link #compareTo} matches the unsigned one.
+ */
 public class PostgresLsn implements Comparable<PostgresLsn> {
 
-    public static final PostgresLsn MAX = new PostgresLsn(BigInteger.valueOf(-2));
-    public static final PostgresLsn NULL = new PostgresLsn(null);
-    public static final PostgresLsn ONE = new PostgresLsn(BigInteger.valueOf(1));
+    /**
+     * Default size of a WAL segment file, {@code wal_segment_size}.
+     */
+    public static final long DEFAULT_WAL_SEGMENT_SIZE = 16L * 1024 * 1024;
+
+    public static final PostgresLsn MAX = new PostgresLsn(-2L, false);
+    public static final PostgresLsn NULL = new PostgresLsn(0L, true);
+    public static final PostgresLsn ONE = new PostgresLsn(1L, false);
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+    private static final long LOW_32_BITS = 0xFFFFFFFFL;
 
-    private final BigInteger lsn;
+    private final long lsn;
+    private final boolean isNull;
 
     public PostgresLsn(BigInteger lsn) {
+        this(lsn == null ? 0L : lsn.longValue(), lsn == null);
+    }
+
+    private PostgresLsn(long lsn, boolean isNull) {
         this.lsn = lsn;
+        this.isNull = isNull;
     }
 
     public boolean isNull() {
-        return this.lsn == null;
+        return isNull;
     }
 
     public static PostgresLsn valueOf(int value) {
-        return new PostgresLsn(BigInteger.valueOf(value));
+        return new PostgresLsn(value, false);
     }
 
     public static PostgresLsn valueOf(long value) {
-        return new PostgresLsn(BigInteger.valueOf(value));
+        return new PostgresLsn(value, false);
     }
 
+    /**
+     * Parses either a decimal position or the {@code X/Y} hexadecimal form.
+     */
     public static PostgresLsn valueOf(String value) {
-        return new PostgresLsn(new BigInteger(value));
+        if (value.indexOf('/') >= 0) {
+            return new PostgresLsn(parse(value), false);
+        }
+        return new PostgresLsn(Long.parseLong(value), false);
+    }
+
+    public static PostgresLsn valueOf(LogSequenceNumber lsn) {
+        return lsn == null ? NULL : new PostgresLsn(lsn.asLong(), false);
+    }
+
+    /**
+     * Parses the {@code X/Y} hexadecimal form, where {@code X} and {@code Y} are the high and low 32 bits of
+     * the position, without allocating.
+     *
+     * @throws NumberFormatException if the value is not in the {@code X/Y} form
+     */
+    public static long parse(CharSequence value) {
+        return parse(value, 0, value.length());
+    }
+
+    /**
+     * Parses the {@code X/Y} hexadecimal form found between {@code start} (inclusive) and {@code end}
+     * (exclusive) of {@code value}.
+     */
+    public static long parse(CharSequence value, int start, int end) {
+        long high = 0;
+        long low = 0;
+        int highDigits = 0;
+        int lowDigits = 0;
+        boolean slash = false;
+
+        for (int i = start; i < end; i++) {
+            final char c = value.charAt(i);
+            if (c == '/') {
+                if (slash) {
+                    throw invalid(value, start, end);
+                }
+                slash = true;
+                continue;
+            }
+            final int digit = Character.digit(c, 16);
+            if (digit < 0) {
+                throw invalid(value, start, end);
+            }
+            if (slash) {
+                low = (low << 4) | digit;
+                lowDigits++;
+            } else {
+                high = (high << 4) | digit;
+                highDigits++;
+            }
+        }
+
+        if (!slash || highDigits == 0 || highDigits > 8 || lowDigits == 0 || lowDigits > 8) {
+            throw invalid(value, start, end);
+        }
+        return (high << 32) | low;
+    }
+
+    private static NumberFormatException invalid(CharSequence value, int start, int end) {
+        return new NumberFormatException("Invalid LSN: " + value.subSequence(start, end));
+    }
+
+    /**
+     * Appends {@code lsn} in the {@code X/Y} hexadecimal form, without leading zeros like PostgreSQL does.
+     */
+    public static StringBuilder format(long lsn, StringBuilder sb) {
+        appendHex(sb, lsn >>> 32);
+        sb.append('/');
+        appendHex(sb, lsn & LOW_32_BITS);
+        return sb;
+    }
+
+    private static void appendHex(StringBuilder sb, long value) {
+        int shift = 28;
+        while (shift > 0 && ((value >>> shift) & 0xF) == 0) {
+            shift -= 4;
+        }
+        for (; shift >= 0; shift -= 4) {
+            sb.append(HEX_DIGITS[(int) ((value >>> shift) & 0xF)]);
+        }
     }
 
     public long longValue() {
-        return isNull() ? 0 : lsn.longValue();
+        return lsn;
+    }
+
+    /**
+     * Returns the position in the {@code X/Y} hexadecimal form, {@code 0/0} for {@link #NULL}.
+     */
+    public String asString() {
+        return format(lsn, new StringBuilder(17)).toString();
+    }
+
+    public LogSequenceNumber toLogSequenceNumber() {
+        return isNull ? LogSequenceNumber.INVALID_LSN : LogSequenceNumber.valueOf(lsn);
+    }
+
+    /**
+     * Returns the high 32 bits of the position, the {@code X} of {@code X/Y}.
+     */
+    public long getLogId() {
+        return lsn >>> 32;
+    }
+
+    /**
+     * Returns the low 32 bits of the position, the {@code Y} of {@code X/Y}.
+     */
+    public long getLogOffset() {
+        return lsn & LOW_32_BITS;
+    }
+
+    /**
+     * Returns the number of the WAL segment holding this position.
+     */
+    public long getSegmentNumber(long walSegmentSize) {
+        return Long.divideUnsigned(lsn, walSegmentSize);
+    }
+
+    /**
+     * Returns the byte offset of this position inside its WAL segment.
+     */
+    public long getSegmentOffset(long walSegmentSize) {
+        return Long.remainderUnsigned(lsn, walSegmentSize);
+    }
+
+    /**
+     * Returns the name of the WAL segment file holding this position, as {@code pg_walfile_name()} does.
+     */
+    public String getWalFileName(int timeline, long walSegmentSize) {
+        final long segmentsPerLogId = 0x100000000L / walSegmentSize;
+        final long segment = getSegmentNumber(walSegmentSize);
+        return String.format("%08X%08X%08X",
+                timeline, segment / segmentsPerLogId, segment % segmentsPerLogId);
     }
 
     public PostgresLsn add(PostgresLsn value) {
         if (isNull() && value.isNull()) {
             return PostgresLsn.NULL;
         } else if (value.isNull()) {
-            return new PostgresLsn(lsn);
+            return this;
         } else if (isNull()) {
-            return new PostgresLsn(value.lsn);
+            return value;
         }
-        return new PostgresLsn(lsn.add(value.lsn));
+        return new PostgresLsn(lsn + value.lsn, false);
     }
 
     public PostgresLsn subtract(PostgresLsn value) {
         if (isNull() && value.isNull()) {
             return PostgresLsn.NULL;
         } else if (value.isNull()) {
-            return new PostgresLsn(lsn);
+            return this;
         } else if (isNull()) {
-            return new PostgresLsn(value.lsn.negate());
+            return new PostgresLsn(-value.lsn, false);
         }
-        return new PostgresLsn(lsn.subtract(value.lsn));
+        return new PostgresLsn(lsn - value.lsn, false);
     }
 
     @Override
@@ -66,7 +221,7 @@ public class PostgresLsn implements Comparable<PostgresLsn> {
         } else if (!isNull() && o.isNull()) {
             return 1;
         }
-        return lsn.compareTo(o.lsn);
+        return Long.compare(lsn, o.lsn);
     }
 
     @Override
@@ -78,16 +233,16 @@ public class PostgresLsn implements Comparable<PostgresLsn> {
             return false;
         }
         PostgresLsn postgresLsn = (PostgresLsn) o;
-        return Objects.equals(lsn, postgresLsn.lsn);
+        return lsn == postgresLsn.lsn && isNull == postgresLsn.isNull;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(lsn);
+        return isNull ? 0 : Long.hashCode(lsn);
     }
 
     @Override
     public String toString() {
-        return isNull() ? "null" : lsn.toString();
+        return isNull() ? "null" : Long.toString(lsn);
     }
 }
@@ -0,0 +1,154 @@
+package com.chassis.logminer.cdc.postgres;
+
+import com.chassis.logminer.cdc.checkpoint.CheckpointStore;
+import org.postgresql.replication.LogSequenceNumber;
+import org.postgresql.replication.PGReplicationStream;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends standby status updates for the LSN acknowledged by the sink, on its own thread.
+ * <p>
+ * The sink calls {@link #acknowledge(long)} once everything up to an LSN is stored downstream, usually the end
+ * LSN of a committed transaction, so the server never recycles WAL the sink has not kept. Status updates are
+ * batched: one is sent every {@code intervalMs} when the acknowledged LSN moved, or as soon as it moved by
+ * {@code maxBytes}. A quiet stream still gets a status update every {@code keepaliveMs} so the server does not
+ * drop the connection.
+ * <p>
+ * The driver serializes socket access, while the reader is blocked in {@code read()} a status update waits for
+ * the next server message or keepalive.
+ * <p>
+ * With a {@link CheckpointStore} the LSN is checkpointed and synced to disk before it is reported, so the
+ * server never releases WAL past the position a restart resumes from, and the sync is shared by every
+ * transaction of the batch.
+ */
+public class ReplicationFeedback implements Runnable {
+
+    private static final long JOIN_TIMEOUT_MS = 5000;
+
+    private final PGReplicationStream stream;
+    private final long intervalNanos;
+    private final long maxBytes;
+    private final long keepaliveNanos;
+    private final CheckpointStore checkpoint;
+
+    private final AtomicLong acknowledgedLsn = new AtomicLong();
+    private volatile long reportedLsn;
+    private volatile long statusUpdates;
+    private volatile SQLException failure;
+    private volatile boolean running = true;
+
+    private Thread thread;
+    private long lastStatusNanos;
+
+    public ReplicationFeedback(PGReplicationStream stream, long intervalMs, long maxBytes, long keepaliveMs) {
+        this(stream, intervalMs, maxBytes, keepaliveMs, null);
+    }
+
+    /**
+     * @param checkpoint where the acknowledged LSN is stored before it is reported, null for none
+     */
+    public ReplicationFeedback(PGReplicationStream stream, long intervalMs, long maxBytes, long keepaliveMs,
+                               CheckpointStore checkpoint) {
+        if (intervalMs < 1 || maxBytes < 1 || keepaliveMs < intervalMs) {
+            throw new IllegalArgumentException("Invalid replication feedback settings");
+        }
+        this.stream = stream;
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMs);
+        this.maxBytes = maxBytes;
+        this.keepaliveNanos = TimeUnit.MILLISECONDS.toNanos(keepaliveMs);
+        this.checkpoint = checkpoint;
+    }
+
+    public void start() {
+        lastStatusNanos = System.nanoTime();
+        thread = new Thread(this, "postgres-replication-feedback");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Records that the sink has stored everything up to {@code lsn}. Lower LSNs than the current one are ignored.
+     */
+    public void acknowledge(long lsn) {
+        long current;
+        while (lsn > (current = acknowledgedLsn.get())) {
+            if (acknowledgedLsn.compareAndSet(current, lsn)) {
+                if (lsn - reportedLsn >= maxBytes && thread != null) {
+                    LockSupport.unpark(thread);
+                }
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                LockSupport.parkNanos(this, intervalNanos);
+                sendStatus();
+            }
+            sendStatus();
+        } catch (SQLException e) {
+            if (!stream.isClosed()) {
+                failure = e;
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void sendStatus() throws SQLException {
+        final long lsn = acknowledgedLsn.get();
+        final long now = System.nanoTime();
+        if (lsn == reportedLsn && now - lastStatusNanos < keepaliveNanos) {
+            return;
+        }
+        if (lsn != reportedLsn) {
+            if (checkpoint != null) {
+                checkpoint.update(lsn);
+                checkpoint.sync();
+            }
+            final LogSequenceNumber logSequenceNumber = LogSequenceNumber.valueOf(lsn);
+            stream.setAppliedLSN(logSequenceNumber);
+            stream.setFlushedLSN(logSequenceNumber);
+        }
+        stream.forceUpdateStatus();
+        reportedLsn = lsn;
+        lastStatusNanos = now;
+        statusUpdates++;
+    }
+
+    public long getAcknowledgedLsn() {
+        return acknowledgedLsn.get();
+    }
+
+    /**
+     * Returns the last LSN sent to the server as flushed.
+     */
+    public long getReportedLsn() {
+        return reportedLsn;
+    }
+
+    public long getStatusUpdates() {
+        return statusUpdates;
+    }
+
+    public SQLException getFailure() {
+        return failure;
+    }
+
+    /**
+     * Stops the thread after a last status update for the acknowledged LSN.
+     */
+    public void stop() throws InterruptedException {
+        running = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            thread.join(JOIN_TIMEOUT_MS);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.chassis.logminer.cdc.postgres;
+
+import com.chassis.logminer.cdc.pipeline.AdaptiveWait;
+import org.postgresql.replication.PGReplicationStream;
+
+import java.nio.ByteBuffer;
+import java.sql.SQLException;
+
+/**
+ * Dedicated thread reading the replication stream and handing raw messages to the decoder through a
+ * {@link ReplicationRingBuffer}.
+ * <p>
+ * Status updates are left to {@link ReplicationFeedback}, the reader only reads. When the stream is idle the
+ * reader goes through {@link AdaptiveWait} and ends in a blocking {@code read()}, when the ring is full it
+ * waits for the decoder the same way without blocking.
+ */
+public class ReplicationReader implements Runnable {
+
+    private static final long JOIN_TIMEOUT_MS = 5000;
+
+    private final PGReplicationStream stream;
+    private final ReplicationRingBuffer ringBuffer;
+    private final ReplicationReaderMetrics metrics = new ReplicationReaderMetrics();
+    private final AdaptiveWait readWait = AdaptiveWait.defaults(true);
+    private final AdaptiveWait publishWait = AdaptiveWait.defaults(false);
+
+    private volatile boolean running = true;
+    private volatile SQLException failure;
+    private Thread thread;
+
+    public ReplicationReader(PGReplicationStream stream, ReplicationRingBuffer ringBuffer) {
+        this.stream = stream;
+        this.ringBuffer = ringBuffer;
+    }
+
+    public void start() {
+        thread = new Thread(this, "postgres-replication-reader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                ByteBuffer buffer = stream.readPending();
+                if (buffer == null) {
+                    final int stage = readWait.idle();
+                    metrics.recordIdle(stage);
+                    if (stage != AdaptiveWait.BLOCK) {
+                        continue;
+                    }
+                    // Quiet stream, block until the next message, the driver keeps answering keepalives
+                    buffer = stream.read();
+                    if (buffer == null) {
+                        continue;
+                    }
+                }
+                readWait.reset();
+
+                metrics.recordRead(buffer.remaining());
+                publish(buffer, stream.getLastReceiveLSN().asLong());
+            }
+        } catch (SQLException e) {
+            if (running) {
+                failure = e;
+                e.printStackTrace();
+            }
+        } finally {
+            running = false;
+        }
+    }
+
+    private void publish(ByteBuffer buffer, long lsn) {
+        while (!ringBuffer.offer(buffer, lsn)) {
+            metrics.recordRingFull();
+            publishWait.idle();
+            if (!running) {
+                return;
+            }
+        }
+        publishWait.reset();
+    }
+
+    /**
+     * Returns whether the reader is still reading, it stops on {@link #stop()} or when the stream fails.
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Returns the error that stopped the reader, or null.
+     */
+    public SQLException getFailure() {
+        return failure;
+    }
+
+    public ReplicationReaderMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Stops the reader and waits for its thread. A reader blocked in {@code read()} only returns with the next
+     * message or keepalive, closing the stream afterwards unblocks it.
+     */
+    public void stop() throws InterruptedException {
+        running = false;
+        if (thread != null) {
+            thread.join(JOIN_TIMEOUT_MS);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.chassis.logminer.cdc.postgres;
+
+import com.chassis.logminer.cdc.pipeline.AdaptiveWait;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counters of the replication reader thread and of the decoder draining its ring buffer.
+ * <p>
+ * Every counter has a single writer, the reader thread or the decoder thread, and is volatile so it can be read
+ * from any thread.
+ */
+public class ReplicationReaderMetrics {
+
+    private final long startNanos = System.nanoTime();
+
+    // Written by the reader thread
+    private volatile long messagesRead;
+    private volatile long bytesRead;
+    private volatile long spins;
+    private volatile long yields;
+    private volatile long parks;
+    private volatile long blockingReads;
+    private volatile long ringFullWaits;
+
+    // Written by the decoder thread
+    private volatile long messagesDecoded;
+    private volatile long totalQueueNanos;
+    private volatile long maxQueueNanos;
+
+    void recordRead(int bytes) {
+        messagesRead++;
+        bytesRead += bytes;
+    }
+
+    void recordIdle(int stage) {
+        switch (stage) {
+            case AdaptiveWait.SPIN:
+                spins++;
+                break;
+            case AdaptiveWait.YIELD:
+                yields++;
+                break;
+            case AdaptiveWait.PARK:
+                parks++;
+                break;
+            default:
+                blockingReads++;
+                break;
+        }
+    }
+
+    void recordRingFull() {
+        ringFullWaits++;
+    }
+
+    void recordDecoded(long queueNanos) {
+        messagesDecoded++;
+        totalQueueNanos += queueNanos;
+        if (queueNanos > maxQueueNanos) {
+            maxQueueNanos = queueNanos;
+        }
+    }
+
+    public long getMessagesRead() {
+        return messagesRead;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public long getSpins() {
+        return spins;
+    }
+
+    public long getYields() {
+        return yields;
+    }
+
+    public long getParks() {
+        return parks;
+    }
+
+    public long getBlockingReads() {
+        return blockingReads;
+    }
+
+    /**
+     * Number of times the reader found the ring full and had to wait for the decoder.
+     */
+    public long getRingFullWaits() {
+        return ringFullWaits;
+    }
+
+    public long getMessagesDecoded() {
+        return messagesDecoded;
+    }
+
+    /**
+     * Mean time between a message being read from the stream and being taken by the decoder.
+     */
+    public long getMeanQueueNanos() {
+        final long decoded = messagesDecoded;
+        return decoded == 0 ? 0 : totalQueueNanos / decoded;
+    }
+
+    public long getMaxQueueNanos() {
+        return maxQueueNanos;
+    }
+
+    public double getMessagesPerSecond() {
+        return messagesRead / elapsedSeconds();
+    }
+
+    public double getBytesPerSecond() {
+        return bytesRead / elapsedSeconds();
+    }
+
+    private double elapsedSeconds() {
+        return Math.max(System.nanoTime() - startNanos, 1L) / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+
+    @Override
+    public String toString() {
+        return "ReplicationReaderMetrics{" +
+                "messagesRead=" + messagesRead +
+                ", bytesRead=" + bytesRead +
+                ", messagesPerSecond=" + String.format("%.1f", getMessagesPerSecond()) +
+                ", bytesPerSecond=" + String.format("%.1f", getBytesPerSecond()) +
+                ", meanQueueMicros=" + TimeUnit.NANOSECONDS.toMicros(getMeanQueueNanos()) +
+                ", maxQueueMicros=" + TimeUnit.NANOSECONDS.toMicros(maxQueueNanos) +
+                ", spins=" + spins +
+                ", yields=" + yields +
+                ", parks=" + parks +
+                ", blockingReads=" + blockingReads +
+                ", ringFullWaits=" + ringFullWaits +
+                '}';
+    }
+}
@@ -0,0 +1,118 @@
+package com.chassis.logminer.cdc.postgres;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded single-producer/single-consumer queue of replication messages, each slot holding the message buffer,
+ * its LSN and the time it was published.
+ * <p>
+ * The producer and the consumer each own one sequence and only publish it with an ordered store; the other
+ * side's sequence is cached and only re-read when the ring looks full or empty. Exactly one thread may call
+ * {@link #offer} and exactly one other thread may call {@link #poll}.
+ */
+public class ReplicationRingBuffer {
+
+    private final ByteBuffer[] buffers;
+    private final long[] lsns;
+    private final long[] publishNanos;
+    private final int mask;
+
+    // Next slot to read, written by the consumer
+    private final AtomicLong head = new AtomicLong();
+    // Next slot to write, written by the producer
+    private final AtomicLong tail = new AtomicLong();
+
+    private long producerHeadCache;
+    private long consumerTailCache;
+
+    private long polledLsn;
+    private long polledNanos;
+
+    /**
+     * @param capacity number of slots, rounded up to a power of two
+     */
+    public ReplicationRingBuffer(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Invalid ring buffer capacity: " + capacity);
+        }
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.buffers = new ByteBuffer[size];
+        this.lsns = new long[size];
+        this.publishNanos = new long[size];
+        this.mask = size - 1;
+    }
+
+    public int capacity() {
+        return buffers.length;
+    }
+
+    /**
+     * Publishes a message, producer side.
+     *
+     * @return false if the ring is full
+     */
+    public boolean offer(ByteBuffer buffer, long lsn) {
+        final long currentTail = tail.get();
+        if (currentTail - producerHeadCache >= buffers.length) {
+            producerHeadCache = head.get();
+            if (currentTail - producerHeadCache >= buffers.length) {
+                return false;
+            }
+        }
+        final int index = (int) currentTail & mask;
+        buffers[index] = buffer;
+        lsns[index] = lsn;
+        publishNanos[index] = System.nanoTime();
+        tail.lazySet(currentTail + 1);
+        return true;
+    }
+
+    /**
+     * Takes the oldest message, consumer side. Its LSN and publish time are then available from
+     * {@link #getPolledLsn()} and {@link #getPolledNanos()}.
+     *
+     * @return the message buffer, or null if the ring is empty
+     */
+    public ByteBuffer poll() {
+        final long currentHead = head.get();
+        if (currentHead >= consumerTailCache) {
+            consumerTailCache = tail.get();
+            if (currentHead >= consumerTailCache) {
+                return null;
+            }
+        }
+        final int index = (int) currentHead & mask;
+        final ByteBuffer buffer = buffers[index];
+        buffers[index] = null;
+        polledLsn = lsns[index];
+        polledNanos = publishNanos[index];
+        head.lazySet(currentHead + 1);
+        return buffer;
+    }
+
+    public long getPolledLsn() {
+        return polledLsn;
+    }
+
+    /**
+     * {@link System#nanoTime()} at which the last polled message was published.
+     */
+    public long getPolledNanos() {
+        return polledNanos;
+    }
+
+    /**
+     * Number of messages waiting, approximate when called while both sides are running.
+     */
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    public boolean isEmpty() {
+        return tail.get() == head.get();
+    }
+}
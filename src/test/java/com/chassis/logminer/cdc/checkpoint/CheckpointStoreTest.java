@@ -0,0 +1,275 @@
+package com.chassis.logminer.cdc.checkpoint;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the two-slot memory-mapped checkpoint file.
+ */
+class CheckpointStoreTest {
+
+    private static final int SLOT_SIZE = 64;
+
+    @TempDir
+    Path directory;
+
+    @Nested
+    @DisplayName("Update Tests")
+    class UpdateTests {
+
+        @Test
+        @DisplayName("Should be empty until the first update")
+        void testEmpty() throws IOException {
+            try (CheckpointStore store = open()) {
+                assertTrue(store.isEmpty());
+                assertEquals(0, store.getPosition());
+                assertNull(store.getRsId());
+            }
+        }
+
+        @Test
+        @DisplayName("Should resume from the last update after a restart")
+        void testReopen() throws IOException {
+            try (CheckpointStore store = open()) {
+                store.update(1000, 990, " 0x000012.00000034.0010 ", 4);
+                store.update(2000, 1990, " 0x000013.00000001.0010 ", 7);
+            }
+
+            try (CheckpointStore store = open()) {
+                assertFalse(store.isEmpty());
+                assertEquals(2000, store.getPosition());
+                assertEquals(1990, store.getCommitPosition());
+                assertEquals("0x000013.00000001.0010", store.getRsId());
+                assertEquals(7, store.getSsn());
+                assertEquals(2, store.getUpdates());
+            }
+        }
+
+        @Test
+        @DisplayName("Should keep unsigned positions and a missing RS_ID")
+        void testPositionOnly() throws IOException {
+            try (CheckpointStore store = open()) {
+                store.update(0xFFFF_FFFF_0000_0001L);
+            }
+
+            try (CheckpointStore store = open()) {
+                assertEquals(0xFFFF_FFFF_0000_0001L, store.getPosition());
+                assertEquals(0, store.getCommitPosition());
+                assertNull(store.getRsId());
+            }
+        }
+
+        @Test
+        @DisplayName("Should reject an RS_ID that does not fit in a slot")
+        void testRsIdTooLong() throws IOException {
+            try (CheckpointStore store = open()) {
+                assertThrows(IllegalArgumentException.class, () -> store.update(1, 1, "x".repeat(40), 0));
+                assertTrue(store.isEmpty());
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Torn Slot Tests")
+    class TornSlotTests {
+
+        @Test
+        @DisplayName("Should fall back to the other slot when the latest one fails its CRC")
+        void testTornLatestSlot() throws IOException {
+            try (CheckpointStore store = open()) {
+                store.update(1000, 990, "rs1", 1);
+                store.sync();
+                store.update(2000, 1990, "rs2", 2);
+                store.sync();
+                store.update(3000, 2990, "rs3", 3);
+            }
+            // Slots are written alternately from slot 1, update 3 went to slot 1 and the crash left it half written
+            corrupt(SLOT_SIZE + 8);
+
+            try (CheckpointStore store = open()) {
+                assertEquals(2000, store.getPosition());
+                assertEquals(1990, store.getCommitPosition());
+                assertEquals("rs2", store.getRsId());
+                assertEquals(2, store.getUpdates());
+
+                // The next update overwrites the torn slot
+                store.update(4000, 3990, "rs4", 4);
+            }
+            try (CheckpointStore store = open()) {
+                assertEquals(4000, store.getPosition());
+                assertEquals("rs4", store.getRsId());
+            }
+        }
+
+        @Test
+        @DisplayName("Should keep the latest slot when the older one is torn")
+        void testTornOlderSlot() throws IOException {
+            try (CheckpointStore store = open()) {
+                store.update(1000, 990, "rs1", 1);
+                store.sync();
+                store.update(2000, 1990, "rs2", 2);
+            }
+            corrupt(SLOT_SIZE + 40);
+
+            try (CheckpointStore store = open()) {
+                assertEquals(2000, store.getPosition());
+                assertEquals("rs2", store.getRsId());
+            }
+        }
+
+        @Test
+        @DisplayName("Should start empty when both slots are torn")
+        void testBothSlotsTorn() throws IOException {
+            try (CheckpointStore store = open()) {
+                store.update(1000, 990, "rs1", 1);
+                store.sync();
+                store.update(2000, 1990, "rs2", 2);
+            }
+            corrupt(8);
+            corrupt(SLOT_SIZE + 8);
+
+            try (CheckpointStore store = open()) {
+                assertTrue(store.isEmpty());
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Sync Tests")
+    class SyncTests {
+
+        @Test
+        @DisplayName("Should only write to disk when the checkpoint moved")
+        void testSyncOnlyWhenUpdated() throws IOException {
+            try (CheckpointStore store = open()) {
+                store.sync();
+                assertEquals(0, store.getSyncs());
+
+                store.update(1000);
+                store.update(2000);
+                store.sync();
+                store.sync();
+                assertEquals(1, store.getSyncs());
+            }
+        }
+
+        @Test
+        @DisplayName("Should flush the sync dependency before the checkpoint")
+        void testSyncDependency() throws IOException {
+            try (CheckpointStore store = open()) {
+                long[] syncsSeen = {-1};
+                store.setSyncDependency(() -> syncsSeen[0] = store.getSyncs());
+
+                store.sync();
+                assertEquals(-1, syncsSeen[0]);
+
+                store.update(1000);
+                store.sync();
+                assertEquals(0, syncsSeen[0]);
+                assertEquals(1, store.getSyncs());
+            }
+        }
+
+        @Test
+        @DisplayName("Should keep the previous checkpoint in the file until the dependency is flushed")
+        void testMappingBehindDependency() throws IOException {
+            try (CheckpointStore store = open()) {
+                store.update(1000);
+                store.sync();
+                byte[] synced = Files.readAllBytes(file());
+
+                byte[][] seen = new byte[1][];
+                store.setSyncDependency(() -> {
+                    seen[0] = Files.readAllBytes(file());
+                    // Made while the dependency is flushed, it waits for the next sync
+                    store.update(3000);
+                });
+                store.update(2000);
+                store.sync();
+
+                assertArrayEquals(synced, seen[0]);
+                assertEquals(2, store.getSyncs());
+                try (CheckpointStore reopened = open()) {
+                    assertEquals(2000, reopened.getPosition());
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("Should not sync the checkpoint when the dependency fails")
+        void testSyncDependencyFailure() throws IOException {
+            try (CheckpointStore store = open()) {
+                boolean[] failing = {true};
+                store.setSyncDependency(() -> {
+                    if (failing[0]) {
+                        throw new IOException("disk full");
+                    }
+                });
+                store.update(1000);
+
+                assertThrows(UncheckedIOException.class, store::sync);
+                assertEquals(0, store.getSyncs());
+                try (CheckpointStore reopened = open()) {
+                    assertTrue(reopened.isEmpty());
+                }
+
+                failing[0] = false;
+                store.sync();
+                assertEquals(1, store.getSyncs());
+            }
+        }
+
+        @Test
+        @DisplayName("Should write updates from the flusher thread")
+        void testFlusher() throws IOException, InterruptedException {
+            try (CheckpointStore store = new CheckpointStore(directory.resolve("checkpoint.dat"), 1)) {
+                store.start();
+                store.update(1000);
+
+                long deadline = System.currentTimeMillis() + 5000;
+                while (store.getSyncs() == 0 && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(1);
+                }
+                assertEquals(1, store.getSyncs());
+            }
+        }
+
+        @Test
+        @DisplayName("Should reject a flush interval below 1 ms")
+        void testInvalidInterval() {
+            assertThrows(IllegalArgumentException.class,
+                    () -> new CheckpointStore(directory.resolve("checkpoint.dat"), 0));
+        }
+    }
+
+    private Path file() {
+        return directory.resolve("checkpoint.dat");
+    }
+
+    private CheckpointStore open() throws IOException {
+        return new CheckpointStore(file());
+    }
+
+    private void corrupt(long offset) throws IOException {
+        try (FileChannel channel = FileChannel.open(file(),
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer value = ByteBuffer.allocate(1);
+            channel.read(value, offset);
+            value.put(0, (byte) (value.get(0) ^ 0x5A));
+            value.rewind();
+            channel.write(value, offset);
+        }
+    }
+}
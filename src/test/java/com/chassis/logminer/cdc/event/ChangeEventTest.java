@@ -0,0 +1,119 @@
+package com.chassis.logminer.cdc.event;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ChangeEvent and its column images, shared by the Oracle and PostgreSQL engines.
+ */
+class ChangeEventTest {
+
+    @Test
+    @DisplayName("Should encode chars as UTF-8 like String.getBytes")
+    void testAppendChars() {
+        ChangeEventRow row = new ChangeEventRow();
+        String value = "a\u00e9\u20ac\ud83d\ude00z";
+        char[] chars = ("xx" + value).toCharArray();
+
+        row.add("NAME", ChangeEventRow.TEXT);
+        row.append(chars, 2, 3);
+        row.append(chars, 5, chars.length - 5);
+        row.add("OTHER", ChangeEventRow.TEXT, value);
+
+        byte[] expected = value.getBytes(StandardCharsets.UTF_8);
+        assertEquals(expected.length, row.getLength(0));
+        assertEquals(value, row.getValue(0));
+        assertEquals(value, row.getValue(1));
+        assertEquals(row.getOffset(0) + row.getLength(0), row.getOffset(1));
+    }
+
+    @Test
+    @DisplayName("Should replace unpaired surrogates")
+    void testUnpairedSurrogate() {
+        ChangeEventRow row = new ChangeEventRow();
+        row.add("NAME", ChangeEventRow.TEXT, "a\ud83db");
+
+        assertEquals("a?b", row.getValue(0));
+    }
+
+    @Test
+    @DisplayName("Should copy values from a buffer without moving its position")
+    void testAddFromBuffer() {
+        ByteBuffer direct = ByteBuffer.allocateDirect(16);
+        direct.put("..hello".getBytes(StandardCharsets.US_ASCII)).flip();
+        ByteBuffer heap = ByteBuffer.wrap("..world".getBytes(StandardCharsets.US_ASCII));
+
+        ChangeEventRow row = new ChangeEventRow();
+        row.add("A", ChangeEventRow.TEXT, direct, 2, 5);
+        row.add("B", ChangeEventRow.TEXT, heap, 2, 5);
+
+        assertEquals("hello", row.getValue(0));
+        assertEquals("world", row.getValue(1));
+        assertEquals(0, direct.position());
+        assertEquals(0, heap.position());
+    }
+
+    @Test
+    @DisplayName("Should keep null and unchanged columns without data")
+    void testNullAndUnchanged() {
+        ChangeEventRow row = new ChangeEventRow();
+        row.addNull("A");
+        row.addUnchanged("B");
+
+        assertTrue(row.isNull(0));
+        assertTrue(row.isUnchanged(1));
+        assertNull(row.getValue(0));
+        assertNull(row.getValue(1));
+        assertEquals(0, row.getDataLength());
+        assertEquals(1, row.indexOf("B"));
+    }
+
+    @Test
+    @DisplayName("Should grow past the initial capacity and copy into a smaller row")
+    void testGrowAndCopy() {
+        ChangeEventRow row = new ChangeEventRow();
+        for (int i = 0; i < 100; i++) {
+            row.add("C" + i, ChangeEventRow.TEXT, "value-" + i);
+        }
+
+        ChangeEventRow copy = new ChangeEventRow();
+        copy.copyFrom(row);
+        assertEquals(100, copy.getColumnCount());
+        assertEquals("C99", copy.getColumnName(99));
+        assertEquals("value-99", copy.getValue(99));
+
+        row.clear();
+        assertTrue(row.isEmpty());
+        assertEquals("value-0", copy.getValue(0));
+    }
+
+    @Test
+    @DisplayName("Should reset events and copy them with both images")
+    void testEventCopy() {
+        ChangeEvent event = new ChangeEvent();
+        event.reset(ChangeEvent.SOURCE_POSTGRES, ChangeEvent.UPDATE)
+                .setPosition(100, 200, 3)
+                .setTransaction(42, 1_000_000L)
+                .setTable(16384, null, "public", "cdc_test");
+        event.getBefore().add("id", ChangeEventRow.TEXT, "1");
+        event.getAfter().add("id", ChangeEventRow.TEXT, "2");
+
+        ChangeEvent copy = new ChangeEvent();
+        copy.copyFrom(event);
+        event.reset(ChangeEvent.SOURCE_POSTGRES, ChangeEvent.COMMIT);
+
+        assertEquals(ChangeEvent.UPDATE, copy.getOperation());
+        assertEquals(200, copy.getCommitPosition());
+        assertEquals(3, copy.getSequence());
+        assertEquals("cdc_test", copy.getTable());
+        assertEquals("1", copy.getBefore().getValue(0));
+        assertEquals("2", copy.getAfter().getValue(0));
+        assertTrue(event.getBefore().isEmpty());
+        assertNull(event.getTable());
+    }
+}
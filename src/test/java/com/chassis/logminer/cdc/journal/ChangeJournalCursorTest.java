@@ -0,0 +1,95 @@
+package com.chassis.logminer.cdc.journal;
+
+import com.chassis.logminer.cdc.event.ChangeEvent;
+import com.chassis.logminer.cdc.event.ChangeEventRow;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for named consumer cursors over the change journal.
+ */
+class ChangeJournalCursorTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Should keep a separate offset and lag per cursor")
+    void testIndependentCursors() throws Exception {
+        try (ChangeJournal journal = new ChangeJournal(directory)) {
+            append(journal, 0, 10);
+            ChangeJournalCursor fast = journal.openCursor("search");
+            ChangeJournalCursor slow = journal.openCursor("warehouse");
+
+            assertEquals(10, fast.getLag());
+            assertEquals(-1, fast.getLagMicros());
+            assertEquals(10, fast.drainTo(event -> {
+            }));
+            assertEquals(0, fast.getLag());
+
+            ChangeEvent event = new ChangeEvent();
+            assertTrue(slow.next(event));
+            assertTrue(slow.next(event));
+            slow.commit();
+            assertEquals(8, slow.getLag());
+            assertEquals(8000, slow.getLagMicros());
+
+            append(journal, 10, 5);
+            assertEquals(5, fast.getLag());
+            assertEquals(13, slow.getLag());
+            assertEquals(2, journal.getCursors().size());
+
+            assertThrows(IllegalStateException.class, () -> journal.openCursor("search"));
+            assertThrows(IllegalArgumentException.class, () -> journal.openCursor("../search"));
+        }
+    }
+
+    @Test
+    @DisplayName("Should resume a cursor after its last committed event")
+    void testResume() throws Exception {
+        try (ChangeJournal journal = new ChangeJournal(directory)) {
+            append(journal, 0, 10);
+            try (ChangeJournalCursor cursor = journal.openCursor("audit")) {
+                ChangeEvent event = new ChangeEvent();
+                for (int i = 0; i < 4; i++) {
+                    assertTrue(cursor.next(event));
+                }
+                cursor.commit();
+                // Read but not committed, read again after reopening
+                assertTrue(cursor.next(event));
+            }
+            assertTrue(journal.getCursors().isEmpty());
+        }
+
+        try (ChangeJournal journal = new ChangeJournal(directory)) {
+            ChangeJournalCursor cursor = journal.openCursor("audit");
+            ChangeEvent event = new ChangeEvent();
+            assertTrue(cursor.next(event));
+            assertEquals(1004, event.getPosition());
+            assertEquals(5, cursor.getLag());
+
+            // A new cursor starts where it is told, an existing one ignores the start position
+            ChangeJournalCursor late = journal.openCursor("late", 1008);
+            assertTrue(late.next(event));
+            assertEquals(1008, event.getPosition());
+        }
+    }
+
+    private static void append(ChangeJournal journal, int from, int transactions) throws Exception {
+        ChangeEvent event = new ChangeEvent();
+        for (int i = from; i < from + transactions; i++) {
+            // One row transactions, the COMMIT is left out to keep one event per position
+            event.reset(ChangeEvent.SOURCE_POSTGRES, ChangeEvent.INSERT)
+                    .setPosition(1000 + i, 1000 + i, 0)
+                    .setTransaction(i, 1_700_000_000_000_000L + i * 1000L)
+                    .setTable(16384, null, "public", "cdc_test");
+            event.getAfter().add("id", ChangeEventRow.TEXT, Integer.toString(i));
+            journal.append(event);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.chassis.logminer.cdc.journal;
+
+import com.chassis.logminer.cdc.event.ChangeEvent;
+import com.chassis.logminer.cdc.event.ChangeEventRow;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the change journal and its binary event format.
+ */
+class ChangeJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Should read back row changes and commits as appended")
+    void testRoundTrip() throws Exception {
+        ChangeEvent update = new ChangeEvent();
+        update.reset(ChangeEvent.SOURCE_ORACLE, ChangeEvent.UPDATE)
+                .setPosition(100, 105, 0)
+                .setRecord(" 0x000012.00000034.0010 ", 3)
+                .setTransaction(0x1234L, 1_700_000_000_000_000L)
+                .setTable(73001, "PDB1", "HR", "EMPLOYEES");
+        update.getBefore().add("ID", ChangeEventRow.TEXT, "7");
+        update.getBefore().addNull("NAME");
+        update.getAfter().add("ID", ChangeEventRow.TEXT, "7");
+        update.getAfter().add("NAME", ChangeEventRow.TEXT, "Jos\u00e9");
+        update.getAfter().add("HIRED", ChangeEventRow.EXPRESSION, "TO_DATE('2020-01-01', 'YYYY-MM-DD')");
+
+        ChangeEvent commit = new ChangeEvent();
+        commit.reset(ChangeEvent.SOURCE_ORACLE, ChangeEvent.COMMIT)
+                .setPosition(105, 105, 1)
+                .setTransaction(0x1234L, 1_700_000_000_000_000L);
+
+        try (ChangeJournal journal = new ChangeJournal(directory, ChangeJournal.HOURLY)) {
+            long first = journal.append(update);
+            long second = journal.append(commit);
+            assertTrue(second > first);
+            assertEquals(2, journal.getAppended());
+
+            try (ChangeJournalTailer tailer = journal.createTailer()) {
+                ChangeEvent read = new ChangeEvent();
+                assertTrue(tailer.next(read));
+                assertEquals(first, tailer.getIndex());
+                assertEquals(update.toString(), read.toString());
+                assertEquals(" 0x000012.00000034.0010 ", read.getRecordId());
+                assertEquals(3, read.getSubPosition());
+                assertTrue(read.getBefore().isNull(1));
+                assertEquals(ChangeEventRow.EXPRESSION, read.getAfter().getKind(2));
+
+                assertTrue(tailer.next(read));
+                assertEquals(second, tailer.getIndex());
+                assertTrue(read.isCommit());
+                assertNull(read.getRecordId());
+                assertEquals(commit.toString(), read.toString());
+
+                assertFalse(tailer.next(read));
+                assertTrue(read.isCommit());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should let tailers read independently from any index")
+    void testIndependentTailers() throws Exception {
+        try (ChangeJournal journal = new ChangeJournal(directory)) {
+            ChangeEvent event = new ChangeEvent();
+            long[] indexes = new long[10];
+            for (int i = 0; i < indexes.length; i++) {
+                event.reset(ChangeEvent.SOURCE_POSTGRES, ChangeEvent.INSERT)
+                        .setPosition(1000 + i, 2000, i)
+                        .setTable(16384, null, "public", "cdc_test");
+                event.getAfter().add("id", ChangeEventRow.TEXT, Integer.toString(i));
+                indexes[i] = journal.append(event);
+            }
+
+            try (ChangeJournalTailer all = journal.createTailer();
+                 ChangeJournalTailer last = journal.createTailer()) {
+                ChangeEvent read = new ChangeEvent();
+                assertTrue(last.moveToIndex(indexes[7]));
+                assertTrue(last.next(read));
+                assertEquals(1007, read.getPosition());
+                assertEquals("7", read.getAfter().getValue(0));
+
+                int count = 0;
+                while (all.next(read)) {
+                    assertEquals(count, read.getSequence());
+                    count++;
+                }
+                assertEquals(10, count);
+
+                assertTrue(last.next(read));
+                assertEquals(1008, read.getPosition());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should start replays at the first transaction reaching a position or a time")
+    void testReplayFromPosition() throws Exception {
+        try (ChangeJournal journal = new ChangeJournal(directory, ChangeJournal.DAILY, 4)) {
+            // Transactions of 3 rows, two of them committing at each SCN
+            for (int tx = 0; tx < 40; tx++) {
+                appendTransaction(journal, tx, 1000 + tx / 2 * 10, 3);
+            }
+            assertTrue(journal.getIndexEntries() > 5);
+
+            assertReplayStarts(journal.createTailerAtPosition(1050), 10, 30);
+            assertReplayStarts(journal.createTailerAtPosition(1045), 10, 30);
+            assertReplayStarts(journal.createTailerAtPosition(0), 0, 40);
+            assertReplayStarts(journal.createTailerAtTime(micros(1190)), 38, 2);
+
+            try (ChangeJournalTailer tailer = journal.createTailerAtPosition(5000)) {
+                assertFalse(tailer.next(new ChangeEvent()));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should index the events appended after the last index entry when reopened")
+    void testIndexCatchUp() throws Exception {
+        try (ChangeJournal journal = new ChangeJournal(directory, ChangeJournal.DAILY, 4)) {
+            for (int tx = 0; tx < 10; tx++) {
+                appendTransaction(journal, tx, 1000 + tx * 10, 3);
+            }
+        }
+        // Index lost, as if the process died before writing it
+        Files.delete(directory.resolve(ChangeJournal.INDEX_FILE));
+
+        try (ChangeJournal journal = new ChangeJournal(directory, ChangeJournal.DAILY, 4)) {
+            assertTrue(journal.getIndexEntries() > 1);
+            for (int tx = 10; tx < 20; tx++) {
+                appendTransaction(journal, tx, 1000 + tx * 10, 3);
+            }
+            assertReplayStarts(journal.createTailerAtPosition(1150), 15, 5);
+        }
+    }
+
+    @Test
+    @DisplayName("Should force the queue files written since the last sync")
+    void testSync() throws Exception {
+        try (ChangeJournal journal = new ChangeJournal(directory)) {
+            appendTransaction(journal, 0, 1000, 3);
+            journal.sync();
+            // Rolled files, and files that are not queue files such as the index
+            Files.write(directory.resolve("20261017.cq4"), new byte[]{1});
+            Files.write(directory.resolve("20261018.cq4"), new byte[]{2});
+            journal.sync();
+            assertEquals(2, journal.getSyncs());
+        }
+    }
+
+    private static void appendTransaction(ChangeJournal journal, int tx, long commitScn, int rows)
+            throws Exception {
+        ChangeEvent event = new ChangeEvent();
+        for (int row = 0; row < rows; row++) {
+            event.reset(ChangeEvent.SOURCE_ORACLE, ChangeEvent.INSERT)
+                    .setPosition(commitScn - rows + row, commitScn, row)
+                    .setTransaction(tx, micros(commitScn))
+                    .setTable(73001, null, "HR", "EMPLOYEES");
+            journal.append(event);
+        }
+        event.reset(ChangeEvent.SOURCE_ORACLE, ChangeEvent.COMMIT)
+                .setPosition(commitScn, commitScn, rows)
+                .setTransaction(tx, micros(commitScn));
+        journal.append(event);
+    }
+
+    private static long micros(long commitScn) {
+        return 1_700_000_000_000_000L + commitScn * 1000;
+    }
+
+    private static void assertReplayStarts(ChangeJournalTailer tailer, int firstTransaction, int transactions) {
+        List<Long> commits = new ArrayList<>();
+        try (tailer) {
+            ChangeEvent first = new ChangeEvent();
+            assertTrue(tailer.next(first));
+            assertEquals(firstTransaction, first.getTransactionId());
+            assertEquals(0, first.getSequence());
+            tailer.drainTo(event -> {
+                if (event.isCommit()) {
+                    commits.add(event.getTransactionId());
+                }
+            });
+        }
+        assertEquals(transactions, commits.size());
+        assertEquals(firstTransaction, commits.get(0).longValue());
+    }
+}
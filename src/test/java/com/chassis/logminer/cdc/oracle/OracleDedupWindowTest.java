@@ -0,0 +1,178 @@
+package com.chassis.logminer.cdc.oracle;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the memory-mapped window of rows sent since the checkpoint.
+ */
+class OracleDedupWindowTest {
+
+    private static final String RS_ID_1 = " 0x0000a1.00000123.0010 ";
+    private static final String RS_ID_2 = " 0x0000a1.00000124.0010 ";
+
+    @TempDir
+    Path directory;
+
+    @Nested
+    @DisplayName("Resume Tests")
+    class ResumeTests {
+
+        @Test
+        @DisplayName("Should not suppress anything on the first run")
+        void testFirstRun() throws IOException {
+            try (OracleDedupWindow window = open(10)) {
+                assertFalse(window.isResuming());
+                assertFalse(window.isDuplicate(100, RS_ID_1, 0));
+                assertEquals(0, window.size());
+            }
+        }
+
+        @Test
+        @DisplayName("Should suppress the rows recorded before a restart")
+        void testResume() throws IOException {
+            try (OracleDedupWindow window = open(10)) {
+                window.record(110, 100, RS_ID_1, 0);
+                window.record(110, 101, RS_ID_1, 1);
+                window.record(110, 102, RS_ID_2, 0);
+            }
+
+            try (OracleDedupWindow window = open(10)) {
+                assertTrue(window.isResuming());
+                assertEquals(3, window.size());
+                assertTrue(window.isDuplicate(100, RS_ID_1, 0));
+                assertTrue(window.isDuplicate(102, RS_ID_2, 0));
+                // Same SCN with another SSN or RS_ID is a row not sent yet
+                assertFalse(window.isDuplicate(101, RS_ID_1, 2));
+                assertFalse(window.isDuplicate(100, RS_ID_2, 0));
+                assertEquals(2, window.getSuppressed());
+            }
+        }
+
+        @Test
+        @DisplayName("Should find every key after sorting them on restart")
+        void testSortedKeys() throws IOException {
+            Random random = new Random(11);
+            long[] scns = new long[1000];
+            long[] ssns = new long[1000];
+            try (OracleDedupWindow window = open(1000)) {
+                for (int i = 0; i < scns.length; i++) {
+                    // Unsigned SCNs above Long.MAX_VALUE sort after the others
+                    scns[i] = random.nextInt(50) + (i % 7 == 0 ? Long.MIN_VALUE : 0);
+                    ssns[i] = i;
+                    window.record(5000, scns[i], i % 2 == 0 ? RS_ID_1 : RS_ID_2, ssns[i]);
+                }
+            }
+
+            try (OracleDedupWindow window = open(1000)) {
+                for (int i = 0; i < scns.length; i++) {
+                    assertTrue(window.isDuplicate(scns[i], i % 2 == 0 ? RS_ID_1 : RS_ID_2, ssns[i]));
+                }
+                assertFalse(window.isDuplicate(scns[0], RS_ID_1, 1000));
+            }
+        }
+
+        @Test
+        @DisplayName("Should stop resuming and free the sorted keys once past the last recorded commit SCN")
+        void testResumeComplete() throws IOException {
+            try (OracleDedupWindow window = open(10)) {
+                window.record(110, 100, RS_ID_1, 0);
+                window.record(120, 115, RS_ID_1, 1);
+            }
+
+            try (OracleDedupWindow window = open(10)) {
+                long withKeys = window.getMemoryBytes();
+                window.advance(120);
+                assertTrue(window.isResuming());
+                assertTrue(window.isDuplicate(115, RS_ID_1, 1));
+
+                window.advance(121);
+                assertFalse(window.isResuming());
+                assertFalse(window.isDuplicate(115, RS_ID_1, 1));
+                assertTrue(window.getMemoryBytes() < withKeys);
+            }
+        }
+
+        @Test
+        @DisplayName("Should refuse a file that is not a de-duplication window")
+        void testBadMagic() throws IOException {
+            Files.write(directory.resolve("dedup.dat"), new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+
+            assertThrows(IOException.class, () -> open(10));
+        }
+    }
+
+    @Nested
+    @DisplayName("Advance Tests")
+    class AdvanceTests {
+
+        @Test
+        @DisplayName("Should drop the rows of transactions committed before the checkpoint")
+        void testAdvance() throws IOException {
+            try (OracleDedupWindow window = open(10)) {
+                window.record(110, 100, RS_ID_1, 0);
+                window.record(110, 101, RS_ID_1, 1);
+                window.record(120, 115, RS_ID_2, 0);
+                window.record(130, 125, RS_ID_2, 1);
+
+                window.advance(120);
+                assertEquals(2, window.size());
+                window.advance(120);
+                assertEquals(2, window.size());
+            }
+
+            try (OracleDedupWindow window = open(10)) {
+                assertEquals(2, window.size());
+                assertFalse(window.isDuplicate(100, RS_ID_1, 0));
+                assertTrue(window.isDuplicate(115, RS_ID_2, 0));
+                assertTrue(window.isDuplicate(125, RS_ID_2, 1));
+            }
+        }
+
+        @Test
+        @DisplayName("Should stop recording when full until the window advances")
+        void testOverflow() throws IOException {
+            try (OracleDedupWindow window = open(2)) {
+                window.record(110, 100, RS_ID_1, 0);
+                window.record(110, 101, RS_ID_1, 1);
+                window.record(110, 102, RS_ID_1, 2);
+                assertTrue(window.isOverflowed());
+                assertEquals(2, window.size());
+
+                window.advance(111);
+                assertFalse(window.isOverflowed());
+                assertEquals(0, window.size());
+                window.record(120, 115, RS_ID_1, 0);
+                assertEquals(1, window.size());
+            }
+        }
+
+        @Test
+        @DisplayName("Should reject a window without room for a key")
+        void testInvalidSize() {
+            assertThrows(IllegalArgumentException.class, () -> open(0));
+        }
+    }
+
+    @Test
+    @DisplayName("Should pack the RS_ID block address and offset with the SSN")
+    void testKeyPacking() {
+        assertEquals((0xa1L << 32) | 0x123, OracleDedupWindow.rba(RS_ID_1));
+        assertEquals((0x10L << 48) | 5, OracleDedupWindow.offset(RS_ID_1, 5));
+        assertEquals(0, OracleDedupWindow.rba(null));
+        assertEquals(5, OracleDedupWindow.offset(null, 5));
+    }
+
+    private OracleDedupWindow open(int maxKeys) throws IOException {
+        return new OracleDedupWindow(directory.resolve("dedup.dat"), maxKeys);
+    }
+}
@@ -0,0 +1,159 @@
+package com.chassis.logminer.cdc.oracle;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the in-memory part of the log catalog, fed with V$LOG and V$ARCHIVED_LOG rows.
+ */
+class OracleLogCatalogTest {
+
+    private OracleLogCatalog catalog;
+
+    /**
+     * Thread 1 archived 10 [100, 200), 11 [200, 300), 12 [300, 400) and is writing 13 [400, MAX). Thread 2
+     * archived 5 [150, 250) and is writing 6 [250, MAX). The online copy of 12 is still in V$LOG.
+     */
+    @BeforeEach
+    void setUp() {
+        catalog = new OracleLogCatalog(null);
+        catalog.addOnlineLog(online(1, 12, 300, 400, false));
+        catalog.addOnlineLog(online(1, 13, 400, OracleScn.MAX_VALUE, true));
+        catalog.addOnlineLog(online(2, 6, 250, OracleScn.MAX_VALUE, true));
+        catalog.addArchivedLog(archived(1, 10, 100, 200));
+        catalog.addArchivedLog(archived(1, 11, 200, 300));
+        catalog.addArchivedLog(archived(1, 12, 300, 400));
+        catalog.addArchivedLog(archived(2, 5, 150, 250));
+    }
+
+    @Nested
+    @DisplayName("Lookup Tests")
+    class LookupTests {
+
+        @Test
+        @DisplayName("Should find the log containing an SCN, the next SCN of a log belongs to the following one")
+        void testContaining() {
+            assertEquals(List.of("arch_1_10"), containing(100));
+            assertEquals(List.of("arch_1_10", "arch_2_5"), containing(199));
+            assertEquals(List.of("arch_1_11", "arch_2_5"), containing(200));
+            assertEquals(List.of("arch_1_11", "redo_2_6"), containing(250));
+            assertEquals(List.of(), containing(99));
+        }
+
+        @Test
+        @DisplayName("Should include the logs overlapping either edge of the range")
+        void testRangeEdges() {
+            // 10 ends at 200 and is left out, 12 starts at the inclusive end of the range
+            assertEquals(List.of("arch_1_11", "arch_1_12", "arch_2_5", "redo_2_6"), range(200, 300));
+            assertEquals(List.of("arch_1_11", "arch_2_5"), range(200, 200));
+            assertEquals(List.of("arch_1_10", "arch_1_11", "arch_2_5"), range(120, 200));
+        }
+
+        @Test
+        @DisplayName("Should prefer the archived copy of a log still in V$LOG")
+        void testArchivedCopyPreferred() {
+            assertEquals(List.of("arch_1_12", "redo_2_6"), containing(350));
+        }
+
+        @Test
+        @DisplayName("Should return the current logs for any SCN after their first one")
+        void testCurrentLog() {
+            assertEquals(List.of("redo_1_13", "redo_2_6"), containing(400));
+            assertEquals(List.of("redo_1_13", "redo_2_6"), containing(1000000000L));
+            assertEquals(List.of("arch_1_12", "redo_1_13", "redo_2_6"),
+                    names(catalog.getLogFiles(OracleScn.valueOf(350), OracleScn.MAX)));
+        }
+
+        @Test
+        @DisplayName("Should only add an online log once its sequence is above the archived ones")
+        void testOnlineLogArchived() {
+            catalog.addArchivedLog(archived(1, 13, 400, 500));
+
+            assertEquals(List.of("arch_1_13", "redo_2_6"), containing(450));
+            assertEquals(List.of("redo_2_6"), containing(500));
+        }
+
+        @Test
+        @DisplayName("Should binary search every log after the arrays grow")
+        void testManyLogs() {
+            catalog = new OracleLogCatalog(null);
+            for (int i = 0; i < 200; i++) {
+                catalog.addArchivedLog(archived(1, i + 1, 1000 + i * 10L, 1010 + i * 10L));
+            }
+
+            assertEquals(200, catalog.size());
+            for (int i = 0; i < 200; i++) {
+                assertEquals(List.of("arch_1_" + (i + 1)), containing(1000 + i * 10L));
+                assertEquals(List.of("arch_1_" + (i + 1)), containing(1009 + i * 10L));
+            }
+            assertEquals(List.of(), containing(999));
+            assertEquals(List.of(), containing(3000));
+        }
+    }
+
+    @Nested
+    @DisplayName("Eviction Tests")
+    class EvictionTests {
+
+        @Test
+        @DisplayName("Should drop the archived logs ending at or before the SCN")
+        void testEvictBefore() {
+            assertEquals(7, catalog.size());
+
+            catalog.evictBefore(OracleScn.valueOf(300));
+            assertEquals(4, catalog.size());
+            assertEquals(List.of("redo_2_6"), containing(250));
+            assertEquals(List.of("arch_1_12", "redo_2_6"), containing(300));
+
+            // Nothing more to drop
+            catalog.evictBefore(OracleScn.valueOf(300));
+            assertEquals(4, catalog.size());
+        }
+
+        @Test
+        @DisplayName("Should keep preferring archived logs once they are evicted")
+        void testEvictedSequence() {
+            catalog.evictBefore(OracleScn.valueOf(500));
+            assertEquals(3, catalog.size());
+
+            // The online copy of 12 is older than the last archived sequence and stays out
+            assertEquals(List.of("redo_2_6"), containing(350));
+
+            catalog.addArchivedLog(archived(1, 13, 400, 600));
+            assertEquals(List.of("arch_1_13", "redo_2_6"), containing(550));
+        }
+    }
+
+    private List<String> containing(long scn) {
+        return names(catalog.getLogFilesContaining(OracleScn.valueOf(scn)));
+    }
+
+    private List<String> range(long startScn, long endScn) {
+        return names(catalog.getLogFiles(OracleScn.valueOf(startScn), OracleScn.valueOf(endScn)));
+    }
+
+    private static List<String> names(List<OracleLogFile> logFiles) {
+        List<String> names = new ArrayList<>();
+        for (OracleLogFile logFile : logFiles) {
+            names.add(logFile.getFileName());
+        }
+        return names;
+    }
+
+    private static OracleLogFile archived(int thread, long sequence, long firstScn, long nextScn) {
+        return new OracleLogFile("arch_" + thread + "_" + sequence, OracleScn.valueOf(firstScn),
+                OracleScn.valueOf(nextScn), sequence, OracleLogFile.Type.ARCHIVE, thread);
+    }
+
+    private static OracleLogFile online(int thread, long sequence, long firstScn, long nextScn, boolean current) {
+        return new OracleLogFile("redo_" + thread + "_" + sequence, OracleScn.valueOf(firstScn),
+                OracleScn.valueOf(nextScn), sequence, OracleLogFile.Type.REDO, current, thread);
+    }
+}
@@ -0,0 +1,57 @@
+package com.chassis.logminer.cdc.oracle;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the client-side checks of the object filter, the object numbers are not loaded.
+ */
+class OracleObjectFilterTest {
+
+    private static final List<String> TABLES = List.of("C##CRUDUSER.CDC_TEST", "hr.%", "\"Mixed\".\"Case\"", "PLAIN");
+
+    @Test
+    @DisplayName("Should accept DDL on tables of the include list before they have an object number")
+    void testIncludeDdl() {
+        OracleObjectFilter filter = new OracleObjectFilter(null, false, false, TABLES);
+
+        assertTrue(filter.acceptsDdl(73001, 3, "C##CRUDUSER", "CDC_TEST"));
+        assertTrue(filter.acceptsDdl(73002, 3, "HR", "EMPLOYEES"));
+        assertTrue(filter.acceptsDdl(73003, 3, "Mixed", "Case"));
+        assertTrue(filter.acceptsDdl(73004, 3, "ANYONE", "PLAIN"));
+
+        assertFalse(filter.acceptsDdl(73005, 3, "C##CRUDUSER", "OTHER"));
+        assertFalse(filter.acceptsDdl(73006, 3, "MIXED", "CASE"));
+        assertFalse(filter.acceptsDdl(73007, 3, "SCOTT", "EMP"));
+    }
+
+    @Test
+    @DisplayName("Should ignore DDL rows that are not about a table")
+    void testDdlWithoutTable() {
+        OracleObjectFilter filter = new OracleObjectFilter(null, false, false, TABLES);
+
+        assertFalse(filter.acceptsDdl(0, 3, "HR", null));
+    }
+
+    @Test
+    @DisplayName("Should accept DDL on every table but the excluded ones")
+    void testExcludeDdl() {
+        OracleObjectFilter filter = new OracleObjectFilter(null, false, true, List.of("HR.AUDIT_LOG"));
+
+        assertTrue(filter.acceptsDdl(73001, 3, "HR", "EMPLOYEES"));
+        assertTrue(filter.acceptsDdl(73002, 3, "SCOTT", "AUDIT_LOG"));
+        // Its object number is not among the excluded ones, it may be a mined table renamed to an excluded name
+        assertTrue(filter.acceptsDdl(73003, 3, "HR", "AUDIT_LOG"));
+    }
+
+    @Test
+    @DisplayName("Should pack the CON_ID in the low bits of the object key")
+    void testKey() {
+        assertEquals(73001L * 65536 + 3, OracleObjectFilter.key(73001, 3));
+        assertNotEquals(OracleObjectFilter.key(73001, 3), OracleObjectFilter.key(73001, 4));
+    }
+}
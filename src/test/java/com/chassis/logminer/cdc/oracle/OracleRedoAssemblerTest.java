@@ -0,0 +1,127 @@
+package com.chassis.logminer.cdc.oracle;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for joining CSF rows of SQL_REDO into pooled buffers.
+ */
+class OracleRedoAssemblerTest {
+
+    private static final String RS_ID = " 0x000012.00000034.0010 ";
+
+    private OracleCharBufferPool pool;
+    private OracleRedoAssembler assembler;
+
+    @BeforeEach
+    void setUp() {
+        pool = new OracleCharBufferPool();
+        assembler = new OracleRedoAssembler(pool);
+    }
+
+    @Test
+    @DisplayName("Should return statements that were not split without copying them")
+    void testSingleRow() {
+        String redo = "insert into \"HR\".\"T\"(\"ID\") values ('1');";
+
+        assertSame(redo, assembler.append(redo, false, 100, RS_ID, 4));
+        assertFalse(assembler.isPending());
+        assertEquals(100L, assembler.getLastScn());
+        assertEquals(RS_ID, assembler.getLastRsId());
+        assertEquals(4L, assembler.getLastSsn());
+        assertEquals(0, pool.getAllocated());
+    }
+
+    @Test
+    @DisplayName("Should join the rows of a split statement")
+    void testJoinChunks() {
+        assertEquals(OracleScn.NULL_VALUE, assembler.getLastScn());
+        assertNull(assembler.append("insert into \"HR\".\"T\"", true, 100, RS_ID, 4));
+        assertTrue(assembler.isPending());
+        // The last complete statement does not move while one is pending
+        assertEquals(OracleScn.NULL_VALUE, assembler.getLastScn());
+        assertNull(assembler.append("(\"ID\") values ", true, 100, RS_ID, 4));
+        CharSequence redo = assembler.append("('1');", false, 100, RS_ID, 4);
+
+        assertTrue(redo instanceof OracleRedoText);
+        assertEquals("insert into \"HR\".\"T\"(\"ID\") values ('1');", redo.toString());
+        assertFalse(assembler.isPending());
+        assertEquals(100L, assembler.getLastScn());
+    }
+
+    @Test
+    @DisplayName("Should grow the buffer for statements larger than the smallest size class")
+    void testGrow() {
+        String chunk = "x".repeat(4000);
+        for (int i = 0; i < 4; i++) {
+            assertNull(assembler.append(chunk, true, 100, RS_ID, 4));
+        }
+        CharSequence redo = assembler.append(chunk, false, 100, RS_ID, 4);
+
+        assertEquals(20000, redo.length());
+        assertEquals('x', redo.charAt(19999));
+        assertEquals(3, pool.getAllocated());
+        assertThrows(IndexOutOfBoundsException.class, () -> redo.charAt(20000));
+    }
+
+    @Test
+    @DisplayName("Should reuse the buffers of released statements")
+    void testPoolReuse() {
+        String chunk = "y".repeat(3000);
+        for (int statement = 0; statement < 10; statement++) {
+            assembler.append(chunk, true, 100 + statement, RS_ID, statement);
+            OracleRedoText redo = (OracleRedoText) assembler.append(chunk, false, 100 + statement, RS_ID, statement);
+            assertEquals(6000, redo.length());
+            OracleRedoText.release(redo, pool);
+        }
+
+        assertEquals(1, pool.getAllocated());
+        assertEquals(9, pool.getReused());
+    }
+
+    @Test
+    @DisplayName("Should discard an incomplete statement when a row of another statement arrives")
+    void testDiscardIncomplete() {
+        assembler.append("update \"HR\".\"T\" set", true, 100, RS_ID, 4);
+
+        // Different SSN: the rest of the first statement never came
+        CharSequence redo = assembler.append("delete from \"HR\".\"T\";", false, 101, RS_ID, 5);
+
+        assertEquals("delete from \"HR\".\"T\";", redo.toString());
+        assertEquals(1, assembler.getDiscarded());
+        assertEquals(101L, assembler.getLastScn());
+        assertEquals(5L, assembler.getLastSsn());
+
+        // Different RS_ID with the same SSN and SCN, the new statement starts clean
+        assembler.append("first", true, 102, RS_ID, 6);
+        assertNull(assembler.append("second", true, 102, " 0x000013.00000001.0010 ", 6));
+        assertEquals("second-end", assembler.append("-end", false, 102, " 0x000013.00000001.0010 ", 6).toString());
+        assertEquals(2, assembler.getDiscarded());
+    }
+
+    @Test
+    @DisplayName("Should return the pending buffer to the pool on reset")
+    void testReset() {
+        assembler.append("partial", true, 100, RS_ID, 4);
+        assembler.reset();
+
+        assertFalse(assembler.isPending());
+        assertEquals(0, assembler.getDiscarded());
+        assertEquals("whole", assembler.append("whole", false, 101, RS_ID, 5));
+
+        assembler.append("again", true, 102, RS_ID, 6);
+        assertEquals(1, pool.getReused());
+    }
+
+    @Test
+    @DisplayName("Should skip null chunks")
+    void testNullChunk() {
+        assembler.append("abc", true, 100, RS_ID, 4);
+        assembler.append(null, true, 100, RS_ID, 4);
+
+        assertEquals("abcdef", assembler.append("def", false, 100, RS_ID, 4).toString());
+    }
+}
@@ -0,0 +1,144 @@
+package com.chassis.logminer.cdc.oracle;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for OracleRedoParser on SQL_REDO statements as generated by LogMiner.
+ */
+class OracleRedoParserTest {
+
+    private final OracleRedoParser parser = new OracleRedoParser();
+
+    // ==================== Insert Tests ====================
+
+    @Nested
+    @DisplayName("Insert Tests")
+    class InsertTests {
+
+        @Test
+        @DisplayName("Should parse insert with literals and NULL")
+        void testInsert() {
+            OracleRedoStatement statement = parser.parse(
+                    "insert into \"C##CRUDUSER\".\"CDC_TEST\"(\"ID\",\"NAME\",\"AMOUNT\") values ('1','abc',NULL);");
+
+            assertEquals(OracleRedoStatement.INSERT, statement.getOperation());
+            assertEquals("C##CRUDUSER", statement.getSchema());
+            assertEquals("CDC_TEST", statement.getTable());
+            assertNull(statement.getBefore());
+
+            OracleRowImage after = statement.getAfter();
+            assertEquals(3, after.getColumnCount());
+            assertEquals("ID", after.getColumnName(0));
+            assertEquals("1", after.getValue(0));
+            assertEquals("abc", after.getValue(1));
+            assertTrue(after.isNull(2));
+            assertNull(after.getValue(2));
+        }
+
+        @Test
+        @DisplayName("Should unescape doubled quotes and keep special characters in literals")
+        void testInsertEscapedLiteral() {
+            OracleRowImage after = parser.parse(
+                    "insert into \"S\".\"T\"(\"A\",\"B\") values ('it''s, (really) \"fine\"','a and b');").getAfter();
+
+            assertEquals("it's, (really) \"fine\"", after.getValue(0));
+            assertEquals("a and b", after.getValue(1));
+            assertEquals(OracleRowImage.LITERAL, after.getValueKind(0));
+        }
+
+        @Test
+        @DisplayName("Should keep function calls as expressions")
+        void testInsertExpression() {
+            OracleRowImage after = parser.parse(
+                    "insert into \"S\".\"T\"(\"D\",\"R\",\"C\") values " +
+                    "(TO_DATE('2023-01-31 10:00:00', 'YYYY-MM-DD HH24:MI:SS'),HEXTORAW('0a'),EMPTY_CLOB());").getAfter();
+
+            assertEquals(OracleRowImage.EXPRESSION, after.getValueKind(0));
+            assertEquals("TO_DATE('2023-01-31 10:00:00', 'YYYY-MM-DD HH24:MI:SS')", after.getValue(0));
+            assertEquals("HEXTORAW('0a')", after.getValue(1));
+            assertEquals("EMPTY_CLOB()", after.getValue(2));
+        }
+    }
+
+    // ==================== Update and Delete Tests ====================
+
+    @Nested
+    @DisplayName("Update and Delete Tests")
+    class UpdateDeleteTests {
+
+        @Test
+        @DisplayName("Should parse update set and where images, skipping ROWID")
+        void testUpdate() {
+            OracleRedoStatement statement = parser.parse(
+                    "update \"S\".\"T\" set \"NAME\" = 'new', \"AMOUNT\" = NULL " +
+                    "where \"ID\" = '1' and \"NAME\" = 'old' and \"AMOUNT\" IS NULL and ROWID = 'AAAR3sAAEAAAACXAAA';");
+
+            assertEquals(OracleRedoStatement.UPDATE, statement.getOperation());
+
+            OracleRowImage after = statement.getAfter();
+            assertEquals(2, after.getColumnCount());
+            assertEquals("new", after.getValue(after.indexOf("NAME")));
+            assertTrue(after.isNull(after.indexOf("AMOUNT")));
+
+            OracleRowImage before = statement.getBefore();
+            assertEquals(3, before.getColumnCount());
+            assertEquals("1", before.getValue(before.indexOf("ID")));
+            assertEquals("old", before.getValue(before.indexOf("NAME")));
+            assertTrue(before.isNull(before.indexOf("AMOUNT")));
+            assertEquals(-1, before.indexOf("ROWID"));
+        }
+
+        @Test
+        @DisplayName("Should parse delete where image")
+        void testDelete() {
+            OracleRedoStatement statement = parser.parse(
+                    "delete from \"S\".\"T\" where \"ID\" = '7' and \"NAME\" IS NULL and ROWID = 'AAAR3sAAEAAAACXAAB';");
+
+            assertEquals(OracleRedoStatement.DELETE, statement.getOperation());
+            assertNull(statement.getAfter());
+            assertEquals("7", statement.getBefore().getValue(0));
+            assertTrue(statement.getBefore().isNull(1));
+        }
+
+        @Test
+        @DisplayName("Should reuse the statement for the next parse")
+        void testReuse() {
+            parser.parse("insert into \"S\".\"T\"(\"A\",\"B\",\"C\") values ('1','2','3');");
+            OracleRedoStatement statement = parser.parse("delete from \"S\".\"U\" where \"A\" = '1';");
+
+            assertEquals("U", statement.getTable());
+            assertEquals(1, statement.getBefore().getColumnCount());
+        }
+    }
+
+    // ==================== Error Tests ====================
+
+    @Nested
+    @DisplayName("Error Tests")
+    class ErrorTests {
+
+        @Test
+        @DisplayName("Should reject statements other than DML")
+        void testRejectDdl() {
+            assertThrows(IllegalArgumentException.class, () -> parser.parse("create table \"S\".\"T\" (A number);"));
+        }
+
+        @Test
+        @DisplayName("Should reject an unterminated literal")
+        void testRejectUnterminatedLiteral() {
+            assertThrows(IllegalArgumentException.class,
+                    () -> parser.parse("insert into \"S\".\"T\"(\"A\") values ('1);"));
+        }
+
+        @Test
+        @DisplayName("Should reject fewer values than columns")
+        void testRejectMissingValue() {
+            assertThrows(IllegalArgumentException.class,
+                    () -> parser.parse("insert into \"S\".\"T\"(\"A\",\"B\") values ('1');"));
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.chassis.logminer.cdc.oracle;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the memory-mapped history of table definitions.
+ */
+class OracleSchemaHistoryTest {
+
+    @TempDir
+    Path directory;
+
+    @Nested
+    @DisplayName("Version Lookup Tests")
+    class LookupTests {
+
+        @Test
+        @DisplayName("Should return the definition current at the SCN of the change")
+        void testVersionAt() throws IOException {
+            try (OracleSchemaHistory history = open()) {
+                history.record(100, table(73001, "ID"));
+                history.record(200, table(73001, "ID", "NAME"));
+                history.recordDropped(300, 73001, 3);
+
+                // Changes older than the first known definition get that first definition
+                assertEquals(1, history.get(73001, 3, 50).getColumnCount());
+                assertEquals(1, history.get(73001, 3, 100).getColumnCount());
+                assertEquals(1, history.get(73001, 3, 199).getColumnCount());
+                assertEquals(2, history.get(73001, 3, 200).getColumnCount());
+                assertEquals(2, history.get(73001, 3, 299).getColumnCount());
+                assertNull(history.get(73001, 3, 300));
+                assertNull(history.get(73001, 4, 200));
+                assertNull(history.get(73002, 3, 200));
+            }
+        }
+
+        @Test
+        @DisplayName("Should not record a definition equal to the latest one")
+        void testSameDefinition() throws IOException {
+            try (OracleSchemaHistory history = open()) {
+                history.record(100, table(73001, "ID"));
+                history.record(200, table(73001, "ID"));
+                // Unknown tables have nothing to drop
+                history.recordDropped(300, 73002, 3);
+
+                assertEquals(1, history.getRecords());
+            }
+        }
+
+        @Test
+        @DisplayName("Should find every table after the lookup table grows")
+        void testManyTables() throws IOException {
+            try (OracleSchemaHistory history = open()) {
+                for (int i = 1; i <= 500; i++) {
+                    history.record(100, table(i, "C" + i));
+                }
+                history.recordDropped(200, 7, 3);
+
+                for (int i = 1; i <= 500; i++) {
+                    assertEquals("C" + i, history.get(i, 3, 150).getColumnName(0));
+                }
+                List<OracleTableMetadata> latest = new ArrayList<>();
+                history.forEachLatest(latest::add);
+                assertEquals(499, latest.size());
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Replay Tests")
+    class ReplayTests {
+
+        @Test
+        @DisplayName("Should load the recorded history after a restart")
+        void testReplay() throws IOException {
+            try (OracleSchemaHistory history = open()) {
+                history.recordLoaded(90, " and (O.OWNER='HR')");
+                history.record(100, table(73001, "ID"));
+                history.record(200, table(73001, "ID", "NAME"));
+                history.recordDropped(300, 73001, 3);
+            }
+
+            try (OracleSchemaHistory history = open()) {
+                assertEquals(4, history.getRecords());
+                assertEquals(" and (O.OWNER='HR')", history.getLoadedCondition());
+                assertEquals(2, history.get(73001, 3, 250).getColumnCount());
+                assertNull(history.get(73001, 3, 300));
+                assertEquals("HR", history.get(73001, 3, 100).getOwner());
+                assertNull(history.get(73001, 3, 100).getPartitionName());
+            }
+        }
+
+        @Test
+        @DisplayName("Should stop at a record torn by a crash and write over it")
+        void testTornRecord() throws IOException {
+            try (OracleSchemaHistory history = open()) {
+                history.record(100, table(73001, "ID"));
+                history.record(200, table(73001, "ID", "NAME"));
+            }
+            // The body of the second record reached the disk but not its length, written last
+            try (FileChannel channel = FileChannel.open(file(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+                channel.read(length, 8);
+                channel.write(ByteBuffer.allocate(Integer.BYTES), 8 + Integer.BYTES + length.getInt(0));
+            }
+
+            try (OracleSchemaHistory history = open()) {
+                assertEquals(1, history.getRecords());
+                assertEquals(1, history.get(73001, 3, 300).getColumnCount());
+                history.record(300, table(73001, "ID", "AMOUNT"));
+            }
+            try (OracleSchemaHistory history = open()) {
+                assertEquals(2, history.getRecords());
+                assertEquals("AMOUNT", history.get(73001, 3, 300).getColumnName(1));
+                assertEquals(1, history.get(73001, 3, 200).getColumnCount());
+            }
+        }
+
+        @Test
+        @DisplayName("Should refuse a file that is not a schema history")
+        void testBadMagic() throws IOException {
+            Files.write(file(), new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+
+            assertThrows(IOException.class, () -> open());
+        }
+    }
+
+    private Path file() {
+        return directory.resolve("schema-history.dat");
+    }
+
+    private OracleSchemaHistory open() throws IOException {
+        return new OracleSchemaHistory(file());
+    }
+
+    private static OracleTableMetadata table(long objectId, String... columns) {
+        int[] lengths = new int[columns.length];
+        boolean[] nullable = new boolean[columns.length];
+        String[] types = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            types[i] = "NUMBER";
+            lengths[i] = 22;
+            nullable[i] = i > 0;
+        }
+        return new OracleTableMetadata(objectId, 3, objectId, "HR", "T" + objectId, null, "PDB1",
+                columns, types, lengths, new int[columns.length], new int[columns.length], nullable);
+    }
+}
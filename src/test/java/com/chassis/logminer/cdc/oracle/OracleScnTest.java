@@ -0,0 +1,168 @@
+package com.chassis.logminer.cdc.oracle;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for OracleScn, an unsigned 64-bit SCN with MAX and NULL sentinels.
+ */
+class OracleScnTest {
+
+    private static final long HIGH_BIT = Long.MIN_VALUE;
+
+    @Nested
+    @DisplayName("ValueOf and Parse Tests")
+    class ValueOfTests {
+
+        @Test
+        @DisplayName("Should return the shared constants for the sentinel values and one")
+        void testValueOfConstants() {
+            assertSame(OracleScn.MAX, OracleScn.valueOf(OracleScn.MAX_VALUE));
+            assertSame(OracleScn.NULL, OracleScn.valueOf(OracleScn.NULL_VALUE));
+            assertSame(OracleScn.ONE, OracleScn.valueOf(1));
+            assertTrue(OracleScn.NULL.isNull());
+            assertFalse(OracleScn.MAX.isNull());
+        }
+
+        @Test
+        @DisplayName("Should parse values above Long.MAX_VALUE as unsigned")
+        void testParseUnsigned() {
+            assertEquals(HIGH_BIT, OracleScn.parse("9223372036854775808"));
+            assertSame(OracleScn.MAX, OracleScn.valueOf("18446744073709551615"));
+            assertEquals(12345678901L, OracleScn.valueOf("12345678901").longValue());
+        }
+
+        @Test
+        @DisplayName("Should reject negative and non numeric text")
+        void testParseInvalid() {
+            assertThrows(NumberFormatException.class, () -> OracleScn.parse("-1"));
+            assertThrows(NumberFormatException.class, () -> OracleScn.parse("12a"));
+            assertThrows(NumberFormatException.class, () -> OracleScn.parse("18446744073709551616"));
+        }
+
+        @Test
+        @DisplayName("Should read NULL as zero through longValue")
+        void testNullLongValue() {
+            assertEquals(0L, OracleScn.NULL.longValue());
+            assertEquals(OracleScn.MAX_VALUE, OracleScn.MAX.longValue());
+        }
+    }
+
+    @Nested
+    @DisplayName("Compare Tests")
+    class CompareTests {
+
+        @Test
+        @DisplayName("Should compare values with the high bit set as larger")
+        void testUnsignedCompare() {
+            assertTrue(OracleScn.compare(HIGH_BIT, Long.MAX_VALUE) > 0);
+            assertTrue(OracleScn.compare(Long.MAX_VALUE, HIGH_BIT) < 0);
+            assertTrue(OracleScn.valueOf(HIGH_BIT).compareTo(OracleScn.valueOf(Long.MAX_VALUE)) > 0);
+            assertTrue(OracleScn.MAX.compareTo(OracleScn.valueOf(HIGH_BIT)) > 0);
+            assertEquals(0, OracleScn.compare(42, 42));
+        }
+
+        @Test
+        @DisplayName("Should sort NULL before every other value")
+        void testNullSortsFirst() {
+            assertTrue(OracleScn.compare(OracleScn.NULL_VALUE, 0) < 0);
+            assertTrue(OracleScn.compare(0, OracleScn.NULL_VALUE) > 0);
+            assertTrue(OracleScn.NULL.compareTo(OracleScn.valueOf(0)) < 0);
+            assertTrue(OracleScn.MAX.compareTo(OracleScn.NULL) > 0);
+            assertEquals(0, OracleScn.NULL.compareTo(OracleScn.NULL));
+        }
+    }
+
+    @Nested
+    @DisplayName("Add Tests")
+    class AddTests {
+
+        @Test
+        @DisplayName("Should add plain values")
+        void testAdd() {
+            assertEquals(15L, OracleScn.valueOf(10).add(5).longValue());
+            assertEquals(11L, OracleScn.valueOf(10).add(OracleScn.ONE).longValue());
+            assertEquals(HIGH_BIT, OracleScn.valueOf(Long.MAX_VALUE).add(1).longValue());
+        }
+
+        @Test
+        @DisplayName("Should saturate at MAX instead of wrapping into the sentinels")
+        void testSaturatingAdd() {
+            assertSame(OracleScn.MAX, OracleScn.MAX.add(1));
+            assertSame(OracleScn.MAX, OracleScn.valueOf(7).add(OracleScn.MAX_VALUE));
+            // Would land on NULL_VALUE, then on MAX_VALUE, then wrap around zero
+            assertSame(OracleScn.MAX, OracleScn.valueOf(OracleScn.NULL_VALUE - 1).add(1));
+            assertSame(OracleScn.MAX, OracleScn.valueOf(OracleScn.NULL_VALUE - 2).add(3));
+            assertSame(OracleScn.MAX, OracleScn.valueOf(HIGH_BIT).add(HIGH_BIT));
+            assertEquals(OracleScn.NULL_VALUE - 1, OracleScn.valueOf(OracleScn.NULL_VALUE - 2).add(1).longValue());
+        }
+
+        @Test
+        @DisplayName("Should treat NULL as an absent operand")
+        void testAddNull() {
+            OracleScn scn = OracleScn.valueOf(3);
+            assertSame(scn, scn.add(OracleScn.NULL));
+            assertSame(scn, OracleScn.NULL.add(scn));
+            assertEquals(7L, OracleScn.NULL.add(7).longValue());
+        }
+    }
+
+    @Nested
+    @DisplayName("Subtract Tests")
+    class SubtractTests {
+
+        @Test
+        @DisplayName("Should subtract plain and unsigned values")
+        void testSubtract() {
+            assertEquals(7L, OracleScn.valueOf(10).subtract(OracleScn.valueOf(3)).longValue());
+            assertEquals(0L, OracleScn.valueOf(10).subtract(OracleScn.valueOf(10)).longValue());
+            assertEquals(1L, OracleScn.valueOf(HIGH_BIT).subtract(OracleScn.valueOf(Long.MAX_VALUE)).longValue());
+        }
+
+        @Test
+        @DisplayName("Should throw on underflow instead of wrapping")
+        void testSubtractUnderflow() {
+            ArithmeticException e = assertThrows(ArithmeticException.class,
+                    () -> OracleScn.valueOf(3).subtract(OracleScn.valueOf(10)));
+            assertTrue(e.getMessage().contains("3 - 10"));
+            assertThrows(ArithmeticException.class,
+                    () -> OracleScn.valueOf(Long.MAX_VALUE).subtract(OracleScn.valueOf(HIGH_BIT)));
+            assertThrows(ArithmeticException.class, () -> OracleScn.NULL.subtract(OracleScn.ONE));
+        }
+
+        @Test
+        @DisplayName("Should leave MAX and NULL operands unchanged")
+        void testSubtractSentinels() {
+            OracleScn scn = OracleScn.valueOf(5);
+            assertSame(scn, scn.subtract(OracleScn.NULL));
+            assertSame(OracleScn.MAX, OracleScn.MAX.subtract(scn));
+            assertEquals(0L, OracleScn.NULL.subtract(OracleScn.valueOf(0)).longValue());
+        }
+    }
+
+    @Nested
+    @DisplayName("Equality and ToString Tests")
+    class EqualityTests {
+
+        @Test
+        @DisplayName("Should be equal by value")
+        void testEquals() {
+            assertEquals(OracleScn.valueOf(123), OracleScn.valueOf(123L));
+            assertEquals(OracleScn.valueOf(123).hashCode(), OracleScn.valueOf(123L).hashCode());
+            assertNotEquals(OracleScn.valueOf(123), OracleScn.valueOf(124));
+            assertNotEquals(OracleScn.NULL, OracleScn.valueOf(0));
+        }
+
+        @Test
+        @DisplayName("Should print unsigned decimal values and name the sentinels")
+        void testToString() {
+            assertEquals("9223372036854775808", OracleScn.valueOf(HIGH_BIT).toString());
+            assertEquals("MAX", OracleScn.MAX.toString());
+            assertEquals("null", OracleScn.NULL.toString());
+            assertEquals("42", OracleScn.valueOf(42).toString());
+        }
+    }
+}
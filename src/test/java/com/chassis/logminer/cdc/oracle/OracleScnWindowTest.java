@@ -0,0 +1,165 @@
+package com.chassis.logminer.cdc.oracle;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the adaptive SCN range mined per LogMiner cycle.
+ */
+class OracleScnWindowTest {
+
+    private static final long MIN_WINDOW = 1000;
+    private static final long MAX_WINDOW = 1000000;
+    private static final long INITIAL_WINDOW = 100000;
+    private static final long TARGET_QUERY_MS = 1000;
+    private static final long TARGET_ROWS = 10000;
+
+    @Nested
+    @DisplayName("Shrink Tests")
+    class ShrinkTests {
+
+        @Test
+        @DisplayName("Should shrink by the worst overshoot of query time and rows")
+        void testWorstOvershoot() {
+            OracleScnWindow window = open();
+
+            // 4x the target query time beats 2.5x the target rows
+            window.adjust(4000, 25000, INITIAL_WINDOW);
+            assertEquals(25000, window(window));
+
+            // Rows now overshoot the most
+            window.adjust(500, 50000, 25000);
+            assertEquals(5000, window(window));
+        }
+
+        @Test
+        @DisplayName("Should at least halve the window on a small overshoot")
+        void testSmallOvershoot() {
+            OracleScnWindow window = open();
+
+            window.adjust(1500, 0, INITIAL_WINDOW);
+            assertEquals(50000, window(window));
+        }
+
+        @Test
+        @DisplayName("Should at least halve the window when the session memory passes the high watermark")
+        void testMemoryHighWatermark() {
+            OracleScnWindow window = open();
+
+            window.recordSessionMemory(85, 100);
+            window.adjust(10, 10, INITIAL_WINDOW);
+            assertEquals(50000, window(window));
+
+            // A memory overshoot does not hide a larger one in rows
+            window.recordSessionMemory(90, 100);
+            window.adjust(10, 40000, 50000);
+            assertEquals(12500, window(window));
+        }
+    }
+
+    @Nested
+    @DisplayName("Growth Tests")
+    class GrowthTests {
+
+        @Test
+        @DisplayName("Should double the window after a cheap cycle that mined all of it")
+        void testGrow() {
+            OracleScnWindow window = open();
+
+            window.adjust(100, 1000, INITIAL_WINDOW);
+            assertEquals(200000, window(window));
+        }
+
+        @Test
+        @DisplayName("Should not grow when the window was capped by the current SCN")
+        void testCappedByCurrentScn() {
+            OracleScnWindow window = open();
+
+            window.adjust(100, 1000, 40000);
+            assertEquals(INITIAL_WINDOW, window(window));
+        }
+
+        @Test
+        @DisplayName("Should keep the window between the two targets")
+        void testHold() {
+            OracleScnWindow window = open();
+
+            window.adjust(700, 1000, INITIAL_WINDOW);
+            assertEquals(INITIAL_WINDOW, window(window));
+
+            window.adjust(100, 7000, INITIAL_WINDOW);
+            assertEquals(INITIAL_WINDOW, window(window));
+
+            // Session memory between the watermarks
+            window.recordSessionMemory(60, 100);
+            window.adjust(100, 1000, INITIAL_WINDOW);
+            assertEquals(INITIAL_WINDOW, window(window));
+        }
+
+        @Test
+        @DisplayName("Should forget the session memory of the previous cycle")
+        void testMemoryReset() {
+            OracleScnWindow window = open();
+
+            window.recordSessionMemory(60, 100);
+            window.adjust(100, 1000, INITIAL_WINDOW);
+            window.adjust(100, 1000, INITIAL_WINDOW);
+            assertEquals(200000, window(window));
+        }
+    }
+
+    @Nested
+    @DisplayName("Bounds Tests")
+    class BoundsTests {
+
+        @Test
+        @DisplayName("Should clamp the window to the maximum and minimum")
+        void testClamp() {
+            OracleScnWindow window = open();
+
+            for (int i = 0; i < 10; i++) {
+                window.adjust(0, 0, MAX_WINDOW);
+            }
+            assertEquals(MAX_WINDOW, window(window));
+
+            window.adjust(TARGET_QUERY_MS * 10000, 0, MAX_WINDOW);
+            assertEquals(MIN_WINDOW, window(window));
+            window.adjust(TARGET_QUERY_MS * 2, 0, MIN_WINDOW);
+            assertEquals(MIN_WINDOW, window(window));
+        }
+
+        @Test
+        @DisplayName("Should clamp the initial window")
+        void testClampInitial() {
+            assertEquals(MIN_WINDOW, window(new OracleScnWindow(MIN_WINDOW, MAX_WINDOW, 10,
+                    TARGET_QUERY_MS, TARGET_ROWS)));
+            assertEquals(MAX_WINDOW, window(new OracleScnWindow(MIN_WINDOW, MAX_WINDOW, Long.MAX_VALUE,
+                    TARGET_QUERY_MS, TARGET_ROWS)));
+        }
+
+        @Test
+        @DisplayName("Should reject invalid bounds and targets")
+        void testInvalid() {
+            assertThrows(IllegalArgumentException.class,
+                    () -> new OracleScnWindow(0, MAX_WINDOW, INITIAL_WINDOW, TARGET_QUERY_MS, TARGET_ROWS));
+            assertThrows(IllegalArgumentException.class,
+                    () -> new OracleScnWindow(MIN_WINDOW, MIN_WINDOW - 1, INITIAL_WINDOW,
+                            TARGET_QUERY_MS, TARGET_ROWS));
+            assertThrows(IllegalArgumentException.class,
+                    () -> new OracleScnWindow(MIN_WINDOW, MAX_WINDOW, INITIAL_WINDOW, 0, TARGET_ROWS));
+            assertThrows(IllegalArgumentException.class,
+                    () -> new OracleScnWindow(MIN_WINDOW, MAX_WINDOW, INITIAL_WINDOW, TARGET_QUERY_MS, 0));
+        }
+    }
+
+    private static OracleScnWindow open() {
+        return new OracleScnWindow(MIN_WINDOW, MAX_WINDOW, INITIAL_WINDOW, TARGET_QUERY_MS, TARGET_ROWS);
+    }
+
+    private static long window(OracleScnWindow window) {
+        return window.getWindow().longValue();
+    }
+}
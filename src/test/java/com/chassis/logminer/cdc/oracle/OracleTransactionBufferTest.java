@@ -0,0 +1,317 @@
+package com.chassis.logminer.cdc.oracle;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the client-side transaction buffer: XID table, partial rollbacks and spilling to disk.
+ */
+class OracleTransactionBufferTest {
+
+    private static final int INSERT = 1;
+    private static final int UPDATE = 3;
+
+    @TempDir
+    Path spillDirectory;
+
+    @Nested
+    @DisplayName("Commit and Rollback Tests")
+    class CommitTests {
+
+        @Test
+        @DisplayName("Should replay the rows of a committed transaction in order")
+        void testCommit() throws SQLException {
+            OracleTransactionBuffer buffer = newBuffer(100);
+            long xid = OracleXid.pack(3, 7, 1001);
+            addRows(buffer, xid, 1000, 3);
+
+            Recorder recorder = new Recorder();
+            assertEquals(3, buffer.commit(xid, 1010, recorder));
+
+            assertEquals(List.of("row 0", "row 1", "row 2"), recorder.redos);
+            assertEquals(List.of(1010L, 1010L, 1010L), recorder.commitScns);
+            assertEquals(xid, recorder.committedXid);
+            assertEquals(3, recorder.committedEvents);
+            assertEquals(0, buffer.getOpenTransactions());
+        }
+
+        @Test
+        @DisplayName("Should ignore COMMIT and ROLLBACK rows of transactions never buffered")
+        void testUnknownTransaction() throws SQLException {
+            OracleTransactionBuffer buffer = newBuffer(100);
+            Recorder recorder = new Recorder();
+
+            assertEquals(0, buffer.commit(42, 1000, recorder));
+            assertFalse(buffer.rollback(42));
+            assertEquals(-1, recorder.committedEvents);
+        }
+
+        @Test
+        @DisplayName("Should drop rolled back transactions")
+        void testRollback() throws SQLException {
+            OracleTransactionBuffer buffer = newBuffer(100);
+            addRows(buffer, 1, 1000, 2);
+
+            assertTrue(buffer.rollback(1));
+            assertEquals(0, buffer.commit(1, 1010, new Recorder()));
+        }
+
+        @Test
+        @DisplayName("Should report the start SCN of the oldest open transaction")
+        void testOldestScn() throws SQLException {
+            OracleTransactionBuffer buffer = newBuffer(100);
+            assertTrue(buffer.getOldestScn().isNull());
+
+            addRows(buffer, 1, 2000, 1);
+            addRows(buffer, 2, 1500, 1);
+            addRows(buffer, 3, 1800, 1);
+            // Later rows do not move the start of a transaction
+            addRows(buffer, 2, 2500, 1);
+            assertEquals(1500L, buffer.getOldestScn().longValue());
+
+            buffer.commit(2, 2600, new Recorder());
+            assertEquals(1800L, buffer.getOldestScn().longValue());
+        }
+    }
+
+    @Nested
+    @DisplayName("XID Table Tests")
+    class TableTests {
+
+        @Test
+        @DisplayName("Should find every open transaction after growing and after removals in any order")
+        void testBackwardShiftDelete() throws SQLException {
+            OracleTransactionBuffer buffer = newBuffer(100);
+            List<Long> xids = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                // Consecutive slots of a few undo segments, as Oracle hands them out
+                long xid = OracleXid.pack(i % 4, i, 5000 + i);
+                xids.add(xid);
+                addRows(buffer, xid, 1000 + i, 1 + i % 3);
+            }
+            assertEquals(500, buffer.getOpenTransactions());
+
+            Collections.shuffle(xids, new Random(7));
+            for (int i = 0; i < xids.size(); i++) {
+                long xid = xids.get(i);
+                int slot = OracleXid.getSlot(xid);
+                Recorder recorder = new Recorder();
+                assertEquals(1 + slot % 3, buffer.commit(xid, 9000, recorder));
+                assertEquals(xid, recorder.xids.get(0).longValue());
+                assertEquals(500 - i - 1, buffer.getOpenTransactions());
+            }
+        }
+
+        @Test
+        @DisplayName("Should drop every transaction on clear")
+        void testClear() throws SQLException {
+            OracleTransactionBuffer buffer = newBuffer(2);
+            addRows(buffer, 1, 1000, 5);
+            addRows(buffer, 2, 1000, 1);
+            buffer.clear();
+
+            assertEquals(0, buffer.getOpenTransactions());
+            assertEquals(0, buffer.getSpilledTransactions());
+            assertEquals(0, buffer.commit(1, 1010, new Recorder()));
+        }
+    }
+
+    @Nested
+    @DisplayName("Partial Rollback Tests")
+    class UndoTests {
+
+        @Test
+        @DisplayName("Should undo the latest row with the same ROW_ID")
+        void testUndoLatestRow() throws SQLException {
+            OracleTransactionBuffer buffer = newBuffer(100);
+            add(buffer, 1, "a", "A1");
+            add(buffer, 1, "b", "B1");
+            add(buffer, 1, "a", "A2");
+            buffer.undo(1, "a");
+
+            Recorder recorder = new Recorder();
+            assertEquals(2, buffer.commit(1, 1010, recorder));
+            assertEquals(List.of("A1", "B1"), recorder.redos);
+        }
+
+        @Test
+        @DisplayName("Should only undo rows added before the rollback row")
+        void testUndoOrder() throws SQLException {
+            OracleTransactionBuffer buffer = newBuffer(100);
+            add(buffer, 1, "a", "A1");
+            buffer.undo(1, "a");
+            add(buffer, 1, "a", "A2");
+            buffer.undo(1, "b");
+            add(buffer, 1, "b", "B1");
+
+            Recorder recorder = new Recorder();
+            assertEquals(2, buffer.commit(1, 1010, recorder));
+            assertEquals(List.of("A2", "B1"), recorder.redos);
+        }
+
+        @Test
+        @DisplayName("Should undo rows one by one, latest first")
+        void testRepeatedUndo() throws SQLException {
+            OracleTransactionBuffer buffer = newBuffer(100);
+            add(buffer, 1, "a", "A1");
+            add(buffer, 1, "a", "A2");
+            add(buffer, 1, "a", "A3");
+            buffer.undo(1, "a");
+            buffer.undo(1, "a");
+
+            Recorder recorder = new Recorder();
+            assertEquals(1, buffer.commit(1, 1010, recorder));
+            assertEquals(List.of("A1"), recorder.redos);
+        }
+
+        @Test
+        @DisplayName("Should ignore rollback rows of other transactions")
+        void testUndoUnknownTransaction() throws SQLException {
+            OracleTransactionBuffer buffer = newBuffer(100);
+            add(buffer, 1, "a", "A1");
+            buffer.undo(2, "a");
+
+            assertEquals(1, buffer.commit(1, 1010, new Recorder()));
+        }
+    }
+
+    @Nested
+    @DisplayName("Spill Tests")
+    class SpillTests {
+
+        @Test
+        @DisplayName("Should move a large transaction to disk and replay it from there")
+        void testSpill() throws SQLException {
+            OracleTransactionBuffer buffer = newBuffer(3);
+            long xid = OracleXid.pack(1, 2, 3);
+            addRows(buffer, xid, 1000, 10);
+            addRows(buffer, 99, 1000, 2);
+
+            assertEquals(1, buffer.getSpilledTransactions());
+            assertTrue(Files.isDirectory(spillDirectory.resolve(OracleXid.toString(xid))));
+
+            Recorder recorder = new Recorder();
+            assertEquals(10, buffer.commit(xid, 1020, recorder));
+            assertEquals("row 9", recorder.redos.get(9));
+            assertEquals(1009L, recorder.scns.get(9).longValue());
+            assertEquals(0, buffer.getSpilledTransactions());
+            assertFalse(Files.exists(spillDirectory.resolve(OracleXid.toString(xid))));
+        }
+
+        @Test
+        @DisplayName("Should apply partial rollbacks to spilled rows")
+        void testUndoSpilled() throws SQLException {
+            OracleTransactionBuffer buffer = newBuffer(2);
+            add(buffer, 1, "a", "A1");
+            add(buffer, 1, "b", "B1");
+            add(buffer, 1, "a", "A2");
+            buffer.undo(1, "a");
+            add(buffer, 1, "c", "C1");
+
+            Recorder recorder = new Recorder();
+            assertEquals(3, buffer.commit(1, 1010, recorder));
+            assertEquals(List.of("A1", "B1", "C1"), recorder.redos);
+        }
+
+        @Test
+        @DisplayName("Should delete spill files on rollback")
+        void testRollbackSpilled() {
+            OracleTransactionBuffer buffer = newBuffer(2);
+            addRows(buffer, 1, 1000, 5);
+
+            assertTrue(buffer.rollback(1));
+            assertFalse(Files.exists(spillDirectory.resolve(OracleXid.toString(1))));
+            assertEquals(0, buffer.getSpilledTransactions());
+        }
+
+        @Test
+        @DisplayName("Should not replay rows spilled before a crash when the transaction is mined again")
+        void testRespillAfterCrash() throws SQLException {
+            long xid = OracleXid.pack(4, 5, 6);
+            OracleTransactionBuffer crashed = newBuffer(2);
+            addRows(crashed, xid, 1000, 5);
+            assertEquals(1, crashed.getSpilledTransactions());
+            // The process dies, the spill queue is left behind
+
+            OracleTransactionBuffer restarted = newBuffer(2);
+            addRows(restarted, xid, 1000, 5);
+            Recorder recorder = new Recorder();
+            assertEquals(5, restarted.commit(xid, 1010, recorder));
+            assertEquals(List.of("row 0", "row 1", "row 2", "row 3", "row 4"), recorder.redos);
+        }
+
+        @Test
+        @DisplayName("Should replace a stale spill of the same transaction")
+        void testStaleSpillReplaced() throws SQLException {
+            Path directory = spillDirectory.resolve("1.2.3");
+            OracleTransactionSpill stale = new OracleTransactionSpill(directory);
+            stale.append(1000, 0, INSERT, "rs", 0, 73001, "stale", "HR", "T", "stale row");
+
+            OracleTransactionSpill spill = new OracleTransactionSpill(directory);
+            spill.append(1001, 0, INSERT, "rs", 0, 73001, "fresh", "HR", "T", "fresh row");
+            List<String> redos = new ArrayList<>();
+            spill.forEach(1, new OracleRedoEvent(), (index, event) -> redos.add(event.getSqlRedo().toString()));
+            spill.delete();
+
+            assertEquals(List.of("fresh row"), redos);
+            assertFalse(Files.exists(directory));
+        }
+    }
+
+    private OracleTransactionBuffer newBuffer(int maxRowsInMemory) {
+        return new OracleTransactionBuffer(spillDirectory, maxRowsInMemory, new OracleCharBufferPool());
+    }
+
+    private static void addRows(OracleTransactionBuffer buffer, long xid, long firstScn, int rows) {
+        for (int i = 0; i < rows; i++) {
+            buffer.add(xid, 3, "PDB1", firstScn + i, 1_700_000_000_000L, INSERT, " 0x000012.00000034.0010 ", i,
+                    73001, "AAAS" + i, "HR", "EMPLOYEES", "row " + i);
+        }
+    }
+
+    private static void add(OracleTransactionBuffer buffer, long xid, String rowId, String sqlRedo) {
+        buffer.add(xid, 3, "PDB1", 1000, 1_700_000_000_000L, UPDATE, " 0x000012.00000034.0010 ", 0,
+                73001, rowId, "HR", "EMPLOYEES", sqlRedo);
+    }
+
+    /**
+     * Copies what it receives, the buffer refills one event for every row.
+     */
+    private static final class Recorder implements OracleTransactionListener {
+
+        final List<String> redos = new ArrayList<>();
+        final List<Long> scns = new ArrayList<>();
+        final List<Long> commitScns = new ArrayList<>();
+        final List<Long> xids = new ArrayList<>();
+        long committedXid;
+        int committedEvents = -1;
+
+        @Override
+        public void onEvent(OracleRedoEvent event) {
+            redos.add(event.getSqlRedo().toString());
+            scns.add(event.getScn());
+            commitScns.add(event.getCommitScn());
+            xids.add(event.getXid());
+            assertEquals(3, event.getConId());
+            assertEquals("PDB1", event.getPdbName());
+        }
+
+        @Override
+        public void onCommit(long xid, long commitScn, int events) {
+            committedXid = xid;
+            committedEvents = events;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.chassis.logminer.cdc.pipeline;
+
+import com.chassis.logminer.cdc.event.ChangeEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the change event pipeline and its ring buffer.
+ */
+class ChangeEventPipelineTest {
+
+    @Test
+    @DisplayName("Should deliver events in order through the transformers")
+    void testOrder() throws Exception {
+        List<Long> sunk = Collections.synchronizedList(new ArrayList<>());
+        List<Long> delivered = Collections.synchronizedList(new ArrayList<>());
+        ChangeEventTransformer dropOdd = event -> event.getPosition() % 2 == 0;
+        ChangeEventTransformer shift = event -> {
+            event.setPosition(event.getPosition() + 1000, event.getCommitPosition(), event.getSequence());
+            return true;
+        };
+
+        try (ChangeEventPipeline pipeline = new ChangeEventPipeline(8, WaitStrategy::yielding,
+                Arrays.asList(dropOdd, shift), event -> sunk.add(event.getPosition()))) {
+            pipeline.start(event -> delivered.add(event.getPosition()));
+            ChangeEvent event = new ChangeEvent();
+            for (long i = 0; i < 100; i++) {
+                pipeline.onChange(event.reset(ChangeEvent.SOURCE_POSTGRES, ChangeEvent.INSERT)
+                        .setPosition(i, i, 0));
+            }
+            pipeline.flush();
+            assertEquals(100, pipeline.getDelivered());
+        }
+
+        assertEquals(50, sunk.size());
+        for (int i = 0; i < sunk.size(); i++) {
+            assertEquals(1000L + 2 * i, sunk.get(i).longValue());
+        }
+        // Dropped events are reported as delivered too, unchanged
+        assertEquals(100, delivered.size());
+        assertEquals(1L, delivered.get(1).longValue());
+        assertEquals(1002L, delivered.get(2).longValue());
+    }
+
+    @Test
+    @DisplayName("Should report events as delivered only after the end of their batch")
+    void testDeliveredAfterBatch() throws Exception {
+        List<String> calls = Collections.synchronizedList(new ArrayList<>());
+        ChangeEventSink sink = new ChangeEventSink() {
+            @Override
+            public void onEvent(ChangeEvent event) {
+                calls.add("event");
+            }
+
+            @Override
+            public void onEndOfBatch() {
+                calls.add("flush");
+            }
+        };
+
+        try (ChangeEventPipeline pipeline = new ChangeEventPipeline(sink)) {
+            pipeline.start(event -> calls.add("delivered"));
+            ChangeEvent event = new ChangeEvent();
+            for (int i = 0; i < 10; i++) {
+                pipeline.onChange(event.reset(ChangeEvent.SOURCE_ORACLE, ChangeEvent.COMMIT));
+            }
+            pipeline.flush();
+        }
+
+        int pending = 0;
+        for (String call : calls) {
+            if (call.equals("event")) {
+                pending++;
+            } else if (call.equals("flush")) {
+                pending = -pending;
+            } else {
+                assertTrue(pending < 0, "delivered before the end of its batch");
+                pending++;
+            }
+        }
+        assertEquals(0, pending);
+    }
+
+    @Test
+    @DisplayName("Should make the producer wait while the sink is blocked")
+    void testBackpressure() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        try (ChangeEventPipeline pipeline = new ChangeEventPipeline(4, WaitStrategy::yielding,
+                Collections.emptyList(), event -> release.await())) {
+            pipeline.start(null);
+            Thread producer = new Thread(() -> {
+                ChangeEvent event = new ChangeEvent();
+                for (int i = 0; i < 6; i++) {
+                    pipeline.onChange(event.reset(ChangeEvent.SOURCE_ORACLE, ChangeEvent.COMMIT));
+                }
+            });
+            producer.start();
+            producer.join(200);
+
+            // The sink is stuck on the first event, which is not released before the end of its batch
+            assertTrue(producer.isAlive());
+            assertEquals(4, pipeline.getPublished());
+            assertTrue(pipeline.getProducerWaits() > 0);
+
+            release.countDown();
+            producer.join(TimeUnit.SECONDS.toMillis(5));
+            pipeline.flush();
+            assertEquals(6, pipeline.getDelivered());
+        }
+    }
+
+    @Test
+    @DisplayName("Should fail the producer when the sink fails")
+    void testSinkFailure() throws Exception {
+        try (ChangeEventPipeline pipeline = new ChangeEventPipeline(4, WaitStrategy::yielding,
+                Collections.emptyList(), event -> {
+                    throw new IllegalArgumentException("sink down");
+                })) {
+            pipeline.start(null);
+            ChangeEvent event = new ChangeEvent().reset(ChangeEvent.SOURCE_ORACLE, ChangeEvent.COMMIT);
+
+            assertThrows(IllegalStateException.class, () -> {
+                for (int i = 0; i < 100; i++) {
+                    pipeline.onChange(event);
+                }
+                pipeline.flush();
+            });
+            assertEquals("sink down", pipeline.getFailure().getMessage());
+        }
+    }
+
+    @Test
+    @DisplayName("Should round the capacity up to a power of two")
+    void testCapacity() {
+        assertEquals(8, new RingBuffer<>(5, ChangeEvent::new).capacity());
+        assertEquals(1024, new RingBuffer<>(1024, ChangeEvent::new).capacity());
+    }
+}
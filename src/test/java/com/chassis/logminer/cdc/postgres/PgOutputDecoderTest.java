@@ -0,0 +1,391 @@
+package com.chassis.logminer.cdc.postgres;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PgOutputDecoder, fed with hand built pgoutput (proto_version 1) messages.
+ */
+class PgOutputDecoderTest {
+
+    private static final int RELATION_ID = 16384;
+
+    private PgOutputDecoder decoder;
+    private RecordingListener listener;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        decoder = new PgOutputDecoder();
+        listener = new RecordingListener();
+        decoder.decode(relationMessage(RELATION_ID, "public", "cdc_test", "id", "name"), 0, listener);
+    }
+
+    @Nested
+    @DisplayName("Transaction Message Tests")
+    class TransactionTests {
+
+        @Test
+        @DisplayName("Should decode Begin with the commit time moved to the Unix epoch")
+        void testBegin() throws IOException {
+            Message m = new Message(PgOutputDecoder.BEGIN).int64(0x1_0000_0100L).int64(5_000_000L).int32(742);
+
+            assertEquals(PgOutputDecoder.BEGIN, decoder.decode(m.buffer(), 0, listener));
+            assertEquals(0x1_0000_0100L, listener.finalLsn);
+            assertEquals(PgOutputDecoder.PG_EPOCH_OFFSET_MICROS + 5_000_000L, listener.commitTimeMicros);
+            assertEquals(742, listener.xid);
+        }
+
+        @Test
+        @DisplayName("Should decode Commit positions")
+        void testCommit() throws IOException {
+            Message m = new Message(PgOutputDecoder.COMMIT).int8(0).int64(0x200L).int64(0x228L).int64(0);
+
+            decoder.decode(m.buffer(), 0, listener);
+            assertEquals(0x200L, listener.commitLsn);
+            assertEquals(0x228L, listener.endLsn);
+            assertEquals(PgOutputDecoder.PG_EPOCH_OFFSET_MICROS, listener.commitTimeMicros);
+        }
+
+        @Test
+        @DisplayName("Should pass the transaction of the last Begin with each row change")
+        void testRowChangeCarriesTransaction() throws IOException {
+            decoder.decode(new Message(PgOutputDecoder.BEGIN).int64(0x300L).int64(0).int32(9).buffer(), 0, listener);
+            decoder.decode(insertMessage(RELATION_ID, "1", "a"), 0x2F0L, listener);
+
+            assertEquals(9, listener.changeXid);
+            assertEquals(0x300L, listener.changeTransactionLsn);
+            assertEquals(0x2F0L, listener.changeMessageLsn);
+        }
+
+        @Test
+        @DisplayName("Should reject unknown message types and ignore logical decoding messages")
+        void testUnknownMessage() throws IOException {
+            assertThrows(IllegalStateException.class, () -> decoder.decode(new Message((byte) 'Z').buffer(), 0, listener));
+            assertEquals(PgOutputDecoder.MESSAGE, decoder.decode(new Message(PgOutputDecoder.MESSAGE).buffer(), 0, listener));
+        }
+    }
+
+    @Nested
+    @DisplayName("Relation Message Tests")
+    class RelationTests {
+
+        @Test
+        @DisplayName("Should cache the relation and its key columns")
+        void testRelation() {
+            PgOutputRelation relation = decoder.getRelations().get(RELATION_ID);
+
+            assertNotNull(relation);
+            assertSame(relation, listener.relation);
+            assertEquals("public.cdc_test", relation.getQualifiedName());
+            assertEquals(2, relation.getColumnCount());
+            assertEquals("name", relation.getColumnName(1));
+            assertTrue(relation.isKeyColumn(0));
+            assertFalse(relation.isKeyColumn(1));
+            assertEquals(PgOutputRelation.REPLICA_IDENTITY_DEFAULT, relation.getReplicaIdentity());
+        }
+
+        @Test
+        @DisplayName("Should replace the relation on a schema change")
+        void testRelationReplaced() throws IOException {
+            decoder.decode(relationMessage(RELATION_ID, "public", "cdc_test", "id", "name", "email"), 0, listener);
+
+            assertEquals(1, decoder.getRelations().size());
+            assertEquals(3, decoder.getRelations().get(RELATION_ID).getColumnCount());
+        }
+
+        @Test
+        @DisplayName("Should decode names longer than the string scratch buffer")
+        void testLongNames() throws IOException {
+            String longName = "t_" + "x".repeat(200);
+            decoder.decode(relationMessage(RELATION_ID + 1, "s\u00e9", longName, "id"), 0, listener);
+
+            assertEquals(longName, decoder.getRelations().get(RELATION_ID + 1).getName());
+            assertEquals("s\u00e9", decoder.getRelations().get(RELATION_ID + 1).getNamespace());
+        }
+    }
+
+    @Nested
+    @DisplayName("Row Change Tests")
+    class RowChangeTests {
+
+        @Test
+        @DisplayName("Should decode Insert values in place")
+        void testInsert() throws IOException {
+            decoder.decode(insertMessage(RELATION_ID, "42", "Jos\u00e9"), 0, listener);
+
+            assertEquals(PgOutputRowChange.INSERT, listener.operation);
+            assertFalse(listener.hadOldTuple);
+            assertEquals(List.of("42", "Jos\u00e9"), listener.newValues);
+            assertEquals(42L, listener.firstNewLong);
+        }
+
+        @Test
+        @DisplayName("Should decode null and unchanged TOAST columns")
+        void testNullAndToast() throws IOException {
+            Message m = new Message(PgOutputDecoder.INSERT).int32(RELATION_ID).int8('N')
+                    .int16(2).int8(PgOutputTuple.KIND_NULL).int8(PgOutputTuple.KIND_UNCHANGED_TOAST);
+            decoder.decode(m.buffer(), 0, listener);
+
+            assertEquals(2, listener.newValues.size());
+            assertNull(listener.newValues.get(0));
+            assertNull(listener.newValues.get(1));
+            assertTrue(listener.newToast);
+        }
+
+        @Test
+        @DisplayName("Should decode Update with the old key")
+        void testUpdateWithOldKey() throws IOException {
+            Message m = new Message(PgOutputDecoder.UPDATE).int32(RELATION_ID)
+                    .int8(PgOutputRowChange.OLD_KEY).tuple("7", null)
+                    .int8('N').tuple("8", "b");
+            decoder.decode(m.buffer(), 0, listener);
+
+            assertEquals(PgOutputRowChange.UPDATE, listener.operation);
+            assertEquals(PgOutputRowChange.OLD_KEY, listener.oldTupleKind);
+            assertEquals("7", listener.oldValues.get(0));
+            assertEquals(List.of("8", "b"), listener.newValues);
+        }
+
+        @Test
+        @DisplayName("Should decode Update without an old tuple")
+        void testUpdateWithoutOldTuple() throws IOException {
+            decoder.decode(new Message(PgOutputDecoder.UPDATE).int32(RELATION_ID).int8('N').tuple("1", "a").buffer(),
+                    0, listener);
+
+            assertFalse(listener.hadOldTuple);
+            assertEquals(List.of("1", "a"), listener.newValues);
+        }
+
+        @Test
+        @DisplayName("Should decode Delete with the whole old row")
+        void testDelete() throws IOException {
+            decoder.decode(new Message(PgOutputDecoder.DELETE).int32(RELATION_ID)
+                    .int8(PgOutputRowChange.OLD_ROW).tuple("3", "c").buffer(), 0, listener);
+
+            assertEquals(PgOutputRowChange.DELETE, listener.operation);
+            assertEquals(PgOutputRowChange.OLD_ROW, listener.oldTupleKind);
+            assertEquals(List.of("3", "c"), listener.oldValues);
+            assertNull(listener.newValues);
+        }
+
+        @Test
+        @DisplayName("Should reject row changes of relations never described")
+        void testUnknownRelation() {
+            assertThrows(IllegalStateException.class,
+                    () -> decoder.decode(insertMessage(RELATION_ID + 99, "1", "a"), 0, listener));
+        }
+
+        @Test
+        @DisplayName("Should reject unexpected tuple types")
+        void testUnexpectedTupleType() throws IOException {
+            ByteBuffer insert = new Message(PgOutputDecoder.INSERT).int32(RELATION_ID).int8('K').tuple("1").buffer();
+            ByteBuffer delete = new Message(PgOutputDecoder.DELETE).int32(RELATION_ID).int8('N').tuple("1").buffer();
+
+            assertThrows(IllegalStateException.class, () -> decoder.decode(insert, 0, listener));
+            assertThrows(IllegalStateException.class, () -> decoder.decode(delete, 0, listener));
+        }
+
+        @Test
+        @DisplayName("Should read values from direct buffers")
+        void testDirectBuffer() throws IOException {
+            ByteBuffer heap = insertMessage(RELATION_ID, "-15", "abc");
+            ByteBuffer direct = ByteBuffer.allocateDirect(heap.remaining());
+            direct.put(heap).flip();
+            decoder.decode(direct, 0, listener);
+
+            assertEquals(List.of("-15", "abc"), listener.newValues);
+            assertEquals(-15L, listener.firstNewLong);
+            assertTrue(listener.secondMatchesAbc);
+        }
+    }
+
+    @Test
+    @DisplayName("Should decode Truncate relation ids and options")
+    void testTruncate() throws IOException {
+        Message m = new Message(PgOutputDecoder.TRUNCATE).int32(12).int8(1);
+        for (int i = 0; i < 12; i++) {
+            m.int32(RELATION_ID + i);
+        }
+        decoder.decode(m.buffer(), 0, listener);
+
+        assertEquals(12, listener.truncated.size());
+        assertEquals(RELATION_ID + 11, listener.truncated.get(11).intValue());
+        assertEquals(1, listener.truncateOptions);
+    }
+
+    private static ByteBuffer relationMessage(int relationId, String namespace, String name, String... columns)
+            throws IOException {
+        Message m = new Message(PgOutputDecoder.RELATION).int32(relationId).string(namespace).string(name)
+                .int8(PgOutputRelation.REPLICA_IDENTITY_DEFAULT).int16(columns.length);
+        for (int i = 0; i < columns.length; i++) {
+            // First column is the key, 23 is int4 and 25 text
+            m.int8(i == 0 ? 1 : 0).string(columns[i]).int32(i == 0 ? 23 : 25).int32(-1);
+        }
+        return m.buffer();
+    }
+
+    private static ByteBuffer insertMessage(int relationId, String... values) throws IOException {
+        return new Message(PgOutputDecoder.INSERT).int32(relationId).int8('N').tuple(values).buffer();
+    }
+
+    /**
+     * Big-endian pgoutput message writer.
+     */
+    private static final class Message {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+
+        Message(byte type) throws IOException {
+            out.writeByte(type);
+        }
+
+        Message int8(int value) throws IOException {
+            out.writeByte(value);
+            return this;
+        }
+
+        Message int16(int value) throws IOException {
+            out.writeShort(value);
+            return this;
+        }
+
+        Message int32(int value) throws IOException {
+            out.writeInt(value);
+            return this;
+        }
+
+        Message int64(long value) throws IOException {
+            out.writeLong(value);
+            return this;
+        }
+
+        Message string(String value) throws IOException {
+            out.write(value.getBytes(StandardCharsets.UTF_8));
+            out.writeByte(0);
+            return this;
+        }
+
+        Message tuple(String... values) throws IOException {
+            out.writeShort(values.length);
+            for (String value : values) {
+                if (value == null) {
+                    out.writeByte(PgOutputTuple.KIND_NULL);
+                } else {
+                    byte[] data = value.getBytes(StandardCharsets.UTF_8);
+                    out.writeByte(PgOutputTuple.KIND_TEXT);
+                    out.writeInt(data.length);
+                    out.write(data);
+                }
+            }
+            return this;
+        }
+
+        ByteBuffer buffer() {
+            return ByteBuffer.wrap(bytes.toByteArray());
+        }
+    }
+
+    /**
+     * Copies what the callbacks receive, the decoder reuses its objects.
+     */
+    private static final class RecordingListener implements PgOutputListener {
+
+        long finalLsn;
+        long commitLsn;
+        long endLsn;
+        long commitTimeMicros;
+        int xid;
+        PgOutputRelation relation;
+
+        byte operation;
+        int changeXid;
+        long changeTransactionLsn;
+        long changeMessageLsn;
+        boolean hadOldTuple;
+        byte oldTupleKind;
+        List<String> oldValues;
+        List<String> newValues;
+        boolean newToast;
+        long firstNewLong;
+        boolean secondMatchesAbc;
+
+        final List<Integer> truncated = new ArrayList<>();
+        int truncateOptions;
+
+        @Override
+        public void onBegin(long finalLsn, long commitTimeMicros, int xid) {
+            this.finalLsn = finalLsn;
+            this.commitTimeMicros = commitTimeMicros;
+            this.xid = xid;
+        }
+
+        @Override
+        public void onCommit(long commitLsn, long endLsn, long commitTimeMicros) {
+            this.commitLsn = commitLsn;
+            this.endLsn = endLsn;
+            this.commitTimeMicros = commitTimeMicros;
+        }
+
+        @Override
+        public void onRelation(PgOutputRelation relation) {
+            this.relation = relation;
+        }
+
+        @Override
+        public void onRowChange(PgOutputRowChange change) {
+            operation = change.getOperation();
+            changeXid = change.getXid();
+            changeTransactionLsn = change.getTransactionLsn();
+            changeMessageLsn = change.getMessageLsn();
+            hadOldTuple = change.hasOldTuple();
+            oldTupleKind = change.getOldTupleKind();
+            oldValues = values(change.getOldTuple());
+            newValues = values(change.getNewTuple());
+
+            PgOutputTuple tuple = change.getNewTuple();
+            if (tuple != null) {
+                newToast = tuple.getColumnCount() > 1 && tuple.isUnchangedToast(1);
+                if (!tuple.isNull(0) && !tuple.isUnchangedToast(0)) {
+                    try {
+                        firstNewLong = tuple.getLong(0);
+                    } catch (NumberFormatException e) {
+                        firstNewLong = Long.MIN_VALUE;
+                    }
+                }
+                secondMatchesAbc = tuple.getColumnCount() > 1 && tuple.contentEquals(1, "abc");
+            }
+        }
+
+        @Override
+        public void onTruncate(int[] relationIds, int relationCount, int options) {
+            for (int i = 0; i < relationCount; i++) {
+                truncated.add(relationIds[i]);
+            }
+            truncateOptions = options;
+        }
+
+        private static List<String> values(PgOutputTuple tuple) {
+            if (tuple == null) {
+                return null;
+            }
+            List<String> values = new ArrayList<>();
+            for (int i = 0; i < tuple.getColumnCount(); i++) {
+                values.add(tuple.getString(i));
+            }
+            return values;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.chassis.logminer.cdc.postgres;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the OID keyed open addressing relation cache.
+ */
+class PgOutputRelationCacheTest {
+
+    @Test
+    @DisplayName("Should add, replace and look up relations by OID")
+    void testPutAndGet() {
+        PgOutputRelationCache cache = new PgOutputRelationCache();
+        PgOutputRelation first = relation(16384, "orders");
+        PgOutputRelation second = relation(16384, "orders_v2");
+
+        assertNull(cache.put(first));
+        assertSame(first, cache.get(16384));
+        assertSame(first, cache.put(second));
+        assertSame(second, cache.get(16384));
+        assertEquals(1, cache.size());
+        assertNull(cache.get(16385));
+    }
+
+    @Test
+    @DisplayName("Should reject InvalidOid, used to mark free slots")
+    void testRejectsOidZero() {
+        PgOutputRelationCache cache = new PgOutputRelationCache();
+
+        assertThrows(IllegalArgumentException.class, () -> cache.put(relation(0, "invalid")));
+        assertNull(cache.get(0));
+        assertNull(cache.remove(0));
+    }
+
+    @Test
+    @DisplayName("Should keep every relation when growing")
+    void testResize() {
+        PgOutputRelationCache cache = new PgOutputRelationCache();
+        for (int oid = 16384; oid < 16384 + 1000; oid++) {
+            cache.put(relation(oid, "t" + oid));
+        }
+
+        assertEquals(1000, cache.size());
+        for (int oid = 16384; oid < 16384 + 1000; oid++) {
+            assertEquals("t" + oid, cache.get(oid).getName());
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep probe chains reachable after removals")
+    void testRemoveKeepsChains() {
+        // 47 entries stay under the resize threshold of the initial 64 slots, so probe chains are long
+        PgOutputRelationCache cache = new PgOutputRelationCache();
+        List<Integer> oids = new ArrayList<>();
+        for (int i = 0; i < 47; i++) {
+            int oid = 16384 + i * 64;
+            oids.add(oid);
+            cache.put(relation(oid, "t" + oid));
+        }
+
+        for (int i = 0; i < oids.size(); i += 2) {
+            assertEquals("t" + oids.get(i), cache.remove(oids.get(i)).getName());
+            assertNull(cache.remove(oids.get(i)));
+        }
+        assertEquals(23, cache.size());
+        for (int i = 0; i < oids.size(); i++) {
+            PgOutputRelation relation = cache.get(oids.get(i));
+            if (i % 2 == 0) {
+                assertNull(relation);
+            } else {
+                assertEquals("t" + oids.get(i), relation.getName());
+            }
+        }
+
+        // Reinserted relations land in the holes and stay reachable
+        for (int i = 0; i < oids.size(); i += 2) {
+            assertNull(cache.put(relation(oids.get(i), "again" + oids.get(i))));
+        }
+        assertEquals(47, cache.size());
+        for (int i = 0; i < oids.size(); i++) {
+            assertEquals((i % 2 == 0 ? "again" : "t") + oids.get(i), cache.get(oids.get(i)).getName());
+        }
+    }
+
+    @Test
+    @DisplayName("Should match a HashMap through random puts and removes")
+    void testRandomOperations() {
+        PgOutputRelationCache cache = new PgOutputRelationCache();
+        Map<Integer, PgOutputRelation> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int step = 0; step < 20_000; step++) {
+            int oid = 1 + random.nextInt(300);
+            if (random.nextInt(3) == 0) {
+                assertSame(expected.remove(oid), cache.remove(oid));
+            } else {
+                PgOutputRelation relation = relation(oid, "t" + step);
+                assertSame(expected.put(oid, relation), cache.put(relation));
+            }
+            assertEquals(expected.size(), cache.size());
+        }
+        for (int oid = 1; oid <= 300; oid++) {
+            assertSame(expected.get(oid), cache.get(oid));
+        }
+    }
+
+    @Test
+    @DisplayName("Should be empty after clear")
+    void testClear() {
+        PgOutputRelationCache cache = new PgOutputRelationCache();
+        cache.put(relation(1, "a"));
+        cache.put(relation(2, "b"));
+        cache.clear();
+
+        assertEquals(0, cache.size());
+        assertNull(cache.get(1));
+        assertNull(cache.put(relation(1, "a")));
+    }
+
+    private static PgOutputRelation relation(int oid, String name) {
+        return new PgOutputRelation(oid, "public", name, PgOutputRelation.REPLICA_IDENTITY_DEFAULT,
+                new String[]{"id"}, new int[]{23}, new int[]{-1}, new boolean[]{true});
+    }
+}
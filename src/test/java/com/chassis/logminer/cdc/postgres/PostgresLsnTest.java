@@ -3,6 +3,7 @@ package com.chassis.logminer.cdc.postgres;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
+import org.postgresql.replication.LogSequenceNumber;
 
 import java.math.BigInteger;
 
@@ -924,4 +925,169 @@ class PostgresLsnTest {
             assertTrue(zero.compareTo(maxLong) < 0);
         }
     }
+
+    // ==================== X/Y Format Tests ====================
+
+    @Nested
+    @DisplayName("X/Y Format Tests")
+    class HexFormatTests {
+
+        @Test
+        @DisplayName("Should parse X/Y hexadecimal LSN")
+        void testParseHex() {
+            assertEquals(0x16B374D848L, PostgresLsn.parse("16/B374D848"));
+        }
+
+        @Test
+        @DisplayName("Should parse lower case hexadecimal LSN")
+        void testParseLowerCaseHex() {
+            assertEquals(0x16B374D848L, PostgresLsn.parse("16/b374d848"));
+        }
+
+        @Test
+        @DisplayName("Should parse 0/0")
+        void testParseZero() {
+            assertEquals(0L, PostgresLsn.parse("0/0"));
+        }
+
+        @Test
+        @DisplayName("Should parse the largest unsigned LSN")
+        void testParseUnsignedMax() {
+            assertEquals(-1L, PostgresLsn.parse("FFFFFFFF/FFFFFFFF"));
+        }
+
+        @Test
+        @DisplayName("Should parse LSN inside a larger string")
+        void testParseRange() {
+            String line = "slot=cdc_slot lsn=16/B374D848 active";
+
+            assertEquals(0x16B374D848L, PostgresLsn.parse(line, 18, 29));
+        }
+
+        @Test
+        @DisplayName("Should reject malformed LSNs")
+        void testParseInvalid() {
+            assertThrows(NumberFormatException.class, () -> PostgresLsn.parse("16B374D848"));
+            assertThrows(NumberFormatException.class, () -> PostgresLsn.parse("16/"));
+            assertThrows(NumberFormatException.class, () -> PostgresLsn.parse("/B374D848"));
+            assertThrows(NumberFormatException.class, () -> PostgresLsn.parse("16/B374D848/1"));
+            assertThrows(NumberFormatException.class, () -> PostgresLsn.parse("1G/B374D848"));
+            assertThrows(NumberFormatException.class, () -> PostgresLsn.parse("100000000/0"));
+        }
+
+        @Test
+        @DisplayName("valueOf should accept X/Y hexadecimal LSN")
+        void testValueOfHex() {
+            PostgresLsn lsn = PostgresLsn.valueOf("16/B374D848");
+
+            assertFalse(lsn.isNull());
+            assertEquals(0x16B374D848L, lsn.longValue());
+        }
+
+        @Test
+        @DisplayName("Should format X/Y without leading zeros")
+        void testAsString() {
+            assertEquals("16/B374D848", PostgresLsn.valueOf(0x16B374D848L).asString());
+            assertEquals("0/0", PostgresLsn.valueOf(0).asString());
+            assertEquals("0/1000", PostgresLsn.valueOf(0x1000).asString());
+            assertEquals("FFFFFFFF/FFFFFFFF", PostgresLsn.valueOf(-1L).asString());
+        }
+
+        @Test
+        @DisplayName("Should append X/Y to an existing builder")
+        void testFormatAppends() {
+            StringBuilder sb = new StringBuilder("lsn=");
+
+            PostgresLsn.format(0x16B374D848L, sb);
+
+            assertEquals("lsn=16/B374D848", sb.toString());
+        }
+
+        @Test
+        @DisplayName("Format and parse should round trip")
+        void testRoundTrip() {
+            long[] values = {0L, 1L, 0xFFFFFFFFL, 0x100000000L, 0x16B374D848L, Long.MAX_VALUE, -2L};
+            for (long value : values) {
+                assertEquals(value, PostgresLsn.parse(PostgresLsn.valueOf(value).asString()));
+            }
+        }
+    }
+
+    // ==================== LogSequenceNumber Conversion Tests ====================
+
+    @Nested
+    @DisplayName("LogSequenceNumber Conversion Tests")
+    class LogSequenceNumberTests {
+
+        @Test
+        @DisplayName("Should convert from LogSequenceNumber")
+        void testValueOfLogSequenceNumber() {
+            PostgresLsn lsn = PostgresLsn.valueOf(LogSequenceNumber.valueOf(0x16B374D848L));
+
+            assertEquals(0x16B374D848L, lsn.longValue());
+        }
+
+        @Test
+        @DisplayName("Should convert null LogSequenceNumber to NULL")
+        void testValueOfNullLogSequenceNumber() {
+            assertTrue(PostgresLsn.valueOf((LogSequenceNumber) null).isNull());
+        }
+
+        @Test
+        @DisplayName("Should convert to LogSequenceNumber")
+        void testToLogSequenceNumber() {
+            LogSequenceNumber lsn = PostgresLsn.valueOf(0x16B374D848L).toLogSequenceNumber();
+
+            assertEquals(0x16B374D848L, lsn.asLong());
+        }
+
+        @Test
+        @DisplayName("NULL should convert to INVALID_LSN")
+        void testNullToLogSequenceNumber() {
+            assertEquals(LogSequenceNumber.INVALID_LSN, PostgresLsn.NULL.toLogSequenceNumber());
+        }
+    }
+
+    // ==================== Segment Tests ====================
+
+    @Nested
+    @DisplayName("Segment and Offset Tests")
+    class SegmentTests {
+
+        @Test
+        @DisplayName("Should split into log id and offset")
+        void testLogIdAndOffset() {
+            PostgresLsn lsn = PostgresLsn.valueOf("16/B374D848");
+
+            assertEquals(0x16L, lsn.getLogId());
+            assertEquals(0xB374D848L, lsn.getLogOffset());
+        }
+
+        @Test
+        @DisplayName("Should compute segment number and offset")
+        void testSegment() {
+            PostgresLsn lsn = PostgresLsn.valueOf("16/B374D848");
+
+            assertEquals(0x16B3L, lsn.getSegmentNumber(PostgresLsn.DEFAULT_WAL_SEGMENT_SIZE));
+            assertEquals(0x74D848L, lsn.getSegmentOffset(PostgresLsn.DEFAULT_WAL_SEGMENT_SIZE));
+        }
+
+        @Test
+        @DisplayName("Should compute WAL file name like pg_walfile_name")
+        void testWalFileName() {
+            PostgresLsn lsn = PostgresLsn.valueOf("16/B374D848");
+
+            assertEquals("0000000100000016000000B3",
+                    lsn.getWalFileName(1, PostgresLsn.DEFAULT_WAL_SEGMENT_SIZE));
+        }
+
+        @Test
+        @DisplayName("Should compute WAL file name for larger segments")
+        void testWalFileNameLargeSegments() {
+            PostgresLsn lsn = PostgresLsn.valueOf("16/B374D848");
+
+            assertEquals("000000020000001600000002",
+                    lsn.getWalFileName(2, 1024L * 1024 * 1024));
+        }
+    }
 }